@@ -0,0 +1,374 @@
+package nablarch.core.dataformat;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import nablarch.core.log.Logger;
+import nablarch.core.log.LoggerManager;
+
+/**
+ * データファイルをチャンクに分割し、各チャンクの変換をスレッドプール上で並列に実行するパイプライン。
+ * <p/>
+ * 並列に読み込むリーダ（{@link ParallelFixedLengthRecordReader}、{@link ParallelVariableLengthRecordReader}、
+ * {@link ParallelJsonLinesRecordReader}）が共通で使用する。
+ * 本クラスは、データファイルに対するファイルチャネル、スレッドプール、変換中のチャンクを管理する。
+ * チャンクの境界の判定と、チャンクの変換処理は{@link ChunkSource}として各リーダが提供する。
+ * <p/>
+ * 本クラスはスレッドセーフではない。読み込みは呼び出し元のスレッドからのみ行うこと。
+ *
+ * @param <C> 変換が完了したチャンクの型
+ */
+final class ChunkPipeline<C> {
+
+    /** ロガー **/
+    private static final Logger LOGGER = LoggerManager.get(ChunkPipeline.class);
+
+    /**
+     * 変換するチャンクを提供するインタフェース。
+     *
+     * @param <C> 変換が完了したチャンクの型
+     */
+    interface ChunkSource<C> {
+
+        /**
+         * 次のチャンクを変換するタスクを生成する。
+         *
+         * @return チャンクを変換するタスク（これ以上チャンクがない場合はnull）
+         */
+        Callable<C> nextTask();
+    }
+
+    /** データファイル */
+    private final File dataFile;
+
+    /** チャンクを変換するスレッドプール */
+    private final ExecutorService executor;
+
+    /** スレッドプールを本クラスで生成したかどうか */
+    private final boolean ownsExecutor;
+
+    /** ファイルチャネル */
+    private final FileChannel channel;
+
+    /** データファイルのバイト長 */
+    private final long fileSize;
+
+    /** 変換中または未返却のチャンク（投入順） */
+    private final LinkedList<Future<C>> pendingChunks = new LinkedList<Future<C>>();
+
+    /** 変換するチャンクを提供するオブジェクト */
+    private final ChunkSource<C> source;
+
+    /** 同時に変換を行うチャンクの最大数 */
+    private int maxPendingChunks = Runtime.getRuntime().availableProcessors() * 2;
+
+    /** ファイル内の順序どおりにチャンクを返却するかどうか */
+    private boolean ordered = true;
+
+    /** 読み込みを開始したかどうか */
+    private boolean started = false;
+
+    /** 変換が完了した順にチャンクを取得するためのサービス（順不同で返却する場合に使用する） */
+    private CompletionService<C> completionService;
+
+    /**
+     * コンストラクタ。
+     * <p/>
+     * データファイルに対するファイルチャネルを開く。
+     *
+     * @param dataFile     データファイル
+     * @param executor     チャンクを変換するスレッドプール
+     * @param ownsExecutor スレッドプールを本クラスで生成したかどうか（trueの場合は{@link #close()}で終了する）
+     * @param source       変換するチャンクを提供するオブジェクト
+     */
+    ChunkPipeline(File dataFile, ExecutorService executor, boolean ownsExecutor, ChunkSource<C> source) {
+        this.dataFile = dataFile;
+        this.source = source;
+        this.executor = executor;
+        this.ownsExecutor = ownsExecutor;
+        try {
+            channel = new RandomAccessFile(dataFile, "r").getChannel();
+            fileSize = channel.size();
+        } catch (IOException e) {
+            throw new RuntimeException(
+                "I/O error happened while opening the file. file path=[" + dataFile.getAbsolutePath() + "]"
+              , e
+            );
+        }
+    }
+
+    /**
+     * データファイルのバイト長を返却する。
+     *
+     * @return データファイルのバイト長
+     */
+    long getFileSize() {
+        return fileSize;
+    }
+
+    /**
+     * 同時に変換を行うチャンクの最大数を設定する。
+     *
+     * @param maxPendingChunks 同時に変換を行うチャンクの最大数
+     */
+    void setMaxPendingChunks(int maxPendingChunks) {
+        checkNotStarted();
+        if (maxPendingChunks <= 0) {
+            throw new IllegalArgumentException("max pending chunks was invalid. max pending chunks must be bigger than 0.");
+        }
+        this.maxPendingChunks = maxPendingChunks;
+    }
+
+    /**
+     * ファイル内の順序どおりにチャンクを返却するかどうかを設定する。
+     *
+     * @param ordered ファイル内の順序どおりに返却する場合はtrue
+     */
+    void setOrdered(boolean ordered) {
+        checkNotStarted();
+        this.ordered = ordered;
+    }
+
+    /**
+     * 1チャンクあたりのバイト長を検証する。
+     *
+     * @param chunkSize 1チャンクあたりのバイト長
+     */
+    void checkChunkSize(int chunkSize) {
+        checkNotStarted();
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunk size was invalid. chunk size must be bigger than 0.");
+        }
+    }
+
+    /**
+     * 読み込みを開始したかどうかを返却する。
+     *
+     * @return 読み込みを開始した場合はtrue
+     */
+    boolean isStarted() {
+        return started;
+    }
+
+    /**
+     * 読み込みを開始する。
+     * <p/>
+     * 以降は設定を変更できない。
+     */
+    void start() {
+        if (started) {
+            return;
+        }
+        started = true;
+        if (!ordered) {
+            completionService = new ExecutorCompletionService<C>(executor);
+        }
+    }
+
+    /**
+     * 読み込みを開始していないことを検証する。
+     */
+    void checkNotStarted() {
+        if (started) {
+            throw new IllegalStateException("reading has already started. settings must be changed before reading.");
+        }
+    }
+
+    /**
+     * 変換が完了した次のチャンクを取得する。
+     * <p/>
+     * 順序どおりに返却する場合は投入した順に、それ以外の場合は変換が完了した順に返却する。
+     * チャンクを取得した後、同時に変換を行うチャンクの最大数まで次のチャンクの変換を投入する。
+     *
+     * @return チャンク（これ以上チャンクがない場合はnull）
+     */
+    C next() {
+        start();
+        submitChunks();
+        if (pendingChunks.isEmpty()) {
+            return null;
+        }
+        Future<C> future;
+        if (ordered) {
+            future = pendingChunks.poll();
+        } else {
+            future = take();
+            pendingChunks.remove(future);
+        }
+        C chunk = getResult(future);
+        submitChunks();
+        return chunk;
+    }
+
+    /**
+     * 同時に変換を行うチャンクの最大数まで、チャンクの変換を投入する。
+     */
+    private void submitChunks() {
+        while (pendingChunks.size() < maxPendingChunks) {
+            Callable<C> task = source.nextTask();
+            if (task == null) {
+                return;
+            }
+            pendingChunks.add(ordered ? executor.submit(task) : completionService.submit(task));
+        }
+    }
+
+    /**
+     * 変換が完了したチャンクを待ち合わせる。
+     *
+     * @return 変換が完了したチャンク
+     */
+    private Future<C> take() {
+        try {
+            return completionService.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("interrupted while waiting for a chunk. file path=[" + dataFile.getPath() + "]", e);
+        }
+    }
+
+    /**
+     * チャンクの変換結果を取得する。
+     *
+     * @param future チャンクの変換結果
+     * @return チャンク
+     */
+    private C getResult(Future<C> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("interrupted while waiting for a chunk. file path=[" + dataFile.getPath() + "]", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw newIOError(cause);
+        }
+    }
+
+    /**
+     * 読み込み中に発生したIOエラーを通知する例外を生成する。
+     *
+     * @param cause 発生したエラー
+     * @return 例外
+     */
+    RuntimeException newIOError(Throwable cause) {
+        return new RuntimeException(
+                "I/O error happened while reading the file. file path=["
+                        + dataFile.getPath() + "]", cause);
+    }
+
+    /**
+     * ファイルチャネルの指定した位置から、バッファの残りのバイト数を読み込む。
+     * <p/>
+     * ファイルの終端に到達した場合は、それまでに読み込んだバイト数を返却する。
+     *
+     * @param buff     読み込み先のバッファ
+     * @param position 読み込みを開始する位置
+     * @return 読み込んだバイト数
+     * @throws IOException 読み込みに伴うIO処理で問題が発生した場合。
+     */
+    int read(ByteBuffer buff, long position) throws IOException {
+        int start = buff.position();
+        while (buff.hasRemaining()) {
+            if (channel.read(buff, position + buff.position() - start) == -1) {
+                break;
+            }
+        }
+        return buff.position() - start;
+    }
+
+    /**
+     * ファイルチャネルの指定した位置から読み込む入力ストリームを生成する。
+     *
+     * @param position 読み込みを開始する位置
+     * @return 入力ストリーム
+     */
+    InputStream openStream(long position) {
+        return new ChannelInputStream(position);
+    }
+
+    /**
+     * 変換中のチャンクを取り消す。
+     */
+    void cancel() {
+        for (Iterator<Future<C>> it = pendingChunks.iterator(); it.hasNext();) {
+            it.next().cancel(true);
+            it.remove();
+        }
+    }
+
+    /**
+     * 変換中のチャンクを取り消し、データファイルに対するチャネルを閉じる。
+     * <p/>
+     * スレッドプールを本クラスで生成した場合は、スレッドプールも終了する。
+     */
+    void close() {
+        cancel();
+        if (ownsExecutor) {
+            executor.shutdownNow();
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            LOGGER.logWarn("I/O error happened while closing the file.", e);
+        }
+    }
+
+    /**
+     * ファイルチャネルの指定した位置から読み込む入力ストリーム。
+     * <p/>
+     * 位置を指定して読み込むため、複数のスレッドで同じファイルチャネルを共有できる。
+     * ファイルチャネルは{@link ChunkPipeline#close()}で閉じるため、本ストリームのクローズでは閉じない。
+     */
+    private final class ChannelInputStream extends InputStream {
+
+        /** 次に読み込む位置 */
+        private long position;
+
+        /**
+         * コンストラクタ。
+         * @param position 読み込みを開始する位置
+         */
+        private ChannelInputStream(long position) {
+            this.position = position;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) == -1 ? -1 : b[0] & 0xFF;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            int read = channel.read(ByteBuffer.wrap(b, off, len), position);
+            if (read > 0) {
+                position += read;
+            }
+            return read;
+        }
+    }
+}
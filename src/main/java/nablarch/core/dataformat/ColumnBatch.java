@@ -0,0 +1,451 @@
+package nablarch.core.dataformat;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import nablarch.core.util.annotation.Published;
+
+/**
+ * 同一のレコードタイプの複数レコードを、フィールドごとの配列（カラム）として保持するクラス。
+ * <p>
+ * レコードごとに{@link DataRecord}を生成する代わりに、各フィールドの値をプリミティブ型の配列などに格納する。
+ * 集計処理などで、同一フィールドの値を連続して処理する場合に使用する。
+ * </p>
+ * <p>
+ * 本クラスのインスタンスは{@link ColumnBatchReader}によって再利用される。
+ * 次のバッチを読み込むと内容が上書きされるため、必要な値は読み込み前に取り出しておくこと。
+ * </p>
+ *
+ * @see ColumnBatchReader
+ */
+@Published(tag = "architect")
+public final class ColumnBatch {
+
+    /** レコードタイプ */
+    private final RecordDefinition recordDefinition;
+
+    /** カラムの一覧（フィールドの定義順） */
+    private final List<Column> columns;
+
+    /** フィールド名からカラムへのMap */
+    private final Map<String, Column> columnMap = new HashMap<String, Column>();
+
+    /** レコードごとのレコード番号 */
+    private final long[] recordNumbers;
+
+    /** 格納しているレコード数 */
+    private int size = 0;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param recordDefinition レコードタイプ
+     * @param columns          カラムの一覧
+     * @param capacity         格納できる最大のレコード数
+     */
+    ColumnBatch(RecordDefinition recordDefinition, List<Column> columns, int capacity) {
+        this.recordDefinition = recordDefinition;
+        this.columns = Collections.unmodifiableList(new ArrayList<Column>(columns));
+        for (Column column : columns) {
+            columnMap.put(column.getName(), column);
+        }
+        recordNumbers = new long[capacity];
+    }
+
+    /**
+     * レコードタイプ名を取得する。
+     * @return レコードタイプ名
+     */
+    public String getRecordType() {
+        return recordDefinition.getTypeName();
+    }
+
+    /**
+     * レコードタイプの定義を取得する。
+     * @return レコードタイプの定義
+     */
+    public RecordDefinition getRecordDefinition() {
+        return recordDefinition;
+    }
+
+    /**
+     * 格納しているレコード数を取得する。
+     * @return レコード数
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 格納できる最大のレコード数を取得する。
+     * @return 最大のレコード数
+     */
+    public int capacity() {
+        return recordNumbers.length;
+    }
+
+    /**
+     * 指定した行のレコード番号を取得する。
+     * @param row 行（0始まり）
+     * @return レコード番号
+     */
+    public long getRecordNumberAsLong(int row) {
+        checkRow(row);
+        return recordNumbers[row];
+    }
+
+    /**
+     * 指定した行のレコード番号を取得する。
+     * @param row 行（0始まり）
+     * @return レコード番号
+     * @throws IllegalStateException レコード番号がint型で表現できない場合
+     * @deprecated {@link #getRecordNumberAsLong(int)}を使用すること。
+     */
+    @Deprecated
+    public int getRecordNumber(int row) {
+        return RecordNumberUtil.toInt(getRecordNumberAsLong(row));
+    }
+
+    /**
+     * カラムの一覧を取得する。
+     * @return カラムの一覧（フィールドの定義順）
+     */
+    public List<Column> getColumns() {
+        return columns;
+    }
+
+    /**
+     * 指定したフィールドのカラムを取得する。
+     *
+     * @param fieldName フィールド名
+     * @return カラム
+     * @throws IllegalArgumentException 指定したフィールドのカラムが存在しない場合
+     */
+    public Column getColumn(String fieldName) throws IllegalArgumentException {
+        Column column = columnMap.get(fieldName);
+        if (column == null) {
+            throw new IllegalArgumentException(
+                    "column was not found. field name=[" + fieldName + "], record type=[" + getRecordType() + "].");
+        }
+        return column;
+    }
+
+    /**
+     * 格納しているレコードを破棄する。
+     */
+    void clear() {
+        size = 0;
+    }
+
+    /**
+     * レコードを格納する行を追加する。
+     *
+     * @param recordNumber レコード番号
+     * @return 追加した行
+     */
+    int addRow(long recordNumber) {
+        recordNumbers[size] = recordNumber;
+        return size++;
+    }
+
+    /**
+     * 格納できる最大のレコード数に達したかどうかを判定する。
+     * @return 最大のレコード数に達した場合はtrue
+     */
+    boolean isFull() {
+        return size == recordNumbers.length;
+    }
+
+    /**
+     * 行が範囲内であることを検証する。
+     * @param row 行
+     */
+    private void checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("row was out of range. row=[" + row + "], size=[" + size + "].");
+        }
+    }
+
+    /**
+     * カラムの値の格納形式。
+     */
+    public enum ColumnType {
+        /** スケールなしの整数（{@link Column#getLongs()}） */
+        LONG,
+        /** スケールなしの値とスケールで表した数値（{@link Column#getLongs()}、{@link Column#getScale(int)}） */
+        DECIMAL,
+        /** 文字列（{@link Column#getStrings()}） */
+        STRING,
+        /** 辞書に登録した文字列のコード（{@link Column#getCodes()}、{@link Column#getDictionary()}） */
+        DICTIONARY,
+        /** 上記以外の値（{@link Column#getObjects()}） */
+        OBJECT
+    }
+
+    /**
+     * 1フィールド分の値を保持するカラム。
+     * <p/>
+     * 値は、カラムの格納形式（{@link ColumnType}）に応じた配列に格納する。
+     * 配列の長さはバッチの最大のレコード数であり、{@link ColumnBatch#size()}以降の要素は使用しない。
+     */
+    public static final class Column {
+
+        /** フィールド名 */
+        private final String name;
+
+        /** 格納形式 */
+        private final ColumnType type;
+
+        /** 数値のスケールなしの値（LONG、DECIMAL） */
+        private final long[] longs;
+
+        /** 数値のスケール（DECIMALで、行ごとにスケールが異なる場合） */
+        private final int[] scales;
+
+        /** 数値のスケール（LONG、DECIMALで、全ての行のスケールが同じ場合） */
+        private final int scale;
+
+        /** 数値がnullかどうか（LONG、DECIMAL） */
+        private final boolean[] nulls;
+
+        /** 文字列（STRING） */
+        private final String[] strings;
+
+        /** 辞書のコード（DICTIONARY） */
+        private final int[] codes;
+
+        /** 辞書に登録した文字列（DICTIONARY） */
+        private final List<String> dictionary;
+
+        /** 辞書に登録した文字列からコードへのMap（DICTIONARY） */
+        private final Map<String, Integer> dictionaryCodes;
+
+        /** 値（OBJECT） */
+        private final Object[] objects;
+
+        /**
+         * コンストラクタ。
+         *
+         * @param name     フィールド名
+         * @param type     格納形式
+         * @param capacity 格納できる最大のレコード数
+         * @param scale    数値のスケール（行ごとにスケールが異なる場合は-1）
+         */
+        Column(String name, ColumnType type, int capacity, int scale) {
+            this.name = name;
+            this.type = type;
+            this.scale = scale;
+            boolean numeric = type == ColumnType.LONG || type == ColumnType.DECIMAL;
+            longs = numeric ? new long[capacity] : null;
+            nulls = numeric ? new boolean[capacity] : null;
+            scales = type == ColumnType.DECIMAL && scale < 0 ? new int[capacity] : null;
+            strings = type == ColumnType.STRING ? new String[capacity] : null;
+            codes = type == ColumnType.DICTIONARY ? new int[capacity] : null;
+            dictionary = type == ColumnType.DICTIONARY ? new ArrayList<String>() : null;
+            dictionaryCodes = type == ColumnType.DICTIONARY ? new HashMap<String, Integer>() : null;
+            objects = type == ColumnType.OBJECT ? new Object[capacity] : null;
+        }
+
+        /**
+         * フィールド名を取得する。
+         * @return フィールド名
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * 格納形式を取得する。
+         * @return 格納形式
+         */
+        public ColumnType getType() {
+            return type;
+        }
+
+        /**
+         * 数値のスケールなしの値の配列を取得する（LONG、DECIMAL）。
+         * <p/>
+         * nullの行の値は0となる。nullかどうかは{@link #isNull(int)}で判定すること。
+         *
+         * @return スケールなしの値の配列
+         */
+        public long[] getLongs() {
+            checkType(longs, "LONG or DECIMAL");
+            return longs;
+        }
+
+        /**
+         * 指定した行の数値のスケールを取得する（LONG、DECIMAL）。
+         * @param row 行
+         * @return スケール
+         */
+        public int getScale(int row) {
+            checkType(longs, "LONG or DECIMAL");
+            return scales == null ? scale : scales[row];
+        }
+
+        /**
+         * 文字列の配列を取得する（STRING）。
+         * @return 文字列の配列
+         */
+        public String[] getStrings() {
+            checkType(strings, "STRING");
+            return strings;
+        }
+
+        /**
+         * 辞書のコードの配列を取得する（DICTIONARY）。
+         * <p/>
+         * コードは{@link #getDictionary()}の添字であり、値がnullの行は-1となる。
+         * 辞書はバッチをまたいで共有されるため、同じ文字列には常に同じコードが割り当てられる。
+         *
+         * @return コードの配列
+         */
+        public int[] getCodes() {
+            checkType(codes, "DICTIONARY");
+            return codes;
+        }
+
+        /**
+         * 辞書に登録した文字列の一覧を取得する（DICTIONARY）。
+         * @return 辞書に登録した文字列の一覧（コードの順）
+         */
+        public List<String> getDictionary() {
+            checkType(codes, "DICTIONARY");
+            return Collections.unmodifiableList(dictionary);
+        }
+
+        /**
+         * 値の配列を取得する（OBJECT）。
+         * @return 値の配列
+         */
+        public Object[] getObjects() {
+            checkType(objects, "OBJECT");
+            return objects;
+        }
+
+        /**
+         * 指定した行の値がnullかどうかを判定する。
+         * @param row 行
+         * @return nullの場合はtrue
+         */
+        public boolean isNull(int row) {
+            switch (type) {
+            case LONG:
+            case DECIMAL:
+                return nulls[row];
+            case STRING:
+                return strings[row] == null;
+            case DICTIONARY:
+                return codes[row] < 0;
+            default:
+                return objects[row] == null;
+            }
+        }
+
+        /**
+         * 指定した行の値を、{@link DataRecord}に格納される場合と同じ型で取得する。
+         * <p/>
+         * 数値はBigDecimal、文字列はStringとして返却する。
+         *
+         * @param row 行
+         * @return 値
+         */
+        public Object getValue(int row) {
+            if (isNull(row)) {
+                return null;
+            }
+            switch (type) {
+            case LONG:
+            case DECIMAL:
+                return BigDecimal.valueOf(longs[row], getScale(row));
+            case STRING:
+                return strings[row];
+            case DICTIONARY:
+                return dictionary.get(codes[row]);
+            default:
+                return objects[row];
+            }
+        }
+
+        /**
+         * 格納形式に対応する配列が存在することを検証する。
+         * @param values   配列
+         * @param expected 期待する格納形式
+         */
+        private void checkType(Object values, String expected) {
+            if (values == null) {
+                throw new IllegalStateException(
+                        "column type was invalid. column type must be " + expected + ". "
+                      + "field name=[" + name + "], column type=[" + type + "].");
+            }
+        }
+
+        /**
+         * 数値を設定する（LONG、DECIMAL）。
+         * @param row           行
+         * @param unscaledValue スケールなしの値
+         * @param rowScale      スケール（行ごとにスケールが異なる場合のみ使用する）
+         */
+        void setNumber(int row, long unscaledValue, int rowScale) {
+            longs[row] = unscaledValue;
+            nulls[row] = false;
+            if (scales != null) {
+                scales[row] = rowScale;
+            }
+        }
+
+        /**
+         * 数値にnullを設定する（LONG、DECIMAL）。
+         * @param row 行
+         */
+        void setNull(int row) {
+            longs[row] = 0L;
+            nulls[row] = true;
+            if (scales != null) {
+                scales[row] = 0;
+            }
+        }
+
+        /**
+         * 値を設定する（STRING、DICTIONARY、OBJECT）。
+         * @param row   行
+         * @param value 値
+         */
+        void setValue(int row, Object value) {
+            switch (type) {
+            case STRING:
+                strings[row] = (String) value;
+                break;
+            case DICTIONARY:
+                codes[row] = toCode((String) value);
+                break;
+            default:
+                objects[row] = value;
+                break;
+            }
+        }
+
+        /**
+         * 文字列を辞書のコードに変換する。辞書に存在しない場合は登録する。
+         * @param value 文字列
+         * @return コード（nullの場合は-1）
+         */
+        private int toCode(String value) {
+            if (value == null) {
+                return -1;
+            }
+            Integer code = dictionaryCodes.get(value);
+            if (code == null) {
+                code = dictionary.size();
+                dictionary.add(value);
+                dictionaryCodes.put(value, code);
+            }
+            return code;
+        }
+    }
+}
@@ -0,0 +1,573 @@
+package nablarch.core.dataformat;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import nablarch.core.dataformat.ColumnBatch.Column;
+import nablarch.core.dataformat.ColumnBatch.ColumnType;
+import nablarch.core.dataformat.convertor.datatype.ByteStreamDataString;
+import nablarch.core.dataformat.convertor.datatype.CharacterStreamDataString;
+import nablarch.core.dataformat.convertor.datatype.LongDecodable;
+import nablarch.core.dataformat.convertor.datatype.NumberStringDecimal;
+import nablarch.core.dataformat.convertor.value.CharacterReplacer;
+import nablarch.core.dataformat.convertor.value.DefaultValue;
+import nablarch.core.dataformat.convertor.value.NumberString;
+import nablarch.core.dataformat.convertor.value.Padding;
+import nablarch.core.dataformat.convertor.value.UseEncoding;
+import nablarch.core.log.Logger;
+import nablarch.core.log.LoggerManager;
+import nablarch.core.util.annotation.Published;
+
+/**
+ * 固定長および可変長ファイルのレコードを、複数件ずつ{@link ColumnBatch}に読み込むリーダ。
+ * <p>
+ * 同一のレコードタイプが連続するレコードを、指定した件数まで1つのバッチに格納する。
+ * マルチレイアウトのファイルでは、レコードタイプが切り替わった時点でバッチを区切るため、
+ * バッチの順序はファイル内のレコードの順序と一致する。
+ * </p>
+ * <p>
+ * 各フィールドは、以下の格納形式のカラムに格納する。
+ * <ul>
+ * <li>ゾーン数値およびパック数値（18桁以下）：スケールなしのlong値（小数部を持つ場合はスケールとあわせて保持する）</li>
+ * <li>数値文字列、数値のコンバータが設定されたフィールド：スケールなしのlong値と、行ごとのスケール</li>
+ * <li>文字列：String（{@link #setDictionaryEncodedFields(Set)}で指定したフィールドは、辞書のコード）</li>
+ * <li>上記以外：{@link DataRecord}に格納される場合と同じ値</li>
+ * </ul>
+ * </p>
+ * <p>
+ * バッチはレコードタイプごとに再利用する。次のバッチを読み込むと内容が上書きされる点に注意すること。
+ * </p>
+ * <p>
+ * 本クラスはスレッドセーフを考慮した実装にはなっていないので、呼び出し元で同期化の制御を行うこと。
+ * </p>
+ */
+@Published(tag = "architect")
+public class ColumnBatchReader implements Closeable {
+
+    /** ロガー **/
+    private static final Logger LOGGER = LoggerManager.get(ColumnBatchReader.class);
+
+    /** ファイル読み込みの際に使用するバッファのサイズ */
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    /** 文字列の値を変更しないコンバータ */
+    private static final Set<Class<?>> STRING_CONVERTORS = new HashSet<Class<?>>();
+
+    static {
+        STRING_CONVERTORS.add(DefaultValue.class);
+        STRING_CONVERTORS.add(Padding.class);
+        STRING_CONVERTORS.add(UseEncoding.class);
+        STRING_CONVERTORS.add(CharacterReplacer.class);
+    }
+
+    /** long型で表せる最大のビット長 */
+    private static final int MAX_LONG_BIT_LENGTH = 63;
+
+    /** データファイル */
+    private final File dataFile;
+
+    /** フォーマッタ */
+    private final DataRecordFormatterSupport formatter;
+
+    /** ファイルストリーム */
+    private final InputStream source;
+
+    /** 1バッチあたりの最大のレコード数 */
+    private final int batchSize;
+
+    /** レコードの読み込み元 */
+    private final RecordSource recordSource;
+
+    /** レコードタイプごとのバッチ */
+    private final Map<RecordDefinition, BatchLayout> layouts = new HashMap<RecordDefinition, BatchLayout>();
+
+    /** 辞書のコードとして格納するフィールドの名前 */
+    private Set<String> dictionaryEncodedFields = Collections.emptySet();
+
+    /** 読み込み済みで、バッチに格納していないレコードのレコードタイプ */
+    private RecordDefinition pendingType;
+
+    /** 読み込み済みで、バッチに格納していないレコードのレコード番号 */
+    private long pendingRecordNumber;
+
+    /**
+     * コンストラクタ。
+     * @param dataFile   データファイル
+     * @param layoutFile フォーマット定義ファイル
+     * @param batchSize  1バッチあたりの最大のレコード数
+     */
+    public ColumnBatchReader(File dataFile, File layoutFile, int batchSize) {
+        this(dataFile, FormatterFactory.getInstance().createFormatter(layoutFile), batchSize);
+    }
+
+    /**
+     * コンストラクタ。
+     * @param dataFile         データファイル
+     * @param layoutDefinition フォーマット定義情報保持クラス
+     * @param batchSize        1バッチあたりの最大のレコード数
+     */
+    public ColumnBatchReader(File dataFile, LayoutDefinition layoutDefinition, int batchSize) {
+        this(dataFile, FormatterFactory.getInstance().createFormatter(layoutDefinition), batchSize);
+    }
+
+    /**
+     * コンストラクタ。
+     * @param dataFile  データファイル
+     * @param formatter フォーマッタ
+     * @param batchSize 1バッチあたりの最大のレコード数
+     */
+    private ColumnBatchReader(File dataFile, DataRecordFormatter formatter, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batch size was invalid. batch size must be bigger than 0.");
+        }
+        if (formatter instanceof FixedLengthDataRecordFormatter) {
+            recordSource = new FixedLengthSource((FixedLengthDataRecordFormatter) formatter);
+        } else if (formatter instanceof VariableLengthDataRecordFormatter) {
+            recordSource = new VariableLengthSource((VariableLengthDataRecordFormatter) formatter);
+        } else {
+            throw new IllegalArgumentException(
+                    "invalid formatter was specified. file type must be 'Fixed' or 'Variable'. formatter=["
+                            + formatter.getClass().getName() + "].");
+        }
+        this.dataFile = dataFile;
+        this.formatter = (DataRecordFormatterSupport) formatter;
+        this.batchSize = batchSize;
+        try {
+            source = new BufferedInputStream(new FileInputStream(dataFile), DEFAULT_BUFFER_SIZE);
+        } catch (IOException e) {
+            throw new RuntimeException(
+                "I/O error happened while opening the file. file path=[" + dataFile.getAbsolutePath() + "]"
+              , e
+            );
+        }
+        formatter.setInputStream(source).initialize();
+    }
+
+    /**
+     * 辞書のコードとして格納するフィールドの名前を設定する。
+     * <p/>
+     * 指定したフィールドの値は、カラムごとの辞書に登録し、辞書のコードとして格納する。
+     * 取り得る値の種類が少ないフィールド（区分値など）に使用することで、文字列の比較をコードの比較に置き換えられる。
+     * 文字列以外の値となるフィールドは指定できない。
+     * <p/>
+     * 最初のバッチを読み込む前に設定すること。
+     *
+     * @param fieldNames フィールドの名前
+     * @return このオブジェクト自体
+     */
+    public ColumnBatchReader setDictionaryEncodedFields(Set<String> fieldNames) {
+        dictionaryEncodedFields = new HashSet<String>(fieldNames);
+        layouts.clear();
+        return this;
+    }
+
+    /**
+     * 読み込むフィールドの名前を設定する。
+     * <p/>
+     * 指定したフィールドのみをカラムとして読み込む。
+     * 詳細は{@link DataRecordFormatterSupport#setProjectedFields(Set)}を参照。
+     * 最初のバッチを読み込む前に設定すること。
+     *
+     * @param projectedFields 読み込むフィールドの名前（全てのフィールドを読み込む場合はnull）
+     * @return このオブジェクト自体
+     */
+    public ColumnBatchReader setProjectedFields(Set<String> projectedFields) {
+        formatter.setProjectedFields(projectedFields);
+        layouts.clear();
+        return this;
+    }
+
+    /**
+     * 次のバッチを読み込む。
+     * <p/>
+     * 同一のレコードタイプが連続するレコードを、最大のレコード数まで読み込む。
+     *
+     * @return バッチ（これ以上読み込むレコードがない場合はnull）
+     */
+    public ColumnBatch read() {
+        try {
+            ColumnBatch batch = null;
+            BatchLayout layout = null;
+            while (true) {
+                if (pendingType == null) {
+                    pendingType = recordSource.next();
+                    if (pendingType == null) {
+                        break;
+                    }
+                    pendingRecordNumber = formatter.getRecordNumberAsLong();
+                }
+                if (layout == null) {
+                    layout = getLayout(pendingType);
+                    batch = layout.batch;
+                    batch.clear();
+                } else if (layout.recordDefinition != pendingType) {
+                    // レコードタイプが切り替わった場合は、読み込んだレコードを次のバッチに格納する
+                    break;
+                }
+                int row = batch.addRow(pendingRecordNumber);
+                recordSource.fill(layout, row);
+                pendingType = null;
+                if (batch.isFull()) {
+                    break;
+                }
+            }
+            return batch;
+        } catch (InvalidDataFormatException e) {
+            throw e.setInputSourcePath(dataFile.getAbsolutePath());
+        } catch (IOException e) {
+            throw new RuntimeException(
+                    "I/O error happened while reading the file. file path=["
+                            + dataFile.getPath() + "]", e);
+        }
+    }
+
+    /**
+     * 読み込み済みのレコードのレコード番号を返却する。
+     * @return レコード番号
+     */
+    public long getRecordNumberAsLong() {
+        return formatter.getRecordNumberAsLong();
+    }
+
+    /**
+     * 読み込み済みのレコードのレコード番号を返却する。
+     * @return レコード番号
+     * @throws IllegalStateException レコード番号がint型で表現できない場合
+     * @deprecated {@link #getRecordNumberAsLong()}を使用すること。
+     */
+    @Deprecated
+    public int getRecordNumber() {
+        return RecordNumberUtil.toInt(getRecordNumberAsLong());
+    }
+
+    /**
+     * 指定されたデータファイルに対するストリームを閉じ、ファイルハンドラを開放する。
+     */
+    public void close() {
+        formatter.close();
+        try {
+            source.close();
+        } catch (IOException e) {
+            LOGGER.logWarn("I/O error happened while closing the file.", e);
+        }
+    }
+
+    /**
+     * レコードタイプに対応するバッチのレイアウトを取得する。
+     * レイアウトは初回の呼び出し時に、フィールド定義から生成する。
+     *
+     * @param recordDef レコードタイプ
+     * @return バッチのレイアウト
+     */
+    private BatchLayout getLayout(RecordDefinition recordDef) {
+        BatchLayout layout = layouts.get(recordDef);
+        if (layout == null) {
+            layout = createLayout(recordDef);
+            layouts.put(recordDef, layout);
+        }
+        return layout;
+    }
+
+    /**
+     * レコードタイプのフィールド定義から、バッチのレイアウトを生成する。
+     *
+     * @param recordDef レコードタイプ
+     * @return バッチのレイアウト
+     */
+    private BatchLayout createLayout(RecordDefinition recordDef) {
+        boolean[] projection = formatter.getProjection(recordDef);
+        List<FieldDefinition> fields = new ArrayList<FieldDefinition>();
+        List<Column> columns = new ArrayList<Column>();
+        List<FieldDefinition> recordFields = recordDef.getFields();
+        for (int i = 0; i < recordFields.size(); i++) {
+            FieldDefinition field = recordFields.get(i);
+            if (field.isFiller() || (projection != null && !projection[i])) {
+                continue;
+            }
+            fields.add(field);
+            columns.add(createColumn(field));
+        }
+        return new BatchLayout(recordDef, fields, new ColumnBatch(recordDef, columns, batchSize));
+    }
+
+    /**
+     * フィールド定義から、フィールドの値を格納するカラムを生成する。
+     *
+     * @param field フィールド定義
+     * @return カラム
+     */
+    private Column createColumn(FieldDefinition field) {
+        String name = field.getName();
+        if (dictionaryEncodedFields.contains(name)) {
+            return new Column(name, ColumnType.DICTIONARY, batchSize, 0);
+        }
+        if (recordSource.isLongDecodable(field)) {
+            int scale = ((LongDecodable) field.getDataType()).getScale();
+            return new Column(name, scale == 0 ? ColumnType.LONG : ColumnType.DECIMAL, batchSize, scale);
+        }
+        if (isNumber(field)) {
+            return new Column(name, ColumnType.DECIMAL, batchSize, -1);
+        }
+        if (isString(field)) {
+            return new Column(name, ColumnType.STRING, batchSize, 0);
+        }
+        return new Column(name, ColumnType.OBJECT, batchSize, 0);
+    }
+
+    /**
+     * フィールドの値が数値（BigDecimal）となるかどうかを判定する。
+     *
+     * @param field フィールド定義
+     * @return 数値となる場合はtrue
+     */
+    private static boolean isNumber(FieldDefinition field) {
+        if (field.getDataType() instanceof NumberStringDecimal) {
+            return field.getConvertors().isEmpty();
+        }
+        List<?> convertors = field.getConvertors();
+        return !convertors.isEmpty() && convertors.get(convertors.size() - 1) instanceof NumberString;
+    }
+
+    /**
+     * フィールドの値が文字列となるかどうかを判定する。
+     *
+     * @param field フィールド定義
+     * @return 文字列となる場合はtrue
+     */
+    private static boolean isString(FieldDefinition field) {
+        if (!(field.getDataType() instanceof ByteStreamDataString)
+                && !(field.getDataType() instanceof CharacterStreamDataString)) {
+            return false;
+        }
+        for (Object convertor : field.getConvertors()) {
+            if (!STRING_CONVERTORS.contains(convertor.getClass())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 数値、またはnullをカラムに格納する。
+     *
+     * @param column カラム
+     * @param row    行
+     * @param field  フィールド定義
+     * @param value  値
+     */
+    private void setNumber(Column column, int row, FieldDefinition field, Object value) {
+        if (value == null) {
+            column.setNull(row);
+            return;
+        }
+        BigDecimal decimal = (BigDecimal) value;
+        if (decimal.scale() < 0) {
+            decimal = decimal.setScale(0);
+        }
+        BigInteger unscaled = decimal.unscaledValue();
+        if (unscaled.bitLength() > MAX_LONG_BIT_LENGTH) {
+            throw formatter.newInvalidDataFormatException(
+                    "value was too large to store in a column batch. ",
+                    "unscaled value must be in the range of long. value=[", decimal, "]."
+            ).setFieldName(field.getName());
+        }
+        column.setNumber(row, unscaled.longValue(), decimal.scale());
+    }
+
+    /**
+     * 文字列、またはその他の値をカラムに格納する。
+     *
+     * @param column カラム
+     * @param row    行
+     * @param field  フィールド定義
+     * @param value  値
+     */
+    private void setValue(Column column, int row, FieldDefinition field, Object value) {
+        if (column.getType() == ColumnType.DICTIONARY && value != null && !(value instanceof String)) {
+            throw new IllegalStateException(
+                    "dictionary encoding is only applicable to string fields. field name=[" + field.getName()
+                  + "], value type=[" + value.getClass().getName() + "].");
+        }
+        column.setValue(row, value);
+    }
+
+    /**
+     * レコードタイプごとの、バッチとフィールド定義の対応。
+     */
+    private static final class BatchLayout {
+
+        /** レコードタイプ */
+        private final RecordDefinition recordDefinition;
+
+        /** カラムごとのフィールド定義 */
+        private final FieldDefinition[] fields;
+
+        /** バッチ */
+        private final ColumnBatch batch;
+
+        /**
+         * コンストラクタ。
+         * @param recordDefinition レコードタイプ
+         * @param fields           カラムごとのフィールド定義
+         * @param batch            バッチ
+         */
+        BatchLayout(RecordDefinition recordDefinition, List<FieldDefinition> fields, ColumnBatch batch) {
+            this.recordDefinition = recordDefinition;
+            this.fields = fields.toArray(new FieldDefinition[fields.size()]);
+            this.batch = batch;
+        }
+    }
+
+    /**
+     * レコードの読み込み元。
+     */
+    private abstract static class RecordSource {
+
+        /**
+         * 次のレコードを読み込み、適用するレコードタイプを返却する。
+         * @return レコードタイプ（これ以上読み込むレコードがない場合はnull）
+         * @throws IOException 読み込みに伴うIO処理で問題が発生した場合。
+         */
+        abstract RecordDefinition next() throws IOException;
+
+        /**
+         * 読み込んだレコードの各フィールドを、バッチの指定した行に格納する。
+         * @param layout バッチのレイアウト
+         * @param row    行
+         * @throws IOException 読み込みに伴うIO処理で問題が発生した場合。
+         */
+        abstract void fill(BatchLayout layout, int row) throws IOException;
+
+        /**
+         * フィールドを、スケールなしのlong値として直接読み込めるかどうかを判定する。
+         * @param field フィールド定義
+         * @return 直接読み込める場合はtrue
+         */
+        boolean isLongDecodable(FieldDefinition field) {
+            return false;
+        }
+    }
+
+    /**
+     * 固定長ファイルの読み込み元。
+     */
+    private final class FixedLengthSource extends RecordSource {
+
+        /** フォーマッタ */
+        private final FixedLengthDataRecordFormatter fixedLengthFormatter;
+
+        /** 1レコード分のバッファ */
+        private byte[] buff;
+
+        /**
+         * コンストラクタ。
+         * @param formatter フォーマッタ
+         */
+        FixedLengthSource(FixedLengthDataRecordFormatter formatter) {
+            fixedLengthFormatter = formatter;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        RecordDefinition next() throws IOException {
+            if (buff == null) {
+                buff = new byte[fixedLengthFormatter.getRecordLength()];
+            }
+            if (fixedLengthFormatter.readRawRecord(buff) == null) {
+                return null;
+            }
+            return fixedLengthFormatter.resolveRecordType(buff);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        void fill(BatchLayout layout, int row) throws IOException {
+            List<Column> columns = layout.batch.getColumns();
+            for (int i = 0; i < layout.fields.length; i++) {
+                FieldDefinition field = layout.fields[i];
+                Column column = columns.get(i);
+                int offset = field.getPosition() - 1;
+                ColumnType type = column.getType();
+                if ((type == ColumnType.LONG || type == ColumnType.DECIMAL) && isLongDecodable(field)) {
+                    column.setNumber(row, fixedLengthFormatter.decodeLong(buff, offset, field.getSize(), field), 0);
+                    continue;
+                }
+                Object value = fixedLengthFormatter.readField(buff, offset, field.getSize(), field);
+                if (type == ColumnType.LONG || type == ColumnType.DECIMAL) {
+                    setNumber(column, row, field, value);
+                } else {
+                    setValue(column, row, field, value);
+                }
+            }
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        boolean isLongDecodable(FieldDefinition field) {
+            return !fixedLengthFormatter.isLegacyFieldConversion()
+                    && FixedLengthDataRecordFormatter.isLongDecodable(field);
+        }
+    }
+
+    /**
+     * 可変長ファイルの読み込み元。
+     */
+    private final class VariableLengthSource extends RecordSource {
+
+        /** フォーマッタ */
+        private final VariableLengthDataRecordFormatter variableLengthFormatter;
+
+        /** 1レコード分のフィールド文字列 */
+        private List<String> fieldStrList;
+
+        /**
+         * コンストラクタ。
+         * @param formatter フォーマッタ
+         */
+        VariableLengthSource(VariableLengthDataRecordFormatter formatter) {
+            variableLengthFormatter = formatter;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        RecordDefinition next() throws IOException {
+            fieldStrList = variableLengthFormatter.readFieldStrings();
+            if (fieldStrList == null) {
+                return null;
+            }
+            return variableLengthFormatter.resolveRecordType(fieldStrList);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        void fill(BatchLayout layout, int row) {
+            List<Column> columns = layout.batch.getColumns();
+            for (int i = 0; i < layout.fields.length; i++) {
+                FieldDefinition field = layout.fields[i];
+                Column column = columns.get(i);
+                Object value = null;
+                if (field.getPosition() <= fieldStrList.size()) {
+                    value = variableLengthFormatter.convertToField(fieldStrList.get(field.getPosition() - 1), field);
+                }
+                if (column.getType() == ColumnType.DECIMAL) {
+                    setNumber(column, row, field, value);
+                } else {
+                    setValue(column, row, field, value);
+                }
+            }
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package nablarch.core.dataformat;
 
 import java.math.BigDecimal;
+import java.util.Map;
 
 import nablarch.core.util.NumberUtil;
 import nablarch.core.util.StringUtil;
@@ -22,7 +23,24 @@ public class DataRecord extends MultipleKeyCaseMap<Object> {
     private String recordType;
     
     /** 本レコードのレコード番号。 */
-    private int recordNumber;
+    private long recordNumber;
+
+    /**
+     * デフォルトコンストラクタ。
+     */
+    public DataRecord() {
+        super();
+    }
+
+    /**
+     * 値の生成を遅延できるMapを使用してデータレコードを生成する。
+     * <p/>
+     * フォーマッタが、数値フィールドの値をBigDecimalに変換せずに格納する場合に使用する。
+     * @param values 値を保持するMap
+     */
+    DataRecord(DeferredValueMap values) {
+        super(values);
+    }
     
     // -------------------------------------------- accessors
     /**
@@ -60,7 +78,8 @@ public class DataRecord extends MultipleKeyCaseMap<Object> {
      * フィールドの値を設定する。
      * <p/>
      * BigDecimal / String / String[] / byte[] 型のインスタンスはそのまま保持する。<br/>
-     * BigDecimal 以外の Number型は、BigDecimalに変換した上で保持する。<br/>
+     * BigDecimal 以外の Number型は、BigDecimalに変換した上で保持する。
+     * （Integer / Long / Short / Byte 型は、文字列を経由せずに変換する）<br/>
      * それ以外の型のインスタンスは、toString()メソッドの結果を文字列として保持する。
      *
      * @param fieldName  フィールド名
@@ -76,6 +95,7 @@ public class DataRecord extends MultipleKeyCaseMap<Object> {
         fieldValue = (fieldValue == null)                 ? null 
                    : (fieldValue instanceof BigDecimal)   ? fieldValue
                    : (fieldValue instanceof byte[])       ? fieldValue
+                   : isIntegral(fieldValue)               ? BigDecimal.valueOf(((Number) fieldValue).longValue())
                    : (fieldValue instanceof Number)       ? new BigDecimal(fieldValue.toString())
                    : (fieldValue instanceof String[])     ? fieldValue // ADD
                    : fieldValue.toString();
@@ -127,6 +147,115 @@ public class DataRecord extends MultipleKeyCaseMap<Object> {
         }
     }
     
+    /**
+     * フィールドの値をlong型に変換して返却する。
+     * <p/>
+     * フォーマッタが数値フィールドの値をBigDecimalに変換せずに保持している場合、
+     * BigDecimalを生成せずにその値を返却する。
+     *
+     * @param fieldName フィールド名
+     * @return フィールドの値
+     * @throws IllegalStateException 指定したフィールドの値が存在しない場合
+     * @throws NumberFormatException 指定したフィールドの値がBigDecimalに変換できなかった場合
+     * @throws ArithmeticException 指定したフィールドの値が小数部を持つ場合や、long型の範囲を超える場合
+     */
+    public long getLong(String fieldName)
+    throws IllegalStateException, NumberFormatException, ArithmeticException {
+        Object value = getRawValue(fieldName);
+        if (value instanceof DeferredValueMap.UnscaledLong) {
+            DeferredValueMap.UnscaledLong unscaledLong = (DeferredValueMap.UnscaledLong) value;
+            if (unscaledLong.getScale() == 0) {
+                return unscaledLong.getUnscaledValue();
+            }
+        }
+        BigDecimal decimal = getBigDecimal(fieldName);
+        if (decimal == null) {
+            throw new IllegalStateException(
+                    "field value was null. field value must not be null to get as a primitive value. "
+                  + "field name=[" + fieldName + "].");
+        }
+        return decimal.longValueExact();
+    }
+
+    /**
+     * フィールドの値をint型に変換して返却する。
+     *
+     * @param fieldName フィールド名
+     * @return フィールドの値
+     * @throws IllegalStateException 指定したフィールドの値が存在しない場合
+     * @throws NumberFormatException 指定したフィールドの値がBigDecimalに変換できなかった場合
+     * @throws ArithmeticException 指定したフィールドの値が小数部を持つ場合や、int型の範囲を超える場合
+     * @see #getLong(String)
+     */
+    public int getInt(String fieldName)
+    throws IllegalStateException, NumberFormatException, ArithmeticException {
+        long value = getLong(fieldName);
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new ArithmeticException(
+                    "field value was out of the range of int. field name=[" + fieldName + "], value=[" + value + "].");
+        }
+        return (int) value;
+    }
+
+    /**
+     * フィールドの値を、BigDecimalに変換せずに設定する。
+     * <p/>
+     * 値の生成を遅延できるMapを使用している場合は、スケールなしの値をそのまま保持し、
+     * BigDecimalへの変換は値が参照されるまで行わない。
+     *
+     * @param fieldName     フィールド名
+     * @param unscaledValue スケールなしの値
+     * @param scale         スケール
+     */
+    void putUnscaledLong(String fieldName, long unscaledValue, int scale) {
+        if (getDelegateMap() instanceof DeferredValueMap) {
+            super.put(fieldName, new DeferredValueMap.UnscaledLong(unscaledValue, scale));
+        } else {
+            put(fieldName, BigDecimal.valueOf(unscaledValue, scale));
+        }
+    }
+
+    /**
+     * フィールドの値を、最初に参照されるまで生成を遅延する値として設定する。
+     * <p/>
+     * 値の生成を遅延できるMapを使用していない場合は、直ちに値を生成して設定する。
+     *
+     * @param fieldName フィールド名
+     * @param value     最初に参照されるまで生成を遅延する値
+     */
+    void putDeferredValue(String fieldName, DeferredValueMap.DeferredValue value) {
+        if (getDelegateMap() instanceof DeferredValueMap) {
+            super.put(fieldName, value);
+        } else {
+            put(fieldName, value.resolve());
+        }
+    }
+
+    /**
+     * フィールドの値を、遅延している変換を行わずに取得する。
+     *
+     * @param fieldName フィールド名
+     * @return フィールドの値
+     */
+    Object getRawValue(String fieldName) {
+        Map<String, Object> values = getDelegateMap();
+        if (values instanceof DeferredValueMap) {
+            return ((DeferredValueMap) values).getRaw(getActualDataKey(fieldName));
+        }
+        return get(fieldName);
+    }
+
+    /**
+     * 値が整数型（Integer / Long / Short / Byte）かどうかを判定する。
+     *
+     * @param value 値
+     * @return 整数型の場合は{@code true}
+     */
+    private static boolean isIntegral(Object value) {
+        return value instanceof Integer || value instanceof Long
+            || value instanceof Short || value instanceof Byte;
+    }
+
     /**
      * フィールドの値をバイト列に変換して返却する。
      *
@@ -145,19 +274,44 @@ public class DataRecord extends MultipleKeyCaseMap<Object> {
      *
      * @return 本レコードのレコード番号
      */
-    public int getRecordNumber() {
+    public long getRecordNumberAsLong() {
         return recordNumber;
     }
 
+    /**
+     * 本レコードのレコード番号を取得する。
+     *
+     * @return 本レコードのレコード番号
+     * @throws IllegalStateException レコード番号がint型で表現できない場合
+     * @deprecated レコード番号が{@link Integer#MAX_VALUE}を超えるファイルに対応できないため、
+     *             {@link #getRecordNumberAsLong()}を使用すること。
+     */
+    @Deprecated
+    public int getRecordNumber() {
+        return RecordNumberUtil.toInt(recordNumber);
+    }
+
     /**
      * 本レコードのレコード番号を設定する。
      *
      * @param recordNumber 本レコードのレコード番号
      * @return 本オブジェクト
      */
-    public DataRecord setRecordNumber(int recordNumber) {
+    public DataRecord setRecordNumber(long recordNumber) {
         this.recordNumber = recordNumber;
         return this;
     }
 
+    /**
+     * 本レコードのレコード番号を設定する。
+     *
+     * @param recordNumber 本レコードのレコード番号
+     * @return 本オブジェクト
+     * @deprecated {@link #setRecordNumber(long)}を使用すること。
+     */
+    @Deprecated
+    public DataRecord setRecordNumber(int recordNumber) {
+        return setRecordNumber((long) recordNumber);
+    }
+
 }
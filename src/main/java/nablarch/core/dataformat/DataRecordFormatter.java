@@ -98,6 +98,9 @@ public interface DataRecordFormatter extends Closeable {
 
     /**
      * 読み込みまたは書き込み中のレコードのレコード番号を返却する。
+     * <p/>
+     * レコード番号が{@link Integer#MAX_VALUE}を超える場合は、
+     * {@link DataRecordFormatterSupport#getRecordNumberAsLong()}を使用すること。
      *
      * @return レコード番号
      */
@@ -6,8 +6,10 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import nablarch.core.dataformat.convertor.ConvertorFactorySupport;
 import nablarch.core.dataformat.convertor.ConvertorSetting;
@@ -45,7 +47,7 @@ public abstract class DataRecordFormatterSupport implements
         DataRecordFormatter {
 
     /** 読み込みまたは書き込み中のレコードのレコード番号 */
-    private int recordNumber = 0;
+    private long recordNumber = 0;
 
     /** フォーマット定義ファイルの情報を保持するクラス */
     private LayoutDefinition definition = null;
@@ -697,15 +699,110 @@ public abstract class DataRecordFormatterSupport implements
         return this;
     }
 
+    /** フィールドの変換を、値が最初に参照されるまで遅延するかどうか */
+    private boolean lazyDecoding = false;
+
+    /**
+     * フィールドの変換を、値が最初に参照されるまで遅延するかどうかを設定する。
+     * <p/>
+     * trueを設定した場合、読み込んだレコードの各フィールドは、データタイプおよびコンバータによる変換を行わずに保持し、
+     * {@link DataRecord}から値が最初に参照された時点で変換する。
+     * 一部のフィールドのみを参照するレコードが多い場合に、読み込み処理の負荷を軽減できる。<br/>
+     * 変換エラーは値を参照した時点で送出され、例外にはレコードを読み込んだ時点のレコード番号とフィールド名が設定される。
+     * フィラー項目は参照されることがないため、変換（およびフォーマットの検証）は行われない。
+     * <p/>
+     * 本設定は、固定長および可変長のフォーマッタで有効となる。デフォルトはfalse。
+     *
+     * @param lazyDecoding フィールドの変換を遅延する場合はtrue
+     * @return このオブジェクト自体
+     */
+    public DataRecordFormatterSupport setLazyDecoding(boolean lazyDecoding) {
+        this.lazyDecoding = lazyDecoding;
+        return this;
+    }
+
+    /**
+     * フィールドの変換を、値が最初に参照されるまで遅延するかどうかを取得する。
+     *
+     * @return フィールドの変換を遅延する場合はtrue
+     */
+    protected boolean isLazyDecoding() {
+        return lazyDecoding;
+    }
+
+    /** 読み込むフィールドの名前のセット（全てのフィールドを読み込む場合はnull） */
+    private Set<String> projectedFields = null;
+
+    /** レコードタイプごとに、フィールドを読み込むかどうかを保持するMap */
+    private final Map<RecordDefinition, boolean[]> projections = new HashMap<RecordDefinition, boolean[]>();
+
+    /**
+     * 読み込むフィールドの名前を設定する。
+     * <p/>
+     * 設定した場合、読み込み時に指定されたフィールドのみを変換し、データレコードに格納する。
+     * それ以外のフィールドは、データタイプおよびコンバータによる変換（およびフォーマットの検証）を行わない。
+     * 多数のフィールドのうち一部のフィールドのみを使用する場合に、読み込み処理の負荷を軽減できる。
+     * <p/>
+     * レコードタイプの判定に使用する識別項目（Classifier）や、可変長ファイルのタイトルレコードは、
+     * 本設定に関わらず全てのフィールドを読み込む。<br/>
+     * 本設定は、固定長および可変長のフォーマッタで有効となる。nullを設定した場合は、全てのフィールドを読み込む。
+     *
+     * @param projectedFields 読み込むフィールドの名前のセット
+     * @return このオブジェクト自体
+     */
+    public DataRecordFormatterSupport setProjectedFields(Set<String> projectedFields) {
+        this.projectedFields = projectedFields == null ? null : new HashSet<String>(projectedFields);
+        projections.clear();
+        return this;
+    }
+
+    /**
+     * レコードタイプのフィールドごとに、読み込む対象かどうかを取得する。
+     * <p/>
+     * 返却する配列の要素は、{@link RecordDefinition#getFields()}の各フィールドに対応し、
+     * 読み込む対象のフィールドの場合はtrueとなる。フィラー項目は読み込む対象とならない。
+     *
+     * @param recordDef レコード定義情報保持クラス
+     * @return フィールドごとに読み込む対象かどうかを格納した配列（全てのフィールドを読み込む場合はnull）
+     */
+    protected boolean[] getProjection(RecordDefinition recordDef) {
+        if (projectedFields == null) {
+            return null;
+        }
+        boolean[] projection = projections.get(recordDef);
+        if (projection == null) {
+            List<FieldDefinition> fields = recordDef.getFields();
+            projection = new boolean[fields.size()];
+            for (int i = 0; i < projection.length; i++) {
+                FieldDefinition field = fields.get(i);
+                projection[i] = !field.isFiller() && projectedFields.contains(field.getName());
+            }
+            projections.put(recordDef, projection);
+        }
+        return projection;
+    }
+
     /**
      * 読み込みまたは書き込み中のレコードのレコード番号を取得する。
      *
      * @return recordNumber 読み込みまたは書き込み中のレコードのレコード番号
      */
-    public int getRecordNumber() {
+    public long getRecordNumberAsLong() {
         return recordNumber;
     }
 
+    /**
+     * 読み込みまたは書き込み中のレコードのレコード番号を取得する。
+     *
+     * @return recordNumber 読み込みまたは書き込み中のレコードのレコード番号
+     * @throws IllegalStateException レコード番号がint型で表現できない場合
+     * @deprecated {@link #getRecordNumberAsLong()}を使用すること。
+     */
+    @Deprecated
+    public int getRecordNumber() {
+        return RecordNumberUtil.toInt(recordNumber);
+    }
+
     /** 読み込みまたは書き込み中のレコードのレコード番号をインクリメントする。 */
     protected void incrementRecordNumber() {
         this.recordNumber++;
@@ -714,10 +811,19 @@ public abstract class DataRecordFormatterSupport implements
     /** 読み込みまたは書き込み中のレコードのレコード番号を設定する。 
      * @param recordNumber 読み込みまたは書き込み中のレコードのレコード番号
      */
-    protected void setRecordNumber(int recordNumber) {
+    protected void setRecordNumber(long recordNumber) {
         this.recordNumber = recordNumber;
     }
 
+    /** 読み込みまたは書き込み中のレコードのレコード番号を設定する。
+     * @param recordNumber 読み込みまたは書き込み中のレコードのレコード番号
+     * @deprecated {@link #setRecordNumber(long)}を使用すること。
+     */
+    @Deprecated
+    protected void setRecordNumber(int recordNumber) {
+        setRecordNumber((long) recordNumber);
+    }
+
     /**
      * デフォルトの文字エンコーディングを取得する。
      *
@@ -766,7 +872,7 @@ public abstract class DataRecordFormatterSupport implements
      * @return 引数で与えられたインスタンス
      */
     protected final InvalidDataFormatException addFormatAndRecordNumberTo(InvalidDataFormatException e) {
-        return e.setRecordNumber(getRecordNumber())
+        return e.setRecordNumber(getRecordNumberAsLong())
                 .setFormatFilePath(definition.getSource());
     }
     
@@ -63,6 +63,22 @@ public interface DataRecordPredicate {
             return false;
         }
         
+        /**
+         * 検証対象のフィールド名を返却する。
+         * @return 検証対象のフィールド名
+         */
+        String getFieldName() {
+            return fieldName;
+        }
+
+        /**
+         * 検証値を返却する。
+         * @return 検証値
+         */
+        Object[] getExpectingValues() {
+            return expectingValues;
+        }
+
         /** {@inheritDoc} */
         public String toString() {
             return fieldName + " = " + Arrays.toString(expectingValues);
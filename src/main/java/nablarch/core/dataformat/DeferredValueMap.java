@@ -0,0 +1,188 @@
+package nablarch.core.dataformat;
+
+import java.math.BigDecimal;
+import java.util.AbstractMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 値の生成を、値が最初に参照されるまで遅延できるMap。
+ * <p/>
+ * {@link DeferredValue}が格納されたエントリは、{@link #get(Object)}で参照された時点で実際の値に変換し、
+ * 変換後の値で置き換える。
+ * {@link #entrySet()}などでエントリ全体が参照される場合は、全てのエントリを変換してから返却する。
+ * {@link #put(String, Object)}や{@link #remove(Object)}で変換前のエントリを置き換えたり削除した場合は、
+ * 元の値を変換せずに破棄する。<br/>
+ * {@link DataRecord}の値を保持するMapとして使用する。
+ */
+final class DeferredValueMap extends AbstractMap<String, Object> {
+
+    /** 値を保持するMap */
+    private final Map<String, Object> map = new HashMap<String, Object>();
+
+    /**
+     * 値を変換せずに取得する。
+     * @param key キー
+     * @return 格納されている値（変換前の場合は{@link DeferredValue}）
+     */
+    Object getRaw(Object key) {
+        return map.get(key);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Object get(Object key) {
+        Object value = map.get(key);
+        if (value instanceof DeferredValue) {
+            value = ((DeferredValue) value).resolve();
+            map.put((String) key, value);
+        }
+        return value;
+    }
+
+    /** {@inheritDoc}
+     * 元の値が変換前の場合は、戻り値のためだけに変換することはしない（{@link #peek(Object)}を参照）。
+     */
+    @Override
+    public Object put(String key, Object value) {
+        return peek(map.put(key, value));
+    }
+
+    /** {@inheritDoc}
+     * 元の値が変換前の場合は、戻り値のためだけに変換することはしない（{@link #peek(Object)}を参照）。
+     */
+    @Override
+    public Object remove(Object key) {
+        return peek(map.remove(key));
+    }
+
+    /**
+     * 置き換えまたは削除された値を、戻り値として返却できる形で取得する。
+     * <p/>
+     * 変換前の値は{@link DeferredValue#peek()}の結果を返却する。
+     * 変換に失敗する可能性のある値を変換しないため、置き換えや削除が変換エラーで失敗することはない。
+     * @param value 置き換えまたは削除された値
+     * @return 戻り値として返却する値
+     */
+    private static Object peek(Object value) {
+        return (value instanceof DeferredValue) ? ((DeferredValue) value).peek() : value;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean containsKey(Object key) {
+        return map.containsKey(key);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int size() {
+        return map.size();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void clear() {
+        map.clear();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Set<String> keySet() {
+        return map.keySet();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        resolveAll();
+        return map.entrySet();
+    }
+
+    /**
+     * 変換前の全ての値を変換する。
+     */
+    private void resolveAll() {
+        for (Entry<String, Object> entry : map.entrySet()) {
+            if (entry.getValue() instanceof DeferredValue) {
+                entry.setValue(((DeferredValue) entry.getValue()).resolve());
+            }
+        }
+    }
+
+    /**
+     * 最初に参照されるまで生成を遅延する値。
+     */
+    abstract static class DeferredValue {
+
+        /**
+         * 実際の値を生成する。
+         * @return 実際の値
+         */
+        abstract Object resolve();
+
+        /**
+         * 入力データの変換を伴わずに取得できる場合のみ、実際の値を返却する。
+         * <p/>
+         * この実装では、常に{@code null}を返却する。
+         * @return 実際の値（入力データの変換が必要な場合は{@code null}）
+         */
+        Object peek() {
+            return null;
+        }
+    }
+
+    /**
+     * スケールなしのlong値とスケールで表した数値。
+     * 参照された時点でBigDecimalに変換する。
+     */
+    static final class UnscaledLong extends DeferredValue {
+
+        /** スケールなしの値 */
+        private final long unscaledValue;
+
+        /** スケール */
+        private final int scale;
+
+        /**
+         * コンストラクタ。
+         * @param unscaledValue スケールなしの値
+         * @param scale スケール
+         */
+        UnscaledLong(long unscaledValue, int scale) {
+            this.unscaledValue = unscaledValue;
+            this.scale = scale;
+        }
+
+        /**
+         * スケールなしの値を取得する。
+         * @return スケールなしの値
+         */
+        long getUnscaledValue() {
+            return unscaledValue;
+        }
+
+        /**
+         * スケールを取得する。
+         * @return スケール
+         */
+        int getScale() {
+            return scale;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        BigDecimal resolve() {
+            return BigDecimal.valueOf(unscaledValue, scale);
+        }
+
+        /** {@inheritDoc}
+         * この実装では、変換済みの数値から生成した値を返却する。
+         */
+        @Override
+        BigDecimal peek() {
+            return resolve();
+        }
+    }
+}
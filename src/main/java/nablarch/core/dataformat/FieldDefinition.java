@@ -29,6 +29,9 @@ public class FieldDefinition {
     
     /** フィールド名 */
     private String name = null;
+
+    /** 正規化したフィールド名 */
+    private String normalizedName = null;
     
     /** 文字エンコーディング */
     private Charset encoding = null;
@@ -102,9 +105,23 @@ public class FieldDefinition {
      */
     public FieldDefinition setName(String name) {
         this.name = name;
+        this.normalizedName = FieldDefinitionUtil.normalizeWithNonWordChar(name);
         return this;
     }
 
+    /**
+     * 正規化したフィールド名称を返却する。
+     * <p/>
+     * 構造化データのMapに格納する際のキーとして使用する。
+     * 正規化の仕様は{@link FieldDefinitionUtil#normalizeWithNonWordChar(String)}を参照。
+     * 正規化はフィールド名称の設定時に一度だけ行う。
+     *
+     * @return 正規化したフィールド名称
+     */
+    public String getNormalizedName() {
+        return normalizedName;
+    }
+
     /**
      * フィールドの文字エンコーディングを返却する。
      * @return フィールドの文字エンコーディング
@@ -6,6 +6,7 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Set;
 
 import nablarch.core.log.Logger;
 import nablarch.core.log.LoggerManager;
@@ -51,6 +52,18 @@ public class FileRecordReader implements Closeable {
     /** ファイルストリーム */
     private InputStream source = null;
 
+    /** 読み込むレコードの条件が設定されているかどうか */
+    private boolean filtered = false;
+
+    /** 次に返却するレコード（条件が設定されている場合に、先読みしたレコード） */
+    private DataRecord nextRecord = null;
+
+    /** 読み込みを開始したデータファイル内の位置 */
+    private long startOffset = 0;
+
+    /** 読み込みを開始した時点のレコード番号 */
+    private long startRecordNumber = 0;
+
     /**
      * コンストラクタ。
      * @param dataFile   データファイル
@@ -88,6 +101,194 @@ public class FileRecordReader implements Closeable {
         initialize(formatter);
     }
 
+    /**
+     * コンストラクタ。
+     * <p/>
+     * インデックスを使用して、指定したレコード番号のレコードから読み込みを開始する。
+     * 指定したレコード番号が空行の場合は、その後の最初のレコードから読み込みを開始する。
+     * 読み込むレコードのレコード番号は、データファイルの先頭から読み込んだ場合と同じとなる。
+     *
+     * @param dataFile     データファイル
+     * @param layoutFile   フォーマット定義ファイル
+     * @param index        データファイルのインデックス
+     * @param recordNumber 読み込みを開始するレコード番号
+     * @see RecordOffsetIndex
+     */
+    public FileRecordReader(File dataFile, File layoutFile, RecordOffsetIndex index, long recordNumber) {
+        this.dataFile = dataFile;
+        this.layoutFile = layoutFile;
+        if (recordNumber <= 0) {
+            throw new IllegalArgumentException("record number was invalid. record number must be bigger than 0.");
+        }
+        if (index.getDataFileLength() != dataFile.length()) {
+            throw new IllegalArgumentException(
+                    "index did not match the data file. data file length=[" + dataFile.length()
+                  + "], indexed data file length=[" + index.getDataFileLength() + "]. file path=["
+                  + dataFile.getAbsolutePath() + "]");
+        }
+        int entry = index.find(recordNumber);
+        if (entry == -1) {
+            initialize(0, 0, false);
+        } else {
+            // タイトルはファイルの先頭から読み込む場合のみ読み込む
+            long offset = index.getOffset(entry);
+            initialize(offset, index.getRecordNumberBefore(entry), offset > 0);
+        }
+        // 疎なインデックスの場合は、指定したレコード番号の直前のレコードまで読み飛ばす
+        while (hasNext() && getRecordNumberAsLong() + 1 < recordNumber) {
+            skipRecord();
+        }
+    }
+
+    /**
+     * レコードを1件読み飛ばす。
+     * <p/>
+     * レコードの区切りのみを判定し、フィールドの変換や検証は行わない。
+     * このため、読み飛ばすレコードに不正なデータが含まれていても例外はスローしない。
+     */
+    private void skipRecord() {
+        try {
+            if (formatter instanceof FixedLengthDataRecordFormatter) {
+                FixedLengthDataRecordFormatter fixedLengthFormatter = (FixedLengthDataRecordFormatter) formatter;
+                fixedLengthFormatter.readRawRecord(new byte[fixedLengthFormatter.getRecordLength()]);
+            } else {
+                VariableLengthDataRecordFormatter variableLengthFormatter = (VariableLengthDataRecordFormatter) formatter;
+                variableLengthFormatter.readFieldStrings();
+                // タイトル行を読み飛ばした場合も、タイトルを読み込み済みとする
+                variableLengthFormatter.skipTitle();
+            }
+        } catch (InvalidDataFormatException e) {
+            throw e.setInputSourcePath(dataFile.getAbsolutePath());
+        } catch (IOException e) {
+            throw new RuntimeException(
+                    "I/O error happened while reading the file. file path=["
+                            + dataFile.getPath() + "]", e);
+        }
+    }
+
+    /**
+     * コンストラクタ。
+     * <p/>
+     * チェックポイントを取得した時点の次のレコードから読み込みを再開する。
+     * チェックポイントより前のレコードは読み込まない。
+     * 読み込むレコードのレコード番号は、データファイルの先頭から読み込んだ場合と同じとなる。
+     *
+     * @param dataFile   データファイル
+     * @param layoutFile フォーマット定義ファイル
+     * @param checkpoint チェックポイント
+     * @see #getCheckpoint()
+     */
+    public FileRecordReader(File dataFile, File layoutFile, ReadCheckpoint checkpoint) {
+        this.dataFile = dataFile;
+        this.layoutFile = layoutFile;
+        if (checkpoint.getOffset() > dataFile.length()) {
+            throw new IllegalArgumentException(
+                    "checkpoint did not match the data file. data file length=[" + dataFile.length()
+                  + "], checkpoint=[" + checkpoint + "]. file path=[" + dataFile.getAbsolutePath() + "]");
+        }
+        initialize(checkpoint.getOffset(), checkpoint.getRecordNumberAsLong(), checkpoint.isTitleRead());
+    }
+
+    /**
+     * データファイルの途中から読み込みを開始するように初期化する。
+     *
+     * @param offset       読み込みを開始する位置
+     * @param recordNumber 読み込みを開始する時点のレコード番号
+     * @param titleRead    タイトルを読み込み済みとするかどうか
+     */
+    private void initialize(long offset, long recordNumber, boolean titleRead) {
+        formatter = FormatterFactory.getInstance().createFormatter(layoutFile);
+        if (!(formatter instanceof FixedLengthDataRecordFormatter)
+                && !(formatter instanceof VariableLengthDataRecordFormatter)) {
+            throw new IllegalArgumentException(
+                    "formatter does not support reading from the middle of the file. formatter=["
+                  + formatter.getClass().getName() + "].");
+        }
+        initialize(formatter);
+        skipBytes(offset);
+        startOffset = offset;
+        startRecordNumber = recordNumber;
+        ((DataRecordFormatterSupport) formatter).setRecordNumber(recordNumber);
+        if (titleRead && formatter instanceof VariableLengthDataRecordFormatter) {
+            ((VariableLengthDataRecordFormatter) formatter).skipTitle();
+        }
+    }
+
+    /**
+     * 次に読み込むレコードの位置を、読み込みを再開するためのチェックポイントとして返却する。
+     * <p/>
+     * 返却したチェックポイントを{@link #FileRecordReader(File, File, ReadCheckpoint)}に指定すると、
+     * 最後に読み込んだレコードの次のレコードから読み込みを再開できる。
+     * チェックポイントは、レコードの読み込みが正常に終了した時点で取得すること。
+     * <p/>
+     * 固定長ファイル、およびフィールドの区切りをバイトデータ上で判定できる可変長ファイルのみをサポートする。
+     * マルチレイアウトのレコードタイプの判定は、レコードごとに行い読み込み中の状態を持たないため、チェックポイントには含まない。
+     *
+     * @return チェックポイント
+     * @throws IllegalStateException チェックポイントをサポートしないファイルの場合
+     */
+    public ReadCheckpoint getCheckpoint() {
+        if (formatter instanceof FixedLengthDataRecordFormatter) {
+            FixedLengthDataRecordFormatter fixedLengthFormatter = (FixedLengthDataRecordFormatter) formatter;
+            // 先読みしたレコードがある場合は、そのレコードの直前をチェックポイントとする
+            long recordNumber = nextRecord == null
+                    ? fixedLengthFormatter.getRecordNumberAsLong() : nextRecord.getRecordNumberAsLong() - 1;
+            return new ReadCheckpoint(getFixedLengthOffset(fixedLengthFormatter, recordNumber), recordNumber, false);
+        }
+        if (formatter instanceof VariableLengthDataRecordFormatter) {
+            VariableLengthDataRecordFormatter variableLengthFormatter = (VariableLengthDataRecordFormatter) formatter;
+            long position = variableLengthFormatter.getReadPosition();
+            if (position == -1) {
+                throw new IllegalStateException(
+                        "checkpoint is not supported for this file. field separator, quoting delimiter and record separator "
+                      + "must be ASCII characters that can be detected without decoding. encoding=["
+                      + variableLengthFormatter.getDefaultEncoding().name() + "].");
+            }
+            return new ReadCheckpoint(startOffset + position,
+                    variableLengthFormatter.getRecordNumberAsLong(), variableLengthFormatter.isTitleRead());
+        }
+        throw new IllegalStateException(
+                "formatter does not support checkpoint. formatter=["
+              + formatter.getClass().getName() + "].");
+    }
+
+    /**
+     * 固定長ファイルで、指定したレコード番号のレコードまでを読み込んだ時点の位置を返却する。
+     * <p/>
+     * チェックポイントから読み込みを再開した場合、レコード番号は位置と対応するとは限らないため、
+     * 読み込みを開始した位置とレコード番号を起点に、読み込んだレコード数から算出する。
+     *
+     * @param formatter    固定長ファイルのフォーマッタ
+     * @param recordNumber 読み込み済みのレコードのレコード番号
+     * @return 位置
+     */
+    private long getFixedLengthOffset(FixedLengthDataRecordFormatter formatter, long recordNumber) {
+        long recordStride = formatter.getRecordLength() + formatter.getRecordSeparatorLength();
+        return startOffset + (recordNumber - startRecordNumber) * recordStride;
+    }
+
+    /**
+     * 入力ストリームを、指定したバイト数だけ読み飛ばす。
+     * @param length 読み飛ばすバイト数
+     */
+    private void skipBytes(long length) {
+        try {
+            long remaining = length;
+            while (remaining > 0) {
+                long skipped = source.skip(remaining);
+                if (skipped <= 0) {
+                    break;
+                }
+                remaining -= skipped;
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(
+                "I/O error happened while reading the file. file path=[" + dataFile.getPath() + "]"
+              , e
+            );
+        }
+    }
+
     /**
      * 初期化処理を行う。
      * @return このオブジェクト自体
@@ -127,6 +328,50 @@ public class FileRecordReader implements Closeable {
         }
     }
 
+    /**
+     * 読み込むフィールドの名前を設定する。
+     * <p/>
+     * 設定した場合、指定されたフィールド以外は変換せず、データレコードにも格納しない。
+     * 詳細は{@link DataRecordFormatterSupport#setProjectedFields(Set)}を参照。
+     *
+     * @param projectedFields 読み込むフィールドの名前のセット（全てのフィールドを読み込む場合はnull）
+     * @return このオブジェクト自体
+     * @throws IllegalStateException フォーマッタが読み込むフィールドの設定をサポートしていない場合
+     */
+    public FileRecordReader setProjectedFields(Set<String> projectedFields) {
+        if (!(formatter instanceof DataRecordFormatterSupport)) {
+            throw new IllegalStateException(
+                    "formatter does not support field projection. formatter=["
+                  + formatter.getClass().getName() + "].");
+        }
+        ((DataRecordFormatterSupport) formatter).setProjectedFields(projectedFields);
+        return this;
+    }
+
+    /**
+     * 読み込むレコードの条件を設定する。
+     * <p/>
+     * 設定した場合、条件を満たすレコードのみを読み込む。
+     * 条件はレコードのバイトデータに対して判定するため、条件を満たさないレコードはデータレコードに変換しない。
+     * 詳細は{@link FixedLengthDataRecordFormatter#setRecordFilter(FixedLengthRecordFilter)}を参照。
+     * <p/>
+     * 条件を満たすレコードが存在するかどうかを判定するため、{@link #hasNext()}は次のレコードを先読みする。
+     *
+     * @param recordFilter 読み込むレコードの条件（全てのレコードを読み込む場合はnull）
+     * @return このオブジェクト自体
+     * @throws IllegalStateException 固定長ファイル以外を読み込む場合
+     */
+    public FileRecordReader setRecordFilter(FixedLengthRecordFilter recordFilter) {
+        if (!(formatter instanceof FixedLengthDataRecordFormatter)) {
+            throw new IllegalStateException(
+                    "record filter is only supported for fixed length files. formatter=["
+                  + formatter.getClass().getName() + "].");
+        }
+        ((FixedLengthDataRecordFormatter) formatter).setRecordFilter(recordFilter);
+        filtered = recordFilter != null;
+        return this;
+    }
+
     /**
      * 指定されたデータファイルから次のレコードを読み込んで返す。
      * @return データレコード
@@ -135,6 +380,11 @@ public class FileRecordReader implements Closeable {
         if (!hasNext()) {
             return null;
         }
+        if (nextRecord != null) {
+            DataRecord record = nextRecord;
+            nextRecord = null;
+            return record;
+        }
         // 一行読み込む
         DataRecord record = readRecord();
         
@@ -146,6 +396,14 @@ public class FileRecordReader implements Closeable {
      * @return 次に読み込むレコードがある場合、true
      */
     public boolean hasNext() {
+        if (nextRecord != null) {
+            return true;
+        }
+        if (filtered) {
+            // 条件を満たすレコードが存在するかどうかは、読み込むまで分からないため先読みする
+            nextRecord = readRecord();
+            return nextRecord != null;
+        }
         try {
             return formatter.hasNext();
         } catch (IOException e) {
@@ -191,7 +449,21 @@ public class FileRecordReader implements Closeable {
      * 読み込み中のレコードのレコード番号を返却する。
      * @return レコード番号
      */
-    public int getRecordNumber() {
+    public long getRecordNumberAsLong() {
+        if (formatter instanceof DataRecordFormatterSupport) {
+            return ((DataRecordFormatterSupport) formatter).getRecordNumberAsLong();
+        }
         return formatter.getRecordNumber();
     }
+
+    /**
+     * 読み込み中のレコードのレコード番号を返却する。
+     * @return レコード番号
+     * @throws IllegalStateException レコード番号がint型で表現できない場合
+     * @deprecated {@link #getRecordNumberAsLong()}を使用すること。
+     */
+    @Deprecated
+    public int getRecordNumber() {
+        return RecordNumberUtil.toInt(getRecordNumberAsLong());
+    }
 }
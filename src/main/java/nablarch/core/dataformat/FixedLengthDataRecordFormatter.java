@@ -3,8 +3,10 @@ package nablarch.core.dataformat;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.nio.ByteBuffer;
+import java.math.BigDecimal;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.regex.Pattern;
 
@@ -12,13 +14,16 @@ import nablarch.core.dataformat.convertor.ConvertorSetting;
 import nablarch.core.dataformat.convertor.FixedLengthConvertorSetting;
 import nablarch.core.dataformat.convertor.datatype.ByteStreamDataSupport;
 import nablarch.core.dataformat.convertor.datatype.DataType;
+import nablarch.core.dataformat.convertor.datatype.LongDecodable;
 import nablarch.core.dataformat.convertor.datatype.NumberStringDecimal;
 import nablarch.core.dataformat.convertor.datatype.PackedDecimal;
 import nablarch.core.dataformat.convertor.datatype.SignedNumberStringDecimal;
 import nablarch.core.dataformat.convertor.datatype.ZonedDecimal;
+import nablarch.core.dataformat.convertor.value.DefaultValue;
 import nablarch.core.dataformat.convertor.value.ValueConvertor;
 import nablarch.core.log.Logger;
 import nablarch.core.log.LoggerManager;
+import nablarch.core.util.Builder;
 import nablarch.core.util.StringUtil;
 import nablarch.core.util.annotation.Published;
 
@@ -73,6 +78,9 @@ public class FixedLengthDataRecordFormatter extends DataRecordFormatterSupport {
     /** 符号ビットのパターン */
     private static final Pattern SIGN_BIT_FORMAT = Pattern.compile("[a-fA-F0-9]");
 
+    /** 本フレームワークが提供するデータタイプおよびコンバータのパッケージ */
+    private static final String BUILT_IN_CONVERTOR_PACKAGE = "nablarch.core.dataformat.convertor.";
+
     /** 固定長データのコンバータの設定情報保持クラス */
     private FixedLengthConvertorSetting convertorSetting;
 
@@ -124,6 +132,33 @@ public class FixedLengthDataRecordFormatter extends DataRecordFormatterSupport {
     /** レコード終端文字列（バイト） */
     private byte[] recordSeparatorByte;
 
+    /** サブクラスが{@link #convertToField(byte[], FieldDefinition)}をオーバーライドしているかどうか */
+    private final boolean legacyFieldConversion = MethodOverrideUtil.isOverridden(
+            getClass(), FixedLengthDataRecordFormatter.class, "convertToField", byte[].class, FieldDefinition.class);
+
+    /** サブクラスが{@link #convertToRecord(byte[], RecordDefinition)}をオーバーライドしているかどうか */
+    private final boolean legacyRecordConversion = MethodOverrideUtil.isOverridden(
+            getClass(), FixedLengthDataRecordFormatter.class, "convertToRecord", byte[].class, RecordDefinition.class);
+
+    /** サブクラスが{@link #writeField(Map, FieldDefinition)}をオーバーライドしているかどうか */
+    private final boolean legacyFieldWrite = MethodOverrideUtil.isOverridden(
+            getClass(), FixedLengthDataRecordFormatter.class, "writeField", Map.class, FieldDefinition.class);
+
+    /** レコードタイプの判定に使用するディスパッチャ */
+    private RecordTypeDispatcher recordTypeDispatcher;
+
+    /** 読み込むレコードの条件 */
+    private FixedLengthRecordFilter recordFilter;
+
+    /** レコードのバイトデータに対して判定を行う条件 */
+    private FixedLengthRecordFilter.Condition filterCondition;
+
+    /** 書き込み時に使用するレコードのバッファ（レコード終端文字列を含む） */
+    private byte[] writeBuffer;
+
+    /** レコードタイプごとの、書き込み時に使用するレコードのテンプレート */
+    private final Map<RecordDefinition, RecordTemplate> writeTemplates = new HashMap<RecordDefinition, RecordTemplate>();
+
     /**
      * 固定長ファイルフォーマッタが使用するディレクティブの名前と値の型。
      * 以下に一覧を示す。<br>
@@ -519,26 +554,192 @@ public class FixedLengthDataRecordFormatter extends DataRecordFormatterSupport {
             throw new IllegalStateException("input stream was not set. input stream must be set before reading.");
         }
 
-        byte[] buff = new byte[recordLength];
-        int readBytes = source.read(buff);
+        byte[] buff = readRawRecord(new byte[recordLength]);
         // これ以上読み込むレコードがない場合、nullを返却する
-        if (readBytes == -1) {
+        if (buff == null) {
             return null;
         }
+        return convertToRecord(buff);
+    }
 
-        incrementRecordNumber(); // レコード番号をインクリメントする
+    /**
+     * 入力ストリームから、条件を満たす次の1レコード分のバイトデータを読み込む。
+     * <p/>
+     * レコード終端文字列は読み込んで検証したうえで、バッファには格納しない。
+     * 読み込むレコードの条件が設定されている場合、条件を満たさないレコードは読み飛ばす。
+     *
+     * @param buff 読み込み先のバッファ（レコード長以上のサイズであること）
+     * @return 引数で与えられたバッファ（これ以上読み込むレコードがない場合はnull）
+     * @throws IOException 読み込みに伴うIO処理で問題が発生した場合。
+     */
+    byte[] readRawRecord(byte[] buff) throws IOException {
+        if (source == null) {
+            throw new IllegalStateException("input stream was not set. input stream must be set before reading.");
+        }
 
-        if (readBytes != recordLength) {
+        FixedLengthRecordFilter.Condition condition = getFilterCondition();
+        while (true) {
+            int readBytes = source.read(buff, 0, recordLength);
+            // これ以上読み込むレコードがない場合、nullを返却する
+            if (readBytes == -1) {
+                return null;
+            }
+
+            incrementRecordNumber(); // レコード番号をインクリメントする
+
+            if (readBytes != recordLength) {
+                throw newInvalidDataFormatException(
+                        "invalid data record found. ",
+                        "the length of a record must be ", recordLength, " byte ",
+                        "but read data was only ", readBytes, " byte."
+                );
+            }
+
+            // レコード終端データの読み込み
+            readRecordSeparator(source, recordSeparatorByte);
+
+            // 条件を満たさないレコードは、データレコードに変換せずに読み飛ばす
+            if (condition == null || condition.matches(buff)) {
+                return buff;
+            }
+        }
+    }
+
+    /**
+     * 読み込むレコードの条件を設定する。
+     * <p/>
+     * 設定した場合、{@link #readRecord()}は条件を満たさないレコードをデータレコードに変換せずに読み飛ばし、
+     * 条件を満たす次のレコードを返却する。読み飛ばしたレコードもレコード番号には計上する。<br/>
+     * 条件はレコードのバイトデータに対して判定するため、読み飛ばすレコードの文字コードの変換やデータレコードの生成は行わない。
+     * 条件の詳細は{@link FixedLengthRecordFilter}を参照。
+     *
+     * @param recordFilter 読み込むレコードの条件（全てのレコードを読み込む場合はnull）
+     * @return このオブジェクト自体
+     */
+    public FixedLengthDataRecordFormatter setRecordFilter(FixedLengthRecordFilter recordFilter) {
+        this.recordFilter = recordFilter;
+        filterCondition = null;
+        return this;
+    }
+
+    /**
+     * レコードのバイトデータに対して判定を行う条件を取得する。
+     * 条件は初回の呼び出し時に、フォーマット定義から生成する。
+     *
+     * @return 判定を行う条件（条件が設定されていない場合はnull）
+     */
+    private FixedLengthRecordFilter.Condition getFilterCondition() {
+        if (recordFilter != null && filterCondition == null) {
+            filterCondition = recordFilter.bind(this);
+        }
+        return filterCondition;
+    }
+
+    /**
+     * レコードの条件に使用するフィールドの定義を取得する。
+     * <p/>
+     * シングルレイアウトの場合はレコードタイプから、マルチレイアウトの場合は識別項目（Classifier）から取得する。
+     *
+     * @param fieldName フィールド名
+     * @return フィールド定義情報保持クラス
+     * @throws IllegalArgumentException フィールドが存在しない場合
+     */
+    FieldDefinition getFilterField(String fieldName) throws IllegalArgumentException {
+        RecordDefinition recordDef = getDefinition().getRecordClassifier() == null
+                ? getDefinition().getRecords().get(0)
+                : getDefinition().getRecordClassifier();
+        for (FieldDefinition field : recordDef.getFields()) {
+            if (field.getName().equals(fieldName)) {
+                return field;
+            }
+        }
+        throw new IllegalArgumentException(Builder.concat(
+                "field for the record filter was not found. ",
+                "field name=[", fieldName, "], record type=[", recordDef.getTypeName(), "]. ",
+                "multi-layout formats can only filter on classifier fields."));
+    }
+
+    /**
+     * レコードの条件に指定された値を、書き込み時と同様にフィールドのバイトデータに変換する。
+     *
+     * @param field フィールド定義情報保持クラス
+     * @param value 条件に指定された値
+     * @return フィールドのバイトデータ
+     * @throws IllegalArgumentException 値をフィールドのバイトデータに変換できない場合
+     */
+    byte[] encodeFilterValue(FieldDefinition field, Object value) throws IllegalArgumentException {
+        byte[] bytes = new byte[field.getSize()];
+        try {
+            convertFieldOnWrite(value, field, bytes, 0);
+        } catch (InvalidDataFormatException e) {
+            throw new IllegalArgumentException(Builder.concat(
+                    "invalid filter value was specified. ",
+                    "field name=[", field.getName(), "], value=[", value, "]."), e);
+        }
+        return bytes;
+    }
+
+    /**
+     * レコード終端文字列を含む1レコード分のバイトデータを、データレコードに変換する。
+     * <p/>
+     * 入力ストリームを経由せずにレコードを読み込むリーダ（{@link MappedFixedLengthRecordReader}）から使用される。
+     * レコード番号は、呼び出し元で事前に設定しておくこと。
+     * <p/>
+     * フィールドの変換を遅延する場合、呼び出し元がバッファを再利用するときはレコードの内容を複製して保持する。
+     * 再利用しないバッファを指定した場合は、複製せずにそのまま保持する。
+     *
+     * @param buff        1レコード分のバイトデータ（先頭からレコード長＋レコード終端文字列長の範囲を使用する）
+     * @param length      バッファ内で有効なデータのバイト長
+     * @param reuseBuffer 呼び出し元がバッファを再利用する場合はtrue
+     * @return 読み込んだレコード
+     * @throws IOException 読み込みに伴うIO処理で問題が発生した場合。
+     */
+    DataRecord decodeRecord(byte[] buff, int length, boolean reuseBuffer) throws IOException {
+        if (length < recordLength) {
             throw newInvalidDataFormatException(
                     "invalid data record found. ",
                     "the length of a record must be ", recordLength, " byte ",
-                    "but read data was only ", readBytes, " byte."
+                    "but read data was only ", length, " byte."
             );
         }
+        if (recordSeparatorByte != null && recordSeparatorByte.length != 0) {
+            checkRecordSeparator(buff, length);
+        }
+        if (isLazyDecoding() && reuseBuffer) {
+            return convertToRecord(Arrays.copyOf(buff, recordLength));
+        }
+        return convertToRecord(buff);
+    }
 
-        // レコード終端データの読み込み
-        readRecordSeparator(source, recordSeparatorByte);
+    /**
+     * バッファ内のレコード終端文字列が、ディレクティブで指定されたものと一致するか検証する。
+     * <p/>
+     * 読み込めたサイズがレコード区切り文字の長さに満たない場合、不足分は0として扱う（ストリームから読み込む場合と同じ）。
+     *
+     * @param buff   1レコード分のバイトデータ
+     * @param length バッファ内で有効なデータのバイト長
+     */
+    private void checkRecordSeparator(byte[] buff, int length) {
+        for (int i = 0; i < recordSeparatorByte.length; i++) {
+            int pos = recordLength + i;
+            byte b = pos < length ? buff[pos] : 0;
+            if (b != recordSeparatorByte[i]) {
+                byte[] separator = new byte[recordSeparatorByte.length];
+                System.arraycopy(buff, recordLength, separator, 0,
+                        Math.min(separator.length, length - recordLength));
+                checkRecordSeparator(separator);
+            }
+        }
+    }
 
+    /**
+     * 1レコード分のバイトデータを、レコードタイプを判定したうえでデータレコードに変換する。
+     *
+     * @param buff 1レコード分のバイトデータ
+     * @return 読み込んだレコード
+     * @throws IOException 読み込みに伴うIO処理で問題が発生した場合。
+     */
+    protected DataRecord convertToRecord(byte[] buff) throws IOException {
         // シングルフォーマットの場合
         if (getDefinition().getRecordClassifier() == null) {
             return convertToRecord(buff, getDefinition().getRecords().get(0));
@@ -546,10 +747,37 @@ public class FixedLengthDataRecordFormatter extends DataRecordFormatterSupport {
 
         // マルチフォーマットの場合
         Map<String, Object> record = convertToRecord(buff, getDefinition().getRecordClassifier());
-        for (RecordDefinition recordDef : getDefinition().getRecords()) {
-            if (recordDef.isApplicableTo(record)) {
+        RecordTypeDispatcher dispatcher = getRecordTypeDispatcher();
+        int index = dispatcher.indexOf(record);
+        if (index != -1) {
+            RecordDefinition recordDef = getDefinition().getRecords().get(index);
+            if (legacyRecordConversion) {
+                // サブクラスの変換処理を経由させるため、識別項目の変換結果は再利用しない
                 return convertToRecord(buff, recordDef);
             }
+            return convertToRecord(buff, recordDef, record, dispatcher.getClassifierFields(index));
+        }
+        throw newInvalidDataFormatException(
+                "an applicable layout definition was not found in the record. ",
+                "record=[", record, "]."
+        );
+    }
+
+    /**
+     * 1レコード分のバイトデータに適用するレコードタイプを判定する。
+     *
+     * @param buff 1レコード分のバイトデータ
+     * @return 適用するレコードタイプ
+     * @throws IOException 読み込みに伴うIO処理で問題が発生した場合。
+     */
+    RecordDefinition resolveRecordType(byte[] buff) throws IOException {
+        if (getDefinition().getRecordClassifier() == null) {
+            return getDefinition().getRecords().get(0);
+        }
+        Map<String, Object> record = convertToRecord(buff, getDefinition().getRecordClassifier());
+        int index = getRecordTypeDispatcher().indexOf(record);
+        if (index != -1) {
+            return getDefinition().getRecords().get(index);
         }
         throw newInvalidDataFormatException(
                 "an applicable layout definition was not found in the record. ",
@@ -557,6 +785,37 @@ public class FixedLengthDataRecordFormatter extends DataRecordFormatterSupport {
         );
     }
 
+    /**
+     * レコードタイプの判定に使用するディスパッチャを取得する。
+     * ディスパッチャは初回の呼び出し時に、フォーマット定義から生成する。
+     *
+     * @return ディスパッチャ
+     */
+    private RecordTypeDispatcher getRecordTypeDispatcher() {
+        if (recordTypeDispatcher == null) {
+            recordTypeDispatcher = new RecordTypeDispatcher(getDefinition(), null);
+        }
+        return recordTypeDispatcher;
+    }
+
+    /**
+     * 1レコードあたりのバイト長（レコード終端文字列を含まない）を取得する。
+     *
+     * @return レコード長
+     */
+    int getRecordLength() {
+        return recordLength;
+    }
+
+    /**
+     * レコード終端文字列のバイト長を取得する。
+     *
+     * @return レコード終端文字列のバイト長（レコード終端文字列が設定されていない場合は0）
+     */
+    int getRecordSeparatorLength() {
+        return recordSeparatorByte == null ? 0 : recordSeparatorByte.length;
+    }
+
     /**
      * レコード区切り文字を読み込む。<br/>
      * レコード区切り文字無しの場合は何もしない。
@@ -578,7 +837,16 @@ public class FixedLengthDataRecordFormatter extends DataRecordFormatterSupport {
         // レコード区切り文字を読み込む
         byte[] bytes = new byte[recordSeparator.length];
         source.read(bytes); // 読み込めたサイズがレコード区切り文字の長さに満たない場合、例外がスローされる。実際に何バイトのデータが読み込めたかどうかを確認する必要はないので、readメソッドの戻り値の確認は行わない
-        if (!Arrays.equals(recordSeparator, bytes)) {
+        checkRecordSeparator(bytes);
+    }
+
+    /**
+     * 読み込んだレコード区切り文字が、ディレクティブで指定されたものと一致するか検証する。
+     *
+     * @param bytes 読み込んだレコード区切り文字
+     */
+    private void checkRecordSeparator(byte[] bytes) {
+        if (!Arrays.equals(recordSeparatorByte, bytes)) {
             throw newInvalidDataFormatException(
                     "invalid record separator was specified by '",
                     Directive.RECORD_SEPARATOR.getName(), "'",
@@ -599,20 +867,58 @@ public class FixedLengthDataRecordFormatter extends DataRecordFormatterSupport {
      */
     protected DataRecord convertToRecord(byte[] bytes, RecordDefinition recordDef)
             throws IOException {
-        DataRecord record = new DataRecord().setRecordType(recordDef
-                                                                   .getTypeName());
-        record.setRecordNumber(getRecordNumber());
-
-        ByteBuffer buff = ByteBuffer.wrap(bytes);
+        return convertToRecord(bytes, recordDef, null, null);
+    }
 
-        for (FieldDefinition field : recordDef.getFields()) {
+    /**
+     * 1レコード分の固定長レコードを読み込み、DataRecord型のオブジェクトとして返却する。
+     * <p/>
+     * 識別項目（Classifier）と定義が同一のフィールドは、識別項目として変換済みの値を再利用し、再度の変換は行わない。
+     * 読み込むフィールドが設定されている場合（{@link #setProjectedFields(java.util.Set)}）、それ以外のフィールドは変換しない。
+     *
+     * @param bytes            入力データ
+     * @param recordDef        レコード定義情報保持クラス
+     * @param classifierRecord 識別項目として変換済みのレコード（再利用しない場合はnull）
+     * @param classifierFields フィールドごとに、識別項目の変換結果を再利用できる場合はtrueを格納した配列（再利用しない場合はnull）
+     * @return 読み込んだレコード
+     * @throws IOException 読み込みに伴うIO処理で問題が発生した場合。
+     */
+    protected DataRecord convertToRecord(byte[] bytes, RecordDefinition recordDef,
+            Map<String, ?> classifierRecord, boolean[] classifierFields) throws IOException {
+        DataRecord record = new DataRecord(new DeferredValueMap()).setRecordType(recordDef
+                                                                   .getTypeName());
+        record.setRecordNumber(getRecordNumberAsLong());
 
-            // ストリームから、フィールド長の長さだけbyte配列に読み込む
-            byte[] fieldBytes = new byte[field.getSize()];
-            buff.position(field.getPosition() - 1);
-            buff.get(fieldBytes);
+        // 識別項目はレコードタイプの判定に使用するため、全てのフィールドを読み込む
+        boolean[] projection = recordDef == getDefinition().getRecordClassifier() ? null : getProjection(recordDef);
 
-            Object value = convertToField(fieldBytes, field);
+        List<FieldDefinition> fields = recordDef.getFields();
+        for (int i = 0; i < fields.size(); i++) {
+            if (projection != null && !projection[i]) {
+                continue;
+            }
+            FieldDefinition field = fields.get(i);
+
+            Object value;
+            if (classifierFields != null && classifierFields[i]) {
+                value = classifierRecord.get(field.getName());
+            } else if (isLazyDecoding()) {
+                // 値が参照されるまで変換を遅延する（フィラーは参照されないため変換しない）
+                if (!field.isFiller()) {
+                    record.putDeferredValue(field.getName(), new LazyField(bytes, field, getRecordNumberAsLong()));
+                }
+                continue;
+            } else if (!legacyFieldConversion && isLongDecodable(field)) {
+                // 数値フィールドは、BigDecimalに変換せずにスケールなしのlong値として保持する
+                long unscaledValue = decodeLong(bytes, field.getPosition() - 1, field.getSize(), field);
+                if (!field.isFiller()) {
+                    int scale = ((LongDecodable) field.getDataType()).getScale();
+                    record.putUnscaledLong(field.getName(), unscaledValue, scale);
+                }
+                continue;
+            } else {
+                value = readField(bytes, field.getPosition() - 1, field.getSize(), field);
+            }
 
             String name = field.getName();
             if (!field.isFiller()) {
@@ -622,6 +928,129 @@ public class FixedLengthDataRecordFormatter extends DataRecordFormatterSupport {
         return record;
     }
 
+    /**
+     * フィールドを、BigDecimalに変換せずにスケールなしのlong値として読み込めるかどうかを判定する。
+     * <p/>
+     * データタイプが{@link LongDecodable}を実装し、常にlong値として読み込める場合で、
+     * 読み込み時に値を変換するコンバータ（{@link DefaultValue}以外のコンバータ）が設定されていない場合に、
+     * long値として読み込める。
+     *
+     * @param field フィールド定義情報保持クラス
+     * @return long値として読み込める場合はtrue
+     */
+    static boolean isLongDecodable(FieldDefinition field) {
+        if (!(field.getDataType() instanceof LongDecodable)
+                || !((LongDecodable) field.getDataType()).isLongDecodable()) {
+            return false;
+        }
+        for (Object convertor : field.getConvertors()) {
+            if (convertor.getClass() != DefaultValue.class) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * レコードのバッファのうちフィールドに該当する範囲を、スケールなしのlong値として読み込む。
+     *
+     * @param buff   1レコード分のバイトデータ
+     * @param offset フィールドの開始位置
+     * @param length フィールドのバイト長
+     * @param field  フィールド定義情報保持クラス
+     * @return スケールなしの値
+     */
+    long decodeLong(byte[] buff, int offset, int length, FieldDefinition field) {
+        try {
+            return ((LongDecodable) field.getDataType()).decodeLong(buff, offset, length);
+        } catch (InvalidDataFormatException e) {
+            // データタイプで発生した例外に対して、ファイル名、レコード番号とフィールド名の情報を付与する
+            e.setFieldName(field.getName());
+            throw addFormatAndRecordNumberTo(e);
+        }
+    }
+
+    /**
+     * 値が最初に参照された時点で、レコードのバッファからフィールドを変換する値。
+     * <p/>
+     * 変換エラーが発生した場合は、フォーマッタの現在のレコード番号ではなく、
+     * レコードを読み込んだ時点のレコード番号を例外に設定する。
+     */
+    private final class LazyField extends DeferredValueMap.DeferredValue {
+
+        /** 1レコード分のバイトデータ */
+        private final byte[] bytes;
+
+        /** フィールド定義情報保持クラス */
+        private final FieldDefinition field;
+
+        /** レコードを読み込んだ時点のレコード番号 */
+        private final long recordNumber;
+
+        /**
+         * コンストラクタ。
+         *
+         * @param bytes        1レコード分のバイトデータ
+         * @param field        フィールド定義情報保持クラス
+         * @param recordNumber レコードを読み込んだ時点のレコード番号
+         */
+        LazyField(byte[] bytes, FieldDefinition field, long recordNumber) {
+            this.bytes = bytes;
+            this.field = field;
+            this.recordNumber = recordNumber;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        Object resolve() {
+            int offset = field.getPosition() - 1;
+            try {
+                if (!legacyFieldConversion && isLongDecodable(field)) {
+                    long unscaledValue = decodeLong(bytes, offset, field.getSize(), field);
+                    return BigDecimal.valueOf(unscaledValue, ((LongDecodable) field.getDataType()).getScale());
+                }
+                return readField(bytes, offset, field.getSize(), field);
+            } catch (InvalidDataFormatException e) {
+                throw e.setRecordNumber(recordNumber);
+            } catch (IOException e) {
+                throw new RuntimeException(
+                        "I/O error happened while converting the field. field name=[" + field.getName() + "].", e);
+            }
+        }
+    }
+
+    /**
+     * レコードのバッファのうちフィールドに該当する範囲を変換する。
+     * <p/>
+     * サブクラスが{@link #convertToField(byte[], FieldDefinition)}をオーバーライドしている場合は、
+     * フィールドの範囲をコピーしたバイト配列を引数に呼び出す。
+     * それ以外の場合は、{@link #convertToField(byte[], int, int, FieldDefinition)}でフィールドの範囲を直接変換する。
+     *
+     * @param buff   1レコード分のバイトデータ
+     * @param offset フィールドの開始位置
+     * @param length フィールドのバイト長
+     * @param field  フィールド定義情報保持クラス
+     * @return 読み込んだフィールドの内容
+     * @throws IOException 読み込みに伴うIO処理で問題が発生した場合。
+     */
+    Object readField(byte[] buff, int offset, int length, FieldDefinition field) throws IOException {
+        if (legacyFieldConversion) {
+            return convertToField(Arrays.copyOfRange(buff, offset, offset + length), field);
+        }
+        return convertToField(buff, offset, length, field);
+    }
+
+    /**
+     * サブクラスが{@link #convertToField(byte[], FieldDefinition)}をオーバーライドしているかどうかを判定する。
+     * <p/>
+     * オーバーライドしている場合、数値フィールドもlong値として直接読み込まずに{@link #readField}で変換する。
+     *
+     * @return オーバーライドしている場合はtrue
+     */
+    boolean isLegacyFieldConversion() {
+        return legacyFieldConversion;
+    }
+
     /**
      * 入力ストリームから1レコード分のフィールドの内容を読み込み、コンバータを用いて変換したオブジェクトを返却する。
      * 入力ストリームが既に終端に達していた場合はnullを返却する。
@@ -631,14 +1060,31 @@ public class FixedLengthDataRecordFormatter extends DataRecordFormatterSupport {
      * @return 読み込んだフィールドの内容
      * @throws IOException 読み込みに伴うIO処理で問題が発生した場合。
      */
-    @SuppressWarnings({ "unchecked", "rawtypes" })
     protected Object convertToField(byte[] source, FieldDefinition field)
             throws IOException {
+        return convertToField(source, 0, source.length, field);
+    }
+
+    /**
+     * レコードのバッファのうちフィールドに該当する範囲を、コンバータを用いて変換したオブジェクトを返却する。
+     * <p/>
+     * フィールドごとにバイト配列を切り出さず、{@link ByteStreamDataSupport#convertOnRead(byte[], int, int)}で直接変換する。
+     *
+     * @param buff   1レコード分のバイトデータ
+     * @param offset フィールドの開始位置
+     * @param length フィールドのバイト長
+     * @param field  フィールド定義情報保持クラス
+     * @return 読み込んだフィールドの内容
+     * @throws IOException 読み込みに伴うIO処理で問題が発生した場合。
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    protected Object convertToField(byte[] buff, int offset, int length, FieldDefinition field)
+            throws IOException {
         ByteStreamDataSupport<?> dataType = (ByteStreamDataSupport<?>) field.getDataType();
 
         Object value;
         try {
-            value = dataType.convertOnRead(source);
+            value = dataType.convertOnRead(buff, offset, length);
 
             // コンバータを実行する
             for (ValueConvertor convertor : field.getConvertors()) {
@@ -676,11 +1122,10 @@ public class FixedLengthDataRecordFormatter extends DataRecordFormatterSupport {
         }
 
         // マルチレイアウトの場合
-        for (RecordDefinition recordDef : getDefinition().getRecords()) {
-            if (recordDef.isApplicableTo(record)) {
-                writeRecord(recordDef.getTypeName(), record);
-                return;
-            }
+        int index = getRecordTypeDispatcher().indexOf(record);
+        if (index != -1) {
+            writeRecord(getDefinition().getRecords().get(index).getTypeName(), record);
+            return;
         }
         // エラー。レイアウト定義が見つからない。
         incrementRecordNumber();    // エラー行を正しく表示するため
@@ -726,6 +1171,14 @@ public class FixedLengthDataRecordFormatter extends DataRecordFormatterSupport {
     /**
      * このオブジェクトのフォーマット情報に従って、
      * 出力ストリームに1レコード分の内容を書き込む。
+     * <p/>
+     * 各フィールドはレコード全体を保持するバッファに直接書き込み、
+     * 1レコード分の内容（レコード終端文字列を含む）をまとめて出力ストリームに書き込む。<br/>
+     * フィラー項目や、値が設定されていない場合の出力内容が一定となるフィールドは、
+     * レコードタイプごとに作成したテンプレートの内容をそのまま使用する。
+     * <p/>
+     * サブクラスが{@link #writeField(Map, FieldDefinition)}をオーバーライドしている場合は、
+     * フィールドごとにそのメソッドで出力ストリームに書き込む。
      *
      * @param record    出力するレコードの内容を格納したMap
      * @param recordDef レコード定義情報保持クラス
@@ -733,12 +1186,28 @@ public class FixedLengthDataRecordFormatter extends DataRecordFormatterSupport {
      */
     protected void writeRecord(Map<String, ?> record,
                                RecordDefinition recordDef) throws IOException {
-        for (FieldDefinition field : recordDef.getFields()) {
-            writeField(record, field);
+        if (legacyFieldWrite) {
+            for (FieldDefinition field : recordDef.getFields()) {
+                writeField(record, field);
+            }
+            if (recordSeparatorByte != null) {
+                dest.write(recordSeparatorByte);
+            }
+            return;
         }
-        if (recordSeparatorByte != null) {
-            dest.write(recordSeparatorByte);
+        RecordTemplate template = getRecordTemplate(recordDef);
+        byte[] buff = getWriteBuffer();
+        System.arraycopy(template.bytes, 0, buff, 0, buff.length);
+
+        List<FieldDefinition> fields = recordDef.getFields();
+        for (int i = 0; i < fields.size(); i++) {
+            FieldDefinition field = fields.get(i);
+            if (template.prefilled[i] && record.get(field.getName()) == null) {
+                continue;
+            }
+            writeField(record, field, buff);
         }
+        dest.write(buff, 0, buff.length);
     }
 
     /**
@@ -749,29 +1218,165 @@ public class FixedLengthDataRecordFormatter extends DataRecordFormatterSupport {
      * @param field  フィールド定義情報保持クラス
      * @throws IOException 書き込みに伴うIO処理で問題が発生した場合。
      */
-    @SuppressWarnings("rawtypes")
     protected void writeField(Map<String, ?> record, FieldDefinition field)
             throws IOException {
-
-        Object value = record.get(field.getName());
-
-        byte[] outData;
-
+        byte[] outData = new byte[field.getSize()];
         try {
-            // コンバータを実行する
-            for (ValueConvertor convertor : field.getConvertors()) {
-                value = convertor.convertOnWrite(value);
-            }
+            convertFieldOnWrite(record.get(field.getName()), field, outData, 0);
+        } catch (InvalidDataFormatException e) {
+            // コンバータで発生した例外に対してフィールド名の情報を付与する
+            throw addFormatAndRecordNumberTo(e).setFieldName(field.getName());
+        }
+        dest.write(outData);
+    }
 
-            // データタイプを実行する
-            ByteStreamDataSupport<?> dataType = (ByteStreamDataSupport<?>) field.getDataType();
-            outData = dataType.convertOnWrite(value);
+    /**
+     * このオブジェクトのフォーマット定義に従って、
+     * レコードのバッファのフィールドの位置に、フィールドの内容を書き込む。
+     *
+     * @param record 出力するレコードの内容を格納したMap
+     * @param field  フィールド定義情報保持クラス
+     * @param buff   1レコード分のバッファ
+     */
+    protected void writeField(Map<String, ?> record, FieldDefinition field, byte[] buff) {
+        try {
+            convertFieldOnWrite(record.get(field.getName()), field, buff, field.getPosition() - 1);
         } catch (InvalidDataFormatException e) {
             // コンバータで発生した例外に対してフィールド名の情報を付与する
             throw addFormatAndRecordNumberTo(e).setFieldName(field.getName());
         }
+    }
 
-        dest.write(outData);
+    /**
+     * コンバータおよびデータタイプを用いてフィールドの値を変換し、バイト配列の指定された位置に書き込む。
+     *
+     * @param value  フィールドの値
+     * @param field  フィールド定義情報保持クラス
+     * @param buff   書き込み先のバイト配列
+     * @param offset 書き込みを開始する位置
+     */
+    @SuppressWarnings("rawtypes")
+    private void convertFieldOnWrite(Object value, FieldDefinition field, byte[] buff, int offset) {
+        // コンバータを実行する
+        for (ValueConvertor convertor : field.getConvertors()) {
+            value = convertor.convertOnWrite(value);
+        }
+
+        // データタイプを実行する
+        ByteStreamDataSupport<?> dataType = (ByteStreamDataSupport<?>) field.getDataType();
+        dataType.convertOnWrite(value, buff, offset);
+    }
+
+    /**
+     * 書き込み時に使用するレコードのバッファを取得する。
+     *
+     * @return レコードのバッファ（レコード終端文字列を含む）
+     */
+    private byte[] getWriteBuffer() {
+        if (writeBuffer == null) {
+            writeBuffer = new byte[recordLength + getRecordSeparatorLength()];
+        }
+        return writeBuffer;
+    }
+
+    /**
+     * レコードタイプに対応する、書き込み時に使用するレコードのテンプレートを取得する。
+     * テンプレートはレコードタイプごとに、初回の呼び出し時に作成する。
+     *
+     * @param recordDef レコード定義情報保持クラス
+     * @return レコードのテンプレート
+     */
+    private RecordTemplate getRecordTemplate(RecordDefinition recordDef) {
+        RecordTemplate template = writeTemplates.get(recordDef);
+        if (template == null) {
+            template = createRecordTemplate(recordDef);
+            writeTemplates.put(recordDef, template);
+        }
+        return template;
+    }
+
+    /**
+     * 書き込み時に使用するレコードのテンプレートを作成する。
+     * <p/>
+     * 本フレームワークが提供するデータタイプおよびコンバータのみを使用するフィールドは、
+     * 値が設定されていない場合の出力内容が一定となるため、その内容をテンプレートに書き込んでおく。<br/>
+     * 値が設定されていない場合に変換エラーとなるフィールドは、レコードごとに変換を行う。
+     *
+     * @param recordDef レコード定義情報保持クラス
+     * @return レコードのテンプレート
+     */
+    private RecordTemplate createRecordTemplate(RecordDefinition recordDef) {
+        byte[] bytes = new byte[recordLength + getRecordSeparatorLength()];
+        if (recordSeparatorByte != null) {
+            System.arraycopy(recordSeparatorByte, 0, bytes, recordLength, recordSeparatorByte.length);
+        }
+        List<FieldDefinition> fields = recordDef.getFields();
+        boolean[] prefilled = new boolean[fields.size()];
+        for (int i = 0; i < fields.size(); i++) {
+            FieldDefinition field = fields.get(i);
+            if (!isBuiltIn(field)) {
+                continue;
+            }
+            try {
+                convertFieldOnWrite(null, field, bytes, field.getPosition() - 1);
+                prefilled[i] = true;
+            } catch (RuntimeException e) {
+                // 値が設定されていない場合に変換エラーとなるフィールドは、レコードごとに変換してエラーを通知する
+                continue;
+            }
+        }
+        return new RecordTemplate(bytes, prefilled);
+    }
+
+    /**
+     * フィールドが本フレームワークの提供するデータタイプおよびコンバータのみを使用するかどうかを判定する。
+     *
+     * @param field フィールド定義情報保持クラス
+     * @return 本フレームワークの提供するデータタイプおよびコンバータのみを使用する場合はtrue
+     */
+    private static boolean isBuiltIn(FieldDefinition field) {
+        if (!isBuiltIn(field.getDataType())) {
+            return false;
+        }
+        for (Object convertor : field.getConvertors()) {
+            if (!isBuiltIn(convertor)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * オブジェクトが本フレームワークの提供するクラス（サブクラスを除く）のインスタンスかどうかを判定する。
+     *
+     * @param obj 判定対象のオブジェクト
+     * @return 本フレームワークの提供するクラスのインスタンスの場合はtrue
+     */
+    private static boolean isBuiltIn(Object obj) {
+        return obj != null && obj.getClass().getName().startsWith(BUILT_IN_CONVERTOR_PACKAGE);
+    }
+
+    /**
+     * 書き込み時に使用するレコードのテンプレート。
+     */
+    private static final class RecordTemplate {
+
+        /** テンプレートの内容（レコード終端文字列を含む） */
+        private final byte[] bytes;
+
+        /** フィールドごとに、値が設定されていない場合にテンプレートの内容をそのまま使用できるかどうか */
+        private final boolean[] prefilled;
+
+        /**
+         * コンストラクタ。
+         *
+         * @param bytes     テンプレートの内容
+         * @param prefilled テンプレートの内容をそのまま使用できるかどうか
+         */
+        private RecordTemplate(byte[] bytes, boolean[] prefilled) {
+            this.bytes = bytes;
+            this.prefilled = prefilled;
+        }
     }
 
     /**
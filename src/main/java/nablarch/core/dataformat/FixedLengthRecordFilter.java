@@ -0,0 +1,368 @@
+package nablarch.core.dataformat;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import nablarch.core.dataformat.convertor.datatype.LongDecodable;
+import nablarch.core.util.annotation.Published;
+
+/**
+ * 固定長レコードのバイトデータに対する条件を表すクラス。
+ * <p>
+ * 条件は、レコードをデータレコードに変換する前に、フィールド定義の位置とサイズから特定したバイトデータに対して判定する。
+ * 条件を満たさないレコードは、文字コードの変換やデータレコードの生成を行わずに読み飛ばすことができる。
+ * </p>
+ * <p>
+ * 条件に指定した値は、フィールドのコンバータおよびデータタイプを用いて書き込み時と同様にバイトデータに変換し、
+ * レコードのバイトデータと比較する。
+ * ただし、ゾーン数値およびパック数値のフィールドは、バイトデータを数値として読み込んだうえで比較する。
+ * </p>
+ * <p>
+ * 範囲の条件（{@link #between(String, Object, Object)}）は、数値以外のフィールドではバイトデータを符号なしの値として
+ * 先頭から比較する。このため、シングルバイト文字列で表したコードや日付など、バイトデータの順序と値の順序が一致するフィールドに使用すること。
+ * </p>
+ * <p>
+ * マルチレイアウトのフォーマットでは、識別項目（Classifier）に定義されたフィールドのみを条件に使用できる。
+ * </p>
+ */
+@Published(tag = "architect")
+public abstract class FixedLengthRecordFilter {
+
+    /** バイトデータを符号なしの値として先頭から比較するコンパレータ */
+    private static final Comparator<byte[]> BYTES_COMPARATOR = new Comparator<byte[]>() {
+        public int compare(byte[] o1, byte[] o2) {
+            return FixedLengthRecordFilter.compare(o1, 0, o2);
+        }
+    };
+
+    /** 条件の対象とするフィールド名 */
+    private final String fieldName;
+
+    /**
+     * コンストラクタ。
+     * @param fieldName 条件の対象とするフィールド名
+     */
+    FixedLengthRecordFilter(String fieldName) {
+        this.fieldName = fieldName;
+    }
+
+    /**
+     * フィールドの値が、指定した値と一致することを表す条件を生成する。
+     *
+     * @param fieldName フィールド名
+     * @param value     値
+     * @return 条件
+     */
+    public static FixedLengthRecordFilter equalsTo(String fieldName, Object value) {
+        return in(fieldName, value);
+    }
+
+    /**
+     * フィールドの値が、指定した値のいずれかと一致することを表す条件を生成する。
+     *
+     * @param fieldName フィールド名
+     * @param values    値
+     * @return 条件
+     */
+    public static FixedLengthRecordFilter in(String fieldName, Object... values) {
+        if (values == null || values.length == 0) {
+            throw new IllegalArgumentException("values must not be empty. field name=[" + fieldName + "].");
+        }
+        return new In(fieldName, values);
+    }
+
+    /**
+     * フィールドの値が、指定した範囲（下限値および上限値を含む）にあることを表す条件を生成する。
+     *
+     * @param fieldName フィールド名
+     * @param min       下限値（下限を設けない場合はnull）
+     * @param max       上限値（上限を設けない場合はnull）
+     * @return 条件
+     */
+    public static FixedLengthRecordFilter between(String fieldName, Object min, Object max) {
+        if (min == null && max == null) {
+            throw new IllegalArgumentException(
+                    "either min or max must be specified. field name=[" + fieldName + "].");
+        }
+        return new Between(fieldName, min, max);
+    }
+
+    /**
+     * 指定した全ての条件を満たすことを表す条件を生成する。
+     *
+     * @param filters 条件
+     * @return 条件
+     */
+    public static FixedLengthRecordFilter allOf(FixedLengthRecordFilter... filters) {
+        if (filters == null || filters.length == 0) {
+            throw new IllegalArgumentException("filters must not be empty.");
+        }
+        return new AllOf(filters);
+    }
+
+    /**
+     * 条件の対象とするフィールド名を取得する。
+     * @return フィールド名（複数の条件を組み合わせた場合はnull）
+     */
+    public String getFieldName() {
+        return fieldName;
+    }
+
+    /**
+     * フォーマッタのフィールド定義を元に、レコードのバイトデータに対して判定を行う条件を生成する。
+     *
+     * @param formatter フォーマッタ（初期化済みであること）
+     * @return 判定を行う条件
+     */
+    abstract Condition bind(FixedLengthDataRecordFormatter formatter);
+
+    /**
+     * レコードのバイトデータに対して判定を行う条件。
+     */
+    interface Condition {
+
+        /**
+         * レコードのバイトデータが条件を満たすかどうかを判定する。
+         *
+         * @param record 1レコード分のバイトデータ
+         * @return 条件を満たす場合はtrue
+         */
+        boolean matches(byte[] record);
+    }
+
+    /**
+     * 数値として比較できるフィールドの値を、フィールドのスケールに合わせたスケールなしの値に変換する。
+     * <p/>
+     * スケールに合わせる際に端数が生じる場合は、指定された丸めモードで丸める。
+     * long型の範囲を超える場合は、long型の最小値または最大値に置き換える。
+     *
+     * @param fieldName    フィールド名
+     * @param value        値
+     * @param scale        フィールドのスケール
+     * @param roundingMode 丸めモード
+     * @return スケールなしの値
+     */
+    static long toUnscaledLong(String fieldName, Object value, int scale, RoundingMode roundingMode) {
+        BigDecimal decimal;
+        try {
+            decimal = value instanceof BigDecimal ? (BigDecimal) value : new BigDecimal(value.toString());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(
+                    "invalid filter value was specified. value must be a number. "
+                  + "field name=[" + fieldName + "], value=[" + value + "].", e);
+        }
+        BigDecimal unscaled = decimal.setScale(scale, roundingMode).movePointRight(scale);
+        if (unscaled.compareTo(BigDecimal.valueOf(Long.MAX_VALUE)) > 0) {
+            return Long.MAX_VALUE;
+        }
+        if (unscaled.compareTo(BigDecimal.valueOf(Long.MIN_VALUE)) < 0) {
+            return Long.MIN_VALUE;
+        }
+        return unscaled.longValue();
+    }
+
+    /**
+     * バイトデータの範囲を、符号なしの値として先頭から比較する。
+     *
+     * @param record レコードのバイトデータ
+     * @param offset 比較する範囲の開始位置
+     * @param value  比較対象のバイトデータ（比較する範囲と同じ長さであること）
+     * @return レコードのバイトデータが小さい場合は負の値、等しい場合は0、大きい場合は正の値
+     */
+    static int compare(byte[] record, int offset, byte[] value) {
+        for (int i = 0; i < value.length; i++) {
+            int diff = (record[offset + i] & 0xFF) - (value[i] & 0xFF);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * フィールドの値が、指定した値のいずれかと一致することを表す条件。
+     */
+    private static final class In extends FixedLengthRecordFilter {
+
+        /** 値 */
+        private final Object[] values;
+
+        /**
+         * コンストラクタ。
+         * @param fieldName フィールド名
+         * @param values    値
+         */
+        In(String fieldName, Object[] values) {
+            super(fieldName);
+            this.values = values.clone();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        Condition bind(final FixedLengthDataRecordFormatter formatter) {
+            final FieldDefinition field = formatter.getFilterField(getFieldName());
+            final int offset = field.getPosition() - 1;
+
+            if (FixedLengthDataRecordFormatter.isLongDecodable(field)) {
+                // 数値として比較する（端数が生じる値は一致することがないため、比較対象から除外する）
+                int scale = ((LongDecodable) field.getDataType()).getScale();
+                List<Long> expected = new ArrayList<Long>();
+                for (Object value : values) {
+                    long unscaled = toUnscaledLong(getFieldName(), value, scale, RoundingMode.DOWN);
+                    if (unscaled == toUnscaledLong(getFieldName(), value, scale, RoundingMode.UP)) {
+                        expected.add(unscaled);
+                    }
+                }
+                final long[] sorted = new long[expected.size()];
+                for (int i = 0; i < sorted.length; i++) {
+                    sorted[i] = expected.get(i);
+                }
+                Arrays.sort(sorted);
+                return new Condition() {
+                    public boolean matches(byte[] record) {
+                        long actual = formatter.decodeLong(record, offset, field.getSize(), field);
+                        return Arrays.binarySearch(sorted, actual) >= 0;
+                    }
+                };
+            }
+
+            final byte[][] sorted = new byte[values.length][];
+            for (int i = 0; i < values.length; i++) {
+                sorted[i] = formatter.encodeFilterValue(field, values[i]);
+            }
+            Arrays.sort(sorted, BYTES_COMPARATOR);
+            return new Condition() {
+                public boolean matches(byte[] record) {
+                    int low = 0;
+                    int high = sorted.length - 1;
+                    while (low <= high) {
+                        int mid = (low + high) >>> 1;
+                        int cmp = compare(record, offset, sorted[mid]);
+                        if (cmp == 0) {
+                            return true;
+                        }
+                        if (cmp > 0) {
+                            low = mid + 1;
+                        } else {
+                            high = mid - 1;
+                        }
+                    }
+                    return false;
+                }
+            };
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public String toString() {
+            return getFieldName() + " in " + Arrays.toString(values);
+        }
+    }
+
+    /**
+     * フィールドの値が、指定した範囲にあることを表す条件。
+     */
+    private static final class Between extends FixedLengthRecordFilter {
+
+        /** 下限値 */
+        private final Object min;
+
+        /** 上限値 */
+        private final Object max;
+
+        /**
+         * コンストラクタ。
+         * @param fieldName フィールド名
+         * @param min       下限値（下限を設けない場合はnull）
+         * @param max       上限値（上限を設けない場合はnull）
+         */
+        Between(String fieldName, Object min, Object max) {
+            super(fieldName);
+            this.min = min;
+            this.max = max;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        Condition bind(final FixedLengthDataRecordFormatter formatter) {
+            final FieldDefinition field = formatter.getFilterField(getFieldName());
+            final int offset = field.getPosition() - 1;
+
+            if (FixedLengthDataRecordFormatter.isLongDecodable(field)) {
+                int scale = ((LongDecodable) field.getDataType()).getScale();
+                final long lower = min == null ? Long.MIN_VALUE
+                        : toUnscaledLong(getFieldName(), min, scale, RoundingMode.CEILING);
+                final long upper = max == null ? Long.MAX_VALUE
+                        : toUnscaledLong(getFieldName(), max, scale, RoundingMode.FLOOR);
+                return new Condition() {
+                    public boolean matches(byte[] record) {
+                        long actual = formatter.decodeLong(record, offset, field.getSize(), field);
+                        return lower <= actual && actual <= upper;
+                    }
+                };
+            }
+
+            final byte[] lower = min == null ? null : formatter.encodeFilterValue(field, min);
+            final byte[] upper = max == null ? null : formatter.encodeFilterValue(field, max);
+            return new Condition() {
+                public boolean matches(byte[] record) {
+                    return (lower == null || compare(record, offset, lower) >= 0)
+                        && (upper == null || compare(record, offset, upper) <= 0);
+                }
+            };
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public String toString() {
+            return getFieldName() + " between [" + min + "] and [" + max + "]";
+        }
+    }
+
+    /**
+     * 指定した全ての条件を満たすことを表す条件。
+     */
+    private static final class AllOf extends FixedLengthRecordFilter {
+
+        /** 条件 */
+        private final FixedLengthRecordFilter[] filters;
+
+        /**
+         * コンストラクタ。
+         * @param filters 条件
+         */
+        AllOf(FixedLengthRecordFilter[] filters) {
+            super(null);
+            this.filters = filters.clone();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        Condition bind(FixedLengthDataRecordFormatter formatter) {
+            final Condition[] conditions = new Condition[filters.length];
+            for (int i = 0; i < filters.length; i++) {
+                conditions[i] = filters[i].bind(formatter);
+            }
+            return new Condition() {
+                public boolean matches(byte[] record) {
+                    for (Condition condition : conditions) {
+                        if (!condition.matches(record)) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }
+            };
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public String toString() {
+            return Arrays.toString(filters);
+        }
+    }
+}
@@ -94,6 +94,9 @@ public class FormatterFactory {
 
     /** JSONファイルタイプの名前 */
     private static final Object FILE_TYPE_JSON = "JSON";
+
+    /** JSON Linesファイルタイプの名前 */
+    private static final Object FILE_TYPE_JSONL = "JSONL";
     
     /** XMLファイルタイプの名前 */
     private static final Object FILE_TYPE_XML = "XML";
@@ -107,6 +110,9 @@ public class FormatterFactory {
     /** フォーマット定義ファイルのファイルエンコーディング */
     private String encoding;
 
+    /** フィールドの変換を、値が最初に参照されるまで遅延するかどうか */
+    private boolean lazyDecoding = false;
+
     /**
      * デフォルトのファクトリクラスのインスタンス。
      * リポジトリからインスタンスを取得できなかった場合に、デフォルトでこのインスタンスが使用される。
@@ -207,6 +213,10 @@ public class FormatterFactory {
      * <td>JsonDataRecordFormatter</td>
      * </tr>
      * <tr>
+     * <td>JSONL</td>
+     * <td>JsonLinesDataRecordFormatter</td>
+     * </tr>
+     * <tr>
      * <td>XML</td>
      * <td>XmlDataRecordFormatter</td>
      * </tr>
@@ -224,6 +234,8 @@ public class FormatterFactory {
             formatter = new FixedLengthDataRecordFormatter();
         } else if (FILE_TYPE_JSON.equals(fileType)) {
             formatter = new JsonDataRecordFormatter();
+        } else if (FILE_TYPE_JSONL.equals(fileType)) {
+            formatter = new JsonLinesDataRecordFormatter();
         } else if (FILE_TYPE_XML.equals(fileType)) {
             formatter = new XmlDataRecordFormatter();
         } else {
@@ -242,6 +254,7 @@ public class FormatterFactory {
      * <ul>
      * <li>データタイプ名に対応するデフォルトの寄せ字変換タイプ名のMap</li>
      * <li>許容するレコード終端文字列のリスト</li>
+     * <li>フィールドの変換を遅延するかどうか</li>
      * </ul>
      * </p>
      * @param formatter データレコードフォーマッタ
@@ -254,6 +267,7 @@ public class FormatterFactory {
                 ((DataRecordFormatterSupport) formatter)
                 .setAllowedRecordSeparatorList(allowedRecordSeparatorList);
             }
+            ((DataRecordFormatterSupport) formatter).setLazyDecoding(lazyDecoding);
         }
     }
 
@@ -308,4 +322,15 @@ public class FormatterFactory {
         return this;
     }
     
+    /**
+     * フィールドの変換を、値が最初に参照されるまで遅延するかどうかを設定する。
+     * @param lazyDecoding フィールドの変換を遅延する場合はtrue
+     * @return このオブジェクト自体
+     * @see DataRecordFormatterSupport#setLazyDecoding(boolean)
+     */
+    public FormatterFactory setLazyDecoding(boolean lazyDecoding) {
+        this.lazyDecoding = lazyDecoding;
+        return this;
+    }
+
 }
@@ -12,7 +12,7 @@ import nablarch.core.util.annotation.Published;
 public class InvalidDataFormatException extends RuntimeException {
     
     /** エラーが発生したレコード番号 */
-    private int recordNumber;
+    private long recordNumber;
     
     /** エラーが発生したフィールド名 */
     private String fieldName;
@@ -76,10 +76,21 @@ public class InvalidDataFormatException extends RuntimeException {
      * @param recordNumber エラーが発生したレコード番号
      * @return このオブジェクト自体
      */
-    public InvalidDataFormatException setRecordNumber(int recordNumber) {
+    public InvalidDataFormatException setRecordNumber(long recordNumber) {
         this.recordNumber = recordNumber;
         return this;
     }
+
+    /**
+     * エラーが発生したレコード番号を設定する。
+     * @param recordNumber エラーが発生したレコード番号
+     * @return このオブジェクト自体
+     * @deprecated {@link #setRecordNumber(long)}を使用すること。
+     */
+    @Deprecated
+    public InvalidDataFormatException setRecordNumber(int recordNumber) {
+        return setRecordNumber((long) recordNumber);
+    }
     
     /**
      * エラーが発生したフィールド名を設定する。
@@ -139,7 +150,18 @@ public class InvalidDataFormatException extends RuntimeException {
      * エラーが発生したレコード番号を取得する。
      * @return レコード番号（設定されていない場合は0）
      */
-    public int getRecordNumber() {
+    public long getRecordNumberAsLong() {
         return recordNumber;
     }
+
+    /**
+     * エラーが発生したレコード番号を取得する。
+     * @return レコード番号（設定されていない場合は0）
+     * @throws IllegalStateException レコード番号がint型で表現できない場合
+     * @deprecated {@link #getRecordNumberAsLong()}を使用すること。
+     */
+    @Deprecated
+    public int getRecordNumber() {
+        return RecordNumberUtil.toInt(recordNumber);
+    }
 }
@@ -1,7 +1,13 @@
 package nablarch.core.dataformat;
 
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
 import java.util.Map;
 
 import nablarch.core.dataformat.StructuredDataRecordFormatterSupport.StructuredDataDirective;
@@ -16,7 +22,14 @@ import nablarch.core.util.StringUtil;
 /**
  * JSONビルダー。<br>
  * この実装では独自実装によりJSONデータの解析を行います。
- * 
+ * <p/>
+ * JSON文字列は、フォーマット定義の順に内部のバッファへ構築し、1レコード分を全て構築した後に出力ストリームへ書き込みます。
+ * そのため、フォーマット定義に違反するデータが存在した場合は、出力ストリームへは何も書き込みません。
+ * オブジェクトや配列の要素に値が1つも出力されない場合は、その要素自体を出力しないため、
+ * 構築中に出力した区切り文字やキーをバッファから取り消します。
+ * <p/>
+ * 子要素のキーがマップに存在するかどうかは、レコードごとに1度だけ作成するキーの索引から判定します。
+ *
  * @author TIS
  */
 public class JsonDataBuilder extends StructuredDataEditorSupport implements StructuredDataBuilder {
@@ -30,84 +43,86 @@ public class JsonDataBuilder extends StructuredDataEditorSupport implements Stru
 
     /**
      * JSON文字列を作成します。
-     * 
+     *
      * @param map フラットマップ
      * @param layoutDef フォーマット定義
      * @param out JSON文字列出力先ストリーム
      * @throws IOException 読み込みに伴うIO処理で問題が発生した場合
      * @throws InvalidDataFormatException 読み込んだデータがフォーマット定義に違反している場合
      */
-    public void buildData(Map<String, ?> map, LayoutDefinition layoutDef, OutputStream out) 
+    public void buildData(Map<String, ?> map, LayoutDefinition layoutDef, OutputStream out)
             throws IOException, InvalidDataFormatException {
 
+        Charset enc = Charset.forName(
+                StructuredDataDirective.getTextEncoding(layoutDef.getDirective()));
+        // 1レコード分を全て構築するまでは出力ストリームへ書き込まない（構築中に例外が発生した場合は何も出力しない）
+        Writer writer = new OutputStreamWriter(new NonFlushingOutputStream(out), enc);
+        JsonEmitter emitter = new JsonEmitter(writer);
+
         RecordDefinition rd = layoutDef.getRecords().get(0);
-        String json = createJsonString("", map, layoutDef, rd, true);
-        if (json == null) {
-            // 何も出力されなかったら空のオブジェクトとする
-            json = "";
-        }
-        json = "{" + json + "}";
-        out.write(
-                json.getBytes(
-                        StructuredDataDirective.getTextEncoding(layoutDef.getDirective())));
+        emitter.append('{');
+        writeMembers("", map, new KeyIndex(map), layoutDef, rd, true, emitter);
+        emitter.append('}');
+        emitter.commit();
+        writer.flush();
     }
 
     /**
-     * JSON文字列を構築します
-     * 
+     * オブジェクトのメンバを出力します。
+     * <p/>
+     * 値が1つも出力されなかった場合は、このオブジェクトで出力した内容を取り消します。
+     *
      * @param currentKeyBase キー名ベース
      * @param map 出力対象マップ
+     * @param index 出力対象マップのキーの索引
      * @param ld フォーマット定義
      * @param rd レコードタイプ定義
      * @param checkIndispensable 必須チェック実施可否
-     * @return JSON文字列
+     * @param emitter 出力先
+     * @return 出力カウント
+     * @throws IOException 書き込みに伴うIO処理で問題が発生した場合
      * @throws InvalidDataFormatException 読み込んだデータがフォーマット定義に違反している場合
      */
-    private String createJsonString(String currentKeyBase, Map<String, ?> map,
-            LayoutDefinition ld, RecordDefinition rd, boolean checkIndispensable)
-            throws InvalidDataFormatException {
-        StringBuilder sb = new StringBuilder();
+    private int writeMembers(String currentKeyBase, Map<String, ?> map, KeyIndex index,
+            LayoutDefinition ld, RecordDefinition rd, boolean checkIndispensable, JsonEmitter emitter)
+            throws IOException, InvalidDataFormatException {
+        long start = emitter.position();
+        boolean written = false;
         int outCount = 0;
         for (FieldDefinition fd : rd.getFields()) {
-            if (outCount > 0) {
-                sb.append(",");
+            long fieldStart = emitter.position();
+            if (written) {
+                emitter.append(',');
             }
+            long valueStart = emitter.position();
+
             // レコード定義取得
             RecordDefinition nrd = ld.getRecordType(fd.getName());
             // Mapに格納する際のKeyを作成
-            String mapKey = buildMapKey(currentKeyBase, fd.getName());
+            String mapKey = buildMapKey(currentKeyBase, fd);
             if (fd.isArray()) {
                 if (nrd != null) {
                     // ObjectArray
-                    outCount += writeObjectArray(sb, ld, nrd, fd, currentKeyBase, mapKey, map);
-                        
+                    outCount += writeObjectArray(emitter, index, ld, nrd, fd, currentKeyBase, mapKey, map);
+
                 } else {
                     // StringArray
-                    outCount += writeStringArray(sb, fd, currentKeyBase, mapKey, map);
+                    outCount += writeStringArray(emitter, fd, currentKeyBase, mapKey, map);
                 }
             } else {
                 if (nrd != null) {
                     // 子オブジェクト出力
                     // 必須チェック実施
-                    boolean containsKey = false;
-                    if (map != null) {
-                        for (String key : map.keySet()) {
-                            if (key.startsWith(mapKey)) {
-                                containsKey = true;
-                                break;
-                            }
-                        }
-                    }
-                    
+                    boolean containsKey = index.containsPrefix(mapKey);
                     if (!containsKey) {
                         checkRequired(currentKeyBase, fd, null, checkIndispensable);
                     }
-                    
+
                     // Object
                     if (containsKey) {
-                        outCount += writeObject(sb, ld, nrd, fd, mapKey, map);
+                        outCount += writeObject(emitter, index, ld, nrd, fd, mapKey, map);
                     }
-                    
+
                 } else {
                     Object writeVal = (map == null) ? null
                                                     : convertToFieldOnWrite(map.get(mapKey), fd);
@@ -117,29 +132,29 @@ public class JsonDataBuilder extends StructuredDataEditorSupport implements Stru
                     CharacterStreamDataString dataType = (CharacterStreamDataString) fd.getDataType();
                     // データタイプのコンバータを実行する
                     String writeStringVal = dataType.convertOnWrite(writeVal);
-                    
-                    outCount += writeValue(sb, fd, mapKey, map, writeStringVal);
+
+                    outCount += writeValue(emitter, fd, mapKey, map, writeStringVal);
                 }
             }
-            
-            // 任意項目が出力されなかった場合に余分な","が出力される可能性があるので、除去する
-            int len = sb.length();
-            if (len > 0 && sb.charAt(len - 1) == ',') {
-                sb.delete(len - 1, len);
+
+            // 任意項目が出力されなかった場合は、区切り文字も出力しない
+            if (emitter.position() == valueStart) {
+                emitter.truncate(fieldStart);
+            } else {
+                written = true;
             }
         }
 
         if (outCount == 0) {
-            return null;
-            
-        } else {
-            return sb.toString();
+            emitter.truncate(start);
         }
+        return outCount;
     }
-    
+
     /**
      * オブジェクト配列の出力処理です
-     * @param sb 出力中バッファ
+     * @param emitter 出力先
+     * @param index 出力対象マップのキーの索引
      * @param ld フォーマット定義
      * @param nrd レコードタイプ定義
      * @param fd フィールド定義
@@ -147,208 +162,443 @@ public class JsonDataBuilder extends StructuredDataEditorSupport implements Stru
      * @param mapKey マップキー
      * @param map 出力対象マップ
      * @return 出力カウント
+     * @throws IOException 書き込みに伴うIO処理で問題が発生した場合
      */
-    private int writeObjectArray(StringBuilder sb, LayoutDefinition ld, RecordDefinition nrd, FieldDefinition fd, 
-            String currentKeyBase, String mapKey, Map<String, ?> map) {
+    private int writeObjectArray(JsonEmitter emitter, KeyIndex index, LayoutDefinition ld, RecordDefinition nrd,
+            FieldDefinition fd, String currentKeyBase, String mapKey, Map<String, ?> map) throws IOException {
         int outCount = 0;
-        
-        StringBuilder innerSb = new StringBuilder();
-        
+
+        long start = emitter.position();
+        emitter.appendKey(fd.getName()).append(":[");
+
+        // 要素のベースキーは、共通のプレフィックスに添字を付与して作成する
+        StringBuilder keyBuilder = new StringBuilder(mapKey).append('[');
+        int prefixLength = keyBuilder.length();
         for (int i = 0;; i++) {
             // ベースキーを作成
-            String innerBaseKey = mapKey + "[" + i + "]";
-            boolean containsKey = false;
-            if (map != null) {
-                for (String key : map.keySet()) {
-                    if (key.startsWith(innerBaseKey)) {
-                        containsKey = true;
-                        break;
-                    }
-                }
-            }
+            keyBuilder.setLength(prefixLength);
+            String innerBaseKey = keyBuilder.append(i).append(']').toString();
             // マップにインナーのベースキーを含むデータがない場合はループを抜ける
-            if (!containsKey) {
+            if (!index.containsPrefix(innerBaseKey)) {
                 break;
             }
-            
-            String innerStr = createJsonString(innerBaseKey, map, ld, nrd, false);
-            if (innerStr == null) {
-                break;
+
+            long elementStart = emitter.position();
+            if (i > 0) {
+                emitter.append(',');
+            }
+            if (fd.getDataType() instanceof JsonObject) {
+                emitter.append('{');
+                if (writeMembers(innerBaseKey, map, index, ld, nrd, false, emitter) == 0) {
+                    emitter.truncate(elementStart);
+                    break;
+                }
+                emitter.append('}');
             } else {
-                if (i > 0) {
-                    innerSb.append(",");
+                String innerStr = buildObjectString(innerBaseKey, map, index, ld, nrd, false);
+                if (innerStr == null) {
+                    emitter.truncate(elementStart);
+                    break;
                 }
-                innerSb.append(editJsonDataString(innerStr, fd));
-                outCount++;
+                appendJsonData(emitter, innerStr, fd);
             }
+            outCount++;
         }
-        
+
         // Listの長さチェック実行
         checkArrayLength(fd, outCount, currentKeyBase);
 
-        if (innerSb.length() > 0) {
-            sb.append(editJsonKey(fd.getName()) + ":[");
-            sb.append(innerSb);
-            sb.append("]");
+        if (outCount > 0) {
+            emitter.append(']');
+        } else {
+            emitter.truncate(start);
         }
-        
         return outCount;
     }
-    
+
     /**
      * 文字列配列の出力処理です
-     * @param sb 出力中バッファ
+     * <p/>
+     * 空の配列は出力カウントに含めないため、同じオブジェクトの他の値が出力されない場合は出力されません。
+     *
+     * @param emitter 出力先
      * @param fd フィールド定義
      * @param currentKeyBase キー名ベース
      * @param mapKey マップキー
      * @param map 出力対象マップ
      * @return 出力カウント
+     * @throws IOException 書き込みに伴うIO処理で問題が発生した場合
      */
-    private int writeStringArray(StringBuilder sb, FieldDefinition fd, String currentKeyBase, String mapKey, Map<String, ?> map) {
+    private int writeStringArray(JsonEmitter emitter, FieldDefinition fd, String currentKeyBase, String mapKey,
+            Map<String, ?> map) throws IOException {
         int outCount = 0;
         int arraySize = 0;
         if (map != null && map.containsKey(mapKey)) {
             String[] arr = (String[]) map.get(mapKey);
             if (arr != null) {
                 arraySize = arr.length;
-                sb.append(editJsonKey(fd.getName()) + ":[");
+                emitter.appendKey(fd.getName()).append(":[");
                 for (int i = 0; i < arr.length; i++) {
                     if (i > 0) {
-                        sb.append(",");
+                        emitter.append(',');
                     }
                     Object writeVal = convertToFieldOnWrite(arr[i], fd);
                     CharacterStreamDataString dataType = (CharacterStreamDataString) fd.getDataType();
                     // データタイプのコンバータを実行する
                     String writeStringVal = dataType.convertOnWrite(writeVal);
 
-                    sb.append(editJsonDataString(writeStringVal, fd));
+                    appendJsonData(emitter, writeStringVal, fd);
                     outCount++;
                 }
-                sb.append("]");
+                emitter.append(']');
             } else {
-                sb.append(editJsonKey(fd.getName()) + ':' + editJsonDataString(arr, fd));
+                emitter.appendKey(fd.getName()).append(':');
+                appendJsonData(emitter, null, fd);
                 outCount++;
             }
         }
         // Listの長さチェック実行
         checkArrayLength(fd, arraySize, currentKeyBase);
-        
+
         return outCount;
     }
-    
+
     /**
      * オブジェクトの出力処理です
-     * @param sb 出力中バッファ
+     * @param emitter 出力先
+     * @param index 出力対象マップのキーの索引
      * @param ld フォーマット定義
      * @param nrd レコードタイプ定義
      * @param fd フィールド定義
      * @param mapKey マップキー
      * @param map 出力対象マップ
      * @return 出力カウント
+     * @throws IOException 書き込みに伴うIO処理で問題が発生した場合
      */
-    private int writeObject(StringBuilder sb, LayoutDefinition ld, RecordDefinition nrd, FieldDefinition fd, 
-            String mapKey, Map<String, ?> map) {
-        int outCount = 0;
-
-        String jsonString;
+    private int writeObject(JsonEmitter emitter, KeyIndex index, LayoutDefinition ld, RecordDefinition nrd,
+            FieldDefinition fd, String mapKey, Map<String, ?> map) throws IOException {
+        emitter.appendKey(fd.getName()).append(':');
         if (map.containsKey(mapKey) && map.get(mapKey) == null) {
-            jsonString = null;
+            appendJsonData(emitter, null, fd);
+        } else if (fd.getDataType() instanceof JsonObject) {
+            emitter.append('{');
+            writeMembers(mapKey, map, index, ld, nrd, true, emitter);
+            emitter.append('}');
         } else {
-            jsonString = createJsonString(mapKey, map, ld, nrd, true);
-            if (jsonString == null) {
-                jsonString = "";
-            }
+            String jsonString = buildObjectString(mapKey, map, index, ld, nrd, true);
+            appendJsonData(emitter, jsonString == null ? "" : jsonString, fd);
         }
-        outCount++;
-        sb.append(editJsonKey(fd.getName()) + ":" + editJsonDataString(jsonString, fd));
-        return outCount;
+        return 1;
     }
-    
+
     /**
      * 値の出力処理です
-     * @param sb 出力中バッファ
+     * @param emitter 出力先
      * @param fd フィールド定義
      * @param mapKey マップキー
      * @param map 出力対象マップ
      * @param writeVal 書き込み値
      * @return 出力カウント
+     * @throws IOException 書き込みに伴うIO処理で問題が発生した場合
      */
-    private int writeValue(StringBuilder sb, FieldDefinition fd, String mapKey, Map<String, ?> map, Object writeVal) {
+    private int writeValue(JsonEmitter emitter, FieldDefinition fd, String mapKey, Map<String, ?> map,
+            Object writeVal) throws IOException {
         int outCount = 0;
         if (map != null && map.containsKey(mapKey) || writeVal != null) {
-            sb.append(editJsonKey(fd.getName()) + ":" + editJsonDataString(writeVal, fd));
+            emitter.appendKey(fd.getName()).append(':');
+            appendJsonData(emitter, writeVal, fd);
             outCount++;
         }
         return outCount;
     }
-    
+
     /**
-     * JSON用キーとしてキーデータを編集します
-     * @param key キーデータ
-     * @return JSON用キーデータ
+     * オブジェクトのメンバを文字列として構築します。
+     * <p/>
+     * オブジェクトを表すフィールドのデータタイプが{@link JsonObject}以外の場合に、
+     * メンバをデータタイプに従った値として出力するために使用します。
+     *
+     * @param currentKeyBase キー名ベース
+     * @param map 出力対象マップ
+     * @param index 出力対象マップのキーの索引
+     * @param ld フォーマット定義
+     * @param rd レコードタイプ定義
+     * @param checkIndispensable 必須チェック実施可否
+     * @return メンバの文字列（値が1つも出力されなかった場合はnull）
+     * @throws IOException 書き込みに伴うIO処理で問題が発生した場合
      */
-    private String editJsonKey(String key) {
-        return "\"" + escape(key) + "\"";
+    private String buildObjectString(String currentKeyBase, Map<String, ?> map, KeyIndex index,
+            LayoutDefinition ld, RecordDefinition rd, boolean checkIndispensable) throws IOException {
+        StringWriter writer = new StringWriter();
+        JsonEmitter emitter = new JsonEmitter(writer);
+        if (writeMembers(currentKeyBase, map, index, ld, rd, checkIndispensable, emitter) == 0) {
+            return null;
+        }
+        emitter.commit();
+        return writer.toString();
     }
-    
+
     /**
-     * JSON用データとして出力データを編集します
+     * JSON用データとして出力データを出力します
+     * @param emitter 出力先
      * @param o 出力データ
      * @param fd フィールド定義
-     * @return JSON用データ
      */
-    private String editJsonDataString(Object o, FieldDefinition fd) {
+    private void appendJsonData(JsonEmitter emitter, Object o, FieldDefinition fd) {
         DataType<?, ?> type = fd.getDataType();
-        String prefix;
-        String suffix;
-        boolean isEscape;
-        
+        boolean isEscape = false;
+        char prefix = 0;
+        char suffix = 0;
+
         if (type instanceof JsonString) {
-            prefix = "\"";
-            suffix = "\"";
+            prefix = '"';
+            suffix = '"';
             isEscape = true;
-            
+
         } else if (type instanceof JsonNumber
                 || type instanceof JsonBoolean) {
-            prefix = "";
-            suffix = "";
-            isEscape = false;
-            
+            // 囲み文字なし
+
         } else if (type instanceof JsonObject) {
-            prefix = "{";
-            suffix = "}";
-            isEscape = false;
-            
+            prefix = '{';
+            suffix = '}';
+
         } else {
             throw new InvalidDataFormatException("Invalid data type definition. type=" + type.getClass().getName());
         }
-        
+
         if (o == null) {
-            return "null";
+            emitter.append("null");
+            return;
+        }
+        if (prefix != 0) {
+            emitter.append(prefix);
+        }
+        if (isEscape) {
+            emitter.appendEscaped(StringUtil.toString(o));
         } else {
-            if (isEscape) {
-                return prefix + escape(StringUtil.toString(o)) + suffix;
-            } else {
-                return prefix + StringUtil.toString(o) + suffix;
+            emitter.append(StringUtil.toString(o));
+        }
+        if (suffix != 0) {
+            emitter.append(suffix);
+        }
+    }
+
+    /**
+     * JSON文字列の出力先。
+     * <p/>
+     * 出力内容はバッファに追加し、{@link #commit()}で確定した時点で書き込み先へ書き込みます。
+     * 確定していない内容は{@link #truncate(long)}で取り消すことができます。
+     * 構築が完了するまで確定しないため、構築中に例外が発生した場合は書き込み先へ何も書き込みません。
+     */
+    private static final class JsonEmitter {
+
+        /** 書き込み先へ1度に書き込む文字数 */
+        private static final int CHUNK_SIZE = 1024;
+
+        /** 書き込み先 */
+        private final Writer out;
+
+        /** 確定していない出力内容 */
+        private final StringBuilder pending = new StringBuilder();
+
+        /** 書き込み先へ書き込む際に使用するバッファ */
+        private char[] chunk;
+
+        /** 確定した文字数 */
+        private long committed = 0;
+
+        /**
+         * コンストラクタ
+         * @param out 書き込み先
+         */
+        private JsonEmitter(Writer out) {
+            this.out = out;
+        }
+
+        /**
+         * 文字を出力します
+         * @param c 文字
+         * @return この出力先
+         */
+        private JsonEmitter append(char c) {
+            pending.append(c);
+            return this;
+        }
+
+        /**
+         * 文字列を出力します
+         * @param s 文字列
+         * @return この出力先
+         */
+        private JsonEmitter append(String s) {
+            pending.append(s);
+            return this;
+        }
+
+        /**
+         * JSON用キーとしてキーデータを出力します
+         * @param key キーデータ
+         * @return この出力先
+         */
+        private JsonEmitter appendKey(String key) {
+            pending.append('"');
+            appendEscaped(key);
+            pending.append('"');
+            return this;
+        }
+
+        /**
+         * トークンのエスケープ処理を行いながら出力します。
+         * <p/>
+         * エスケープが必要な文字の間の文字列は、まとめて出力します。
+         *
+         * @param token トークン
+         */
+        private void appendEscaped(String token) {
+            int length = token.length();
+            int start = 0;
+            for (int i = 0; i < length; i++) {
+                String escaped = escape(token.charAt(i));
+                if (escaped != null) {
+                    pending.append(token, start, i).append(escaped);
+                    start = i + 1;
+                }
             }
+            pending.append(token, start, length);
+        }
+
+        /**
+         * エスケープ後の文字列を返却します
+         * @param c 文字
+         * @return エスケープ後の文字列（エスケープが不要な場合はnull）
+         */
+        private static String escape(char c) {
+            switch (c) {
+                case '\\': return "\\\\";
+                case '"':  return "\\\"";
+                case '/':  return "\\/";
+                case '\b': return "\\b";
+                case '\f': return "\\f";
+                case '\n': return "\\n";
+                case '\r': return "\\r";
+                case '\t': return "\\t";
+                default:   return null;
+            }
+        }
+
+        /**
+         * 出力した文字数を返却します
+         * @return 確定していない内容を含めた文字数
+         */
+        private long position() {
+            return committed + pending.length();
+        }
+
+        /**
+         * 指定した位置より後に出力した内容を取り消します。
+         * <p/>
+         * 値が出力されていない要素の内容のみを取り消すため、指定した位置の内容は確定していません。
+         *
+         * @param position 位置
+         */
+        private void truncate(long position) {
+            pending.setLength((int) (position - committed));
+        }
+
+        /**
+         * 出力内容を確定し、書き込み先へ書き込みます
+         * @throws IOException 書き込みに伴うIO処理で問題が発生した場合
+         */
+        private void commit() throws IOException {
+            int length = pending.length();
+            if (length == 0) {
+                return;
+            }
+            if (chunk == null) {
+                chunk = new char[CHUNK_SIZE];
+            }
+            for (int offset = 0; offset < length; offset += CHUNK_SIZE) {
+                int end = Math.min(length, offset + CHUNK_SIZE);
+                pending.getChars(offset, end, chunk, 0);
+                out.write(chunk, 0, end - offset);
+            }
+            committed += length;
+            pending.setLength(0);
+        }
+    }
+
+    /**
+     * フラッシュを行わない出力ストリーム。
+     * <p/>
+     * 文字エンコーディングの変換結果を書き込むために{@link Writer}をフラッシュした際に、
+     * 出力先のストリームまでフラッシュされないようにします。
+     * 出力先のフラッシュは、レコードごとにフラッシュするかどうかの設定に従い、呼び出し元で行います。
+     */
+    private static final class NonFlushingOutputStream extends FilterOutputStream {
+
+        /**
+         * コンストラクタ
+         * @param out 出力先
+         */
+        private NonFlushingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void flush() {
+            // 出力先はフラッシュしない
         }
     }
-    
+
     /**
-     * トークンのエスケープ処理を行います。
-     * 
-     * @param token トークン
-     * @return エスケープ処理後のトークン
+     * 出力対象マップのキーの索引。
+     * <p/>
+     * キーをソートして保持し、指定したプレフィックスで始まるキーが存在するかどうかを二分探索で判定します。
      */
-    private String escape(String token) {
-        token = token.replace("\\", "\\\\")
-                     .replace("\"", "\\\"")
-                     .replace("/", "\\/")
-                     .replace("\b", "\\b")
-                     .replace("\f", "\\f")
-                     .replace("\n", "\\n")
-                     .replace("\r", "\\r")
-                     .replace("\t", "\\t");
-        return token;
+    private static final class KeyIndex {
+
+        /** ソートしたキー */
+        private final String[] keys;
+
+        /**
+         * コンストラクタ
+         * @param map 出力対象マップ
+         */
+        private KeyIndex(Map<String, ?> map) {
+            if (map == null) {
+                keys = new String[0];
+                return;
+            }
+            String[] all = new String[map.size()];
+            int count = 0;
+            for (String key : map.keySet()) {
+                if (key != null) {
+                    all[count++] = key;
+                }
+            }
+            keys = count == all.length ? all : Arrays.copyOf(all, count);
+            Arrays.sort(keys);
+        }
+
+        /**
+         * 指定したプレフィックスで始まるキーが存在するかどうかを判定します
+         * @param prefix プレフィックス
+         * @return 存在する場合はtrue
+         */
+        private boolean containsPrefix(String prefix) {
+            int pos = Arrays.binarySearch(keys, prefix);
+            if (pos >= 0) {
+                return true;
+            }
+            // プレフィックスで始まるキーは、プレフィックスの挿入位置以降に連続して並ぶ
+            int insertion = -pos - 1;
+            return insertion < keys.length && keys[insertion].startsWith(prefix);
+        }
     }
 }
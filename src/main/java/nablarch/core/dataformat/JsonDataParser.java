@@ -4,7 +4,6 @@ package nablarch.core.dataformat;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.io.Reader;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -13,8 +12,7 @@ import java.util.Map;
 
 import nablarch.core.dataformat.StructuredDataRecordFormatterSupport.StructuredDataDirective;
 import nablarch.core.util.JsonParser;
-
-import static nablarch.core.util.Builder.concat;
+import nablarch.core.util.JsonTokenizer;
 
 /**
  * JSONパーサー。<br>
@@ -24,9 +22,6 @@ import static nablarch.core.util.Builder.concat;
  */
 public class JsonDataParser extends StructuredDataEditorSupport implements StructuredDataParser {
 
-    /** 初期容量（文字数） */
-    private static final int INITIAL_CAPACITY = 10 * 1024;
-
     /**
      * コンストラクタ
      */
@@ -48,12 +43,41 @@ public class JsonDataParser extends StructuredDataEditorSupport implements Struc
 
         Charset enc = Charset.forName(
                 StructuredDataDirective.getTextEncoding(layoutDef.getDirective()));
-        String jsonString = readAll(in, enc);
 
         Map<String, Object> record = new HashMap<String, Object>();
 
         try {
-            Map<String, ?> parsedMap = new JsonParser().parse(jsonString);
+            // 入力全体を文字列に読み込まずに、ストリームから読み込みながら解析する
+            Map<String, ?> parsedMap = new JsonParser().parse(new InputStreamReader(in, enc));
+            RecordDefinition rd = layoutDef.getRecords().get(0);
+            makeFlatMap("", record, layoutDef, rd, parsedMap);
+
+        } catch (IllegalArgumentException e) {
+            throw new InvalidDataFormatException("JSON Parse Error. " + e.getMessage(), e);
+        }
+
+        return record;
+    }
+
+    /**
+     * トークナイザから1つのJSONオブジェクトを読み込み、フラットマップを作成します。
+     * <p/>
+     * ルート要素の配列から、要素を1つずつ読み込む場合に使用します。
+     * トークナイザは、オブジェクトの開始を読み込んだ状態で渡す必要があります。
+     *
+     * @param tokenizer オブジェクトの開始を読み込んだトークナイザ
+     * @param layoutDef フォーマット定義
+     * @return フラットマップ
+     * @throws IOException 読み込みに伴うIO処理で問題が発生した場合
+     * @throws InvalidDataFormatException 読み込んだデータがフォーマット定義に違反している場合
+     */
+    Map<String, ?> parseObject(JsonTokenizer tokenizer, LayoutDefinition layoutDef)
+            throws IOException, InvalidDataFormatException {
+
+        Map<String, Object> record = new HashMap<String, Object>();
+
+        try {
+            Map<String, ?> parsedMap = new JsonParser().parseObject(tokenizer);
             RecordDefinition rd = layoutDef.getRecords().get(0);
             makeFlatMap("", record, layoutDef, rd, parsedMap);
 
@@ -83,7 +107,7 @@ public class JsonDataParser extends StructuredDataEditorSupport implements Struc
             // レコード定義取得
 
             // Mapに格納する際のKeyを作成
-            String mapKey = buildMapKey(currentKeyBase, fieldDef.getName());
+            String mapKey = buildMapKey(currentKeyBase, fieldDef);
             if (fieldDef.isArray()) {
                 if (isObjectType(fieldDef)) {
                     // ObjectArray
@@ -95,12 +119,16 @@ public class JsonDataParser extends StructuredDataEditorSupport implements Struc
                     // Listの長さチェック実行
                     checkArrayLength(fieldDef, list.size(), currentKeyBase);
 
+                    // 要素のベースキーは、共通のプレフィックスに添字を付与して作成する
+                    StringBuilder keyBuilder = new StringBuilder(mapKey).append('[');
+                    int prefixLength = keyBuilder.length();
                     for (int i = 0; i < list.size(); i++) {
                         Object o = list.get(i);
                         if (o instanceof Map) {
                             RecordDefinition next = layoutDef.getRecordType(fieldDef.getName());
+                            keyBuilder.setLength(prefixLength);
                             makeFlatMap(
-                                    concat(mapKey, "[", i, "]"),
+                                    keyBuilder.append(i).append(']').toString(),
                                     outMap, layoutDef, next, (Map<String, Object>) o);
                         } else {
                             throw new InvalidDataFormatException(String.format(
@@ -147,21 +175,4 @@ public class JsonDataParser extends StructuredDataEditorSupport implements Struc
         }
     }
 
-    /**
-     * 指定された文字コードで、ストリームから文字列を読み取る。
-     *
-     * @param in 入力ストリーム
-     * @param encoding 文字コード
-     * @return 読み取った文字列
-     * @throws IOException 予期しない入出力例外
-     */
-    private String readAll(InputStream in, Charset encoding) throws IOException {
-        Reader reader = new InputStreamReader(in, encoding);
-        StringBuilder result = new StringBuilder(INITIAL_CAPACITY);
-        int c;
-        while ((c = reader.read()) != -1) {
-            result.append((char) c);
-        }
-        return result.toString();
-    }
 }
@@ -1,11 +1,17 @@
 package nablarch.core.dataformat;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
 import nablarch.core.dataformat.convertor.JsonDataConvertorSetting;
 import nablarch.core.repository.SystemRepository;
+import nablarch.core.util.JsonParser.TokenType;
+import nablarch.core.util.JsonTokenizer;
 
 
 /**
@@ -20,6 +26,12 @@ import nablarch.core.repository.SystemRepository;
  * <li>ファイルの文字エンコーディング</li>
  * </ul>
  * </p>
+ * <p>
+ * ディレクティブ"root-array"にtrueを指定した場合は、ルート要素をJSONオブジェクトの配列として扱い、
+ * 配列の要素ごとに1レコードとして読み書きする。
+ * 読み込み時は入力ストリームからトークンを順に読み込み、要素を1つずつ解析するため、
+ * メモリ使用量は配列全体ではなく、最も大きい要素のサイズに比例する。
+ * </p>
  * 
  * @author TIS
  */
@@ -27,6 +39,74 @@ public class JsonDataRecordFormatter extends StructuredDataRecordFormatterSuppor
 
     /** 許容エンコーディングリスト */
     private static final List<String> ALLOW_ENCODING_LIST = Arrays.asList("UTF-8", "UTF-16LE", "UTF-32LE", "UTF-16BE", "UTF-32BE");
+
+    /** ルート要素を配列として読み書きするかどうか */
+    private boolean rootArray = false;
+
+    /** 入力ストリーム */
+    private InputStream source;
+
+    /** 出力ストリーム */
+    private OutputStream dest;
+
+    /** ルート要素の配列を読み込むトークナイザ */
+    private JsonTokenizer tokenizer;
+
+    /** 次の要素の開始を先読みしたかどうか */
+    private boolean elementRead = false;
+
+    /** ルート要素の配列の終了まで読み込んだかどうか */
+    private boolean arrayEnded = false;
+
+    /** ルート要素の配列の開始を書き込んだかどうか */
+    private boolean arrayStarted = false;
+
+    /**
+     * JSONデータフォーマッタが使用するディレクティブの名前と値の型。
+     * 以下に一覧を示す。<br>
+     * <ul>
+     * <li>root-array：Boolean</li>
+     * </ul>
+     */
+    public static class JsonDataDirective extends StructuredDataDirective {
+
+        /** ルート要素を配列として読み書きするかどうか */
+        public static final Directive ROOT_ARRAY = new Directive("root-array", Boolean.class);
+
+        /** 列挙型の全要素(親クラスの要素を含む） */
+        public static final Map<String, Directive> VALUES = Directive.createDirectiveMap(
+                TEXT_ENCODING,
+                ROOT_ARRAY);
+
+        /**
+         * コンストラクタ。
+         *
+         * @param name ディレクティブ名
+         * @param type ディレクティブの値の型
+         */
+        public JsonDataDirective(String name, Class<?> type) {
+            super(name, type);
+        }
+
+        /**
+         * ルート要素を配列として読み書きするかどうかの設定を取得する。
+         * @param directive ディレクティブ
+         * @return ルート要素を配列として読み書きするかどうか
+         */
+        public static Boolean getRootArray(Map<String, Object> directive) {
+            return (Boolean) directive.get(ROOT_ARRAY.getName());
+        }
+
+        /**
+         * ディレクティブの値を取得する。
+         *
+         * @param name ディレクティブの名前
+         * @return ディレクティブの値
+         */
+        public static Directive valueOf(String name) {
+            return VALUES.get(name);
+        }
+    }
     
     /**
      * デフォルトコンストラクタ。
@@ -70,6 +150,191 @@ public class JsonDataRecordFormatter extends StructuredDataRecordFormatterSuppor
         }
     }
 
+    /** {@inheritDoc} */
+    @Override
+    protected Map<String, Directive> createDirectiveMap() {
+        return JsonDataDirective.VALUES;
+    }
+
+    /**
+     * {@inheritDoc}
+     * この実装では、ルート要素を配列として読み書きするかどうかの設定を初期化する。
+     */
+    @Override
+    protected void initializeField(Map<String, Object> directive) {
+        super.initializeField(directive);
+        rootArray = Boolean.TRUE.equals(JsonDataDirective.getRootArray(directive));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public DataRecordFormatter setInputStream(InputStream stream) {
+        super.setInputStream(stream);
+        source = stream;
+        return this;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public DataRecordFormatter setOutputStream(OutputStream stream) {
+        super.setOutputStream(stream);
+        dest = stream;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     * ルート要素を配列として読み込む場合は、配列の次の要素を読み込み、データレコードに変換する。
+     */
+    @Override
+    public DataRecord readRecord() throws IOException, InvalidDataFormatException {
+        if (!rootArray) {
+            return super.readRecord();
+        }
+        if (source == null) {
+            throw new IllegalStateException("input stream was not set. input stream must be set before reading.");
+        }
+        if (!hasNext()) {
+            return null;
+        }
+
+        incrementRecordNumber(); // レコード番号をインクリメントする
+        elementRead = false;
+
+        DataRecord record = new DataRecord();
+        try {
+            record.putAll(getJsonDataParser().parseObject(tokenizer, getDefinition()));
+        } catch (InvalidDataFormatException e) {
+            throw addFormatAndRecordNumberTo(e);
+        }
+        record.setRecordNumber(getRecordNumberAsLong());
+        return record;
+    }
+
+    /**
+     * {@inheritDoc}
+     * ルート要素を配列として読み込む場合は、配列の次の要素の開始まで読み込み、要素が存在するかどうかを返却する。
+     */
+    @Override
+    public boolean hasNext() throws IOException {
+        if (!rootArray) {
+            return super.hasNext();
+        }
+        if (source == null || arrayEnded) {
+            return false;
+        }
+        if (elementRead) {
+            return true;
+        }
+        try {
+            if (tokenizer == null) {
+                tokenizer = new JsonTokenizer(new InputStreamReader(source, getDefaultEncoding()));
+                if (tokenizer.next() == null) {
+                    // 空の入力はレコードが存在しないものとして扱う
+                    arrayEnded = true;
+                    return false;
+                }
+                if (!isSeparator("[")) {
+                    throw new IllegalArgumentException("JSON data must starts with '['");
+                }
+                tokenizer.next();
+            } else {
+                // 前の要素の後は、項目セパレータか配列の終了のみを許可する
+                tokenizer.next();
+                if (isSeparator(",")) {
+                    tokenizer.next();
+                    checkStartOfElement();
+                } else if (!isSeparator("]")) {
+                    throw new IllegalArgumentException("JSON data must ends with ']'");
+                }
+            }
+            if (isSeparator("]")) {
+                if (tokenizer.next() != null) {
+                    throw new IllegalArgumentException("JSON data must ends with ']'");
+                }
+                arrayEnded = true;
+                return false;
+            }
+            checkStartOfElement();
+        } catch (IllegalArgumentException e) {
+            throw addFormatAndRecordNumberTo(
+                    new InvalidDataFormatException("JSON Parse Error. " + e.getMessage(), e));
+        }
+        elementRead = true;
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     * ルート要素を配列として書き込む場合は、配列の開始または項目セパレータを書き込んだ後に、要素を書き込む。
+     */
+    @Override
+    public void writeRecord(String recordType, Map<String, ?> record) throws IOException {
+        if (rootArray) {
+            if (dest == null) {
+                throw new IllegalStateException("output stream was not set. output stream must be set before writing.");
+            }
+            dest.write((arrayStarted ? "," : "[").getBytes(getDefaultEncoding()));
+            arrayStarted = true;
+        }
+        super.writeRecord(recordType, record);
+    }
+
+    /**
+     * {@inheritDoc}
+     * ルート要素を配列として書き込む場合は、配列の終了を書き込んでからクローズする。
+     */
+    @Override
+    public void close() {
+        try {
+            if (rootArray && dest != null) {
+                dest.write((arrayStarted ? "]" : "[]").getBytes(getDefaultEncoding()));
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("I/O error happened while writing the end of the array.", e);
+        } finally {
+            source = null;
+            dest = null;
+            tokenizer = null;
+            super.close();
+        }
+    }
+
+    /**
+     * 要素を読み込むデータパーサーを取得する。
+     * @return データパーサー
+     */
+    private JsonDataParser getJsonDataParser() {
+        StructuredDataParser dataParser = getDataParser();
+        if (!(dataParser instanceof JsonDataParser)) {
+            throw new IllegalStateException(String.format(
+                    "when directive '%s' is true, data parser must be %s. data parser=[%s]."
+                    , JsonDataDirective.ROOT_ARRAY.getName()
+                    , JsonDataParser.class.getName()
+                    , dataParser.getClass().getName()));
+        }
+        return (JsonDataParser) dataParser;
+    }
+
+    /**
+     * 読み込んだトークンが、配列の要素の開始であることを検証する。
+     */
+    private void checkStartOfElement() {
+        if (!isSeparator("{")) {
+            throw new IllegalArgumentException(
+                    "array element must be an object. token:[" + tokenizer.getToken() + "]");
+        }
+    }
+
+    /**
+     * 読み込んだトークンが、指定したセパレータかどうかを判定する。
+     * @param separator セパレータ
+     * @return 指定したセパレータの場合true
+     */
+    private boolean isSeparator(String separator) {
+        return tokenizer.getTokenType() == TokenType.SEPARATOR && separator.equals(tokenizer.getValue());
+    }
+
     /**
      * {@inheritDoc}<br>
      * この実装では"application/json"を返却する。
@@ -0,0 +1,309 @@
+package nablarch.core.dataformat;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Map;
+
+import nablarch.core.util.annotation.Published;
+
+/**
+ * フォーマット定義ファイルの内容に従い、JSON Lines形式のデータの読み書きを行うクラス。
+ * <p>
+ * JSON Lines形式は、1行に1つのJSONオブジェクトを記述する形式であり、各行を1レコードとして読み書きする。
+ * 各行の解析と構築は、{@link JsonDataRecordFormatter}と同じ{@link StructuredDataParser}および
+ * {@link StructuredDataBuilder}で行うため、フォーマット定義ファイルの記述方法とデータレコードの形式はJSONと同じとなる。
+ * </p>
+ * <p>
+ * 入力ストリームは1行ずつ読み込むため、メモリ使用量はファイルのサイズではなく、最も長い行のサイズに比例する。
+ * 行はLF(0x0A)で区切り、行末のCR(0x0D)は除去する。
+ * 空行は読み飛ばすが、レコード番号は行番号と一致するように空行も含めてカウントする。
+ * 書き込み時は、各レコードの後にLFを出力する。
+ * </p>
+ * <p>
+ * 本クラスはスレッドセーフを考慮した実装にはなっていないので、呼び出し元で同期化の制御を行うこと。
+ * </p>
+ * <b>ディレクティブの設定</b>
+ * <p>
+ * ファイルの文字エンコーディングにはUTF-8のみ指定できる。
+ * </p>
+ *
+ * @see ParallelJsonLinesRecordReader
+ */
+@Published(tag = "architect")
+public class JsonLinesDataRecordFormatter extends JsonDataRecordFormatter {
+
+    /** 許容するエンコーディング */
+    private static final String ALLOW_ENCODING = "UTF-8";
+
+    /** 読み込みバッファのサイズ */
+    private static final int BUFFER_SIZE = 8192;
+
+    /** 行の区切り文字 */
+    private static final byte LF = '\n';
+
+    /** 行末から除去する文字 */
+    private static final byte CR = '\r';
+
+    /** 入力ストリーム */
+    private InputStream source;
+
+    /** 出力ストリーム */
+    private OutputStream dest;
+
+    /** 読み込みバッファ */
+    private byte[] buffer;
+
+    /** 読み込みバッファ内の読み込み位置 */
+    private int pos = 0;
+
+    /** 読み込みバッファ内の有効なバイト数 */
+    private int limit = 0;
+
+    /** 読み込みバッファの先頭の、入力ストリーム内の位置 */
+    private long bufferOffset = 0;
+
+    /** 読み込んだ行 */
+    private byte[] line = new byte[256];
+
+    /** 読み込んだ行のバイト長（行の区切り文字を除く） */
+    private int lineLength = 0;
+
+    /** 次のレコードとなる行を先読みしたかどうか */
+    private boolean lineRead = false;
+
+    /** 先読みした行数（読み飛ばした空行を含む） */
+    private long pendingLines = 0;
+
+    /** {@inheritDoc} */
+    @Override
+    public DataRecordFormatter setInputStream(InputStream stream) {
+        super.setInputStream(stream);
+        source = stream;
+        buffer = new byte[BUFFER_SIZE];
+        return this;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public DataRecordFormatter setOutputStream(OutputStream stream) {
+        super.setOutputStream(stream);
+        dest = stream;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     * この実装では、以下の検証を行う。
+     * <ul>
+     * <li>エンコーディングがUTF-8であること</li>
+     * <li>ルート要素を配列として読み書きする指定がないこと</li>
+     * </ul>
+     */
+    @Override
+    protected void validateDirectives(Map<String, Object> directive) {
+        String encoding = StructuredDataDirective.getTextEncoding(directive);
+        if (encoding != null && !ALLOW_ENCODING.equals(encoding)) {
+            throw new SyntaxErrorException(String.format(
+                    "when file-type is 'JSONL', directive '%s' must be specified by [%s]."
+                    , StructuredDataDirective.TEXT_ENCODING.getName()
+                    , ALLOW_ENCODING));
+        }
+        if (Boolean.TRUE.equals(JsonDataDirective.getRootArray(directive))) {
+            throw new SyntaxErrorException(String.format(
+                    "when file-type is 'JSONL', directive '%s' must not be true."
+                    , JsonDataDirective.ROOT_ARRAY.getName()));
+        }
+        super.validateDirectives(directive);
+    }
+
+    /**
+     * {@inheritDoc}
+     * この実装では、次の空行でない1行を読み込み、データレコードに変換する。
+     */
+    @Override
+    public DataRecord readRecord() throws IOException, InvalidDataFormatException {
+        if (source == null) {
+            throw new IllegalStateException("input stream was not set. input stream must be set before reading.");
+        }
+        if (!hasNext()) {
+            return null;
+        }
+        setRecordNumber(getRecordNumberAsLong() + pendingLines);
+        pendingLines = 0;
+        lineRead = false;
+        return convertLine();
+    }
+
+    /**
+     * {@inheritDoc}
+     * この実装では、空行でない行が存在するかどうかを返却する。
+     */
+    @Override
+    public boolean hasNext() throws IOException {
+        if (source == null) {
+            return false;
+        }
+        if (lineRead) {
+            return true;
+        }
+        while (readLine()) {
+            pendingLines++;
+            if (lineLength > 0) {
+                lineRead = true;
+                return true;
+            }
+        }
+        // ファイル末尾の空行はレコード番号に含めない
+        pendingLines = 0;
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     * この実装では、JSONオブジェクトの後に行の区切り文字を出力する。
+     */
+    @Override
+    public void writeRecord(String recordType, Map<String, ?> record) throws IOException {
+        if (dest == null) {
+            throw new IllegalStateException("output stream was not set. output stream must be set before writing.");
+        }
+
+        incrementRecordNumber(); // レコード番号をインクリメントする
+
+        try {
+            getDataBuilder().buildData(record, getDefinition(), dest);
+        } catch (InvalidDataFormatException e) {
+            throw addFormatAndRecordNumberTo(e);
+        }
+        dest.write(LF);
+
+        if (DataFormatConfigFinder.getDataFormatConfig().isFlushEachRecordInWriting()) {
+            dest.flush();
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void close() {
+        super.close();
+        source = null;
+        dest = null;
+    }
+
+    /**
+     * {@inheritDoc}<br>
+     * この実装では"application/x-ndjson"を返却する。
+     */
+    @Override
+    public String getMimeType() {
+        return "application/x-ndjson";
+    }
+
+    /**
+     * 次の1行を読み込む。
+     * <p/>
+     * 読み込んだ行が空行かどうかは{@link #isBlankLine()}で判定する。
+     * レコード番号は変更しない。
+     *
+     * @return 行を読み込んだ場合はtrue（入力ストリームの終端に達した場合はfalse）
+     * @throws IOException 読み込みに伴うIO処理で問題が発生した場合
+     */
+    boolean readLine() throws IOException {
+        lineLength = 0;
+        boolean found = false;
+        while (pos < limit || fill()) {
+            found = true;
+            int start = pos;
+            while (pos < limit && buffer[pos] != LF) {
+                pos++;
+            }
+            appendToLine(start, pos - start);
+            if (pos < limit) {
+                // 行の区切り文字を読み飛ばす
+                pos++;
+                break;
+            }
+        }
+        if (lineLength > 0 && line[lineLength - 1] == CR) {
+            lineLength--;
+        }
+        return found;
+    }
+
+    /**
+     * 読み込んだ行が空行かどうかを返却する。
+     * @return 空行の場合はtrue
+     */
+    boolean isBlankLine() {
+        return lineLength == 0;
+    }
+
+    /**
+     * 読み込んだ行を解析し、現在のレコード番号のデータレコードに変換する。
+     *
+     * @return データレコード
+     * @throws IOException 読み込みに伴うIO処理で問題が発生した場合
+     * @throws InvalidDataFormatException 読み込んだ行がフォーマット定義に違反している場合
+     */
+    DataRecord convertLine() throws IOException {
+        DataRecord record = new DataRecord();
+        try {
+            record.putAll(getDataParser().parseData(
+                    new ByteArrayInputStream(line, 0, lineLength), getDefinition()));
+        } catch (InvalidDataFormatException e) {
+            throw addFormatAndRecordNumberTo(e);
+        }
+        record.setRecordNumber(getRecordNumberAsLong());
+        return record;
+    }
+
+    /**
+     * 次に読み込む行の、入力ストリーム内のバイト位置を返却する。
+     * <p/>
+     * {@link #hasNext()}で先読みした行は、読み込み済みとして扱う。
+     *
+     * @return 入力ストリームの先頭からのバイト位置
+     */
+    long getReadPosition() {
+        return bufferOffset + pos;
+    }
+
+    /**
+     * 読み込んだ行に、読み込みバッファの指定した範囲を追加する。
+     *
+     * @param start 開始位置
+     * @param length バイト長
+     */
+    private void appendToLine(int start, int length) {
+        if (lineLength + length > line.length) {
+            byte[] newLine = new byte[Math.max(line.length * 2, lineLength + length)];
+            System.arraycopy(line, 0, newLine, 0, lineLength);
+            line = newLine;
+        }
+        System.arraycopy(buffer, start, line, lineLength, length);
+        lineLength += length;
+    }
+
+    /**
+     * 読み込みバッファに入力ストリームを読み込む。
+     *
+     * @return 読み込んだ場合はtrue（入力ストリームの終端に達した場合はfalse）
+     * @throws IOException 読み込みに伴うIO処理で問題が発生した場合
+     */
+    private boolean fill() throws IOException {
+        bufferOffset += limit;
+        pos = 0;
+        limit = 0;
+        int n;
+        do {
+            n = source.read(buffer, 0, buffer.length);
+        } while (n == 0);
+        if (n == -1) {
+            return false;
+        }
+        limit = n;
+        return true;
+    }
+}
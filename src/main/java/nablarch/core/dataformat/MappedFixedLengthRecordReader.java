@@ -0,0 +1,272 @@
+package nablarch.core.dataformat;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import nablarch.core.log.Logger;
+import nablarch.core.log.LoggerManager;
+import nablarch.core.util.annotation.Published;
+
+/**
+ * 固定長ファイルをメモリマップして読み込むリーダ。
+ * <p>
+ * {@link FileRecordReader}がストリームから1レコードずつ読み込むのに対し、
+ * 本クラスはデータファイルを{@link FileChannel#map}でメモリにマップし、マップされた領域から直接レコードを読み込む。
+ * 2GBを超えるファイルを扱えるよう、マップはレコード境界に揃えたチャンク単位で行う。
+ * </p>
+ * <p>
+ * 固定長ファイルのレコードは「レコード長＋レコード終端文字列長」ごとに配置されているため、
+ * {@link #seek(long)}や{@link #read(long)}を使用することで、先頭から走査することなく任意のレコードを読み込むことができる。
+ * </p>
+ * <p>
+ * フォーマット定義ファイルのファイルタイプは"Fixed"でなければならない。
+ * </p>
+ * <p>
+ * 本クラスはスレッドセーフを考慮した実装にはなっていないので、呼び出し元で同期化の制御を行うこと。
+ * </p>
+ */
+@Published(tag = "architect")
+public class MappedFixedLengthRecordReader implements Closeable {
+
+    /** ロガー **/
+    private static final Logger LOGGER = LoggerManager.get(MappedFixedLengthRecordReader.class);
+
+    /** 1チャンクあたりにマップする最大のバイト長（デフォルト:{@link Integer#MAX_VALUE}） */
+    private static final int DEFAULT_MAX_CHUNK_SIZE = Integer.MAX_VALUE;
+
+    /** データファイル */
+    private final File dataFile;
+
+    /** 固定長ファイルフォーマッタ */
+    private final FixedLengthDataRecordFormatter formatter;
+
+    /** ファイルチャネル */
+    private final FileChannel channel;
+
+    /** データファイルのバイト長 */
+    private final long fileSize;
+
+    /** 1レコードあたりのバイト長（レコード終端文字列を含む） */
+    private final int recordStride;
+
+    /** 1チャンクあたりのレコード数 */
+    private final long recordsPerChunk;
+
+    /** データファイルに含まれるレコード数（末尾の不完全なレコードを含む） */
+    private final long recordCount;
+
+    /** レコードの読み込みに使用するバッファ */
+    private final byte[] buffer;
+
+    /** 現在マップしているチャンクのインデックス */
+    private long currentChunkIndex = -1;
+
+    /** 現在マップしているチャンク */
+    private MappedByteBuffer currentChunk = null;
+
+    /** 次に読み込むレコードのインデックス（0始まり） */
+    private long nextRecordIndex = 0;
+
+    /**
+     * コンストラクタ。
+     * @param dataFile   データファイル
+     * @param layoutFile フォーマット定義ファイル
+     */
+    public MappedFixedLengthRecordReader(File dataFile, File layoutFile) {
+        this(dataFile, layoutFile, DEFAULT_MAX_CHUNK_SIZE);
+    }
+
+    /**
+     * コンストラクタ。
+     * @param dataFile     データファイル
+     * @param layoutFile   フォーマット定義ファイル
+     * @param maxChunkSize 1チャンクあたりにマップする最大のバイト長
+     */
+    public MappedFixedLengthRecordReader(File dataFile, File layoutFile, int maxChunkSize) {
+        this(dataFile, FormatterFactory.getInstance().createFormatter(layoutFile), maxChunkSize);
+    }
+
+    /**
+     * コンストラクタ。
+     * @param dataFile         データファイル
+     * @param layoutDefinition フォーマット定義情報保持クラス
+     */
+    public MappedFixedLengthRecordReader(File dataFile, LayoutDefinition layoutDefinition) {
+        this(dataFile, FormatterFactory.getInstance().createFormatter(layoutDefinition), DEFAULT_MAX_CHUNK_SIZE);
+    }
+
+    /**
+     * コンストラクタ。
+     * @param dataFile     データファイル
+     * @param formatter    フォーマッタ
+     * @param maxChunkSize 1チャンクあたりにマップする最大のバイト長
+     */
+    private MappedFixedLengthRecordReader(File dataFile, DataRecordFormatter formatter, int maxChunkSize) {
+        if (maxChunkSize <= 0) {
+            throw new IllegalArgumentException("chunk size was invalid. chunk size must be bigger than 0.");
+        }
+        if (!(formatter instanceof FixedLengthDataRecordFormatter)) {
+            throw new IllegalArgumentException(
+                    "invalid formatter was specified. file type must be 'Fixed'. formatter=["
+                            + formatter.getClass().getName() + "].");
+        }
+        this.dataFile = dataFile;
+        this.formatter = (FixedLengthDataRecordFormatter) formatter;
+        this.formatter.initialize();
+
+        recordStride = this.formatter.getRecordLength() + this.formatter.getRecordSeparatorLength();
+        recordsPerChunk = Math.max(1, maxChunkSize / recordStride);
+        buffer = new byte[recordStride];
+
+        try {
+            channel = new RandomAccessFile(dataFile, "r").getChannel();
+            fileSize = channel.size();
+        } catch (IOException e) {
+            throw new RuntimeException(
+                "I/O error happened while opening the file. file path=[" + dataFile.getAbsolutePath() + "]"
+              , e
+            );
+        }
+        recordCount = (fileSize + recordStride - 1) / recordStride;
+    }
+
+    /**
+     * 次のレコードを読み込んで返す。
+     * @return データレコード（これ以上読み込むレコードがない場合はnull）
+     */
+    public DataRecord read() {
+        if (!hasNext()) {
+            return null;
+        }
+        return readRecord(nextRecordIndex++);
+    }
+
+    /**
+     * 指定されたインデックスのレコードを読み込んで返す。
+     * <p>
+     * 読み込み後は、指定されたインデックスの次のレコードが{@link #read()}の読み込み対象となる。
+     * </p>
+     * @param recordIndex レコードのインデックス（0始まり）
+     * @return データレコード（インデックスがレコード数と等しい場合はnull）
+     */
+    public DataRecord read(long recordIndex) {
+        seek(recordIndex);
+        return read();
+    }
+
+    /**
+     * 次に読み込むレコードの位置を、指定されたインデックスに移動する。
+     * <p>
+     * レコード数と等しいインデックスを指定した場合、ファイルの終端に移動する。
+     * </p>
+     * @param recordIndex レコードのインデックス（0始まり）
+     */
+    public void seek(long recordIndex) {
+        if (recordIndex < 0 || recordIndex > recordCount) {
+            throw new IllegalArgumentException(
+                    "record index was out of range. record index must be between 0 and " + recordCount
+                            + ". record index=[" + recordIndex + "].");
+        }
+        nextRecordIndex = recordIndex;
+    }
+
+    /**
+     * 次に読み込むレコードがあるかどうかを返却する。
+     * @return 次に読み込むレコードがある場合、true
+     */
+    public boolean hasNext() {
+        return nextRecordIndex < recordCount;
+    }
+
+    /**
+     * データファイルに含まれるレコード数を返却する。
+     * <p>
+     * 末尾にレコード長に満たないデータが存在する場合、そのデータも1レコードとして数える。
+     * </p>
+     * @return レコード数
+     */
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * 読み込み中のレコードのレコード番号を返却する。
+     * @return レコード番号
+     */
+    public long getRecordNumberAsLong() {
+        return formatter.getRecordNumberAsLong();
+    }
+
+    /**
+     * 読み込み中のレコードのレコード番号を返却する。
+     * @return レコード番号
+     * @throws IllegalStateException レコード番号がint型で表現できない場合
+     * @deprecated {@link #getRecordNumberAsLong()}を使用すること。
+     */
+    @Deprecated
+    public int getRecordNumber() {
+        return RecordNumberUtil.toInt(getRecordNumberAsLong());
+    }
+
+    /**
+     * 指定されたインデックスのレコードを、マップされた領域から読み込む。
+     * @param recordIndex レコードのインデックス（0始まり）
+     * @return データレコード
+     */
+    private DataRecord readRecord(long recordIndex) {
+        formatter.setRecordNumber(recordIndex + 1);
+        try {
+            MappedByteBuffer chunk = mapChunk(recordIndex / recordsPerChunk);
+            int offset = (int) ((recordIndex % recordsPerChunk) * recordStride);
+            int length = (int) Math.min(recordStride, fileSize - recordIndex * recordStride);
+            chunk.position(offset);
+            // 変換を遅延する場合はレコードがバッファを保持し続けるため、レコードごとに新しい配列へ読み込む
+            boolean lazyDecoding = formatter.isLazyDecoding();
+            byte[] bytes = lazyDecoding ? new byte[recordStride] : buffer;
+            chunk.get(bytes, 0, length);
+            return formatter.decodeRecord(bytes, length, !lazyDecoding);
+        } catch (InvalidDataFormatException e) {
+            throw e.setInputSourcePath(dataFile.getAbsolutePath());
+        } catch (IOException e) {
+            throw new RuntimeException(
+                    "I/O error happened while reading the file. file path=["
+                            + dataFile.getPath() + "]", e);
+        }
+    }
+
+    /**
+     * 指定されたインデックスのチャンクをマップする。
+     * すでにマップしているチャンクであれば、それをそのまま返却する。
+     * @param chunkIndex チャンクのインデックス
+     * @return マップされたチャンク
+     * @throws IOException マップに失敗した場合
+     */
+    private MappedByteBuffer mapChunk(long chunkIndex) throws IOException {
+        if (chunkIndex != currentChunkIndex) {
+            long chunkSize = recordsPerChunk * recordStride;
+            long position = chunkIndex * chunkSize;
+            currentChunk = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                    Math.min(chunkSize, fileSize - position));
+            currentChunkIndex = chunkIndex;
+        }
+        return currentChunk;
+    }
+
+    /**
+     * 指定されたデータファイルに対するチャネルを閉じ、
+     * ファイルハンドラを開放する。
+     */
+    public void close() {
+        currentChunk = null;
+        formatter.close();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            LOGGER.logWarn("I/O error happened while closing the file.", e);
+        }
+    }
+}
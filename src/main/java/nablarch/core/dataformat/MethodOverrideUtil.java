@@ -0,0 +1,120 @@
+package nablarch.core.dataformat;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * メソッドのオーバーライドに関するユーティリティクラス。
+ * <p/>
+ * 高速化のために追加したメソッドを使用する際に、
+ * 従来のメソッドのみをオーバーライドしたサブクラスを判定するために使用する。
+ * 判定結果はクラスごとにキャッシュするが、呼び出しのたびにキーを生成するため、
+ * 呼び出し元はインスタンスの生成時に判定した結果をfinalフィールドに保持し、読み書きのたびに呼び出さないこと。
+ * <p/>
+ * 本クラスはフレームワーク内部で使用するためのものであり、アプリケーションから使用してはならない。
+ */
+public final class MethodOverrideUtil {
+
+    /** 判定結果のキャッシュ */
+    private static final ConcurrentMap<Key, Boolean> CACHE = new ConcurrentHashMap<Key, Boolean>();
+
+    /** privateコンストラクタ。 */
+    private MethodOverrideUtil() {
+    }
+
+    /**
+     * 指定されたメソッドが、基底クラスより下位のクラスでオーバーライドされているかどうかを判定する。
+     * <p/>
+     * 判定対象のクラスから基底クラスの直前までの各クラスが、
+     * 指定されたメソッドを宣言しているかどうかを判定する。基底クラス自身の宣言は対象としない。
+     *
+     * @param type           判定対象のクラス
+     * @param baseClass      基底クラス
+     * @param methodName     メソッド名
+     * @param parameterTypes メソッドの引数の型
+     * @return 基底クラスより下位のクラスでオーバーライドされている場合はtrue
+     */
+    public static boolean isOverridden(Class<?> type, Class<?> baseClass,
+            String methodName, Class<?>... parameterTypes) {
+        Key key = new Key(type, baseClass, methodName, parameterTypes);
+        Boolean overridden = CACHE.get(key);
+        if (overridden == null) {
+            overridden = findDeclaration(type, baseClass, methodName, parameterTypes);
+            CACHE.putIfAbsent(key, overridden);
+        }
+        return overridden;
+    }
+
+    /**
+     * 判定対象のクラスから基底クラスの直前までに、指定されたメソッドの宣言が存在するかどうかを判定する。
+     *
+     * @param type           判定対象のクラス
+     * @param baseClass      基底クラス
+     * @param methodName     メソッド名
+     * @param parameterTypes メソッドの引数の型
+     * @return 宣言が存在する場合はtrue
+     */
+    private static boolean findDeclaration(Class<?> type, Class<?> baseClass,
+            String methodName, Class<?>... parameterTypes) {
+        for (Class<?> c = type; c != null && c != baseClass; c = c.getSuperclass()) {
+            try {
+                c.getDeclaredMethod(methodName, parameterTypes);
+                return true;
+            } catch (NoSuchMethodException e) {
+                // 上位のクラスを確認する
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 判定結果のキャッシュのキー。
+     */
+    private static final class Key {
+
+        /** 判定対象のクラス */
+        private final Class<?> type;
+
+        /** 基底クラス */
+        private final Class<?> baseClass;
+
+        /** メソッド名 */
+        private final String methodName;
+
+        /** メソッドの引数の型 */
+        private final Class<?>[] parameterTypes;
+
+        /**
+         * コンストラクタ。
+         *
+         * @param type           判定対象のクラス
+         * @param baseClass      基底クラス
+         * @param methodName     メソッド名
+         * @param parameterTypes メソッドの引数の型
+         */
+        Key(Class<?> type, Class<?> baseClass, String methodName, Class<?>[] parameterTypes) {
+            this.type = type;
+            this.baseClass = baseClass;
+            this.methodName = methodName;
+            this.parameterTypes = parameterTypes;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return type == other.type && baseClass == other.baseClass
+                    && methodName.equals(other.methodName) && Arrays.equals(parameterTypes, other.parameterTypes);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public int hashCode() {
+            return (type.hashCode() * 31 + baseClass.hashCode()) * 31 + methodName.hashCode();
+        }
+    }
+}
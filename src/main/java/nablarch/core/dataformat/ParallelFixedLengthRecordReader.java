@@ -0,0 +1,369 @@
+package nablarch.core.dataformat;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import nablarch.core.util.annotation.Published;
+
+/**
+ * 固定長ファイルを複数スレッドで並列に読み込むリーダ。
+ * <p>
+ * 固定長ファイルのレコードは「レコード長＋レコード終端文字列長」ごとに配置されているため、
+ * 本クラスはデータファイルをレコード境界に揃えたチャンクに分割し、
+ * 各チャンクの読み込みとデータレコードへの変換を{@link ExecutorService}上で並列に実行する。
+ * </p>
+ * <p>
+ * デフォルトでは、データレコードはファイル内の順序どおりに返却される。
+ * {@link #setOrdered(boolean)}にfalseを設定した場合は、変換が完了したチャンクから順に返却する。
+ * いずれの場合も、各データレコードにはファイル内の位置に応じた正しいレコード番号が設定される。
+ * </p>
+ * <p>
+ * フォーマット定義ファイルのファイルタイプは"Fixed"でなければならない。
+ * </p>
+ * <p>
+ * 本クラスの読み込みメソッドはスレッドセーフを考慮した実装にはなっていないので、呼び出し元で同期化の制御を行うこと。
+ * </p>
+ */
+@Published(tag = "architect")
+public class ParallelFixedLengthRecordReader implements Closeable {
+
+    /** 1チャンクあたりのレコード数のデフォルト値 */
+    private static final int DEFAULT_CHUNK_RECORD_COUNT = 1000;
+
+    /** データファイル */
+    private final File dataFile;
+
+    /** フォーマット定義情報保持クラス */
+    private final LayoutDefinition definition;
+
+    /** チャンクの変換を並列に実行するパイプライン */
+    private final ChunkPipeline<Chunk> pipeline;
+
+    /** データファイルのバイト長 */
+    private final long fileSize;
+
+    /** 1レコードあたりのバイト長（レコード終端文字列を含む） */
+    private final int recordStride;
+
+    /** データファイルに含まれるレコード数（末尾の不完全なレコードを含む） */
+    private final long recordCount;
+
+    /** ワーカスレッドが使用するフォーマッタのプール */
+    private final Queue<FixedLengthDataRecordFormatter> formatterPool
+            = new ConcurrentLinkedQueue<FixedLengthDataRecordFormatter>();
+
+    /** 1チャンクあたりのレコード数 */
+    private int chunkRecordCount = DEFAULT_CHUNK_RECORD_COUNT;
+
+    /** 次に投入するチャンクの先頭レコードのインデックス */
+    private long nextSubmitIndex = 0;
+
+    /** 返却中のチャンク */
+    private Chunk currentChunk = null;
+
+    /** 返却中のチャンク内で、次に返却するレコードの位置 */
+    private int currentPosition = 0;
+
+    /** 最後に返却したレコードのレコード番号 */
+    private long recordNumber = 0;
+
+    /**
+     * コンストラクタ。
+     * <p>
+     * 利用可能なプロセッサ数のスレッドを持つスレッドプールを生成して使用する。
+     * 生成したスレッドプールは{@link #close()}で終了する。
+     * </p>
+     * @param dataFile   データファイル
+     * @param layoutFile フォーマット定義ファイル
+     */
+    public ParallelFixedLengthRecordReader(File dataFile, File layoutFile) {
+        this(dataFile, FormatterFactory.getInstance().createFormatter(layoutFile),
+                Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors()), true);
+    }
+
+    /**
+     * コンストラクタ。
+     * <p>
+     * 引数で渡されたスレッドプールは{@link #close()}で終了しない。
+     * </p>
+     * @param dataFile   データファイル
+     * @param layoutFile フォーマット定義ファイル
+     * @param executor   チャンクを変換するスレッドプール（{@link java.util.concurrent.ForkJoinPool}も使用できる）
+     */
+    public ParallelFixedLengthRecordReader(File dataFile, File layoutFile, ExecutorService executor) {
+        this(dataFile, FormatterFactory.getInstance().createFormatter(layoutFile), executor, false);
+    }
+
+    /**
+     * コンストラクタ。
+     * <p>
+     * 引数で渡されたスレッドプールは{@link #close()}で終了しない。
+     * </p>
+     * @param dataFile         データファイル
+     * @param layoutDefinition フォーマット定義情報保持クラス
+     * @param executor         チャンクを変換するスレッドプール（{@link java.util.concurrent.ForkJoinPool}も使用できる）
+     */
+    public ParallelFixedLengthRecordReader(File dataFile, LayoutDefinition layoutDefinition, ExecutorService executor) {
+        this(dataFile, FormatterFactory.getInstance().createFormatter(layoutDefinition), executor, false);
+    }
+
+    /**
+     * コンストラクタ。
+     * @param dataFile     データファイル
+     * @param formatter    フォーマッタ
+     * @param executor     チャンクを変換するスレッドプール
+     * @param ownsExecutor スレッドプールを本クラスで生成したかどうか
+     */
+    private ParallelFixedLengthRecordReader(File dataFile, DataRecordFormatter formatter,
+            ExecutorService executor, boolean ownsExecutor) {
+        if (executor == null) {
+            throw new IllegalArgumentException("executor was null. executor must not be null.");
+        }
+        if (!(formatter instanceof FixedLengthDataRecordFormatter)) {
+            throw new IllegalArgumentException(
+                    "invalid formatter was specified. file type must be 'Fixed'. formatter=["
+                            + formatter.getClass().getName() + "].");
+        }
+        FixedLengthDataRecordFormatter fixedLengthFormatter = (FixedLengthDataRecordFormatter) formatter;
+        fixedLengthFormatter.initialize();
+        formatterPool.add(fixedLengthFormatter);
+
+        this.dataFile = dataFile;
+        this.definition = fixedLengthFormatter.getDefinition();
+        recordStride = fixedLengthFormatter.getRecordLength() + fixedLengthFormatter.getRecordSeparatorLength();
+
+        pipeline = new ChunkPipeline<Chunk>(dataFile, executor, ownsExecutor, new ChunkPipeline.ChunkSource<Chunk>() {
+            public Callable<Chunk> nextTask() {
+                return nextChunkTask();
+            }
+        });
+        fileSize = pipeline.getFileSize();
+        recordCount = (fileSize + recordStride - 1) / recordStride;
+    }
+
+    /**
+     * 1チャンクあたりのレコード数を設定する。（デフォルト:1000）
+     * <p>
+     * 読み込みを開始した後に設定することはできない。
+     * </p>
+     * @param chunkRecordCount 1チャンクあたりのレコード数
+     * @return このオブジェクト自体
+     */
+    public ParallelFixedLengthRecordReader setChunkRecordCount(int chunkRecordCount) {
+        pipeline.checkNotStarted();
+        if (chunkRecordCount <= 0) {
+            throw new IllegalArgumentException("chunk record count was invalid. chunk record count must be bigger than 0.");
+        }
+        this.chunkRecordCount = chunkRecordCount;
+        return this;
+    }
+
+    /**
+     * 同時に変換を行うチャンクの最大数を設定する。（デフォルト:利用可能なプロセッサ数の2倍）
+     * <p>
+     * 変換済みで未返却のチャンクもこの数に含まれるため、メモリ使用量の上限は
+     * 「1チャンクあたりのレコード数×同時に変換を行うチャンクの最大数」に比例する。<br/>
+     * 読み込みを開始した後に設定することはできない。
+     * </p>
+     * @param maxPendingChunks 同時に変換を行うチャンクの最大数
+     * @return このオブジェクト自体
+     */
+    public ParallelFixedLengthRecordReader setMaxPendingChunks(int maxPendingChunks) {
+        pipeline.setMaxPendingChunks(maxPendingChunks);
+        return this;
+    }
+
+    /**
+     * ファイル内の順序どおりにレコードを返却するかどうかを設定する。（デフォルト:true）
+     * <p>
+     * falseを設定した場合、変換が完了したチャンクから順にレコードを返却する。
+     * チャンク内のレコードは、ファイル内の順序どおりに返却される。<br/>
+     * 読み込みを開始した後に設定することはできない。
+     * </p>
+     * @param ordered ファイル内の順序どおりにレコードを返却する場合はtrue
+     * @return このオブジェクト自体
+     */
+    public ParallelFixedLengthRecordReader setOrdered(boolean ordered) {
+        pipeline.setOrdered(ordered);
+        return this;
+    }
+
+    /**
+     * 次のレコードを読み込んで返す。
+     * @return データレコード（これ以上読み込むレコードがない場合はnull）
+     */
+    public DataRecord read() {
+        if (!hasNext()) {
+            return null;
+        }
+        Object result = currentChunk.results.get(currentPosition++);
+        if (result instanceof InvalidDataFormatException) {
+            // 変換でエラーが発生したレコードは、ファイル内の位置に到達した時点で例外をスローする
+            InvalidDataFormatException e = (InvalidDataFormatException) result;
+            recordNumber = e.getRecordNumberAsLong();
+            throw e.setInputSourcePath(dataFile.getAbsolutePath());
+        }
+        DataRecord record = (DataRecord) result;
+        recordNumber = record.getRecordNumberAsLong();
+        return record;
+    }
+
+    /**
+     * 次に読み込むレコードがあるかどうかを返却する。
+     * @return 次に読み込むレコードがある場合、true
+     */
+    public boolean hasNext() {
+        while (currentChunk == null || currentPosition >= currentChunk.results.size()) {
+            currentChunk = pipeline.next();
+            currentPosition = 0;
+            if (currentChunk == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 最後に読み込んだレコードのレコード番号を返却する。
+     * @return レコード番号
+     */
+    public long getRecordNumberAsLong() {
+        return recordNumber;
+    }
+
+    /**
+     * 最後に読み込んだレコードのレコード番号を返却する。
+     * @return レコード番号
+     * @throws IllegalStateException レコード番号がint型で表現できない場合
+     * @deprecated {@link #getRecordNumberAsLong()}を使用すること。
+     */
+    @Deprecated
+    public int getRecordNumber() {
+        return RecordNumberUtil.toInt(getRecordNumberAsLong());
+    }
+
+    /**
+     * 次のチャンクを変換するタスクを生成する。
+     * @return チャンクを変換するタスク（これ以上チャンクがない場合はnull）
+     */
+    private Callable<Chunk> nextChunkTask() {
+        if (nextSubmitIndex >= recordCount) {
+            return null;
+        }
+        long startIndex = nextSubmitIndex;
+        // チャンクのバイト長がint型で表現できる範囲に収まるように、レコード数を制限する
+        int maxCount = Math.max(1, Integer.MAX_VALUE / recordStride);
+        int count = (int) Math.min(Math.min(chunkRecordCount, maxCount), recordCount - startIndex);
+        nextSubmitIndex += count;
+        return new ChunkTask(startIndex, count);
+    }
+
+    /**
+     * ワーカスレッドで使用するフォーマッタを取得する。
+     * @return フォーマッタ
+     */
+    private FixedLengthDataRecordFormatter borrowFormatter() {
+        FixedLengthDataRecordFormatter formatter = formatterPool.poll();
+        if (formatter == null) {
+            formatter = (FixedLengthDataRecordFormatter) FormatterFactory.getInstance().createFormatter(definition);
+            formatter.initialize();
+        }
+        return formatter;
+    }
+
+    /**
+     * 変換中のチャンクを取り消し、データファイルに対するチャネルを閉じる。
+     * <p>
+     * スレッドプールを本クラスで生成した場合は、スレッドプールも終了する。
+     * </p>
+     */
+    public void close() {
+        currentChunk = null;
+        pipeline.close();
+    }
+
+    /**
+     * 変換が完了したチャンク。
+     */
+    private static final class Chunk {
+
+        /** レコードごとの変換結果（変換したデータレコード、または変換中に発生した例外） */
+        private final List<Object> results;
+
+        /**
+         * コンストラクタ。
+         * @param results レコードごとの変換結果
+         */
+        private Chunk(List<Object> results) {
+            this.results = results;
+        }
+    }
+
+    /**
+     * チャンクを読み込み、データレコードに変換するタスク。
+     */
+    private final class ChunkTask implements Callable<Chunk> {
+
+        /** 先頭レコードのインデックス */
+        private final long startIndex;
+
+        /** レコード数 */
+        private final int count;
+
+        /**
+         * コンストラクタ。
+         * @param startIndex 先頭レコードのインデックス
+         * @param count      レコード数
+         */
+        private ChunkTask(long startIndex, int count) {
+            this.startIndex = startIndex;
+            this.count = count;
+        }
+
+        /** {@inheritDoc} */
+        public Chunk call() throws IOException {
+            long position = startIndex * recordStride;
+            int length = (int) Math.min((long) count * recordStride, fileSize - position);
+            ByteBuffer buff = ByteBuffer.allocate(length);
+            // 読み込み中にファイルが短くなった場合は、読み込めたバイト数までを変換する
+            long read = pipeline.read(buff, position);
+            byte[] chunkBytes = buff.array();
+            byte[] recordBytes = new byte[recordStride];
+
+            List<Object> results = new ArrayList<Object>(count);
+            FixedLengthDataRecordFormatter formatter = borrowFormatter();
+            boolean lazyDecoding = formatter.isLazyDecoding();
+            try {
+                for (int i = 0; i < count; i++) {
+                    long offset = (long) i * recordStride;
+                    if (offset >= read) {
+                        break;
+                    }
+                    // 末尾の不完全なレコードは、逐次読み込む場合と同様にレコード長の不足として通知する
+                    int recordLength = (int) Math.min(recordStride, read - offset);
+                    // 変換を遅延する場合はレコードがバッファを保持し続けるため、レコードごとに新しい配列へ複製する
+                    byte[] bytes = lazyDecoding ? new byte[recordStride] : recordBytes;
+                    System.arraycopy(chunkBytes, (int) offset, bytes, 0, recordLength);
+                    formatter.setRecordNumber(startIndex + i + 1);
+                    try {
+                        results.add(formatter.decodeRecord(bytes, recordLength, !lazyDecoding));
+                    } catch (InvalidDataFormatException e) {
+                        results.add(e);
+                    }
+                }
+            } finally {
+                formatterPool.add(formatter);
+            }
+            return new Chunk(results);
+        }
+    }
+}
@@ -0,0 +1,357 @@
+package nablarch.core.dataformat;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import nablarch.core.util.annotation.Published;
+
+/**
+ * JSON Lines形式のファイルを複数スレッドで並列に読み込むリーダ。
+ * <p>
+ * 本クラスはデータファイルを指定したバイト長ごとの範囲（チャンク）に分割し、
+ * 各チャンクの行の解析とデータレコードへの変換を{@link ExecutorService}上で並列に実行する。
+ * 各チャンクは、チャンクの範囲内で開始する行を読み込む（範囲外で終了する行も含む）。
+ * </p>
+ * <p>
+ * JSONの文字列には改行を含めることができないため、チャンクの範囲内で最初に開始する行の位置は、
+ * 範囲の直前から最初のLFを探すことで確定する。
+ * このため、{@link ParallelVariableLengthRecordReader}と異なり、開始位置の推測と読み込み直しは行わない。
+ * </p>
+ * <p>
+ * データレコードはファイル内の順序どおりに返却され、各データレコードには逐次読み込んだ場合と同じレコード番号が設定される。
+ * </p>
+ * <p>
+ * フォーマット定義ファイルのファイルタイプは"JSONL"でなければならない。
+ * </p>
+ * <p>
+ * 本クラスの読み込みメソッドはスレッドセーフを考慮した実装にはなっていないので、呼び出し元で同期化の制御を行うこと。
+ * </p>
+ */
+@Published(tag = "architect")
+public class ParallelJsonLinesRecordReader implements Closeable {
+
+    /** 1チャンクあたりのバイト長のデフォルト値 */
+    private static final int DEFAULT_CHUNK_SIZE = 1024 * 1024;
+
+    /** チャンクの開始位置を探す際に使用するバッファのサイズ */
+    private static final int SCAN_BUFFER_SIZE = 8192;
+
+    /** データファイル */
+    private final File dataFile;
+
+    /** フォーマット定義情報保持クラス */
+    private final LayoutDefinition definition;
+
+    /** チャンクの変換を並列に実行するパイプライン */
+    private final ChunkPipeline<Chunk> pipeline;
+
+    /** データファイルのバイト長 */
+    private final long fileSize;
+
+    /** 1チャンクあたりのバイト長 */
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+
+    /** 次に投入するチャンクの範囲の開始位置 */
+    private long nextSubmitPosition = 0;
+
+    /** 返却中のチャンク */
+    private Chunk currentChunk = null;
+
+    /** 返却中のチャンク内で、次に返却するレコードの位置 */
+    private int currentPosition = 0;
+
+    /** 返却中のチャンクより前のチャンクで読み込んだ行数（空行を含む） */
+    private long baseRecordNumber = 0;
+
+    /** 最後に返却したレコードのレコード番号 */
+    private long recordNumber = 0;
+
+    /**
+     * コンストラクタ。
+     * <p>
+     * 利用可能なプロセッサ数のスレッドを持つスレッドプールを生成して使用する。
+     * 生成したスレッドプールは{@link #close()}で終了する。
+     * </p>
+     * @param dataFile   データファイル
+     * @param layoutFile フォーマット定義ファイル
+     */
+    public ParallelJsonLinesRecordReader(File dataFile, File layoutFile) {
+        this(dataFile, FormatterFactory.getInstance().createFormatter(layoutFile),
+                Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors()), true);
+    }
+
+    /**
+     * コンストラクタ。
+     * <p>
+     * 引数で渡されたスレッドプールは{@link #close()}で終了しない。
+     * </p>
+     * @param dataFile   データファイル
+     * @param layoutFile フォーマット定義ファイル
+     * @param executor   チャンクを変換するスレッドプール（{@link java.util.concurrent.ForkJoinPool}も使用できる）
+     */
+    public ParallelJsonLinesRecordReader(File dataFile, File layoutFile, ExecutorService executor) {
+        this(dataFile, FormatterFactory.getInstance().createFormatter(layoutFile), executor, false);
+    }
+
+    /**
+     * コンストラクタ。
+     * <p>
+     * 引数で渡されたスレッドプールは{@link #close()}で終了しない。
+     * </p>
+     * @param dataFile         データファイル
+     * @param layoutDefinition フォーマット定義情報保持クラス
+     * @param executor         チャンクを変換するスレッドプール（{@link java.util.concurrent.ForkJoinPool}も使用できる）
+     */
+    public ParallelJsonLinesRecordReader(File dataFile, LayoutDefinition layoutDefinition, ExecutorService executor) {
+        this(dataFile, FormatterFactory.getInstance().createFormatter(layoutDefinition), executor, false);
+    }
+
+    /**
+     * コンストラクタ。
+     * @param dataFile     データファイル
+     * @param formatter    フォーマッタ
+     * @param executor     チャンクを変換するスレッドプール
+     * @param ownsExecutor スレッドプールを本クラスで生成したかどうか
+     */
+    private ParallelJsonLinesRecordReader(File dataFile, DataRecordFormatter formatter,
+            ExecutorService executor, boolean ownsExecutor) {
+        if (executor == null) {
+            throw new IllegalArgumentException("executor was null. executor must not be null.");
+        }
+        if (!(formatter instanceof JsonLinesDataRecordFormatter)) {
+            throw new IllegalArgumentException(
+                    "invalid formatter was specified. file type must be 'JSONL'. formatter=["
+                            + formatter.getClass().getName() + "].");
+        }
+        // フォーマット定義の初期化は、ワーカスレッドでフォーマッタを生成する前に完了させておく
+        JsonLinesDataRecordFormatter jsonLinesFormatter = (JsonLinesDataRecordFormatter) formatter;
+        jsonLinesFormatter.initialize();
+
+        this.dataFile = dataFile;
+        this.definition = jsonLinesFormatter.getDefinition();
+
+        pipeline = new ChunkPipeline<Chunk>(dataFile, executor, ownsExecutor, new ChunkPipeline.ChunkSource<Chunk>() {
+            public Callable<Chunk> nextTask() {
+                return nextChunkTask();
+            }
+        });
+        fileSize = pipeline.getFileSize();
+    }
+
+    /**
+     * 1チャンクあたりのバイト長を設定する。（デフォルト:1048576）
+     * <p>
+     * 読み込みを開始した後に設定することはできない。
+     * </p>
+     * @param chunkSize 1チャンクあたりのバイト長
+     * @return このオブジェクト自体
+     */
+    public ParallelJsonLinesRecordReader setChunkSize(int chunkSize) {
+        pipeline.checkChunkSize(chunkSize);
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    /**
+     * 同時に変換を行うチャンクの最大数を設定する。（デフォルト:利用可能なプロセッサ数の2倍）
+     * <p>
+     * 変換済みで未返却のチャンクもこの数に含まれるため、メモリ使用量の上限は
+     * 「1チャンクあたりのバイト長×同時に変換を行うチャンクの最大数」に比例する。<br/>
+     * 読み込みを開始した後に設定することはできない。
+     * </p>
+     * @param maxPendingChunks 同時に変換を行うチャンクの最大数
+     * @return このオブジェクト自体
+     */
+    public ParallelJsonLinesRecordReader setMaxPendingChunks(int maxPendingChunks) {
+        pipeline.setMaxPendingChunks(maxPendingChunks);
+        return this;
+    }
+
+    /**
+     * 次のレコードを読み込んで返す。
+     * @return データレコード（これ以上読み込むレコードがない場合はnull）
+     */
+    public DataRecord read() {
+        if (!hasNext()) {
+            return null;
+        }
+        Object result = currentChunk.results.get(currentPosition++);
+        if (result instanceof InvalidDataFormatException) {
+            // チャンク内のレコード番号を、ファイル内のレコード番号に補正する
+            InvalidDataFormatException e = (InvalidDataFormatException) result;
+            e.setRecordNumber(baseRecordNumber + e.getRecordNumberAsLong());
+            recordNumber = e.getRecordNumberAsLong();
+            throw e.setInputSourcePath(dataFile.getAbsolutePath());
+        }
+        DataRecord record = (DataRecord) result;
+        record.setRecordNumber(baseRecordNumber + record.getRecordNumberAsLong());
+        recordNumber = record.getRecordNumberAsLong();
+        return record;
+    }
+
+    /**
+     * 次に読み込むレコードがあるかどうかを返却する。
+     * @return 次に読み込むレコードがある場合、true
+     */
+    public boolean hasNext() {
+        pipeline.start();
+        while (currentChunk == null || currentPosition >= currentChunk.results.size()) {
+            if (currentChunk != null) {
+                baseRecordNumber += currentChunk.lineCount;
+            }
+            currentChunk = pipeline.next();
+            currentPosition = 0;
+            if (currentChunk == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 最後に読み込んだレコードのレコード番号を返却する。
+     * @return レコード番号
+     */
+    public long getRecordNumberAsLong() {
+        return recordNumber;
+    }
+
+    /**
+     * 次のチャンクを変換するタスクを生成する。
+     * @return チャンクを変換するタスク（これ以上チャンクがない場合はnull）
+     */
+    private Callable<Chunk> nextChunkTask() {
+        if (nextSubmitPosition >= fileSize) {
+            return null;
+        }
+        long position = nextSubmitPosition;
+        nextSubmitPosition = Math.min(fileSize, position + chunkSize);
+        return new ChunkTask(position, nextSubmitPosition);
+    }
+
+    /**
+     * チャンクの範囲の開始位置以降で、最初に開始する行の位置を返却する。
+     *
+     * @param position チャンクの範囲の開始位置
+     * @return 行の開始位置（行が存在しない場合はファイルの終端の位置）
+     * @throws IOException 読み込みに伴うIO処理で問題が発生した場合。
+     */
+    private long findLineStart(long position) throws IOException {
+        // 範囲の直前がLFの場合は、範囲の開始位置から行が開始する
+        long current = position - 1;
+        InputStream in = new BufferedInputStream(pipeline.openStream(current), SCAN_BUFFER_SIZE);
+        int b;
+        while ((b = in.read()) != -1) {
+            current++;
+            if (b == '\n') {
+                return current;
+            }
+        }
+        return fileSize;
+    }
+
+    /**
+     * 指定した位置から行を読み込み、データレコードに変換する。
+     * <p/>
+     * 読み込んだデータの位置が、チャンクの範囲の終了位置以降となった時点で読み込みを終了する。
+     * 行の解析でエラーが発生した場合は、エラーを変換結果として保持し、後続の行の読み込みを継続する。
+     *
+     * @param start 行の開始位置
+     * @param limit チャンクの範囲の終了位置
+     * @return チャンク
+     * @throws IOException 読み込みに伴うIO処理で問題が発生した場合。
+     */
+    private Chunk parse(long start, long limit) throws IOException {
+        List<Object> results = new ArrayList<Object>();
+        long lineCount = 0;
+        JsonLinesDataRecordFormatter formatter
+                = (JsonLinesDataRecordFormatter) FormatterFactory.getInstance().createFormatter(definition);
+        formatter.setInputStream(pipeline.openStream(start)).initialize();
+        try {
+            while (start + formatter.getReadPosition() < limit && formatter.readLine()) {
+                lineCount++;
+                if (formatter.isBlankLine()) {
+                    continue;
+                }
+                formatter.setRecordNumber(lineCount);
+                try {
+                    results.add(formatter.convertLine());
+                } catch (InvalidDataFormatException e) {
+                    results.add(e);
+                }
+            }
+            return new Chunk(results, lineCount);
+        } finally {
+            formatter.close();
+        }
+    }
+
+    /**
+     * 変換中のチャンクを取り消し、データファイルに対するチャネルを閉じる。
+     * <p>
+     * スレッドプールを本クラスで生成した場合は、スレッドプールも終了する。
+     * </p>
+     */
+    public void close() {
+        currentChunk = null;
+        pipeline.close();
+    }
+
+    /**
+     * 変換が完了したチャンク。
+     */
+    private static final class Chunk {
+
+        /** レコードごとの変換結果（変換したデータレコード、または変換中に発生した例外） */
+        private final List<Object> results;
+
+        /** チャンク内で読み込んだ行数（空行を含む） */
+        private final long lineCount;
+
+        /**
+         * コンストラクタ。
+         * @param results   レコードごとの変換結果
+         * @param lineCount チャンク内で読み込んだ行数
+         */
+        private Chunk(List<Object> results, long lineCount) {
+            this.results = results;
+            this.lineCount = lineCount;
+        }
+    }
+
+    /**
+     * チャンクの範囲内で開始する行を読み込み、データレコードに変換するタスク。
+     */
+    private final class ChunkTask implements Callable<Chunk> {
+
+        /** チャンクの範囲の開始位置 */
+        private final long position;
+
+        /** チャンクの範囲の終了位置 */
+        private final long limit;
+
+        /**
+         * コンストラクタ。
+         * @param position チャンクの範囲の開始位置
+         * @param limit    チャンクの範囲の終了位置
+         */
+        private ChunkTask(long position, long limit) {
+            this.position = position;
+            this.limit = limit;
+        }
+
+        /** {@inheritDoc} */
+        public Chunk call() throws IOException {
+            long start = position == 0 ? 0 : findLineStart(position);
+            return parse(start, limit);
+        }
+    }
+}
@@ -0,0 +1,527 @@
+package nablarch.core.dataformat;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import nablarch.core.util.annotation.Published;
+
+/**
+ * 可変長ファイルを複数スレッドで並列に読み込むリーダ。
+ * <p>
+ * 本クラスはデータファイルを指定したバイト長ごとの範囲（チャンク）に分割し、
+ * 各チャンクのフィールドの分割とデータレコードへの変換を{@link ExecutorService}上で並列に実行する。
+ * 各チャンクは、チャンクの範囲内で開始するレコードを読み込む（範囲外で終了するレコードも含む）。
+ * </p>
+ * <p>
+ * 可変長ファイルでは、囲み文字で囲まれたフィールドにレコード終端文字列を含むことができるため、
+ * チャンクの範囲内で最初に開始するレコードの位置は、先頭から読み込むまで確定しない。
+ * 本クラスは、チャンクの範囲の直前が囲み文字で囲まれていないと仮定し、
+ * 囲み文字の出現回数が偶数となる位置にある最初のレコード終端文字列の直後をレコードの開始位置と推測して読み込む。
+ * 推測した開始位置は、直前のチャンクの読み込みが完了した時点で検証し、
+ * 直前のチャンクの終了位置と一致しない場合は、そのチャンクを正しい開始位置から読み込み直す。
+ * このため、推測が誤っていた場合もデータレコードは逐次読み込んだ場合と同じ結果となる。
+ * </p>
+ * <p>
+ * データレコードはファイル内の順序どおりに返却され、各データレコードには逐次読み込んだ場合と同じレコード番号が設定される。
+ * requires-titleディレクティブがtrueの場合は、ファイルの先頭を含むチャンクのみ最初の行をタイトルとして読み込む。
+ * ignore-blank-linesディレクティブがtrueの場合に読み飛ばした空行も、逐次読み込んだ場合と同様にレコード番号に含める。
+ * </p>
+ * <p>
+ * フォーマット定義ファイルのファイルタイプは"Variable"でなければならない。
+ * フィールドの区切りをバイトデータ上で判定できない文字コードや区切り文字の場合は、チャンクに分割せず、
+ * 呼び出し元のスレッドで逐次読み込む。
+ * フィールドの変換はワーカスレッドで行うため、フォーマッタの遅延変換の設定は使用しない。
+ * </p>
+ * <p>
+ * 本クラスの読み込みメソッドはスレッドセーフを考慮した実装にはなっていないので、呼び出し元で同期化の制御を行うこと。
+ * </p>
+ */
+@Published(tag = "architect")
+public class ParallelVariableLengthRecordReader implements Closeable {
+
+    /** 1チャンクあたりのバイト長のデフォルト値 */
+    private static final int DEFAULT_CHUNK_SIZE = 1024 * 1024;
+
+    /** チャンクの開始位置を推測する際に使用するバッファのサイズ */
+    private static final int SCAN_BUFFER_SIZE = 8192;
+
+    /** 読み込みが異常終了したチャンクの終了位置 */
+    private static final long ABORTED = -1;
+
+    /** データファイル */
+    private final File dataFile;
+
+    /** フォーマット定義情報保持クラス */
+    private final LayoutDefinition definition;
+
+    /** チャンクの変換を並列に実行するパイプライン */
+    private final ChunkPipeline<Chunk> pipeline;
+
+    /** データファイルのバイト長 */
+    private final long fileSize;
+
+    /** フィールドの区切りをバイトデータ上で判定できるかどうか */
+    private final boolean byteParsable;
+
+    /** レコード終端文字列のバイトデータ */
+    private final byte[] recordSeparator;
+
+    /** 囲み文字（囲み文字を使用しない場合は-1） */
+    private final int quote;
+
+    /** 1チャンクあたりのバイト長 */
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+
+    /** 次に投入するチャンクの範囲の開始位置 */
+    private long nextSubmitPosition = 0;
+
+    /** 返却中のチャンク */
+    private Chunk currentChunk = null;
+
+    /** 返却中のチャンク内で、次に返却するレコードの位置 */
+    private int currentPosition = 0;
+
+    /** 返却中のチャンクより前のチャンクで読み込んだレコード数（読み飛ばした空行を含む） */
+    private long baseRecordNumber = 0;
+
+    /** 次のチャンクの正しい開始位置（返却中のチャンクの終了位置） */
+    private long expectedStart = 0;
+
+    /** チャンクに分割せずに読み込む場合のフォーマッタ */
+    private VariableLengthDataRecordFormatter sequentialFormatter;
+
+    /** 最後に返却したレコードのレコード番号 */
+    private long recordNumber = 0;
+
+    /**
+     * コンストラクタ。
+     * <p>
+     * 利用可能なプロセッサ数のスレッドを持つスレッドプールを生成して使用する。
+     * 生成したスレッドプールは{@link #close()}で終了する。
+     * </p>
+     * @param dataFile   データファイル
+     * @param layoutFile フォーマット定義ファイル
+     */
+    public ParallelVariableLengthRecordReader(File dataFile, File layoutFile) {
+        this(dataFile, FormatterFactory.getInstance().createFormatter(layoutFile),
+                Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors()), true);
+    }
+
+    /**
+     * コンストラクタ。
+     * <p>
+     * 引数で渡されたスレッドプールは{@link #close()}で終了しない。
+     * </p>
+     * @param dataFile   データファイル
+     * @param layoutFile フォーマット定義ファイル
+     * @param executor   チャンクを変換するスレッドプール（{@link java.util.concurrent.ForkJoinPool}も使用できる）
+     */
+    public ParallelVariableLengthRecordReader(File dataFile, File layoutFile, ExecutorService executor) {
+        this(dataFile, FormatterFactory.getInstance().createFormatter(layoutFile), executor, false);
+    }
+
+    /**
+     * コンストラクタ。
+     * <p>
+     * 引数で渡されたスレッドプールは{@link #close()}で終了しない。
+     * </p>
+     * @param dataFile         データファイル
+     * @param layoutDefinition フォーマット定義情報保持クラス
+     * @param executor         チャンクを変換するスレッドプール（{@link java.util.concurrent.ForkJoinPool}も使用できる）
+     */
+    public ParallelVariableLengthRecordReader(File dataFile, LayoutDefinition layoutDefinition, ExecutorService executor) {
+        this(dataFile, FormatterFactory.getInstance().createFormatter(layoutDefinition), executor, false);
+    }
+
+    /**
+     * コンストラクタ。
+     * @param dataFile     データファイル
+     * @param formatter    フォーマッタ
+     * @param executor     チャンクを変換するスレッドプール
+     * @param ownsExecutor スレッドプールを本クラスで生成したかどうか
+     */
+    private ParallelVariableLengthRecordReader(File dataFile, DataRecordFormatter formatter,
+            ExecutorService executor, boolean ownsExecutor) {
+        if (executor == null) {
+            throw new IllegalArgumentException("executor was null. executor must not be null.");
+        }
+        if (!(formatter instanceof VariableLengthDataRecordFormatter)) {
+            throw new IllegalArgumentException(
+                    "invalid formatter was specified. file type must be 'Variable'. formatter=["
+                            + formatter.getClass().getName() + "].");
+        }
+        // フォーマット定義の初期化は、ワーカスレッドでフォーマッタを生成する前に完了させておく
+        VariableLengthDataRecordFormatter variableLengthFormatter = (VariableLengthDataRecordFormatter) formatter;
+        variableLengthFormatter.initialize();
+
+        this.dataFile = dataFile;
+        this.definition = variableLengthFormatter.getDefinition();
+        byteParsable = variableLengthFormatter.isByteParsable();
+        // バイトデータ上で判定できる場合、区切り文字はASCII文字なので1文字を1バイトとして扱える
+        char[] separator = variableLengthFormatter.getRecordSeparator().toCharArray();
+        recordSeparator = new byte[separator.length];
+        for (int i = 0; i < separator.length; i++) {
+            recordSeparator[i] = (byte) separator[i];
+        }
+        Character quotingDelimiter = variableLengthFormatter.getQuotingDelimiter();
+        quote = quotingDelimiter == null ? -1 : quotingDelimiter;
+
+        pipeline = new ChunkPipeline<Chunk>(dataFile, executor, ownsExecutor, new ChunkPipeline.ChunkSource<Chunk>() {
+            public Callable<Chunk> nextTask() {
+                return nextChunkTask();
+            }
+        });
+        fileSize = pipeline.getFileSize();
+    }
+
+    /**
+     * 1チャンクあたりのバイト長を設定する。（デフォルト:1048576）
+     * <p>
+     * 読み込みを開始した後に設定することはできない。
+     * </p>
+     * @param chunkSize 1チャンクあたりのバイト長
+     * @return このオブジェクト自体
+     */
+    public ParallelVariableLengthRecordReader setChunkSize(int chunkSize) {
+        pipeline.checkChunkSize(chunkSize);
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    /**
+     * 同時に変換を行うチャンクの最大数を設定する。（デフォルト:利用可能なプロセッサ数の2倍）
+     * <p>
+     * 変換済みで未返却のチャンクもこの数に含まれるため、メモリ使用量の上限は
+     * 「1チャンクあたりのバイト長×同時に変換を行うチャンクの最大数」に比例する。<br/>
+     * 読み込みを開始した後に設定することはできない。
+     * </p>
+     * @param maxPendingChunks 同時に変換を行うチャンクの最大数
+     * @return このオブジェクト自体
+     */
+    public ParallelVariableLengthRecordReader setMaxPendingChunks(int maxPendingChunks) {
+        pipeline.setMaxPendingChunks(maxPendingChunks);
+        return this;
+    }
+
+    /**
+     * 次のレコードを読み込んで返す。
+     * @return データレコード（これ以上読み込むレコードがない場合はnull）
+     */
+    public DataRecord read() {
+        if (!hasNext()) {
+            return null;
+        }
+        if (sequentialFormatter != null) {
+            try {
+                DataRecord record = sequentialFormatter.readRecord();
+                recordNumber = sequentialFormatter.getRecordNumberAsLong();
+                return record;
+            } catch (InvalidDataFormatException e) {
+                recordNumber = sequentialFormatter.getRecordNumberAsLong();
+                throw e.setInputSourcePath(dataFile.getAbsolutePath());
+            } catch (IOException e) {
+                throw pipeline.newIOError(e);
+            }
+        }
+        Object result = currentChunk.results.get(currentPosition++);
+        if (result instanceof InvalidDataFormatException) {
+            // チャンク内のレコード番号を、ファイル内のレコード番号に補正する
+            InvalidDataFormatException e = (InvalidDataFormatException) result;
+            if (e.getRecordNumberAsLong() != 0) {
+                e.setRecordNumber(baseRecordNumber + e.getRecordNumberAsLong());
+            }
+            recordNumber = e.getRecordNumberAsLong();
+            throw e.setInputSourcePath(dataFile.getAbsolutePath());
+        }
+        if (result instanceof RuntimeException) {
+            throw (RuntimeException) result;
+        }
+        DataRecord record = (DataRecord) result;
+        record.setRecordNumber(baseRecordNumber + record.getRecordNumberAsLong());
+        recordNumber = record.getRecordNumberAsLong();
+        return record;
+    }
+
+    /**
+     * 次に読み込むレコードがあるかどうかを返却する。
+     * @return 次に読み込むレコードがある場合、true
+     */
+    public boolean hasNext() {
+        if (!pipeline.isStarted()) {
+            start();
+        }
+        if (sequentialFormatter != null) {
+            try {
+                return sequentialFormatter.hasNext();
+            } catch (IOException e) {
+                throw pipeline.newIOError(e);
+            }
+        }
+        while (currentChunk == null || currentPosition >= currentChunk.results.size()) {
+            currentChunk = nextChunk();
+            currentPosition = 0;
+            if (currentChunk == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 最後に読み込んだレコードのレコード番号を返却する。
+     * @return レコード番号
+     */
+    public long getRecordNumberAsLong() {
+        return recordNumber;
+    }
+
+    /**
+     * 最後に読み込んだレコードのレコード番号を返却する。
+     * @return レコード番号
+     * @throws IllegalStateException レコード番号がint型で表現できない場合
+     * @deprecated {@link #getRecordNumberAsLong()}を使用すること。
+     */
+    @Deprecated
+    public int getRecordNumber() {
+        return RecordNumberUtil.toInt(recordNumber);
+    }
+
+    /**
+     * 読み込みを開始する。
+     * <p/>
+     * フィールドの区切りをバイトデータ上で判定できない場合、
+     * またはデータファイルが1チャンクに収まる場合は、チャンクに分割せずに読み込む。
+     */
+    private void start() {
+        pipeline.start();
+        if (!byteParsable || fileSize <= chunkSize) {
+            sequentialFormatter = openFormatter(0);
+        }
+    }
+
+    /**
+     * 変換が完了した次のチャンクを取得する。
+     * <p/>
+     * チャンクの開始位置が、直前のチャンクの終了位置と一致しない場合は、直前のチャンクの終了位置から読み込み直す。
+     *
+     * @return チャンク（これ以上チャンクがない場合はnull）
+     */
+    private Chunk nextChunk() {
+        if (currentChunk != null) {
+            if (currentChunk.end == ABORTED) {
+                // 読み込みを継続できないエラーが発生した場合は、以降のチャンクを読み込まない
+                nextSubmitPosition = fileSize;
+                pipeline.cancel();
+                return null;
+            }
+            baseRecordNumber += currentChunk.recordCount;
+            expectedStart = currentChunk.end;
+        }
+        Chunk chunk = pipeline.next();
+        if (chunk != null && chunk.start != expectedStart) {
+            try {
+                chunk = parse(expectedStart, chunk.limit);
+            } catch (IOException e) {
+                throw pipeline.newIOError(e);
+            }
+        }
+        return chunk;
+    }
+
+    /**
+     * 次のチャンクを変換するタスクを生成する。
+     * @return チャンクを変換するタスク（これ以上チャンクがない場合はnull）
+     */
+    private Callable<Chunk> nextChunkTask() {
+        if (nextSubmitPosition >= fileSize) {
+            return null;
+        }
+        long position = nextSubmitPosition;
+        nextSubmitPosition = Math.min(fileSize, position + chunkSize);
+        // 最後のチャンクは、ファイルの終端まで読み込む
+        long limit = nextSubmitPosition == fileSize ? Long.MAX_VALUE : nextSubmitPosition;
+        return new ChunkTask(position, limit);
+    }
+
+    /**
+     * チャンクの範囲の開始位置以降で、最初に開始するレコードの位置を推測する。
+     * <p/>
+     * 開始位置の直前（レコード終端文字列の長さ分）が囲み文字で囲まれていないと仮定し、
+     * 囲み文字の出現回数が偶数となる位置にある、最初のレコード終端文字列の直後の位置を返却する。
+     *
+     * @param position チャンクの範囲の開始位置
+     * @return レコードの開始位置（レコード終端文字列が存在しない場合はファイルの終端の位置）
+     * @throws IOException 読み込みに伴うIO処理で問題が発生した場合。
+     */
+    private long findRecordStart(long position) throws IOException {
+        long current = Math.max(0, position - recordSeparator.length);
+        InputStream in = new BufferedInputStream(pipeline.openStream(current), SCAN_BUFFER_SIZE);
+        byte[] window = new byte[recordSeparator.length];
+        int count = 0;
+        boolean quoted = false;
+        int b;
+        while ((b = in.read()) != -1) {
+            current++;
+            if (b == quote) {
+                quoted = !quoted;
+            }
+            System.arraycopy(window, 1, window, 0, window.length - 1);
+            window[window.length - 1] = (byte) b;
+            count++;
+            if (!quoted && count >= window.length && Arrays.equals(window, recordSeparator)) {
+                return current;
+            }
+        }
+        return fileSize;
+    }
+
+    /**
+     * 指定した位置からレコードを読み込み、データレコードに変換する。
+     * <p/>
+     * 読み込んだデータの位置が、チャンクの範囲の終了位置以降となった時点で読み込みを終了する。
+     * フィールドの変換でエラーが発生した場合は、エラーを変換結果として保持し、後続のレコードの読み込みを継続する。
+     * フィールドの分割でエラーが発生した場合は、エラーを変換結果として保持し、読み込みを終了する。
+     *
+     * @param start レコードの開始位置
+     * @param limit チャンクの範囲の終了位置
+     * @return チャンク
+     * @throws IOException 読み込みに伴うIO処理で問題が発生した場合。
+     */
+    private Chunk parse(long start, long limit) throws IOException {
+        List<Object> results = new ArrayList<Object>();
+        VariableLengthDataRecordFormatter formatter = openFormatter(start);
+        try {
+            if (start > 0) {
+                // タイトルはファイルの先頭から読み込むチャンクでのみ読み込む
+                formatter.skipTitle();
+            }
+            while (true) {
+                long position = start + formatter.getReadPosition();
+                if (position >= limit) {
+                    return new Chunk(start, limit, results, position, formatter.getRecordNumberAsLong());
+                }
+                try {
+                    List<String> fieldStrList = formatter.readFieldStrings();
+                    if (fieldStrList == null) {
+                        return new Chunk(start, limit, results,
+                                start + formatter.getReadPosition(), formatter.getRecordNumberAsLong());
+                    }
+                    try {
+                        results.add(formatter.convertToRecord(fieldStrList));
+                    } catch (InvalidDataFormatException e) {
+                        results.add(e);
+                    }
+                } catch (RuntimeException e) {
+                    // フィールドの分割でエラーが発生した場合は、後続のレコードの位置を特定できないため読み込みを終了する。
+                    // 推測した開始位置が誤っている可能性があるため、例外はチャンクの検証後に送出する。
+                    results.add(e);
+                    return new Chunk(start, limit, results, ABORTED, 0);
+                }
+            }
+        } finally {
+            formatter.close();
+        }
+    }
+
+    /**
+     * 指定した位置から読み込むフォーマッタを生成する。
+     * @param position 読み込みを開始する位置
+     * @return フォーマッタ
+     */
+    private VariableLengthDataRecordFormatter openFormatter(long position) {
+        VariableLengthDataRecordFormatter formatter
+                = (VariableLengthDataRecordFormatter) FormatterFactory.getInstance().createFormatter(definition);
+        formatter.setLazyDecoding(false);
+        formatter.setInputStream(pipeline.openStream(position)).initialize();
+        return formatter;
+    }
+
+    /**
+     * 変換中のチャンクを取り消し、データファイルに対するチャネルを閉じる。
+     * <p>
+     * スレッドプールを本クラスで生成した場合は、スレッドプールも終了する。
+     * </p>
+     */
+    public void close() {
+        currentChunk = null;
+        if (sequentialFormatter != null) {
+            sequentialFormatter.close();
+            sequentialFormatter = null;
+        }
+        pipeline.close();
+    }
+
+    /**
+     * 変換が完了したチャンク。
+     */
+    private static final class Chunk {
+
+        /** 読み込みを開始したレコードの位置 */
+        private final long start;
+
+        /** チャンクの範囲の終了位置 */
+        private final long limit;
+
+        /** レコードごとの変換結果（変換したデータレコード、または変換中に発生した例外） */
+        private final List<Object> results;
+
+        /** 次のチャンクで最初に読み込むレコードの位置（読み込みが異常終了した場合は{@link #ABORTED}） */
+        private final long end;
+
+        /** チャンク内で読み込んだレコード数（読み飛ばした空行を含む） */
+        private final long recordCount;
+
+        /**
+         * コンストラクタ。
+         * @param start       読み込みを開始したレコードの位置
+         * @param limit       チャンクの範囲の終了位置
+         * @param results     レコードごとの変換結果
+         * @param end         次のチャンクで最初に読み込むレコードの位置
+         * @param recordCount チャンク内で読み込んだレコード数
+         */
+        private Chunk(long start, long limit, List<Object> results, long end, long recordCount) {
+            this.start = start;
+            this.limit = limit;
+            this.results = results;
+            this.end = end;
+            this.recordCount = recordCount;
+        }
+    }
+
+    /**
+     * チャンクの開始位置を推測して読み込み、データレコードに変換するタスク。
+     */
+    private final class ChunkTask implements Callable<Chunk> {
+
+        /** チャンクの範囲の開始位置 */
+        private final long position;
+
+        /** チャンクの範囲の終了位置 */
+        private final long limit;
+
+        /**
+         * コンストラクタ。
+         * @param position チャンクの範囲の開始位置
+         * @param limit    チャンクの範囲の終了位置
+         */
+        private ChunkTask(long position, long limit) {
+            this.position = position;
+            this.limit = limit;
+        }
+
+        /** {@inheritDoc} */
+        public Chunk call() throws IOException {
+            long start = position == 0 ? 0 : findRecordStart(position);
+            return parse(start, limit);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package nablarch.core.dataformat;
+
+import nablarch.core.util.annotation.Published;
+
+/**
+ * ファイルの読み込みを途中から再開するためのチェックポイント。
+ * <p>
+ * {@link FileRecordReader#getCheckpoint()}で取得し、
+ * {@link FileRecordReader#FileRecordReader(java.io.File, java.io.File, ReadCheckpoint)}に指定することで、
+ * チェックポイントを取得した時点の次のレコードから読み込みを再開できる。
+ * チェックポイントより前のレコードは、読み込みも変換も行わない。
+ * </p>
+ * <p>
+ * チェックポイントを永続化する場合は、各プロパティの値を保存し、
+ * {@link #ReadCheckpoint(long, long, boolean)}で復元すること。
+ * </p>
+ */
+@Published(tag = "architect")
+public final class ReadCheckpoint {
+
+    /** 次に読み込むレコードの開始位置 */
+    private final long offset;
+
+    /** 読み込み済みのレコードのレコード番号 */
+    private final long recordNumber;
+
+    /** タイトルを読み込み済みかどうか */
+    private final boolean titleRead;
+
+    /**
+     * コンストラクタ。
+     * @param offset       次に読み込むレコードの開始位置（データファイルの先頭からのバイト位置）
+     * @param recordNumber 読み込み済みのレコードのレコード番号（読み飛ばした空行を含む）
+     * @param titleRead    タイトルを読み込み済みかどうか
+     */
+    public ReadCheckpoint(long offset, long recordNumber, boolean titleRead) {
+        if (offset < 0) {
+            throw new IllegalArgumentException("offset was invalid. offset must not be negative.");
+        }
+        if (recordNumber < 0) {
+            throw new IllegalArgumentException("record number was invalid. record number must not be negative.");
+        }
+        this.offset = offset;
+        this.recordNumber = recordNumber;
+        this.titleRead = titleRead;
+    }
+
+    /**
+     * 次に読み込むレコードの開始位置を返却する。
+     * @return データファイルの先頭からのバイト位置
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * 読み込み済みのレコードのレコード番号を返却する。
+     * <p/>
+     * 読み込みを再開した後に最初に読み込むレコードのレコード番号は、この値より大きい値となる。
+     * @return レコード番号
+     */
+    public long getRecordNumberAsLong() {
+        return recordNumber;
+    }
+
+    /**
+     * 読み込み済みのレコードのレコード番号を返却する。
+     *
+     * @return レコード番号
+     * @throws IllegalStateException レコード番号がint型で表現できない場合
+     * @deprecated レコード番号が{@link Integer#MAX_VALUE}を超えるファイルに対応できないため、
+     *             {@link #getRecordNumberAsLong()}を使用すること。
+     */
+    @Deprecated
+    public int getRecordNumber() {
+        return RecordNumberUtil.toInt(recordNumber);
+    }
+
+    /**
+     * タイトルを読み込み済みかどうかを返却する。
+     * <p/>
+     * 可変長ファイルでrequires-titleディレクティブがtrueの場合に、読み込みを再開した後の最初の行をタイトルとして扱うかどうかを表す。
+     * @return タイトルを読み込み済みの場合はtrue
+     */
+    public boolean isTitleRead() {
+        return titleRead;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return "offset=[" + offset + "], record number=[" + recordNumber + "], title read=[" + titleRead + "]";
+    }
+}
@@ -0,0 +1,32 @@
+package nablarch.core.dataformat;
+
+/**
+ * レコード番号に関するユーティリティクラス。
+ * <p/>
+ * レコード番号はlongで保持する。
+ * 本クラスは、int型のレコード番号を返却する非推奨のメソッドで使用する。
+ */
+final class RecordNumberUtil {
+
+    /** privateコンストラクタ。 */
+    private RecordNumberUtil() {
+    }
+
+    /**
+     * レコード番号をint型に変換する。
+     * <p/>
+     * レコード番号がint型で表現できない場合は、誤ったレコード番号を返却しないように例外を送出する。
+     *
+     * @param recordNumber レコード番号
+     * @return int型のレコード番号
+     * @throws IllegalStateException レコード番号がint型で表現できない場合
+     */
+    static int toInt(long recordNumber) {
+        if (recordNumber > Integer.MAX_VALUE || recordNumber < Integer.MIN_VALUE) {
+            throw new IllegalStateException(
+                    "record number exceeded the range of int. use getRecordNumberAsLong() instead. record number=["
+                  + recordNumber + "].");
+        }
+        return (int) recordNumber;
+    }
+}
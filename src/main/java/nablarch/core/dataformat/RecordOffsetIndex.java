@@ -0,0 +1,491 @@
+package nablarch.core.dataformat;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.List;
+
+import nablarch.core.log.Logger;
+import nablarch.core.log.LoggerManager;
+import nablarch.core.util.annotation.Published;
+
+/**
+ * データファイル内のレコードの開始位置（バイト位置）を保持するインデックス。
+ * <p>
+ * {@link #create(File, File, File, int)}でデータファイルを先頭から1度だけ読み込み、
+ * レコードの開始位置をインデックスファイルに書き込む。
+ * 間隔を指定した場合は、指定した件数ごとのレコードの開始位置のみを書き込む（疎なインデックス）。
+ * インデックスファイルはメモリにマップして参照するため、レコード数によらずヒープをほとんど使用しない。
+ * </p>
+ * <p>
+ * インデックスファイルは1つのバッファとしてメモリにマップするため、エントリ数の上限は{@value #MAX_ENTRY_COUNT}件となる
+ * （間隔が1の場合は、レコード数の上限となる）。
+ * 上限を超える場合は、インデックスの作成中に上限を超えた時点で例外をスローするため、より大きな間隔を指定すること。
+ * </p>
+ * <p>
+ * {@link FileRecordReader#FileRecordReader(File, File, RecordOffsetIndex, int)}にインデックスを指定すると、
+ * 指定したレコード番号のレコードから読み込みを開始できる。
+ * レコード番号に対応する開始位置は二分探索で求めるため、データファイルの先頭から読み込み直す必要はない。
+ * 疎なインデックスの場合は、直前のインデックスの位置から指定したレコード番号までのレコードを読み飛ばす。
+ * </p>
+ * <p>
+ * インデックスファイルは、以下のlong値（ビッグエンディアン）の並びで構成する。
+ * <ul>
+ * <li>ヘッダ：識別子、インデックスの間隔、エントリ数、データファイルのバイト長</li>
+ * <li>エントリ：レコードの開始位置と、その位置から読み込みを開始する時点のレコード番号（読み飛ばした空行を含む）の組</li>
+ * </ul>
+ * </p>
+ * <p>
+ * 可変長ファイルの場合、フィールドの区切りをバイトデータ上で判定できる文字コードと区切り文字でなければならない。
+ * 固定長ファイルの場合は、レコード長からレコードの開始位置を求めるため、データファイルの内容は読み込まない。
+ * </p>
+ */
+@Published(tag = "architect")
+public final class RecordOffsetIndex implements Closeable {
+
+    /** ロガー **/
+    private static final Logger LOGGER = LoggerManager.get(RecordOffsetIndex.class);
+
+    /** インデックスファイルの識別子（"NBRIDX01"） */
+    private static final long MAGIC = 0x4E42524944583031L;
+
+    /** ヘッダのlong値の数 */
+    private static final int HEADER_LENGTH = 4;
+
+    /** 1エントリあたりのlong値の数 */
+    private static final int ENTRY_LENGTH = 2;
+
+    /** エントリ数の上限（インデックスファイルのバイト長が{@link Integer#MAX_VALUE}を超えない最大のエントリ数） */
+    public static final int MAX_ENTRY_COUNT = (Integer.MAX_VALUE - HEADER_LENGTH * 8) / (ENTRY_LENGTH * 8);
+
+    /** インデックスファイルの書き込みに使用するバッファのサイズ */
+    private static final int WRITE_BUFFER_SIZE = 65536;
+
+    /** インデックスファイルの拡張子 */
+    private static final String INDEX_FILE_SUFFIX = ".idx";
+
+    /** インデックスファイル */
+    private final File indexFile;
+
+    /** インデックスファイルのチャネル */
+    private final FileChannel channel;
+
+    /** メモリにマップしたエントリ */
+    private final LongBuffer entries;
+
+    /** インデックスの間隔 */
+    private final int interval;
+
+    /** エントリ数 */
+    private final int entryCount;
+
+    /** インデックスを作成したデータファイルのバイト長 */
+    private final long dataFileLength;
+
+    /**
+     * コンストラクタ。
+     * <p/>
+     * 作成済みのインデックスファイルを開き、メモリにマップする。
+     *
+     * @param indexFile インデックスファイル
+     */
+    public RecordOffsetIndex(File indexFile) {
+        this.indexFile = indexFile;
+        try {
+            channel = new RandomAccessFile(indexFile, "r").getChannel();
+            long size = channel.size();
+            if (size < HEADER_LENGTH * 8 || size > Integer.MAX_VALUE) {
+                channel.close();
+                throw new IllegalArgumentException(
+                        "invalid index file was specified. index file size was [" + size + "]. file path=["
+                                + indexFile.getAbsolutePath() + "]");
+            }
+            LongBuffer buff = channel.map(MapMode.READ_ONLY, 0, size).asLongBuffer();
+            if (buff.get(0) != MAGIC) {
+                channel.close();
+                throw new IllegalArgumentException(
+                        "invalid index file was specified. file path=[" + indexFile.getAbsolutePath() + "]");
+            }
+            interval = (int) buff.get(1);
+            entryCount = (int) buff.get(2);
+            dataFileLength = buff.get(3);
+            buff.position(HEADER_LENGTH);
+            entries = buff.slice();
+        } catch (IOException e) {
+            throw new RuntimeException(
+                "I/O error happened while opening the index file. file path=[" + indexFile.getAbsolutePath() + "]"
+              , e
+            );
+        }
+    }
+
+    /**
+     * データファイルと同じディレクトリに、全てのレコードの開始位置を保持するインデックスを作成する。
+     * <p/>
+     * インデックスファイルのパスは{@link #getDefaultIndexFile(File)}で求める。
+     *
+     * @param dataFile   データファイル
+     * @param layoutFile フォーマット定義ファイル
+     * @return 作成したインデックス
+     */
+    public static RecordOffsetIndex create(File dataFile, File layoutFile) {
+        return create(dataFile, layoutFile, getDefaultIndexFile(dataFile), 1);
+    }
+
+    /**
+     * 指定した件数ごとのレコードの開始位置を保持するインデックスを作成する。
+     *
+     * @param dataFile   データファイル
+     * @param layoutFile フォーマット定義ファイル
+     * @param indexFile  インデックスファイル
+     * @param interval   インデックスの間隔（1の場合は全てのレコードの開始位置を保持する）
+     * @return 作成したインデックス
+     * @throws IllegalArgumentException エントリ数が{@link #MAX_ENTRY_COUNT}を超える場合
+     */
+    public static RecordOffsetIndex create(File dataFile, File layoutFile, File indexFile, int interval) {
+        return create(dataFile, FormatterFactory.getInstance().createFormatter(layoutFile), indexFile, interval);
+    }
+
+    /**
+     * 指定した件数ごとのレコードの開始位置を保持するインデックスを作成する。
+     *
+     * @param dataFile         データファイル
+     * @param layoutDefinition フォーマット定義情報保持クラス
+     * @param indexFile        インデックスファイル
+     * @param interval         インデックスの間隔（1の場合は全てのレコードの開始位置を保持する）
+     * @return 作成したインデックス
+     * @throws IllegalArgumentException エントリ数が{@link #MAX_ENTRY_COUNT}を超える場合
+     */
+    public static RecordOffsetIndex create(File dataFile, LayoutDefinition layoutDefinition, File indexFile, int interval) {
+        return create(dataFile, FormatterFactory.getInstance().createFormatter(layoutDefinition), indexFile, interval);
+    }
+
+    /**
+     * データファイルに対応するデフォルトのインデックスファイルを返却する。
+     * <p/>
+     * データファイルのパスに".idx"を付加したパスとなる。
+     *
+     * @param dataFile データファイル
+     * @return インデックスファイル
+     */
+    public static File getDefaultIndexFile(File dataFile) {
+        return new File(dataFile.getPath() + INDEX_FILE_SUFFIX);
+    }
+
+    /**
+     * インデックスを作成する。
+     *
+     * @param dataFile  データファイル
+     * @param formatter フォーマッタ
+     * @param indexFile インデックスファイル
+     * @param interval  インデックスの間隔
+     * @return 作成したインデックス
+     */
+    private static RecordOffsetIndex create(File dataFile, DataRecordFormatter formatter, File indexFile, int interval) {
+        if (interval <= 0) {
+            throw new IllegalArgumentException("interval was invalid. interval must be bigger than 0.");
+        }
+        IndexWriter writer = new IndexWriter(indexFile);
+        try {
+            if (formatter instanceof FixedLengthDataRecordFormatter) {
+                writeFixedLengthEntries(dataFile, (FixedLengthDataRecordFormatter) formatter, writer, interval);
+            } else if (formatter instanceof VariableLengthDataRecordFormatter) {
+                writeVariableLengthEntries(dataFile, (VariableLengthDataRecordFormatter) formatter, writer, interval);
+            } else {
+                throw new IllegalArgumentException(
+                        "invalid formatter was specified. file type must be 'Fixed' or 'Variable'. formatter=["
+                                + formatter.getClass().getName() + "].");
+            }
+            writer.finish(interval, dataFile.length());
+        } catch (InvalidDataFormatException e) {
+            throw e.setInputSourcePath(dataFile.getAbsolutePath());
+        } catch (IOException e) {
+            throw new RuntimeException(
+                    "I/O error happened while creating the index file. file path=["
+                            + indexFile.getPath() + "]", e);
+        } finally {
+            writer.close();
+        }
+        return new RecordOffsetIndex(indexFile);
+    }
+
+    /**
+     * 固定長ファイルのレコードの開始位置を、レコード長から求めて書き込む。
+     *
+     * @param dataFile  データファイル
+     * @param formatter フォーマッタ
+     * @param writer    インデックスファイルのライタ
+     * @param interval  インデックスの間隔
+     * @throws IOException 書き込みに伴うIO処理で問題が発生した場合。
+     */
+    private static void writeFixedLengthEntries(File dataFile, FixedLengthDataRecordFormatter formatter,
+            IndexWriter writer, int interval) throws IOException {
+        formatter.initialize();
+        long recordStride = formatter.getRecordLength() + formatter.getRecordSeparatorLength();
+        long recordCount = (dataFile.length() + recordStride - 1) / recordStride;
+        // エントリ数はデータファイルのバイト長から求まるため、書き込む前に上限を検証する
+        checkEntryCount((recordCount + interval - 1) / interval);
+        for (long index = 0; index < recordCount; index += interval) {
+            writer.write(index, index * recordStride);
+        }
+    }
+
+    /**
+     * 可変長ファイルを先頭から読み込み、レコードの開始位置を書き込む。
+     * <p/>
+     * フィールドの分割のみを行い、フィールドの変換は行わない。
+     *
+     * @param dataFile  データファイル
+     * @param formatter フォーマッタ
+     * @param writer    インデックスファイルのライタ
+     * @param interval  インデックスの間隔
+     * @throws IOException 読み込みまたは書き込みに伴うIO処理で問題が発生した場合。
+     */
+    private static void writeVariableLengthEntries(File dataFile, VariableLengthDataRecordFormatter formatter,
+            IndexWriter writer, int interval) throws IOException {
+        formatter.setInputStream(new FileInputStream(dataFile)).initialize();
+        try {
+            if (!formatter.isByteParsable()) {
+                throw new IllegalArgumentException(
+                        "the data file can not be indexed. field separator, quoting delimiter and record separator "
+                      + "must be ASCII characters that can be detected without decoding. encoding=["
+                      + formatter.getDefaultEncoding().name() + "].");
+            }
+            long count = 0;
+            while (true) {
+                // レコードの開始位置は、前のレコードの直後（空行を読み飛ばす前）の位置とする
+                long position = formatter.getReadPosition();
+                long recordNumber = formatter.getRecordNumberAsLong();
+                List<String> fieldStrList = formatter.readFieldStrings();
+                if (fieldStrList == null) {
+                    break;
+                }
+                if (count % interval == 0) {
+                    writer.write(recordNumber, position);
+                }
+                count++;
+            }
+        } finally {
+            formatter.close();
+        }
+    }
+
+    /**
+     * エントリ数が上限を超えていないことを検証する。
+     *
+     * @param entryCount エントリ数
+     */
+    private static void checkEntryCount(long entryCount) {
+        if (entryCount > MAX_ENTRY_COUNT) {
+            throw new IllegalArgumentException(
+                    "index file was too large to map. specify a larger interval. entry count must be "
+                            + MAX_ENTRY_COUNT + " or less, but was [" + entryCount + "].");
+        }
+    }
+
+    /**
+     * 指定したレコード番号のレコードを読み込むために、読み込みを開始するエントリを検索する。
+     * <p/>
+     * 読み込みを開始する時点のレコード番号が、指定したレコード番号より小さいエントリのうち、最後のエントリを返却する。
+     *
+     * @param recordNumber レコード番号
+     * @return エントリの位置（該当するエントリが存在しない場合は-1）
+     */
+    public int find(long recordNumber) {
+        int low = 0;
+        int high = entryCount - 1;
+        int found = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (getRecordNumberBefore(mid) < recordNumber) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * エントリが保持するレコードの開始位置を返却する。
+     *
+     * @param entry エントリの位置
+     * @return レコードの開始位置（データファイルの先頭からのバイト位置）
+     */
+    public long getOffset(int entry) {
+        checkEntry(entry);
+        return entries.get(entry * ENTRY_LENGTH + 1);
+    }
+
+    /**
+     * エントリの位置から読み込みを開始する時点のレコード番号を返却する。
+     * <p/>
+     * エントリの位置から最初に読み込むレコードのレコード番号は、この値より大きい値となる。
+     *
+     * @param entry エントリの位置
+     * @return 読み込みを開始する時点のレコード番号
+     */
+    public long getRecordNumberBefore(int entry) {
+        checkEntry(entry);
+        return entries.get(entry * ENTRY_LENGTH);
+    }
+
+    /**
+     * インデックスの間隔を返却する。
+     * @return インデックスの間隔
+     */
+    public int getInterval() {
+        return interval;
+    }
+
+    /**
+     * エントリ数を返却する。
+     * @return エントリ数
+     */
+    public int getEntryCount() {
+        return entryCount;
+    }
+
+    /**
+     * インデックスを作成したデータファイルのバイト長を返却する。
+     * @return データファイルのバイト長
+     */
+    public long getDataFileLength() {
+        return dataFileLength;
+    }
+
+    /**
+     * インデックスファイルを返却する。
+     * @return インデックスファイル
+     */
+    public File getIndexFile() {
+        return indexFile;
+    }
+
+    /**
+     * エントリの位置が範囲内であることを検証する。
+     * @param entry エントリの位置
+     */
+    private void checkEntry(int entry) {
+        if (entry < 0 || entry >= entryCount) {
+            throw new IndexOutOfBoundsException(
+                    "entry was out of range. entry=[" + entry + "], entry count=[" + entryCount + "].");
+        }
+    }
+
+    /**
+     * インデックスファイルのチャネルを閉じる。
+     */
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            LOGGER.logWarn("I/O error happened while closing the index file.", e);
+        }
+    }
+
+    /**
+     * インデックスファイルのライタ。
+     * <p/>
+     * エントリを書き込んだ後に、ヘッダを書き込む。
+     */
+    private static final class IndexWriter {
+
+        /** インデックスファイル */
+        private final File indexFile;
+
+        /** インデックスファイルのチャネル */
+        private final FileChannel channel;
+
+        /** 書き込みバッファ */
+        private final ByteBuffer buff = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+
+        /** 書き込んだエントリ数 */
+        private long entryCount = 0;
+
+        /**
+         * コンストラクタ。
+         * @param indexFile インデックスファイル
+         */
+        private IndexWriter(File indexFile) {
+            this.indexFile = indexFile;
+            try {
+                RandomAccessFile file = new RandomAccessFile(indexFile, "rw");
+                file.setLength(0);
+                channel = file.getChannel();
+                channel.position(HEADER_LENGTH * 8);
+            } catch (IOException e) {
+                throw new RuntimeException(
+                    "I/O error happened while opening the index file. file path=[" + indexFile.getAbsolutePath() + "]"
+                  , e
+                );
+            }
+        }
+
+        /**
+         * エントリを書き込む。
+         * <p/>
+         * エントリ数が上限を超える場合は、データファイルを最後まで読み込む前に例外をスローする。
+         * @param recordNumberBefore 読み込みを開始する時点のレコード番号
+         * @param offset             レコードの開始位置
+         * @throws IOException 書き込みに伴うIO処理で問題が発生した場合。
+         */
+        private void write(long recordNumberBefore, long offset) throws IOException {
+            checkEntryCount(entryCount + 1);
+            if (buff.remaining() < ENTRY_LENGTH * 8) {
+                flush();
+            }
+            buff.putLong(recordNumberBefore);
+            buff.putLong(offset);
+            entryCount++;
+        }
+
+        /**
+         * 残りのエントリとヘッダを書き込む。
+         * @param interval       インデックスの間隔
+         * @param dataFileLength データファイルのバイト長
+         * @throws IOException 書き込みに伴うIO処理で問題が発生した場合。
+         */
+        private void finish(int interval, long dataFileLength) throws IOException {
+            flush();
+            buff.putLong(MAGIC).putLong(interval).putLong(entryCount).putLong(dataFileLength);
+            buff.flip();
+            long position = 0;
+            while (buff.hasRemaining()) {
+                position += channel.write(buff, position);
+            }
+            buff.clear();
+        }
+
+        /**
+         * バッファの内容をインデックスファイルへ書き込む。
+         * @throws IOException 書き込みに伴うIO処理で問題が発生した場合。
+         */
+        private void flush() throws IOException {
+            buff.flip();
+            while (buff.hasRemaining()) {
+                channel.write(buff);
+            }
+            buff.clear();
+        }
+
+        /**
+         * インデックスファイルのチャネルを閉じる。
+         */
+        private void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                LOGGER.logWarn("I/O error happened while closing the index file. file path=["
+                        + indexFile.getPath() + "]", e);
+            }
+        }
+    }
+}
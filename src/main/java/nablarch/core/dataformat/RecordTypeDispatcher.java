@@ -0,0 +1,306 @@
+package nablarch.core.dataformat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import nablarch.core.util.StringUtil;
+
+/**
+ * マルチレイアウトのフォーマットで、データレコードに適用するレコードタイプを判定するクラス。
+ * <p>
+ * レコードタイプの適用条件のうち{@link DataRecordPredicate.Equals}のみで構成されるものは、
+ * 条件に使用するフィールドの値をキーとしたハッシュテーブルに変換し、フィールドの値から直接レコードタイプを判定する。
+ * それ以外の条件（{@link DataRecordPredicate.Equals}のサブクラスを含む独自の{@link DataRecordPredicate}や、
+ * 同一フィールドに対する複数の条件）を持つレコードタイプのみ、
+ * {@link RecordDefinition#isApplicableTo(Map)}を順に呼び出して判定する。
+ * </p>
+ * <p>
+ * 判定結果は、レコードタイプを定義順に走査して最初に適用可能なものを選択した場合と同じになる。
+ * </p>
+ * <p>
+ * また、識別項目（Classifier）のフィールドのうち、レコードタイプのフィールドと定義が同一のものを保持しておき、
+ * 識別項目として変換済みの値をレコードの変換で再利用できるようにする。
+ * </p>
+ */
+final class RecordTypeDispatcher {
+
+    /** レコードタイプの一覧（定義順） */
+    private final List<RecordDefinition> records;
+
+    /** 判定対象から除外したレコードタイプの位置（除外しない場合は-1） */
+    private final int excludedIndex;
+
+    /** 条件に使用するフィールド名の組み合わせごとの、フィールドの値からレコードタイプの位置へのテーブル */
+    private final List<Group> groups = new ArrayList<Group>();
+
+    /** ハッシュテーブルに変換できない条件を持つレコードタイプの位置（昇順） */
+    private final int[] fallbackIndexes;
+
+    /** レコードタイプごとの、識別項目の変換結果を再利用できるフィールドかどうか */
+    private final boolean[][] classifierFields;
+
+    /**
+     * コンストラクタ。
+     * @param definition       フォーマット定義情報保持クラス
+     * @param excludedTypeName 判定対象から除外するレコードタイプ名（除外しない場合はnull）
+     */
+    RecordTypeDispatcher(LayoutDefinition definition, String excludedTypeName) {
+        records = definition.getRecords();
+        classifierFields = new boolean[records.size()][];
+
+        Map<List<String>, Group> groupMap = new LinkedHashMap<List<String>, Group>();
+        List<Integer> fallback = new ArrayList<Integer>();
+        int excluded = -1;
+        for (int i = 0; i < records.size(); i++) {
+            RecordDefinition recordDef = records.get(i);
+            classifierFields[i] = findClassifierFields(definition.getRecordClassifier(), recordDef);
+            if (recordDef.getTypeName().equals(excludedTypeName)) {
+                if (excluded == -1) {
+                    excluded = i;
+                }
+                continue;
+            }
+            Map<String, Object[]> conditions = toEqualityConditions(recordDef);
+            if (conditions == null) {
+                fallback.add(i);
+                continue;
+            }
+            List<String> fieldNames = new ArrayList<String>(new TreeSet<String>(conditions.keySet()));
+            Group group = groupMap.get(fieldNames);
+            if (group == null) {
+                group = new Group(fieldNames.toArray(new String[fieldNames.size()]));
+                groupMap.put(fieldNames, group);
+            }
+            group.add(conditions, i);
+        }
+        groups.addAll(groupMap.values());
+        excludedIndex = excluded;
+        fallbackIndexes = new int[fallback.size()];
+        for (int i = 0; i < fallbackIndexes.length; i++) {
+            fallbackIndexes[i] = fallback.get(i);
+        }
+    }
+
+    /**
+     * データレコードに適用可能な最初のレコードタイプの位置を返却する。
+     * @param record データレコード
+     * @return レコードタイプの位置（適用可能なレコードタイプが存在しない場合は-1）
+     */
+    int indexOf(Map<String, ?> record) {
+        int found = Integer.MAX_VALUE;
+        for (Group group : groups) {
+            Integer index = group.find(record);
+            if (index != null && index < found) {
+                found = index;
+            }
+        }
+        for (int index : fallbackIndexes) {
+            if (index >= found) {
+                break;
+            }
+            if (records.get(index).isApplicableTo(record)) {
+                found = index;
+                break;
+            }
+        }
+        return found == Integer.MAX_VALUE ? -1 : found;
+    }
+
+    /**
+     * 判定対象から除外したレコードタイプの位置を返却する。
+     * @return 除外したレコードタイプの位置（除外していない場合は-1）
+     */
+    int getExcludedIndex() {
+        return excludedIndex;
+    }
+
+    /**
+     * 指定された位置のレコードタイプについて、識別項目の変換結果を再利用できるフィールドかどうかを返却する。
+     * @param index レコードタイプの位置
+     * @return フィールドごとに、識別項目の変換結果を再利用できる場合はtrueを格納した配列
+     */
+    boolean[] getClassifierFields(int index) {
+        return classifierFields[index];
+    }
+
+    /**
+     * レコードタイプの適用条件を、フィールド名と検証値のMapに変換する。
+     * @param recordDef レコードタイプ
+     * @return フィールド名と検証値のMap（{@link DataRecordPredicate.Equals}以外の条件が含まれる場合や、
+     *          同一フィールドに複数の条件が存在する場合はnull）
+     */
+    private static Map<String, Object[]> toEqualityConditions(RecordDefinition recordDef) {
+        if (recordDef.getConditionsToApply().isEmpty()) {
+            return null;
+        }
+        Map<String, Object[]> conditions = new HashMap<String, Object[]>();
+        for (DataRecordPredicate predicate : recordDef.getConditionsToApply()) {
+            if (predicate.getClass() != DataRecordPredicate.Equals.class) {
+                // サブクラスはapplyの判定内容を変更している可能性があるため、ハッシュテーブルに変換しない
+                return null;
+            }
+            DataRecordPredicate.Equals equals = (DataRecordPredicate.Equals) predicate;
+            if (conditions.containsKey(equals.getFieldName())
+                    || Arrays.asList(equals.getExpectingValues()).contains(null)) {
+                return null;
+            }
+            conditions.put(equals.getFieldName(), equals.getExpectingValues());
+        }
+        return conditions;
+    }
+
+    /**
+     * レコードタイプのフィールドのうち、識別項目と定義が同一のものを探す。
+     * @param classifier 識別項目（定義されていない場合はnull）
+     * @param recordDef  レコードタイプ
+     * @return フィールドごとに、識別項目と定義が同一の場合はtrueを格納した配列
+     */
+    private static boolean[] findClassifierFields(RecordDefinition classifier, RecordDefinition recordDef) {
+        List<FieldDefinition> fields = recordDef.getFields();
+        boolean[] result = new boolean[fields.size()];
+        if (classifier == null) {
+            return result;
+        }
+        for (int i = 0; i < fields.size(); i++) {
+            for (FieldDefinition classifierField : classifier.getFields()) {
+                if (isSameDefinition(classifierField, fields.get(i))) {
+                    result[i] = true;
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 2つのフィールド定義が、同じ入力データから同じ値に変換されるかどうかを判定する。
+     * @param a フィールド定義
+     * @param b フィールド定義
+     * @return 同じ値に変換される場合はtrue
+     */
+    private static boolean isSameDefinition(FieldDefinition a, FieldDefinition b) {
+        if (a.getName() == null || !a.getName().equals(b.getName())
+                || a.getPosition() != b.getPosition()
+                || a.isFiller() || b.isFiller()
+                || a.getDataType() == null || b.getDataType() == null
+                || a.getDataType().getClass() != b.getDataType().getClass()
+                || a.getConvertors().size() != b.getConvertors().size()
+                || !equals(a.getSize(), b.getSize())
+                || !equals(a.getEncoding(), b.getEncoding())
+                || !equals(a.getPaddingValue(), b.getPaddingValue())) {
+            return false;
+        }
+        for (int i = 0; i < a.getConvertors().size(); i++) {
+            if (a.getConvertors().get(i).getClass() != b.getConvertors().get(i).getClass()) {
+                return false;
+            }
+        }
+        Map<String, Object[]> aSettings = a.getConvertorSettingList();
+        Map<String, Object[]> bSettings = b.getConvertorSettingList();
+        if (!new ArrayList<String>(aSettings.keySet()).equals(new ArrayList<String>(bSettings.keySet()))) {
+            return false;
+        }
+        for (Map.Entry<String, Object[]> entry : aSettings.entrySet()) {
+            if (!Arrays.deepEquals(entry.getValue(), bSettings.get(entry.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * nullを考慮してオブジェクトが等しいかどうかを判定する。
+     * @param a オブジェクト
+     * @param b オブジェクト
+     * @return 等しい場合はtrue
+     */
+    private static boolean equals(Object a, Object b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    /**
+     * 同じフィールドの組み合わせを条件に持つレコードタイプのハッシュテーブル。
+     */
+    private static final class Group {
+
+        /** 条件に使用するフィールド名（昇順） */
+        private final String[] fieldNames;
+
+        /** フィールドの値からレコードタイプの位置へのテーブル */
+        private final Map<Object, Integer> table = new HashMap<Object, Integer>();
+
+        /**
+         * コンストラクタ。
+         * @param fieldNames 条件に使用するフィールド名
+         */
+        private Group(String[] fieldNames) {
+            this.fieldNames = fieldNames;
+        }
+
+        /**
+         * レコードタイプの条件をテーブルに追加する。
+         * 同じキーに対して既にレコードタイプが登録されている場合は、先に定義されたものを優先する。
+         * @param conditions フィールド名と検証値のMap
+         * @param index      レコードタイプの位置
+         */
+        private void add(Map<String, Object[]> conditions, int index) {
+            addKeys(conditions, new String[fieldNames.length], 0, index);
+        }
+
+        /**
+         * 検証値の全ての組み合わせをキーとしてテーブルに追加する。
+         * @param conditions フィールド名と検証値のMap
+         * @param values     組み立て中のキー
+         * @param pos        組み立て中のフィールドの位置
+         * @param index      レコードタイプの位置
+         */
+        private void addKeys(Map<String, Object[]> conditions, String[] values, int pos, int index) {
+            if (pos == fieldNames.length) {
+                Object key = toKey(values.clone());
+                if (!table.containsKey(key)) {
+                    table.put(key, index);
+                }
+                return;
+            }
+            for (Object expecting : conditions.get(fieldNames[pos])) {
+                values[pos] = expecting.toString();
+                addKeys(conditions, values, pos + 1, index);
+            }
+        }
+
+        /**
+         * データレコードに適用可能なレコードタイプの位置を返却する。
+         * @param record データレコード
+         * @return レコードタイプの位置（適用可能なレコードタイプが存在しない場合はnull）
+         */
+        private Integer find(Map<String, ?> record) {
+            if (fieldNames.length == 1) {
+                Object value = record.get(fieldNames[0]);
+                return value == null ? null : table.get(StringUtil.toString(value));
+            }
+            String[] values = new String[fieldNames.length];
+            for (int i = 0; i < fieldNames.length; i++) {
+                Object value = record.get(fieldNames[i]);
+                if (value == null) {
+                    return null;
+                }
+                values[i] = StringUtil.toString(value);
+            }
+            return table.get(toKey(values));
+        }
+
+        /**
+         * フィールドの値をテーブルのキーに変換する。
+         * @param values フィールドの値
+         * @return キー
+         */
+        private static Object toKey(String[] values) {
+            return values.length == 1 ? values[0] : Arrays.asList(values);
+        }
+    }
+}
@@ -0,0 +1,497 @@
+package nablarch.core.dataformat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * XMLパーサー。<br>
+ * この実装では{@link XMLStreamReader}を使用して、DOMを構築せずにXMLデータの解析を行います。
+ * <p/>
+ * XMLデータとフォーマット定義を先頭から1度だけ走査し、フォーマット定義に存在しない要素は、
+ * 子孫要素を含めて読み飛ばします。そのため、メモリ使用量はXMLデータのサイズではなく、
+ * 要素の階層の深さとフォーマット定義の項目数に比例します。
+ * 子要素の検索には、レコードタイプ定義ごとに作成した要素名の索引を使用します。
+ * <p/>
+ * {@link XmlDataParser}と同様に、デフォルトではDTDの使用を禁止しています。
+ * DTDを使用する場合は、{@link #setAllowDTD(boolean)}を使用して明示的に許可してください。
+ * <p/>
+ * 読み込み結果は{@link XmlDataParser}と同じですが、以下の点が異なります。
+ * <ul>
+ * <li>配列項目の要素は、直下の子要素からのみ読み込みます。({@link XmlDataParser}は子孫要素から検索します。)</li>
+ * <li>フォーマット定義への違反が複数存在する場合、例外となる違反が異なる場合があります。</li>
+ * </ul>
+ * 本クラスを使用する場合は、コンポーネント名"XmlDataParser"でシステムリポジトリに登録してください。
+ */
+public class StreamingXmlDataParser extends XmlDataParser {
+
+    /** XMLの入力ファクトリ */
+    private volatile XMLInputFactory inputFactory;
+
+    /**
+     * フラットマップを作成します。
+     *
+     * @param xml XML文字列
+     * @param layoutDef フォーマット定義
+     * @return フラットマップ
+     * @throws IOException 読み込みに伴うIO処理で問題が発生した場合
+     * @throws InvalidDataFormatException 読み込んだデータがフォーマット定義に違反している場合
+     */
+    @Override
+    public Map<String, ?> parseData(InputStream xml, LayoutDefinition layoutDef)
+            throws IOException, InvalidDataFormatException {
+
+        Map<String, Object> record = new HashMap<String, Object>();
+        XMLStreamReader reader = null;
+        try {
+            reader = getInputFactory().createXMLStreamReader(xml);
+            RecordDefinition recordDef = layoutDef.getRecords().get(0);
+            String typeName = recordDef.getTypeName();
+            if (!moveToElement(reader, typeName)) {
+                throw new InvalidDataFormatException("expected node [" + typeName + "] not found.");
+            }
+            readElement("", record, layoutDef, recordDef, reader,
+                    new IdentityHashMap<RecordDefinition, ElementIndex>());
+
+            // ルート要素以降が整形式であることを確認する
+            while (reader.hasNext()) {
+                reader.next();
+            }
+        } catch (XMLStreamException e) {
+            if (e.getNestedException() instanceof IOException) {
+                throw (IOException) e.getNestedException();
+            }
+            throw new InvalidDataFormatException(
+                    String.format("invalid data found. [%s]", e.getMessage()), e);
+        } finally {
+            close(reader);
+        }
+        return record;
+    }
+
+    /**
+     * 本クラスで使用する{@link XMLInputFactory}のインスタンスを生成する。
+     * <p/>
+     * 生成したインスタンスは、最初の解析時に生成し、以降の解析で再利用する。
+     *
+     * @return {@link XMLInputFactory}のインスタンス
+     */
+    protected XMLInputFactory createXMLInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+        if (!isAllowDTD()) {
+            factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+            factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+        }
+        return factory;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void setAllowDTD(boolean allowDTD) {
+        super.setAllowDTD(allowDTD);
+        inputFactory = null;
+    }
+
+    /**
+     * {@link XMLInputFactory}のインスタンスを取得する。
+     *
+     * @return {@link XMLInputFactory}のインスタンス
+     */
+    private XMLInputFactory getInputFactory() {
+        XMLInputFactory factory = inputFactory;
+        if (factory == null) {
+            factory = createXMLInputFactory();
+            inputFactory = factory;
+        }
+        return factory;
+    }
+
+    /**
+     * 指定した名前の要素の開始位置まで読み進める。
+     *
+     * @param reader XMLリーダ
+     * @param name 要素名
+     * @return 要素が見つかった場合は{@code true}
+     * @throws XMLStreamException XMLの解析に失敗した場合
+     */
+    private boolean moveToElement(XMLStreamReader reader, String name) throws XMLStreamException {
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.DTD && !isAllowDTD()) {
+                throw new InvalidDataFormatException("invalid data found. [DOCTYPE is disallowed.]");
+            }
+            if (event == XMLStreamConstants.START_ELEMENT && name.equals(getElementName(reader))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * フラットMap作成処理</br>
+     * XMLリーダが指している要素を終了タグまで読み込み、キーで階層構造を表現した１階層のMapに格納します。
+     * <p/>
+     * 子要素は出現順に読み込み、必須チェックと配列の長さチェックは、終了タグまで読み込んだ後に
+     * フォーマット定義の項目順に行います。
+     *
+     * @param currentKeyBase キー名ベース
+     * @param outMap 出力対象マップ
+     * @param layoutDef フォーマット定義
+     * @param recordDef レコードタイプ定義
+     * @param reader 要素の開始タグを指しているXMLリーダ
+     * @param indexes レコードタイプ定義ごとの要素名の索引
+     * @throws XMLStreamException XMLの解析に失敗した場合
+     */
+    @SuppressWarnings("unchecked")
+    private void readElement(String currentKeyBase, Map<String, Object> outMap, LayoutDefinition layoutDef,
+            RecordDefinition recordDef, XMLStreamReader reader, Map<RecordDefinition, ElementIndex> indexes)
+            throws XMLStreamException {
+
+        ElementIndex index = indexes.get(recordDef);
+        if (index == null) {
+            index = new ElementIndex(recordDef);
+            indexes.put(recordDef, index);
+        }
+        List<FieldDefinition> fields = recordDef.getFields();
+        int size = fields.size();
+
+        String[] mapKeys = new String[size];
+        for (int i = 0; i < size; i++) {
+            mapKeys[i] = buildMapKey(currentKeyBase, fields.get(i));
+        }
+        String[] attributes = readAttributes(reader, index, size);
+        String[] values = new String[size];
+        boolean[] found = new boolean[size];
+        int[] counts = new int[size];
+        List<String>[] stringArrays = new List[size];
+        StringBuilder content = index.hasContent ? new StringBuilder() : null;
+        boolean hasChildNode = false;
+        boolean hasChildElement = false;
+
+        for (int event = reader.next(); event != XMLStreamConstants.END_ELEMENT; event = reader.next()) {
+            switch (event) {
+            case XMLStreamConstants.START_ELEMENT:
+                hasChildNode = true;
+                hasChildElement = true;
+                Integer position = index.elements.get(getElementName(reader));
+                if (position == null) {
+                    // フォーマット定義に存在しない要素
+                    skipElement(reader);
+                    break;
+                }
+                int i = position;
+                FieldDefinition fieldDef = fields.get(i);
+                if (fieldDef.isArray()) {
+                    if (counts[i] >= fieldDef.getMaxArraySize()) {
+                        // 残りの要素を読み込まずに、配列の長さチェックを実行する
+                        checkArrayLength(fieldDef, counts[i] + 1, currentKeyBase);
+                    }
+                    if (isObjectType(fieldDef)) {
+                        // オブジェクト配列
+                        String nextKeyBase = new StringBuilder(mapKeys[i])
+                                .append('[').append(counts[i]).append(']').toString();
+                        RecordDefinition nextRecordDef = layoutDef.getRecordType(fieldDef.getName());
+                        readElement(nextKeyBase, outMap, layoutDef, nextRecordDef, reader, indexes);
+                    } else {
+                        // 文字列配列
+                        if (stringArrays[i] == null) {
+                            stringArrays[i] = new ArrayList<String>();
+                        }
+                        stringArrays[i].add(readText(reader));
+                    }
+                    counts[i]++;
+                } else if (found[i]) {
+                    // 同名の要素は最初の要素のみ読み込む
+                    skipElement(reader);
+                } else {
+                    found[i] = true;
+                    if (isObjectType(fieldDef)) {
+                        // Object
+                        RecordDefinition next = layoutDef.getRecordType(fieldDef.getName());
+                        readElement(mapKeys[i], outMap, layoutDef, next, reader, indexes);
+                    } else {
+                        // ノード
+                        values[i] = readText(reader);
+                    }
+                }
+                break;
+            case XMLStreamConstants.CHARACTERS:
+            case XMLStreamConstants.CDATA:
+            case XMLStreamConstants.SPACE:
+            case XMLStreamConstants.ENTITY_REFERENCE:
+                hasChildNode = true;
+                if (content != null) {
+                    content.append(reader.getText());
+                }
+                break;
+            case XMLStreamConstants.COMMENT:
+            case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                hasChildNode = true;
+                break;
+            default:
+                break;
+            }
+        }
+
+        for (int i = 0; i < size; i++) {
+            FieldDefinition fieldDef = fields.get(i);
+            if (fieldDef.isFiller()) {
+                continue;
+            }
+            String fieldName = fieldDef.getName();
+            String mapKey = mapKeys[i];
+
+            if (fieldDef.isArray()) {
+
+                if (fieldName.equals(getContentName())) {
+                    throw new InvalidDataFormatException("Array type can not be specified in the content."
+                            + " parent name: " + currentKeyBase + ",field name: " + fieldName);
+                }
+
+                // Listの長さチェック実行
+                checkArrayLength(fieldDef, counts[i], currentKeyBase);
+
+                if (isObjectType(fieldDef)) {
+                    // 要素数の情報を付与
+                    outMap.put(mapKey + "Size", Integer.toString(counts[i]));
+                } else {
+                    outMap.put(mapKey, stringArrays[i] == null
+                            ? new String[0]
+                            : stringArrays[i].toArray(new String[counts[i]]));
+                }
+            } else {
+                if (isObjectType(fieldDef)) {
+                    // 属性チェック実施
+                    if (fieldDef.isAttribute()) {
+                        throw new InvalidDataFormatException(String.format(
+                                "BaseKey = %s,Field %s is Object but specified by Attribute",
+                                currentKeyBase, fieldName));
+                    }
+
+                    // 必須チェック実行
+                    if (!found[i]) {
+                        checkIndispensable(currentKeyBase, fieldDef, null);
+                    }
+                } else {
+                    String childNodeVal;
+                    if (fieldDef.isAttribute()) {
+                        // 属性
+                        childNodeVal = attributes == null ? null : attributes[i];
+                    } else if (fieldName.equals(getContentName())) {
+
+                        if (hasChildElement) {
+                            throw new InvalidDataFormatException("Element node can not be specified in the content."
+                                    + " parent name: " + currentKeyBase + ",field name: " + fieldName);
+                        }
+
+                        // コンテンツ
+                        childNodeVal = hasChildNode ? content.toString() : null;
+                    } else {
+                        // ノード
+                        childNodeVal = values[i];
+                    }
+                    Object convertedValue = convertToFieldOnRead(childNodeVal, fieldDef);
+
+                    // 必須チェック実行
+                    checkIndispensable(currentKeyBase, fieldDef, convertedValue);
+
+                    outMap.put(mapKey, convertedValue);
+                }
+            }
+        }
+    }
+
+    /**
+     * XMLリーダが指している要素から、フォーマット定義に存在する属性の値を読み込む。
+     * <p/>
+     * 名前空間の宣言は、"xmlns"または"xmlns:"で始まる名前の属性として扱う。
+     *
+     * @param reader 要素の開始タグを指しているXMLリーダ
+     * @param index 要素名の索引
+     * @param size フィールド数
+     * @return フィールドの位置ごとの属性値（属性の項目が存在しない場合はnull）
+     */
+    private String[] readAttributes(XMLStreamReader reader, ElementIndex index, int size) {
+        if (index.attributes.isEmpty()) {
+            return null;
+        }
+        String[] values = new String[size];
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            Integer position = index.attributes.get(
+                    getQualifiedName(reader.getAttributePrefix(i), reader.getAttributeLocalName(i)));
+            if (position != null) {
+                values[position] = reader.getAttributeValue(i);
+            }
+        }
+        for (int i = 0; i < reader.getNamespaceCount(); i++) {
+            Integer position = index.attributes.get(getQualifiedName("xmlns", reader.getNamespacePrefix(i)));
+            if (position != null) {
+                values[position] = reader.getNamespaceURI(i);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * XMLリーダが指している要素の、子孫要素を含むテキストを終了タグまで読み込む。
+     *
+     * @param reader 要素の開始タグを指しているXMLリーダ
+     * @return テキスト
+     * @throws XMLStreamException XMLの解析に失敗した場合
+     */
+    private static String readText(XMLStreamReader reader) throws XMLStreamException {
+        StringBuilder text = new StringBuilder();
+        int depth = 1;
+        while (depth > 0) {
+            switch (reader.next()) {
+            case XMLStreamConstants.START_ELEMENT:
+                depth++;
+                break;
+            case XMLStreamConstants.END_ELEMENT:
+                depth--;
+                break;
+            case XMLStreamConstants.CHARACTERS:
+            case XMLStreamConstants.CDATA:
+            case XMLStreamConstants.SPACE:
+            case XMLStreamConstants.ENTITY_REFERENCE:
+                text.append(reader.getText());
+                break;
+            default:
+                break;
+            }
+        }
+        return text.toString();
+    }
+
+    /**
+     * XMLリーダが指している要素を、子孫要素を含めて終了タグまで読み飛ばす。
+     *
+     * @param reader 要素の開始タグを指しているXMLリーダ
+     * @throws XMLStreamException XMLの解析に失敗した場合
+     */
+    private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    /**
+     * XMLリーダが指している要素の名前を、プレフィックスを含めて取得する。
+     *
+     * @param reader 要素の開始タグを指しているXMLリーダ
+     * @return 要素名
+     */
+    private static String getElementName(XMLStreamReader reader) {
+        return getQualifiedName(reader.getPrefix(), reader.getLocalName());
+    }
+
+    /**
+     * プレフィックスを含む名前を取得する。
+     *
+     * @param prefix プレフィックス（プレフィックスが存在しない場合はnullまたは空文字）
+     * @param localName ローカル名
+     * @return プレフィックスを含む名前
+     */
+    private static String getQualifiedName(String prefix, String localName) {
+        if (prefix == null || prefix.length() == 0) {
+            return localName;
+        }
+        if (localName == null || localName.length() == 0) {
+            return prefix;
+        }
+        return prefix + ':' + localName;
+    }
+
+    /**
+     * XMLリーダをクローズする。
+     *
+     * @param reader XMLリーダ
+     */
+    private static void close(XMLStreamReader reader) {
+        if (reader == null) {
+            return;
+        }
+        try {
+            reader.close();
+        } catch (XMLStreamException ignored) {
+            // 解析結果には影響しないため、クローズ時の例外は無視する
+        }
+    }
+
+    /**
+     * レコードタイプ定義の、要素名と属性名の索引。
+     */
+    private final class ElementIndex {
+
+        /** 子要素として読み込む項目の、要素名とフィールドの位置 */
+        private final Map<String, Integer> elements = new HashMap<String, Integer>();
+
+        /** 属性として読み込む項目の、属性名とフィールドの位置 */
+        private final Map<String, Integer> attributes = new HashMap<String, Integer>();
+
+        /** コンテンツの項目が存在するか否か */
+        private final boolean hasContent;
+
+        /**
+         * コンストラクタ。
+         *
+         * @param recordDef レコードタイプ定義
+         */
+        ElementIndex(RecordDefinition recordDef) {
+            boolean content = false;
+            List<FieldDefinition> fields = recordDef.getFields();
+            for (int i = 0; i < fields.size(); i++) {
+                FieldDefinition fieldDef = fields.get(i);
+                String fieldName = fieldDef.getName();
+                if (fieldDef.isFiller()) {
+                    continue;
+                }
+                boolean objectType = isObjectType(fieldDef);
+                if (fieldDef.isAttribute()) {
+                    if (!objectType) {
+                        putIfAbsent(attributes, fieldName, i);
+                    }
+                } else if (fieldName.equals(getContentName())) {
+                    if (objectType) {
+                        putIfAbsent(elements, fieldName, i);
+                    } else if (!fieldDef.isArray()) {
+                        content = true;
+                    }
+                } else {
+                    putIfAbsent(elements, fieldName, i);
+                }
+            }
+            hasContent = content;
+        }
+
+        /**
+         * 名前が索引に存在しない場合のみ、フィールドの位置を追加する。
+         *
+         * @param index 索引
+         * @param name 名前
+         * @param position フィールドの位置
+         */
+        private void putIfAbsent(Map<String, Integer> index, String name, int position) {
+            if (!index.containsKey(name)) {
+                index.put(name, position);
+            }
+        }
+    }
+}
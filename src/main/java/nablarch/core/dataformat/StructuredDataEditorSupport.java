@@ -87,19 +87,60 @@ public abstract class StructuredDataEditorSupport {
      * @return 作成したKey
      */
     protected String buildMapKey(String currentKeyBase, String fieldName) {
-        // Mapに格納する際のKeyを作成
+        return buildMapKeyWithNormalizedName(
+                currentKeyBase, FieldDefinitionUtil.normalizeWithNonWordChar(fieldName));
+    }
 
-        String normalizedField = FieldDefinitionUtil.normalizeWithNonWordChar(fieldName);
+    /**
+     * Mapに格納する際のKeyを作成し、返却します
+     * <p/>
+     * フィールド名称は、フィールド定義が保持する正規化済みの名称を使用します。
+     *
+     * @param currentKeyBase Keyを作成する際のベース文字列(親フィールド名称)
+     * @param fieldDef       作成対象フィールド定義
+     * @return 作成したKey
+     */
+    protected String buildMapKey(String currentKeyBase, FieldDefinition fieldDef) {
+        return buildMapKeyWithNormalizedName(currentKeyBase, fieldDef.getNormalizedName());
+    }
 
+    /**
+     * 正規化済みのフィールド名称から、Mapに格納する際のKeyを作成し、返却します
+     *
+     * @param currentKeyBase  Keyを作成する際のベース文字列(親フィールド名称)
+     * @param normalizedField 正規化済みのフィールド名称
+     * @return 作成したKey
+     */
+    private static String buildMapKeyWithNormalizedName(String currentKeyBase, String normalizedField) {
         if (StringUtil.isNullOrEmpty(currentKeyBase)) {
             return normalizedField;
         }
 
-        String normalizedBase = FieldDefinitionUtil.normalizeWithNonWordChar(currentKeyBase);
+        String normalizedBase = isWordChars(currentKeyBase)
+                // 単語文字のみで構成される場合、正規化は先頭文字を小文字にするだけとなる
+                ? FieldDefinitionUtil.toLowerFirstChar(currentKeyBase)
+                : FieldDefinitionUtil.normalizeWithNonWordChar(currentKeyBase);
         return Builder.concat(
                 normalizedBase, ".", normalizedField);
     }
 
+    /**
+     * 文字列が単語文字（英数字 、"."、"["、"]"、"_"）のみで構成されるかどうかを判定します。
+     *
+     * @param s 対象文字列
+     * @return 単語文字のみで構成される場合はtrue
+     */
+    private static boolean isWordChars(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (!((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                    || c == '.' || c == '[' || c == ']' || c == '_')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * 読み込んだフィールド文字列をコンバータを用いてオブジェクトに変換し、返却する。
      *
@@ -1,6 +1,5 @@
 package nablarch.core.dataformat;
 
-import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.InputStream;
@@ -9,9 +8,13 @@ import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Reader;
 import java.io.Writer;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import nablarch.core.dataformat.convertor.VariableLengthConvertorSetting;
 import nablarch.core.dataformat.convertor.datatype.CharacterStreamDataString;
@@ -106,6 +109,29 @@ public class VariableLengthDataRecordFormatter extends DataRecordFormatterSuppor
 
     /** ロガー **/
     private static final Logger LOGGER = LoggerManager.get(VariableLengthDataRecordFormatter.class);
+
+    /** ASCII文字のみで構成されるバイトデータの変換に使用する文字コード */
+    private static final Charset LATIN1 = Charset.forName("ISO-8859-1");
+
+    /** マルチバイト文字のバイトデータにASCII文字のバイトが現れない文字コード */
+    private static final Set<String> ASCII_TRANSPARENT_ENCODINGS = new HashSet<String>(
+            Arrays.asList("UTF-8", "EUC-JP", "x-eucJP-Open", "US-ASCII"));
+
+    /** マルチバイト文字の2バイト目に0x40以上のASCII文字のバイトが現れる文字コード */
+    private static final Set<String> SHIFT_JIS_ENCODINGS = new HashSet<String>(
+            Arrays.asList("Shift_JIS", "windows-31j"));
+
+    /** ファイル読み込みの際に使用するバッファの初期サイズ（文字数またはバイト数） */
+    private static final int READ_BUFFER_SIZE = 32768;
+
+    /** フィールドの終端：フィールド区切り文字 */
+    private static final int END_OF_FIELD = 0;
+
+    /** フィールドの終端：レコード終端文字列 */
+    private static final int END_OF_RECORD = 1;
+
+    /** フィールドの終端：ファイルの終端 */
+    private static final int END_OF_FILE = 2;
     
     /** コンバータの設定情報保持クラス */
     private VariableLengthConvertorSetting convertorSetting;
@@ -114,7 +140,18 @@ public class VariableLengthDataRecordFormatter extends DataRecordFormatterSuppor
     private InputStream source;
     
     /** ファイル読み込みに使用するリーダ */
-    private BufferedReader reader;
+    private Reader reader;
+
+    /** 読み込んだ文字列をフィールドに分割するトークナイザ */
+    private FieldTokenizer tokenizer;
+
+    /** サブクラスが{@link #readRecordAsString()}をオーバーライドしているかどうか */
+    private final boolean legacyRecordRead = MethodOverrideUtil.isOverridden(
+            getClass(), VariableLengthDataRecordFormatter.class, "readRecordAsString");
+
+    /** サブクラスが{@link #convertToRecord(List, RecordDefinition)}をオーバーライドしているかどうか */
+    private final boolean legacyRecordConversion = MethodOverrideUtil.isOverridden(
+            getClass(), VariableLengthDataRecordFormatter.class, "convertToRecord", List.class, RecordDefinition.class);
     
     /** 出力ストリーム。 */
     private OutputStream dest; 
@@ -128,6 +165,9 @@ public class VariableLengthDataRecordFormatter extends DataRecordFormatterSuppor
     /** 空行の存在を認める */
     private boolean ignoreBlankLines;
 
+    /** 囲み文字で囲む必要があるフィールドのみを囲み文字で囲んで書き込むかどうか */
+    private boolean quoteOnlyWhenNeeded;
+
     /** フィールド終端文字列 */
     private char fieldSeparator;
     
@@ -137,6 +177,12 @@ public class VariableLengthDataRecordFormatter extends DataRecordFormatterSuppor
     /** タイトルのレコードタイプ名（デフォルト値は"Title"） */
     private String titleRecordTypeName = "Title";
 
+    /** 文字列として読み込む必要があるフィールドの位置（全ての位置を読み込む場合はnull） */
+    private boolean[] readPositions;
+
+    /** 文字列として読み込む必要があるフィールドの位置を決定済みかどうか */
+    private boolean readPositionsResolved = false;
+
     /** 読み込みを許容する1行の文字列数（デフォルトは100万文字まで読み込み可能） */
     private Integer maxRecordLength = 1000000;
 
@@ -151,12 +197,12 @@ public class VariableLengthDataRecordFormatter extends DataRecordFormatterSuppor
 
     /** {@inheritDoc} 
      * <p/>
-     * また、入力ストリームをBufferedReaderにラップする処理および、
+     * また、入力ストリームをリーダにラップする処理および、
      * 出力ストリームをBufferedWriterにラップする処理を行う。
      */
     public DataRecordFormatter initialize() {        
         super.initialize();
-        if (source != null && reader == null) {  // reader生成済みの場合は初期化しない
+        if (source != null && tokenizer == null) {  // reader生成済みの場合は初期化しない
             initializeReader();
         } 
         if (dest != null) {
@@ -175,6 +221,7 @@ public class VariableLengthDataRecordFormatter extends DataRecordFormatterSuppor
      * <li>requires-title：Boolean</li>
      * <li>max-record-length：Integer</li>
      * <li>title-record-type-name：String</li>
+     * <li>quote-only-when-needed：Boolean</li>
      * </ul>
      * @author Masato Inoue
      */
@@ -191,6 +238,8 @@ public class VariableLengthDataRecordFormatter extends DataRecordFormatterSuppor
         public static final Directive MAX_RECORD_LENGTH = new Directive("max-record-length", Integer.class);
         /** タイトルのレコードタイプ名 */
         public static final Directive TITLE_RECORD_TYPE_NAME = new Directive("title-record-type-name", String.class);
+        /** 囲み文字で囲む必要があるフィールドのみを囲み文字で囲んで書き込むかどうか */
+        public static final Directive QUOTE_ONLY_WHEN_NEEDED = new Directive("quote-only-when-needed", Boolean.class);
 
         /** 列挙型の全要素(親クラスの要素を含む） */
         public static final Map<String, Directive> VALUES = Directive.createDirectiveMap(
@@ -199,7 +248,8 @@ public class VariableLengthDataRecordFormatter extends DataRecordFormatterSuppor
                 IGNORE_BLANK_LINES,
                 REQUIRES_TITLE,
                 MAX_RECORD_LENGTH,
-                TITLE_RECORD_TYPE_NAME);
+                TITLE_RECORD_TYPE_NAME,
+                QUOTE_ONLY_WHEN_NEEDED);
 
         /**
          * コンストラクタ。
@@ -263,6 +313,15 @@ public class VariableLengthDataRecordFormatter extends DataRecordFormatterSuppor
         public static String getTitleRecordTypeName(Map<String, Object> directive) {
             return (String) directive.get(VariableLengthDirective.TITLE_RECORD_TYPE_NAME.getName());
         }
+
+        /**
+         * 囲み文字で囲む必要があるフィールドのみを囲み文字で囲んで書き込むかどうかの設定を取得する。
+         * @param directive ディレクティブ
+         * @return 囲み文字で囲む必要があるフィールドのみを囲み文字で囲んで書き込むかどうか
+         */
+        public static Boolean getQuoteOnlyWhenNeeded(Map<String, Object> directive) {
+            return (Boolean) directive.get(VariableLengthDirective.QUOTE_ONLY_WHEN_NEEDED.getName());
+        }
         
         /**
          * ディレクティブを取得する。
@@ -333,6 +392,7 @@ public class VariableLengthDataRecordFormatter extends DataRecordFormatterSuppor
      * <li>タイトルのレコードタイプ名</li>
      * <li>読み込みを許容する1行の文字列数</li>
      * <li>タイトルのレコードタイプ名</li>
+     * <li>囲み文字で囲む必要があるフィールドのみを囲み文字で囲んで書き込むかどうか</li>
      * </ul>
      * 
      * @param directive ディレクティブ
@@ -370,6 +430,13 @@ public class VariableLengthDataRecordFormatter extends DataRecordFormatterSuppor
         if (maxRecordLength != null) {
             this.maxRecordLength = maxRecordLength;
         }
+        // 囲み文字で囲む必要があるフィールドのみを囲み文字で囲んで書き込むかどうか
+        Boolean quoteOnlyWhenNeededWrapper = VariableLengthDirective.getQuoteOnlyWhenNeeded(directive);
+        if (quoteOnlyWhenNeededWrapper == null) {
+            quoteOnlyWhenNeeded = false;
+        } else {
+            quoteOnlyWhenNeeded = quoteOnlyWhenNeededWrapper;
+        }
     }
 
     /**
@@ -408,12 +475,77 @@ public class VariableLengthDataRecordFormatter extends DataRecordFormatterSuppor
 
     /** 最初の行のタイトルを読み込んだかどうか */
     private boolean readTitle;
+
+    /** レコードタイプの判定に使用するディスパッチャ */
+    private RecordTypeDispatcher recordTypeDispatcher;
     
     /**{@inheritDoc} */
     @Published(tag = "architect")
     public DataRecord readRecord() throws IOException {
-        
-        if (reader == null) {
+
+        //  1レコード分のデータを分割し、文字列のリストとして取得する
+        List<String> fieldStrList = readFieldStrings();
+        if (fieldStrList == null) {
+            return null;
+        }
+        return convertToRecord(fieldStrList);
+    }
+
+    /**
+     * 読み込んだ1レコード分のフィールド文字列を、データレコードに変換する。
+     *
+     * @param fieldStrList 1レコード分のフィールド文字列のリスト
+     * @return データレコード
+     * @throws IOException 読み込みに伴うIO処理で問題が発生した場合。
+     */
+    DataRecord convertToRecord(List<String> fieldStrList) throws IOException {
+        // requiresTitleがtrueの場合、最初の行はtitleRecordTypeNameに設定されたレコードタイプ名と一致するレコードタイプで読み込む
+        if (requiresTitle && !readTitle) {
+            return convertToTitleRecord(fieldStrList);
+        }
+        RecordDefinition recordDef = resolveRecordType(fieldStrList);
+        DataRecord record = convertToRecord(fieldStrList, recordDef);
+        if (legacyRecordConversion) {
+            removeUnprojectedFields(record, recordDef);
+        }
+        return record;
+    }
+
+    /**
+     * サブクラスが変換したデータレコードから、読み込む対象ではないフィールドを取り除く。
+     * <p/>
+     * サブクラスの変換処理は読み込むフィールドの設定を考慮しないため、
+     * 変換後に取り除くことで、読み込むフィールドのみを格納したデータレコードとする。
+     *
+     * @param record    データレコード
+     * @param recordDef レコード定義情報保持クラス
+     */
+    private void removeUnprojectedFields(DataRecord record, RecordDefinition recordDef) {
+        boolean[] projection = getFieldProjection(recordDef);
+        if (record == null || projection == null) {
+            return;
+        }
+        List<FieldDefinition> fields = recordDef.getFields();
+        for (int i = 0; i < projection.length; i++) {
+            if (!projection[i]) {
+                record.remove(fields.get(i).getName());
+            }
+        }
+    }
+
+    /**
+     * 入力ストリームから1レコード分のデータを読み込み、フィールドごとに分割した文字列のリストとして返却する。
+     * 次に読み込むレコードが存在しない場合はnullを返却する。
+     * <p/>
+     * 返却するリストは、次のレコードを読み込む際に再利用される。
+     * ただし、サブクラスが{@link #readRecordAsString()}をオーバーライドしている場合は、そのメソッドの返却値を返却する。
+     *
+     * @return 1レコード分のフィールド文字列のリスト
+     * @throws IOException 読み込みに伴うIO処理で問題が発生した場合。
+     */
+    List<String> readFieldStrings() throws IOException {
+
+        if (tokenizer == null) {
             throw new IllegalStateException("input stream was not set. input stream must be set before reading.");
         }
 
@@ -424,20 +556,74 @@ public class VariableLengthDataRecordFormatter extends DataRecordFormatterSuppor
 
         incrementRecordNumber(); // レコード番号をインクリメントする
 
-        //  1レコード分のデータを分割し、文字列のリストとして取得する
-        List<String> fieldStrList = readRecordAsString();
-        
-        // requiresTitleがtrueの場合、最初の行はtitleRecordTypeNameに設定されたレコードタイプ名と一致するレコードタイプで読み込む
+        if (legacyRecordRead) {
+            return readRecordAsString();
+        }
+        // タイトル行は全てのフィールドを読み込む
+        return readFields(requiresTitle && !readTitle ? null : getReadPositions());
+    }
+
+    /**
+     * 読み込み済みのデータの、入力ストリームの先頭からのバイト位置を返却する。
+     * <p/>
+     * レコードを読み込んだ直後は、次のレコードの先頭のバイト位置となる。
+     * フィールドの区切りをバイトデータ上で判定できない場合（{@link #isByteParsable()}）は、-1を返却する。
+     *
+     * @return バイト位置
+     */
+    long getReadPosition() {
+        if (tokenizer == null) {
+            throw new IllegalStateException("input stream was not set. input stream must be set before reading.");
+        }
+        return tokenizer.getPosition();
+    }
+
+    /**
+     * 最初の行のタイトルを読み込み済みとする。
+     * <p/>
+     * ファイルの途中から読み込む場合に、最初に読み込むレコードをタイトルとして扱わないために使用する。
+     *
+     * @return このオブジェクト自体
+     */
+    VariableLengthDataRecordFormatter skipTitle() {
+        readTitle = true;
+        return this;
+    }
+
+    /**
+     * 最初の行のタイトルを読み込み済みかどうかを返却する。
+     *
+     * @return タイトルを読み込み済みの場合はtrue
+     */
+    boolean isTitleRead() {
+        return readTitle;
+    }
+
+    /**
+     * フィールド値のクォート処理で使用する文字を返却する。
+     *
+     * @return 囲み文字（囲み文字を使用しない場合はnull）
+     */
+    Character getQuotingDelimiter() {
+        return quotingDelimiter;
+    }
+
+    /**
+     * 読み込んだ1レコード分のフィールド文字列に適用するレコードタイプを判定する。
+     * <p/>
+     * requires-titleディレクティブがtrueで最初の行を読み込んだ場合は、タイトルのレコードタイプを返却する。
+     * また、フィールド数がレコードタイプの定義と一致することを検証する。
+     *
+     * @param fieldStrList 1レコード分のフィールド文字列のリスト
+     * @return 適用するレコードタイプ
+     * @throws IOException 読み込みに伴うIO処理で問題が発生した場合。
+     */
+    RecordDefinition resolveRecordType(List<String> fieldStrList) throws IOException {
         if (requiresTitle && !readTitle) {
-            readTitle = true;
-            RecordDefinition titleRecordDef = getDefinition().getRecordType(titleRecordTypeName);
-            validateFieldLength(fieldStrList, titleRecordDef);
-            DataRecord convertToRecord = convertToRecord(fieldStrList, titleRecordDef);
-            // タイトル固有のレコードタイプに条件が存在する場合、その条件に合致するレコードであることを検証する
-            validateMeetConditions(convertToRecord, titleRecordDef);
-            return convertToRecord;
-        } 
-        
+            convertToTitleRecord(fieldStrList);
+            return getDefinition().getRecordType(titleRecordTypeName);
+        }
+
         // シングルフォーマットの場合
         if (getDefinition().getRecordClassifier() == null) {
             for (RecordDefinition recordDef : getDefinition().getRecords()) {
@@ -446,7 +632,7 @@ public class VariableLengthDataRecordFormatter extends DataRecordFormatterSuppor
                     continue;
                 }
                 validateFieldLength(fieldStrList, recordDef);
-                return convertToRecord(fieldStrList, recordDef);
+                return recordDef;
             }
             // タイトルしか存在しないフォーマットの場合に、最初の行以降の行を読み込もうとした場合、例外をスローする
             throw newInvalidDataFormatException(
@@ -462,23 +648,55 @@ public class VariableLengthDataRecordFormatter extends DataRecordFormatterSuppor
                             fieldStrList.size()));
         }
         
-        for (RecordDefinition recordDef : getDefinition().getRecords()) {
-            if (titleRecordTypeName.equals(recordDef.getTypeName())) {
-                // タイトル固有のレコードタイプに条件が存在し、かつその条件にレコードが合致する場合、例外をスローする。
-                // 最初の行以降の行は、タイトル固有のレコードタイプと一致してはいけない。
-                validateNotMeetTitleConditions(record, recordDef);
-                // タイトル固有のレコードタイプに条件が存在しない場合、または読み込んだレコードがタイトル固有のレコードタイプの条件に合致しない場合、このレコードはタイトルでないと判断し処理をスキップする
-                continue;
-            }            
-            if (recordDef.isApplicableTo(record)) {
-                validateFieldLength(fieldStrList, recordDef);
-                return convertToRecord(fieldStrList, recordDef);
-            }
+        RecordDefinition recordDef = findRecordDefinition(record);
+        if (recordDef != null) {
+            validateFieldLength(fieldStrList, recordDef);
+            return recordDef;
         }
         
         throw newInvalidDataFormatException("an applicable record type was not found. record=[", record, "].");
     }
 
+    /**
+     * 最初の行を、titleRecordTypeNameに設定されたレコードタイプ名と一致するレコードタイプで読み込む。
+     *
+     * @param fieldStrList 1レコード分のフィールド文字列のリスト
+     * @return データレコード
+     * @throws IOException 読み込みに伴うIO処理で問題が発生した場合。
+     */
+    private DataRecord convertToTitleRecord(List<String> fieldStrList) throws IOException {
+        readTitle = true;
+        RecordDefinition titleRecordDef = getDefinition().getRecordType(titleRecordTypeName);
+        validateFieldLength(fieldStrList, titleRecordDef);
+        DataRecord convertToRecord = convertToRecord(fieldStrList, titleRecordDef);
+        // タイトル固有のレコードタイプに条件が存在する場合、その条件に合致するレコードであることを検証する
+        validateMeetConditions(convertToRecord, titleRecordDef);
+        return convertToRecord;
+    }
+
+    /**
+     * マルチフォーマットの場合に、レコードに適用するレコードタイプを判定する。
+     * <p/>
+     * レコードタイプは定義順に判定し、最初に条件を満たしたものを返却する。
+     * タイトル固有のレコードタイプは判定の対象としないが、それより前に条件を満たすレコードタイプが存在しない場合は、
+     * タイトル固有のレコードタイプの条件を満たしていないことを検証する。
+     * @param record 1レコード分のデータをフィールドごとに格納したMap
+     * @return 適用するレコードタイプ（存在しない場合はnull）
+     */
+    private RecordDefinition findRecordDefinition(Map<String, ?> record) {
+        if (recordTypeDispatcher == null) {
+            recordTypeDispatcher = new RecordTypeDispatcher(getDefinition(), titleRecordTypeName);
+        }
+        int index = recordTypeDispatcher.indexOf(record);
+        int titleIndex = recordTypeDispatcher.getExcludedIndex();
+        if (titleIndex != -1 && (index == -1 || titleIndex < index)) {
+            // タイトル固有のレコードタイプに条件が存在し、かつその条件にレコードが合致する場合、例外をスローする。
+            // 最初の行以降の行は、タイトル固有のレコードタイプと一致してはいけない。
+            validateNotMeetTitleConditions(record, getDefinition().getRecords().get(titleIndex));
+        }
+        return index == -1 ? null : getDefinition().getRecords().get(index);
+    }
+
     /**
      * 対象レコードがタイトル固有のレコードタイプが持つ条件を満たしていないことを検証する。
      * @param record 1レコード分のデータをフィールドごとに格納したMap
@@ -531,10 +749,51 @@ public class VariableLengthDataRecordFormatter extends DataRecordFormatterSuppor
     
     /**
      * フォーマット定義ファイルで指定されたエンコーディングで、可変長データを読み込むリーダを生成する。
+     * <p/>
+     * フィールドの区切りをバイトデータ上で判定できる場合（{@link #isByteParsable()}）は、
+     * 入力ストリームを文字に変換せずに読み込み、各フィールドのバイトデータのみを文字列に変換する。
      */
     protected void initializeReader() {
-        this.reader = new BufferedReader(new InputStreamReader(source,
-                getDefaultEncoding()));
+        if (isByteParsable()) {
+            this.tokenizer = new ByteFieldTokenizer(source, getDefaultEncoding());
+        } else {
+            this.reader = new InputStreamReader(source, getDefaultEncoding());
+            this.tokenizer = new CharacterFieldTokenizer(reader);
+        }
+    }
+
+    /**
+     * フィールドの区切りを、文字に変換する前のバイトデータ上で判定できるかどうかを判定する。
+     * <p/>
+     * 以下の条件を全て満たす場合に、バイトデータ上で判定できると判断する。
+     * <ul>
+     * <li>フィールド区切り文字、囲み文字、レコード終端文字列が全てASCII文字であること</li>
+     * <li>文字コードがASCII互換であり、マルチバイト文字のバイトデータにASCII文字のバイトが現れないこと
+     * （UTF-8、EUC-JP、US-ASCII、ISO-8859-x。Shift_JIS、Windows-31Jは、2バイト目に現れない0x40未満の文字のみ）</li>
+     * </ul>
+     *
+     * @return バイトデータ上で判定できる場合はtrue
+     */
+    boolean isByteParsable() {
+        String name = getDefaultEncoding().name();
+        int maxDelimiter;
+        if (ASCII_TRANSPARENT_ENCODINGS.contains(name) || name.startsWith("ISO-8859-")) {
+            maxDelimiter = 0x7F;
+        } else if (SHIFT_JIS_ENCODINGS.contains(name)) {
+            maxDelimiter = 0x3F;
+        } else {
+            return false;
+        }
+        if (fieldSeparator > maxDelimiter || (quotingDelimiter != null && quotingDelimiter > maxDelimiter)) {
+            return false;
+        }
+        String recordSeparator = getRecordSeparator();
+        for (int i = 0; i < recordSeparator.length(); i++) {
+            if (recordSeparator.charAt(i) > maxDelimiter) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
@@ -547,13 +806,22 @@ public class VariableLengthDataRecordFormatter extends DataRecordFormatterSuppor
     @Published(tag = "architect")
     protected DataRecord convertToRecord(List<String> fieldStrList, RecordDefinition recordDef)
             throws IOException {
+        if (isLazyDecoding()) {
+            return convertToLazyRecord(fieldStrList, recordDef);
+        }
         DataRecord record = new DataRecord().setRecordType(recordDef
                 .getTypeName());
-        record.setRecordNumber(getRecordNumber()); // データレコードにレコード番号を設定する
-        for (FieldDefinition field : recordDef.getFields()) {
+        record.setRecordNumber(getRecordNumberAsLong()); // データレコードにレコード番号を設定する
+        boolean[] projection = getFieldProjection(recordDef);
+        List<FieldDefinition> fields = recordDef.getFields();
+        for (int i = 0; i < fields.size(); i++) {
+            FieldDefinition field = fields.get(i);
             if (fieldStrList.size() < field.getPosition()) { 
                 break;
             }
+            if (projection != null && !projection[i]) {
+                continue;
+            }
             Object value = convertToField(fieldStrList.get(field.getPosition() - 1), field);
             String name = field.getName();
             if (!field.isFiller()) {
@@ -563,6 +831,158 @@ public class VariableLengthDataRecordFormatter extends DataRecordFormatterSuppor
         return record;
     }   
 
+    /**
+     * 読み込んだ1レコード分の文字列を、フィールドの変換を遅延するデータレコードに変換する。
+     * <p/>
+     * 各フィールドは、値が最初に参照された時点で{@link #convertToField(String, FieldDefinition)}により変換する。
+     * フィラー項目は参照されることがないため、変換しない。
+     *
+     * @param fieldStrList 読み込んだフィールド文字列のリスト
+     * @param recordDef レコード定義情報保持クラス
+     * @return データレコード
+     */
+    private DataRecord convertToLazyRecord(List<String> fieldStrList, RecordDefinition recordDef) {
+        DataRecord record = new DataRecord(new DeferredValueMap()).setRecordType(recordDef
+                .getTypeName());
+        record.setRecordNumber(getRecordNumberAsLong());
+        boolean[] projection = getFieldProjection(recordDef);
+        List<FieldDefinition> fields = recordDef.getFields();
+        for (int i = 0; i < fields.size(); i++) {
+            FieldDefinition field = fields.get(i);
+            if (fieldStrList.size() < field.getPosition()) {
+                break;
+            }
+            if (projection != null && !projection[i]) {
+                continue;
+            }
+            if (!field.isFiller()) {
+                record.putDeferredValue(field.getName(),
+                        new LazyField(fieldStrList.get(field.getPosition() - 1), field, getRecordNumberAsLong()));
+            }
+        }
+        return record;
+    }
+
+    /**
+     * レコードタイプのフィールドごとに、読み込む対象かどうかを取得する。
+     * <p/>
+     * 識別項目（Classifier）およびタイトルのレコードタイプは、レコードタイプの判定や条件の検証に使用するため、
+     * 全てのフィールドを読み込む。
+     *
+     * @param recordDef レコード定義情報保持クラス
+     * @return フィールドごとに読み込む対象かどうかを格納した配列（全てのフィールドを読み込む場合はnull）
+     */
+    private boolean[] getFieldProjection(RecordDefinition recordDef) {
+        if (recordDef == getDefinition().getRecordClassifier()
+                || (requiresTitle && titleRecordTypeName.equals(recordDef.getTypeName()))) {
+            return null;
+        }
+        return getProjection(recordDef);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public DataRecordFormatterSupport setProjectedFields(Set<String> projectedFields) {
+        super.setProjectedFields(projectedFields);
+        readPositions = null;
+        readPositionsResolved = false;
+        return this;
+    }
+
+    /**
+     * 文字列として読み込む必要があるフィールドの位置を取得する。
+     * <p/>
+     * いずれかのレコードタイプで読み込む対象となるフィールドと、識別項目のフィールドの位置を、読み込む必要がある位置とする。
+     * サブクラスが{@link #convertToRecord(List, RecordDefinition)}をオーバーライドしている場合は、全ての位置を読み込む。
+     *
+     * @return 位置（1始まり）から1を引いた添字に、読み込む必要がある場合はtrueを格納した配列（全ての位置を読み込む場合はnull）
+     */
+    private boolean[] getReadPositions() {
+        if (readPositionsResolved) {
+            return readPositions;
+        }
+        if (legacyRecordConversion) {
+            // サブクラスの変換処理には、全てのフィールド文字列を渡す
+            readPositionsResolved = true;
+            return null;
+        }
+        List<FieldDefinition> fields = new ArrayList<FieldDefinition>();
+        boolean projected = false;
+        for (RecordDefinition recordDef : getDefinition().getRecords()) {
+            boolean[] projection = getFieldProjection(recordDef);
+            if (projection == null) {
+                if (!(requiresTitle && titleRecordTypeName.equals(recordDef.getTypeName()))) {
+                    // 読み込むフィールドが設定されていない
+                    fields = null;
+                    break;
+                }
+                continue;
+            }
+            projected = true;
+            for (int i = 0; i < projection.length; i++) {
+                if (projection[i]) {
+                    fields.add(recordDef.getFields().get(i));
+                }
+            }
+        }
+        if (fields != null && projected) {
+            if (getDefinition().getRecordClassifier() != null) {
+                fields.addAll(getDefinition().getRecordClassifier().getFields());
+            }
+            int maxPosition = 0;
+            for (FieldDefinition field : fields) {
+                maxPosition = Math.max(maxPosition, field.getPosition());
+            }
+            readPositions = new boolean[maxPosition];
+            for (FieldDefinition field : fields) {
+                readPositions[field.getPosition() - 1] = true;
+            }
+        }
+        readPositionsResolved = true;
+        return readPositions;
+    }
+
+    /**
+     * 値が最初に参照された時点で、フィールド文字列を変換する値。
+     * <p/>
+     * 変換エラーが発生した場合は、フォーマッタの現在のレコード番号ではなく、
+     * レコードを読み込んだ時点のレコード番号を例外に設定する。
+     */
+    private final class LazyField extends DeferredValueMap.DeferredValue {
+
+        /** 読み込んだフィールド文字列 */
+        private final String fieldStr;
+
+        /** フィールド定義情報保持クラス */
+        private final FieldDefinition field;
+
+        /** レコードを読み込んだ時点のレコード番号 */
+        private final long recordNumber;
+
+        /**
+         * コンストラクタ。
+         *
+         * @param fieldStr     読み込んだフィールド文字列
+         * @param field        フィールド定義情報保持クラス
+         * @param recordNumber レコードを読み込んだ時点のレコード番号
+         */
+        LazyField(String fieldStr, FieldDefinition field, long recordNumber) {
+            this.fieldStr = fieldStr;
+            this.field = field;
+            this.recordNumber = recordNumber;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        Object resolve() {
+            try {
+                return convertToField(fieldStr, field);
+            } catch (InvalidDataFormatException e) {
+                throw e.setRecordNumber(recordNumber);
+            }
+        }
+    }
+
     /**
      * 読み込んだフィールド文字列をコンバータを用いてオブジェクトに変換し、返却する。
      * @param fieldStr 読み込んだフィールド文字列
@@ -585,7 +1005,7 @@ public class VariableLengthDataRecordFormatter extends DataRecordFormatterSuppor
             }
         } catch (InvalidDataFormatException e) {
             // コンバータで発生した例外に対して、レコード番号とフィールド名の情報を付与する
-            throw e.setRecordNumber(getRecordNumber()).setFieldName(field.getName());
+            throw e.setRecordNumber(getRecordNumberAsLong()).setFieldName(field.getName());
         }
         return value;
     }
@@ -638,18 +1058,10 @@ public class VariableLengthDataRecordFormatter extends DataRecordFormatterSuppor
         }
         
         // マルチフォーマットの場合
-        for (RecordDefinition recordDef : getDefinition().getRecords()) {
-            if (titleRecordTypeName.equals(recordDef.getTypeName())) {
-                // タイトル固有のレコードタイプに条件が存在し、かつその条件にレコードが合致する場合、例外をスローする。
-                // 最初の行以降の行は、タイトル固有のレコードタイプと一致してはいけない。
-                validateNotMeetTitleConditions(record, recordDef);
-                // タイトル固有のレコードタイプに条件が存在しない場合、または読み込んだレコードがタイトル固有のレコードタイプの条件に合致しない場合、このレコードはタイトルでないと判断し処理をスキップする
-                continue;
-            }
-            if (recordDef.isApplicableTo(record)) {
-                writeRecord(record, recordDef);
-                return;
-            }
+        RecordDefinition recordDef = findRecordDefinition(record);
+        if (recordDef != null) {
+            writeRecord(record, recordDef);
+            return;
         }
         
         throw newInvalidDataFormatException(
@@ -741,6 +1153,10 @@ public class VariableLengthDataRecordFormatter extends DataRecordFormatterSuppor
 
     /**
      * コンバータによる変換を行ったフィールドの内容を、出力ストリームへ書き込む。
+     * <p/>
+     * 囲み文字が設定されている場合は、フィールドの内容を囲み文字で囲み、内容に含まれる囲み文字をエスケープして書き込む。
+     * quote-only-when-neededディレクティブがtrueの場合は、
+     * 囲み文字で囲む必要があるフィールド（{@link #requiresQuoting(String)}）のみを囲み文字で囲む。
      * @param record 出力するレコードの内容を格納したMap
      * @param field  フィールド定義情報保持クラス
      * @throws IOException 書き込みに伴うIO処理で問題が発生した場合
@@ -768,28 +1184,47 @@ public class VariableLengthDataRecordFormatter extends DataRecordFormatterSuppor
             throw e.setFieldName(field.getName());
         }
 
-        Character quote = quotingDelimiter;
-        if (quote == null) {
+        if (quotingDelimiter == null || (quoteOnlyWhenNeeded && !requiresQuoting(outData))) {
             writer.write(outData);
             return;
         }
-        
-        StringBuilder builder = new StringBuilder();
-        builder.append(quote);
-        
-        // 囲み文字をエスケープする（二重にする）
+
+        char quote = quotingDelimiter;
+        writer.write(quote);
+
+        // 囲み文字をエスケープする（二重にする）。文字列を組み立てずに、ライタへ直接書き込む
         int pos = outData.indexOf(quote);
         int startPos = 0;
         while (pos != -1) {
-            builder.append(outData.substring(startPos, pos + 1));
-            builder.append(quote);
+            writer.write(outData, startPos, pos + 1 - startPos);
+            writer.write(quote);
             startPos = pos + 1;
             pos = outData.indexOf(quote, startPos);
         }
-        builder.append(outData.substring(startPos));
-        
-        builder.append(quote);
-        writer.write(builder.toString());
+        writer.write(outData, startPos, outData.length() - startPos);
+
+        writer.write(quote);
+    }
+
+    /**
+     * フィールドの内容を、囲み文字で囲んで書き込む必要があるかどうかを判定する。
+     * <p/>
+     * フィールドの内容に、フィールド区切り文字、囲み文字、レコード終端文字列を構成する文字、
+     * または改行文字（CR、LF）のいずれかが含まれる場合に、囲み文字で囲む必要があると判定する。
+     *
+     * @param outData フィールドの内容
+     * @return 囲み文字で囲む必要がある場合はtrue
+     */
+    protected boolean requiresQuoting(String outData) {
+        String recordSeparator = getRecordSeparator();
+        for (int i = 0; i < outData.length(); i++) {
+            char c = outData.charAt(i);
+            if (c == fieldSeparator || c == quotingDelimiter || c == '\r' || c == '\n'
+                    || recordSeparator.indexOf(c) != -1) {
+                return true;
+            }
+        }
+        return false;
     }
     
     /** 読み込んだ1行の文字数 */
@@ -797,81 +1232,29 @@ public class VariableLengthDataRecordFormatter extends DataRecordFormatterSuppor
     
     /**
      * 入力ストリームから、1行分のレコードに存在するフィールドを、囲み文字などを取り除いた文字列のリストとして読み込む。
+     * <p/>
+     * 全てのフィールドを読み込み、レコードごとに新しいリストを返却する。
      * @return 1行分のレコードを変換した文字列のリスト
      * @throws IOException 読み込みに伴うIO処理で問題が発生した場合。
      */
     @Published(tag = "architect")
     protected List<String> readRecordAsString()
             throws IOException {
-        
-        readRecordSize = 0;
-        
-        List<String> fieldStrList = new ArrayList<String>();
-
-        boolean readEnd = false;
-        
-        // フィールド区切り文字をCharacter型として取得
-        while (true) {
-            boolean quoted = false;
-            boolean closedQuote = false;
-            StringBuilder buff = new StringBuilder();
-            String endSeparator = null;
+        return new ArrayList<String>(readFields(null));
+    }
 
-            int read;
-            while ((read = reader.read()) != -1) {
-                checkRecordSize();
-                if (quotingDelimiter != null && buff.length() == 1) {
-                    if (quotingDelimiter.equals(buff.charAt(0))) {
-                        quoted = true;
-                    }
-                }
-                buff.append((char) read);
-
-                if (quoted) {  // 囲み文字で囲まれたフィールドの場合
-                    if (endsWithChar(quotingDelimiter, buff)) {
-                        if (consumeQuoteIfExists(reader, quotingDelimiter)) {
-                            buff.append(quotingDelimiter);
-                            continue;
-                        }
-                        endSeparator = consumeSeparator(reader, fieldSeparator, getRecordSeparator());
-                        closedQuote = true;
-                        if (endSeparator == null) {
-                            readEnd = true; // もしセパレータの先読み段階でファイルの終端に到達した場合は、readEndフラグにtrueを設定する
-                        }
-                        readRecordSize += 1; // 読み込んだ文字数をインクリメントする
-                        break;
-                    }
-                } else { // 囲み文字で囲まれていないフィールドの場合
-                    if (endsWithChar(fieldSeparator, buff)) {
-                        endSeparator = String.valueOf(fieldSeparator);
-                        break;
-                    }
-                    if (endsWithString(getRecordSeparator(), buff)) {
-                        endSeparator = getRecordSeparator();
-                        break;
-                    }
-                }
-            }
-            // ダブルクォートが閉じられていなかったら、例外をスローする
-            if (quoted && !closedQuote) {
-                throw newInvalidDataFormatException("Unclosed quotation.");
-            }
-            // 先頭がダブルクォートの場合はバッファから1文字削除する
-            if (quoted) {
-                buff.deleteCharAt(0);
-            }
-            
-            // レコードの終端に到達するまで、フィールド文字列のリストに追加
-            fieldStrList.add(buff.toString());
-            
-            // 以下の条件に合致した場合、フィールド文字列のリストを返却する
-            //  ・囲み文字の処理で、セパレータを先読みした段階でファイル終端に到達した場合
-            //  ・ファイルの終端に到達した場合
-            //  ・レコード終端文字列に到達した場合
-            if (read == -1 || readEnd || getRecordSeparator().equals(endSeparator)) {
-                return fieldStrList;
-            }
-        }
+    /**
+     * 入力ストリームから、1行分のレコードに存在するフィールドを、囲み文字などを取り除いた文字列のリストとして読み込む。
+     * <p/>
+     * 返却するリストは、次のレコードを読み込む際に再利用される。
+     *
+     * @param positions 文字列として読み込む必要があるフィールドの位置（全ての位置を読み込む場合はnull）
+     * @return 1行分のレコードを変換した文字列のリスト
+     * @throws IOException 読み込みに伴うIO処理で問題が発生した場合。
+     */
+    private List<String> readFields(boolean[] positions) throws IOException {
+        readRecordSize = 0;
+        return tokenizer.readRecord(positions);
     }
 
     /**
@@ -893,7 +1276,10 @@ public class VariableLengthDataRecordFormatter extends DataRecordFormatterSuppor
      * @param quote 囲み文字
      * @return 後続の記号が囲み文字であればtrue
      * @throws IOException IOエラー
+     * @deprecated 読み込み処理はバッファ上でフィールドの区切りを判定するため、本メソッドは呼び出されない。
+     *             本メソッドをオーバーライドしても、読み込み処理には反映されない。
      */
+    @Deprecated
     protected boolean consumeQuoteIfExists(Reader in, char quote) throws IOException {
         in.mark(1);
         int read = in.read();
@@ -913,7 +1299,10 @@ public class VariableLengthDataRecordFormatter extends DataRecordFormatterSuppor
      * @param fieldSeparator フィールド区切り文字
      * @return 読み込んだ文字列
      * @throws IOException IOエラー
+     * @deprecated 読み込み処理はバッファ上でフィールドの区切りを判定するため、本メソッドは呼び出されない。
+     *             本メソッドをオーバーライドしても、読み込み処理には反映されない。
      */
+    @Deprecated
     protected String consumeSeparator(Reader in, Character fieldSeparator, String recordSeparator) throws IOException {
 
         in.mark(recordSeparator.length()); // 可変長なレコード終端文字列の長さの分だけ読み込む
@@ -945,7 +1334,10 @@ public class VariableLengthDataRecordFormatter extends DataRecordFormatterSuppor
      * @param str  終了条件の文字列
      * @param buff バッファ
      * @return バッファの末尾が指定した文字列で終了しているのであればtrue
+     * @deprecated 読み込み処理はバッファ上でフィールドの区切りを判定するため、本メソッドは呼び出されない。
+     *             本メソッドをオーバーライドしても、読み込み処理には反映されない。
      */
+    @Deprecated
     protected boolean endsWithString(String str, StringBuilder buff) {
         if (buff.length() < str.length()) {
             return false;
@@ -963,7 +1355,10 @@ public class VariableLengthDataRecordFormatter extends DataRecordFormatterSuppor
      * @param character １文字
      * @param buff バッファ
      * @return バッファの末尾が指定した１文字で終了しているのであればtrue
+     * @deprecated 読み込み処理はバッファ上でフィールドの区切りを判定するため、本メソッドは呼び出されない。
+     *             本メソッドをオーバーライドしても、読み込み処理には反映されない。
      */
+    @Deprecated
     protected boolean endsWithChar(Character character, StringBuilder buff) {
         if (character == buff.charAt(buff.length() - 1)) {
             buff.deleteCharAt(buff.length() - 1);
@@ -977,10 +1372,10 @@ public class VariableLengthDataRecordFormatter extends DataRecordFormatterSuppor
      * 空行の存在を無視する設定の場合、ファイル末尾に空行が存在しても、次に読み込む行がないと判定する。
      */
     public boolean hasNext() throws IOException {
-        if (reader == null && source == null) {
+        if (tokenizer == null && source == null) {
             return false;
         }
-        if (reader != null) {
+        if (tokenizer != null) {
             return hasNextIgnoreBlankLines();
         } else {
             source.mark(1);
@@ -999,25 +1394,16 @@ public class VariableLengthDataRecordFormatter extends DataRecordFormatterSuppor
     @Published(tag = "architect")
     protected boolean hasNextIgnoreBlankLines() throws IOException {
         String recordSeparator = getRecordSeparator();
-        int tmpRecordNumber = getRecordNumber(); // ファイル末尾の空行の場合、レコード番号のインクリメントを取り消す必要があるので、一時的にレコード番号を保存しておく
+        long tmpRecordNumber = getRecordNumberAsLong(); // ファイル末尾の空行の場合、レコード番号のインクリメントを取り消す必要があるので、一時的にレコード番号を保存しておく
         while (true) {
-            reader.mark(1);
-            int readByte = reader.read();
-            if (readByte == -1) {
+            if (!tokenizer.hasRemaining()) {
                 setRecordNumber(tmpRecordNumber); // ファイル末尾の空行の場合、レコード番号のインクリメントを取り消す（ファイル末尾の改行はカウントしない）
                 return false;
             }
-            reader.reset();
             //空レコード読み飛ばし
-            if (ignoreBlankLines) {
-                reader.mark(recordSeparator.length());
-                char[] cbuf = new char[recordSeparator.length()];
-                reader.read(cbuf); // 読み込めたサイズがレコード区切り文字の長さに満たない場合は、ストリームのリセットを行う。実際に何バイトのデータが読み込めたかどうかを確認する必要はないので、readメソッドの戻り値の確認は行わない
-                if (recordSeparator.equals(new String(cbuf))) {
-                    incrementRecordNumber(); // レコード番号をインクリメントする
-                    continue;
-                }
-                reader.reset();
+            if (ignoreBlankLines && tokenizer.skipIfStartsWith(recordSeparator)) {
+                incrementRecordNumber(); // レコード番号をインクリメントする
+                continue;
             }
             return true;
         }
@@ -1030,6 +1416,7 @@ public class VariableLengthDataRecordFormatter extends DataRecordFormatterSuppor
      * および内部でそれらをラップする{@link Reader}、{@link Writer}のストリームをクローズする。
      */
     public void close() {
+        tokenizer = null;
         if (reader != null) {
             try {
                 reader.close();
@@ -1082,4 +1469,734 @@ public class VariableLengthDataRecordFormatter extends DataRecordFormatterSuppor
         datatype.setConvertEmptyToNull(convertorSetting.isConvertEmptyToNull());
         return this;
     }
+
+    /**
+     * 読み込んだデータを、フィールドごとに分割するトークナイザ。
+     * <p/>
+     * 入力を大きな配列（ウィンドウ）に読み込み、ウィンドウを走査してフィールドの区切りを判定する。
+     * フィールドの文字列は、フィールドの終端に到達した時点でウィンドウから直接生成する。
+     * <p/>
+     * 囲み文字、エスケープ、読み込みを許容する1行の文字数の扱いは、1文字ずつ読み込む従来の実装と同じである。
+     */
+    private abstract class FieldTokenizer {
+
+        /** 1レコード分のフィールド文字列のリスト（レコードごとに再利用する） */
+        private final List<String> fields = new ArrayList<String>();
+
+        /** エスケープされた囲み文字を含むフィールドの文字列を組み立てるバッファ */
+        protected final StringBuilder escaped = new StringBuilder();
+
+        /** 直前に読み込んだフィールドの終端の種類 */
+        protected int end;
+
+        /** 囲み文字（囲み文字を使用しない場合は-1） */
+        protected int quote;
+
+        /** レコード終端文字列 */
+        private String recordSeparatorStr;
+
+        /** レコード終端文字列の文字の配列 */
+        protected char[] recordSeparator;
+
+        /** レコード終端文字列の最後の文字 */
+        protected char recordSeparatorLast;
+
+        /** 囲み文字で囲まれていないフィールドで、区切りの判定が必要となる最大の文字 */
+        protected char maxDelimiter;
+
+        /**
+         * 1レコード分のフィールド文字列を読み込む。
+         *
+         * @param positions 文字列として読み込む必要があるフィールドの位置（全ての位置を読み込む場合はnull）
+         * @return 1レコード分のフィールド文字列のリスト
+         * @throws IOException 読み込みに伴うIO処理で問題が発生した場合。
+         */
+        List<String> readRecord(boolean[] positions) throws IOException {
+            configure();
+            startRecord();
+            fields.clear();
+            while (true) {
+                int index = fields.size();
+                boolean skip = positions != null && (index >= positions.length || !positions[index]);
+                // 読み込む必要がないフィールドは、文字列を生成せずに読み飛ばす
+                fields.add(readField(skip));
+                if (end != END_OF_FIELD) {
+                    return fields;
+                }
+            }
+        }
+
+        /**
+         * 区切り文字の判定に使用する設定を、フォーマッタの設定から取得する。
+         */
+        private void configure() {
+            quote = quotingDelimiter == null ? -1 : quotingDelimiter;
+            String separator = getRecordSeparator();
+            if (!separator.equals(recordSeparatorStr)) {
+                recordSeparatorStr = separator;
+                recordSeparator = separator.toCharArray();
+                recordSeparatorLast = recordSeparator[recordSeparator.length - 1];
+            }
+            maxDelimiter = (char) Math.max(fieldSeparator, recordSeparatorLast);
+        }
+
+        /**
+         * 終了の囲み文字の後に、不正な区切り文字が存在した場合の例外を生成する。
+         *
+         * @param separator 読み込んだ区切り文字（レコード終端文字列の長さ分）
+         * @return 例外
+         */
+        protected InvalidDataFormatException newWrongSeparatorException(char[] separator) {
+            return newInvalidDataFormatException(
+                    "the field value was delimited by a wrong separator. : ",
+                    new String(separator), ".");
+        }
+
+        /**
+         * レコードの読み込みを開始する。
+         */
+        protected void startRecord() {
+        }
+
+        /**
+         * 1フィールド分の文字列を読み込む。
+         *
+         * @param skip 文字列を生成しない場合はtrue
+         * @return フィールドの文字列（文字列を生成しない場合はnull）
+         * @throws IOException 読み込みに伴うIO処理で問題が発生した場合。
+         */
+        protected abstract String readField(boolean skip) throws IOException;
+
+        /**
+         * 次に読み込むデータが存在するかどうかを判定する。
+         *
+         * @return 次に読み込むデータが存在する場合はtrue
+         * @throws IOException 読み込みに伴うIO処理で問題が発生した場合。
+         */
+        abstract boolean hasRemaining() throws IOException;
+
+        /**
+         * 次に読み込む文字列が指定した文字列と一致する場合、その文字列を読み飛ばす。
+         *
+         * @param str 文字列
+         * @return 文字列を読み飛ばした場合はtrue
+         * @throws IOException 読み込みに伴うIO処理で問題が発生した場合。
+         */
+        abstract boolean skipIfStartsWith(String str) throws IOException;
+
+        /**
+         * 読み込み済みのデータの、入力ストリームの先頭からのバイト位置を返却する。
+         *
+         * @return バイト位置（バイト位置を特定できない場合は-1）
+         */
+        long getPosition() {
+            return -1;
+        }
+    }
+
+    /**
+     * 文字の配列をウィンドウとして、読み込んだ文字列をフィールドごとに分割するトークナイザ。
+     * <p/>
+     * フィールドがウィンドウの終端をまたぐ場合は、フィールドの先頭以降をウィンドウの先頭に移動したうえで、
+     * 後続の文字を読み込む（フィールドがウィンドウに収まらない場合は、ウィンドウを拡張する）。
+     */
+    private final class CharacterFieldTokenizer extends FieldTokenizer {
+
+        /** リーダ */
+        private final Reader in;
+
+        /** ウィンドウ */
+        private char[] buff = new char[READ_BUFFER_SIZE];
+
+        /** 次に読み込む文字の位置 */
+        private int pos = 0;
+
+        /** ウィンドウに読み込み済みの文字の終端 */
+        private int limit = 0;
+
+        /** 読み込み中のフィールドの先頭の位置（ウィンドウの移動時に保持する範囲の先頭） */
+        private int fieldStart = 0;
+
+        /**
+         * コンストラクタ。
+         * @param in リーダ
+         */
+        CharacterFieldTokenizer(Reader in) {
+            this.in = in;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        protected String readField(boolean skip) throws IOException {
+            fieldStart = pos;
+            if (!ensure(1)) {
+                end = END_OF_FILE;
+                return skip ? null : "";
+            }
+            char first = buff[pos++];
+            checkRecordSize();
+            if (first == fieldSeparator) {
+                end = END_OF_FIELD;
+                return skip ? null : "";
+            }
+            if (recordSeparator.length == 1 && first == recordSeparatorLast) {
+                end = END_OF_RECORD;
+                return skip ? null : "";
+            }
+            if (first == quote) {
+                // 囲み文字のみでファイルの終端に到達した場合は、囲み文字を値として扱う
+                if (!ensure(1)) {
+                    end = END_OF_FILE;
+                    return skip ? null : String.valueOf(first);
+                }
+                return readQuotedField(skip);
+            }
+            return readUnquotedField(skip);
+        }
+
+        /**
+         * 囲み文字で囲まれていないフィールドの、2文字目以降を読み込む。
+         *
+         * @param skip 文字列を生成しない場合はtrue
+         * @return フィールドの文字列（文字列を生成しない場合はnull）
+         * @throws IOException 読み込みに伴うIO処理で問題が発生した場合。
+         */
+        private String readUnquotedField(boolean skip) throws IOException {
+            while (true) {
+                if (pos == limit && !fill()) {
+                    end = END_OF_FILE;
+                    return skip ? null : new String(buff, fieldStart, pos - fieldStart);
+                }
+                char c = buff[pos++];
+                checkRecordSize();
+                if (c > maxDelimiter) {
+                    continue;
+                }
+                if (c == fieldSeparator) {
+                    end = END_OF_FIELD;
+                    return skip ? null : new String(buff, fieldStart, pos - 1 - fieldStart);
+                }
+                if (c == recordSeparatorLast && endsWithRecordSeparator()) {
+                    end = END_OF_RECORD;
+                    return skip ? null : new String(buff, fieldStart, pos - recordSeparator.length - fieldStart);
+                }
+            }
+        }
+
+        /**
+         * 囲み文字で囲まれたフィールドの、開始の囲み文字以降を読み込む。
+         *
+         * @param skip 文字列を生成しない場合はtrue
+         * @return フィールドの文字列（文字列を生成しない場合はnull）
+         * @throws IOException 読み込みに伴うIO処理で問題が発生した場合。
+         */
+        private String readQuotedField(boolean skip) throws IOException {
+            fieldStart = pos;
+            escaped.setLength(0);
+            while (true) {
+                if (pos == limit && !fill()) {
+                    throw newInvalidDataFormatException("Unclosed quotation.");
+                }
+                char c = buff[pos++];
+                checkRecordSize();
+                if (c != quote) {
+                    continue;
+                }
+                if (ensure(1) && buff[pos] == quote) {
+                    // エスケープされた囲み文字は、1文字の囲み文字として扱う
+                    pos++;
+                    checkRecordSize();
+                    if (!skip) {
+                        escaped.append(buff, fieldStart, pos - 1 - fieldStart);
+                    }
+                    fieldStart = pos;
+                    continue;
+                }
+                String value = null;
+                if (!skip) {
+                    value = escaped.length() == 0
+                            ? new String(buff, fieldStart, pos - 1 - fieldStart)
+                            : escaped.append(buff, fieldStart, pos - 1 - fieldStart).toString();
+                }
+                consumeSeparator();
+                readRecordSize += 1; // 読み込んだ文字数をインクリメントする
+                return value;
+            }
+        }
+
+        /**
+         * 終了の囲み文字の後に続く、フィールド区切り文字またはレコード終端文字列を読み込む。
+         *
+         * @throws IOException 読み込みに伴うIO処理で問題が発生した場合。
+         */
+        private void consumeSeparator() throws IOException {
+            int length = recordSeparator.length;
+            ensure(length);
+            int available = Math.min(length, limit - pos);
+            if (available == 0) {
+                end = END_OF_FILE;
+            } else if (available == length && startsWith(recordSeparator)) {
+                pos += length;
+                checkRecordSize();
+                end = END_OF_RECORD;
+            } else if (buff[pos] == fieldSeparator) {
+                pos++;
+                end = END_OF_FIELD;
+            } else {
+                char[] cbuf = new char[length];
+                System.arraycopy(buff, pos, cbuf, 0, available);
+                throw newWrongSeparatorException(cbuf);
+            }
+        }
+
+        /**
+         * 読み込み中のフィールドが、レコード終端文字列で終わっているかどうかを判定する。
+         * @return レコード終端文字列で終わっている場合はtrue
+         */
+        private boolean endsWithRecordSeparator() {
+            int length = recordSeparator.length;
+            if (pos - fieldStart < length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (buff[pos - length + i] != recordSeparator[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * 次に読み込む文字が、指定した文字の配列で始まっているかどうかを判定する。
+         * 呼び出し元で、文字の配列の長さ分の文字が読み込み済みであることを保証すること。
+         *
+         * @param chars 文字の配列
+         * @return 指定した文字の配列で始まっている場合はtrue
+         */
+        private boolean startsWith(char[] chars) {
+            for (int i = 0; i < chars.length; i++) {
+                if (buff[pos + i] != chars[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        boolean hasRemaining() throws IOException {
+            fieldStart = pos;
+            return ensure(1);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        boolean skipIfStartsWith(String str) throws IOException {
+            fieldStart = pos;
+            if (!ensure(str.length())) {
+                return false;
+            }
+            for (int i = 0; i < str.length(); i++) {
+                if (buff[pos + i] != str.charAt(i)) {
+                    return false;
+                }
+            }
+            pos += str.length();
+            return true;
+        }
+
+        /**
+         * 指定した文字数が読み込み済みとなるまで、ウィンドウに文字を読み込む。
+         *
+         * @param length 文字数
+         * @return 指定した文字数が読み込み済みの場合はtrue（ファイルの終端に到達した場合はfalse）
+         * @throws IOException 読み込みに伴うIO処理で問題が発生した場合。
+         */
+        private boolean ensure(int length) throws IOException {
+            while (limit - pos < length) {
+                if (!fill()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * ウィンドウに後続の文字を読み込む。
+         * <p/>
+         * 読み込み中のフィールドの先頭以降の文字はウィンドウの先頭に移動し、
+         * ウィンドウに空きがない場合はウィンドウを拡張する。
+         *
+         * @return 文字を読み込んだ場合はtrue（ファイルの終端に到達した場合はfalse）
+         * @throws IOException 読み込みに伴うIO処理で問題が発生した場合。
+         */
+        private boolean fill() throws IOException {
+            if (fieldStart > 0) {
+                System.arraycopy(buff, fieldStart, buff, 0, limit - fieldStart);
+                pos -= fieldStart;
+                limit -= fieldStart;
+                fieldStart = 0;
+            } else if (limit == buff.length) {
+                buff = Arrays.copyOf(buff, buff.length * 2);
+            }
+            int read = in.read(buff, limit, buff.length - limit);
+            if (read == -1) {
+                return false;
+            }
+            limit += read;
+            return true;
+        }
+    }
+
+    /**
+     * バイトの配列をウィンドウとして、読み込んだバイトデータをフィールドごとに分割するトークナイザ。
+     * <p/>
+     * フィールド区切り文字、囲み文字、レコード終端文字列が全てASCII文字であり、
+     * 文字コードのマルチバイト文字にこれらのバイトが現れない場合に使用する。
+     * フィールドの区切りはバイトデータ上で判定し、各フィールドのバイトデータのみを文字列に変換する。
+     * ASCII文字のみで構成されるフィールドは、ISO-8859-1として変換する。
+     * <p/>
+     * 読み込みを許容する1行の文字数の判定のため、読み込み中のレコードの先頭以降のバイトデータをウィンドウに保持する。
+     * 読み込んだバイト数が上限を超えた時点で、レコードの先頭からの文字数を求めて判定を行う。
+     */
+    private final class ByteFieldTokenizer extends FieldTokenizer {
+
+        /** 入力ストリーム */
+        private final InputStream in;
+
+        /** 文字コード */
+        private final Charset charset;
+
+        /** ウィンドウ */
+        private byte[] buff = new byte[READ_BUFFER_SIZE];
+
+        /** 次に読み込むバイトの位置 */
+        private int pos = 0;
+
+        /** ウィンドウに読み込み済みのバイトの終端 */
+        private int limit = 0;
+
+        /** 読み込み中のレコードの先頭の位置（ウィンドウの移動時に保持する範囲の先頭） */
+        private int recordStart = 0;
+
+        /** 読み込み中のフィールドの先頭の位置 */
+        private int fieldStart = 0;
+
+        /** 次に文字数の判定を行う、読み込んだ文字数の閾値 */
+        private int nextExactCheck = 0;
+
+        /** ウィンドウの先頭の、入力ストリームの先頭からのバイト位置 */
+        private long windowOffset = 0;
+
+        /**
+         * コンストラクタ。
+         * @param in      入力ストリーム
+         * @param charset 文字コード
+         */
+        ByteFieldTokenizer(InputStream in, Charset charset) {
+            this.in = in;
+            this.charset = charset;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        protected void startRecord() {
+            recordStart = pos;
+            nextExactCheck = 0;
+        }
+
+        /**
+         * 読み込んだ文字数をインクリメントし、上限を超えていないことをチェックする。
+         * <p/>
+         * バイト数で数えた文字数が上限を超えた場合のみ、レコードの先頭からの実際の文字数を求めて判定する。
+         */
+        private void checkRecordSize() {
+            readRecordSize += 1; // 読み込んだ文字数をインクリメントする
+            if (readRecordSize > maxRecordLength && readRecordSize > nextExactCheck) {
+                // マルチバイト文字の分だけ、バイト数で数えた文字数から差し引く
+                int length = pos - recordStart;
+                int chars = readRecordSize - length + countChars(recordStart, length);
+                if (chars > maxRecordLength) {
+                    throw newInvalidDataFormatException("the number of the read characters exceeded the upper limit. "
+                          , "the reading upper limit for 1 record is '", maxRecordLength, "'.");
+                }
+                // 1バイトで増える文字数は最大で1文字なので、上限までの残りの文字数分は判定を省略できる
+                nextExactCheck = readRecordSize + (maxRecordLength - chars);
+            }
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        protected String readField(boolean skip) throws IOException {
+            fieldStart = pos;
+            if (!ensure(1)) {
+                end = END_OF_FILE;
+                return skip ? null : "";
+            }
+            int first = buff[pos++] & 0xFF;
+            checkRecordSize();
+            if (first == fieldSeparator) {
+                end = END_OF_FIELD;
+                return skip ? null : "";
+            }
+            if (recordSeparator.length == 1 && first == recordSeparatorLast) {
+                end = END_OF_RECORD;
+                return skip ? null : "";
+            }
+            if (first == quote) {
+                // 囲み文字のみでファイルの終端に到達した場合は、囲み文字を値として扱う
+                if (!ensure(1)) {
+                    end = END_OF_FILE;
+                    return skip ? null : String.valueOf((char) first);
+                }
+                return readQuotedField(skip);
+            }
+            return readUnquotedField(skip);
+        }
+
+        /**
+         * 囲み文字で囲まれていないフィールドの、2バイト目以降を読み込む。
+         *
+         * @param skip 文字列を生成しない場合はtrue
+         * @return フィールドの文字列（文字列を生成しない場合はnull）
+         * @throws IOException 読み込みに伴うIO処理で問題が発生した場合。
+         */
+        private String readUnquotedField(boolean skip) throws IOException {
+            while (true) {
+                if (pos == limit && !fill()) {
+                    end = END_OF_FILE;
+                    return skip ? null : decode(fieldStart, pos - fieldStart);
+                }
+                int b = buff[pos++] & 0xFF;
+                checkRecordSize();
+                if (b > maxDelimiter) {
+                    continue;
+                }
+                if (b == fieldSeparator) {
+                    end = END_OF_FIELD;
+                    return skip ? null : decode(fieldStart, pos - 1 - fieldStart);
+                }
+                if (b == recordSeparatorLast && endsWithRecordSeparator()) {
+                    end = END_OF_RECORD;
+                    return skip ? null : decode(fieldStart, pos - recordSeparator.length - fieldStart);
+                }
+            }
+        }
+
+        /**
+         * 囲み文字で囲まれたフィールドの、開始の囲み文字以降を読み込む。
+         * <p/>
+         * 囲み文字はASCII文字であり、マルチバイト文字の途中に現れないため、
+         * エスケープされた囲み文字で区切られた範囲ごとに文字列に変換できる。
+         *
+         * @param skip 文字列を生成しない場合はtrue
+         * @return フィールドの文字列（文字列を生成しない場合はnull）
+         * @throws IOException 読み込みに伴うIO処理で問題が発生した場合。
+         */
+        private String readQuotedField(boolean skip) throws IOException {
+            fieldStart = pos;
+            escaped.setLength(0);
+            while (true) {
+                if (pos == limit && !fill()) {
+                    throw newInvalidDataFormatException("Unclosed quotation.");
+                }
+                int b = buff[pos++] & 0xFF;
+                checkRecordSize();
+                if (b != quote) {
+                    continue;
+                }
+                if (ensure(1) && (buff[pos] & 0xFF) == quote) {
+                    // エスケープされた囲み文字は、1文字の囲み文字として扱う
+                    pos++;
+                    checkRecordSize();
+                    if (!skip) {
+                        escaped.append(decode(fieldStart, pos - 1 - fieldStart));
+                    }
+                    fieldStart = pos;
+                    continue;
+                }
+                String value = null;
+                if (!skip) {
+                    value = escaped.length() == 0
+                            ? decode(fieldStart, pos - 1 - fieldStart)
+                            : escaped.append(decode(fieldStart, pos - 1 - fieldStart)).toString();
+                }
+                consumeSeparator();
+                readRecordSize += 1; // 読み込んだ文字数をインクリメントする
+                return value;
+            }
+        }
+
+        /**
+         * 終了の囲み文字の後に続く、フィールド区切り文字またはレコード終端文字列を読み込む。
+         *
+         * @throws IOException 読み込みに伴うIO処理で問題が発生した場合。
+         */
+        private void consumeSeparator() throws IOException {
+            int length = recordSeparator.length;
+            ensure(length);
+            int available = Math.min(length, limit - pos);
+            if (available == 0) {
+                end = END_OF_FILE;
+            } else if (available == length && startsWith(recordSeparator)) {
+                pos += length;
+                checkRecordSize();
+                end = END_OF_RECORD;
+            } else if ((buff[pos] & 0xFF) == fieldSeparator) {
+                pos++;
+                end = END_OF_FIELD;
+            } else {
+                // 区切り文字の長さ分の文字列を、文字として読み込んだ場合と同様に生成する
+                String read = decode(pos, available);
+                char[] cbuf = new char[length];
+                read.getChars(0, Math.min(length, read.length()), cbuf, 0);
+                throw newWrongSeparatorException(cbuf);
+            }
+        }
+
+        /**
+         * 読み込み中のフィールドが、レコード終端文字列で終わっているかどうかを判定する。
+         * @return レコード終端文字列で終わっている場合はtrue
+         */
+        private boolean endsWithRecordSeparator() {
+            int length = recordSeparator.length;
+            if (pos - fieldStart < length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (buff[pos - length + i] != recordSeparator[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * 次に読み込むバイトデータが、指定した文字の配列（ASCII文字）で始まっているかどうかを判定する。
+         * 呼び出し元で、文字の配列の長さ分のバイトが読み込み済みであることを保証すること。
+         *
+         * @param chars 文字の配列
+         * @return 指定した文字の配列で始まっている場合はtrue
+         */
+        private boolean startsWith(char[] chars) {
+            for (int i = 0; i < chars.length; i++) {
+                if (buff[pos + i] != chars[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * 指定した範囲のバイトデータを文字列に変換する。
+         * ASCII文字のみで構成される場合は、ISO-8859-1として変換する。
+         *
+         * @param offset 開始位置
+         * @param length バイト長
+         * @return 文字列
+         */
+        private String decode(int offset, int length) {
+            return new String(buff, offset, length, isAscii(offset, length) ? LATIN1 : charset);
+        }
+
+        /**
+         * 指定した範囲のバイトデータの文字数を求める。
+         *
+         * @param offset 開始位置
+         * @param length バイト長
+         * @return 文字数
+         */
+        private int countChars(int offset, int length) {
+            return isAscii(offset, length) ? length : new String(buff, offset, length, charset).length();
+        }
+
+        /**
+         * 指定した範囲のバイトデータが、ASCII文字のみで構成されるかどうかを判定する。
+         *
+         * @param offset 開始位置
+         * @param length バイト長
+         * @return ASCII文字のみで構成される場合はtrue
+         */
+        private boolean isAscii(int offset, int length) {
+            for (int i = offset; i < offset + length; i++) {
+                if (buff[i] < 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        long getPosition() {
+            return windowOffset + pos;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        boolean hasRemaining() throws IOException {
+            recordStart = pos;
+            return ensure(1);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        boolean skipIfStartsWith(String str) throws IOException {
+            recordStart = pos;
+            if (!ensure(str.length())) {
+                return false;
+            }
+            for (int i = 0; i < str.length(); i++) {
+                if (buff[pos + i] != str.charAt(i)) {
+                    return false;
+                }
+            }
+            pos += str.length();
+            return true;
+        }
+
+        /**
+         * 指定したバイト数が読み込み済みとなるまで、ウィンドウにバイトデータを読み込む。
+         *
+         * @param length バイト数
+         * @return 指定したバイト数が読み込み済みの場合はtrue（ファイルの終端に到達した場合はfalse）
+         * @throws IOException 読み込みに伴うIO処理で問題が発生した場合。
+         */
+        private boolean ensure(int length) throws IOException {
+            while (limit - pos < length) {
+                if (!fill()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * ウィンドウに後続のバイトデータを読み込む。
+         * <p/>
+         * 読み込み中のレコードの先頭以降のバイトデータはウィンドウの先頭に移動し、
+         * ウィンドウに空きがない場合はウィンドウを拡張する。
+         *
+         * @return バイトデータを読み込んだ場合はtrue（ファイルの終端に到達した場合はfalse）
+         * @throws IOException 読み込みに伴うIO処理で問題が発生した場合。
+         */
+        private boolean fill() throws IOException {
+            if (recordStart > 0) {
+                System.arraycopy(buff, recordStart, buff, 0, limit - recordStart);
+                pos -= recordStart;
+                limit -= recordStart;
+                fieldStart -= recordStart;
+                windowOffset += recordStart;
+                recordStart = 0;
+            } else if (limit == buff.length) {
+                buff = Arrays.copyOf(buff, buff.length * 2);
+            }
+            int read = in.read(buff, limit, buff.length - limit);
+            if (read == -1) {
+                return false;
+            }
+            limit += read;
+            return true;
+        }
+    }
 }
@@ -115,7 +115,7 @@ public class XmlDataBuilder extends StructuredDataEditorSupport implements Struc
 
         for (FieldDefinition fd : newFdList) {
             // マップ格納用のキー作成
-            String mapKey = buildMapKey(currentKeyBase, fd.getName());
+            String mapKey = buildMapKey(currentKeyBase, fd);
             // レコード定義を取得
             RecordDefinition nrd = ld.getRecordType(fd.getName());
 
@@ -163,13 +163,26 @@ public class XmlDataBuilder extends StructuredDataEditorSupport implements Struc
     private void writeObjectArray(XMLStreamWriter writer, LayoutDefinition ld, RecordDefinition nrd, FieldDefinition fd,
                                   String currentKeyBase, String mapKey, Map<String, ?> map, NestedKeys nestedKeys) throws XMLStreamException {
         int objectCount = 0;
+        // 子要素のキーは添字によらないため、ループの前に作成しておく
+        List<FieldDefinition> nestedFields = nrd.getFields();
+        String[] subKeys = new String[nestedFields.size()];
+        for (int j = 0; j < subKeys.length; j++) {
+            subKeys[j] = FieldDefinitionUtil.normalizeWithNonWordChar(
+                    nestedFields.get(j).getName().replaceAll("@|\\[.*\\]", ""));
+        }
+        // 要素のベースキーは、共通のプレフィックスに添字を付与して作成する
+        StringBuilder keyBuilder = new StringBuilder(mapKey).append('[');
+        int prefixLength = keyBuilder.length();
         for (int i = 0;; i++) {
+            keyBuilder.setLength(prefixLength);
+            String innerBaseKey = keyBuilder.append(i).append(']').toString();
+            int innerBaseLength = keyBuilder.append('.').length();
+
             // 対象キーがひとつでも含まれていれば出力対象とする
             boolean isOut = false;
-            for (FieldDefinition nfd : nrd.getFields()) {
-                String tmpSubKey = FieldDefinitionUtil.normalizeWithNonWordChar(nfd.getName().replaceAll("@|\\[.*\\]", ""));
-                String tmpkey = String.format("%s[%s].%s", mapKey, i, tmpSubKey);
-                if (nestedKeys.contains(tmpkey)) {
+            for (String subKey : subKeys) {
+                keyBuilder.setLength(innerBaseLength);
+                if (nestedKeys.contains(keyBuilder.append(subKey).toString())) {
                     isOut = true;
                     break;
                 }
@@ -177,7 +190,7 @@ public class XmlDataBuilder extends StructuredDataEditorSupport implements Struc
 
             if (isOut) {
                 writer.writeStartElement(fd.getName());
-                buildXml(String.format("%s[%s]", mapKey, i), map, ld, nrd, writer, nestedKeys);
+                buildXml(innerBaseKey, map, ld, nrd, writer, nestedKeys);
                 writer.writeEndElement();
                 objectCount++;
             } else {
@@ -8,7 +8,6 @@ import java.io.InputStream;
 import java.util.HashMap;
 import java.util.Map;
 
-import nablarch.core.util.Builder;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
@@ -24,6 +23,8 @@ import org.xml.sax.SAXException;
  * 読み込み対象となるXMLが信頼できるものであり、かつ、DTDを使用しなければならない場合のみ、
  * 本プロパティを使用してDTDの使用を許可することができる。
  *
+ * XMLデータ全体のDOMを構築せずに解析する場合は、{@link StreamingXmlDataParser}を使用すること。
+ *
  * @author TIS
  */
 public class XmlDataParser extends StructuredDataEditorSupport implements StructuredDataParser {
@@ -105,7 +106,7 @@ public class XmlDataParser extends StructuredDataEditorSupport implements Struct
             }
             // Mapに格納する際のKeyを作成
             String fieldName = fieldDef.getName();
-            String mapKey = buildMapKey(currentKeyBase, fieldName);
+            String mapKey = buildMapKey(currentKeyBase, fieldDef);
 
             if (fieldDef.isArray()) {
 
@@ -122,9 +123,13 @@ public class XmlDataParser extends StructuredDataEditorSupport implements Struct
 
                 if (isObjectType(fieldDef)) {
                     // オブジェクト配列
+                    // 要素のベースキーは、共通のプレフィックスに添字を付与して作成する
+                    StringBuilder keyBuilder = new StringBuilder(mapKey).append('[');
+                    int prefixLength = keyBuilder.length();
                     for (int i = 0; i < childNodes.getLength(); i++) {
                         Element child = (Element) childNodes.item(i);
-                        String nextKeyBase = Builder.concat(mapKey, "[", i, "]");
+                        keyBuilder.setLength(prefixLength);
+                        String nextKeyBase = keyBuilder.append(i).append(']').toString();
                         RecordDefinition nextRecordDef = layoutDef.getRecordType(fieldName);
                         makeMap(nextKeyBase, outMap, layoutDef, nextRecordDef, child);
                     }
@@ -255,6 +260,15 @@ public class XmlDataParser extends StructuredDataEditorSupport implements Struct
         this.contentName = contentName;
     }
 
+    /**
+     * 属性あり要素のコンテンツ名を取得する。
+     *
+     * @return 属性あり要素のコンテンツ名
+     */
+    protected String getContentName() {
+        return contentName;
+    }
+
 
     /**
      * DTDの使用を許可する。
@@ -265,4 +279,13 @@ public class XmlDataParser extends StructuredDataEditorSupport implements Struct
     public void setAllowDTD(boolean allowDTD) {
         this.allowDTD = allowDTD;
     }
+
+    /**
+     * DTDの使用を許可するか否かを取得する。
+     *
+     * @return 許可する場合、真
+     */
+    protected boolean isAllowDTD() {
+        return allowDTD;
+    }
 }
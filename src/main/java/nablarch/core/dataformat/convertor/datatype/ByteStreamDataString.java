@@ -1,7 +1,6 @@
 package nablarch.core.dataformat.convertor.datatype;
 
 import java.io.UnsupportedEncodingException;
-import java.nio.ByteBuffer;
 import java.util.Arrays;
 
 import nablarch.core.dataformat.InvalidDataFormatException;
@@ -33,6 +32,12 @@ import nablarch.core.util.annotation.Published;
 @Published(tag = "architect")
 public class ByteStreamDataString extends ByteStreamDataSupport<String> {
 
+    /** サブクラスが{@link #convertOnRead(byte[])}をオーバーライドしているかどうか */
+    private final boolean legacyRead = isConvertOnReadOverridden(ByteStreamDataString.class);
+
+    /** サブクラスが{@link #convertOnWrite(Object)}をオーバーライドしているかどうか */
+    private final boolean legacyWrite = isConvertOnWriteOverridden(ByteStreamDataString.class);
+
     /** {@inheritDoc} */
     public ByteStreamDataString initialize(Object... args) {
         if (args == null) {
@@ -63,12 +68,47 @@ public class ByteStreamDataString extends ByteStreamDataSupport<String> {
      */
     @Override
     public String convertOnRead(byte[] bytes) {
-        String str = null;
-        try {
-            str = new String(bytes, getField().getEncoding().name());
-        } catch (UnsupportedEncodingException e) {
-            throw new RuntimeException(e); // can not happen.
+        return decode(bytes, 0, bytes.length);
+    }
+
+    /** {@inheritDoc}
+     * この実装では、指定された範囲のバイトデータを直接文字列に変換するため、バイト配列のコピーは行わない。
+     * ただし、サブクラスが{@link #convertOnRead(byte[])}をオーバーライドしている場合は、
+     * 指定された範囲をコピーしたバイト配列を引数にその変換処理を呼び出す。
+     */
+    @Override
+    public String convertOnRead(byte[] buff, int offset, int length) {
+        if (legacyRead) {
+            return super.convertOnRead(buff, offset, length);
+        }
+        return decode(buff, offset, length);
+    }
+
+    /**
+     * バイト配列の指定された範囲を文字列に変換する。
+     * <p/>
+     * フィールドの文字コードがシングルバイト文字セットの場合は、変換表を用いて変換し、
+     * トリムも変換前のバイトデータに対して行う。
+     *
+     * @param buff   入力データを含むバイト配列
+     * @param offset 入力データの開始位置
+     * @param length 入力データのバイト長
+     * @return 変換後の文字列
+     */
+    private String decode(byte[] buff, int offset, int length) {
+        SingleByteCodec codec = getCodec();
+        if (codec != null) {
+            char padChar = getPaddingStr().charAt(0);
+            int end = offset + length;
+            while (end > offset && codec.decode(buff[end - 1]) == padChar) {
+                end--;
+            }
+            if (convertEmptyToNull && end == offset) {
+                return null;
+            }
+            return codec.decode(buff, offset, end - offset);
         }
+        String str = new String(buff, offset, length, getField().getEncoding());
         String trimmedStr = trim(str);
         if (convertEmptyToNull && trimmedStr.isEmpty()) {
             return null;
@@ -96,32 +136,62 @@ public class ByteStreamDataString extends ByteStreamDataSupport<String> {
      */
     @Override
     public byte[] convertOnWrite(Object data) {
-        byte[] bytes = null;
-        try {
-            if (data == null) {
-                bytes = new byte[0];
-            } else {
-                bytes = StringUtil.toString(data)
-                                  .getBytes(getField().getEncoding().name());
+        byte[] bytes = new byte[getSize()];
+        encode(data, bytes, 0);
+        return bytes;
+    }
+
+    /** {@inheritDoc}
+     * この実装では、変換後の文字列とパディングを書き込み先のバイト配列に直接書き込む。
+     * ただし、サブクラスが{@link #convertOnWrite(Object)}をオーバーライドしている場合は、
+     * その変換処理で変換したバイト配列をコピーする。
+     */
+    @Override
+    public void convertOnWrite(Object data, byte[] buff, int offset) {
+        if (legacyWrite) {
+            super.convertOnWrite(data, buff, offset);
+            return;
+        }
+        encode(data, buff, offset);
+    }
+
+    /**
+     * 出力対象のデータを文字列に変換し、パディングとあわせてバイト配列の指定された位置に書き込む。
+     * <p/>
+     * パディング文字のバイト長で割り切れない余りのバイトには0を書き込む。
+     *
+     * @param data   出力対象のデータ
+     * @param buff   書き込み先のバイト配列
+     * @param offset 書き込みを開始する位置
+     */
+    private void encode(Object data, byte[] buff, int offset) {
+        String str = (data == null) ? "" : StringUtil.toString(data);
+        int written = -1;
+        SingleByteCodec codec = getCodec();
+        if (codec != null && str.length() <= getSize()) {
+            written = codec.encode(str, buff, offset);
+        }
+        if (written < 0) {
+            byte[] bytes = str.getBytes(getField().getEncoding());
+            if (bytes.length > getSize()) {
+                throw new InvalidDataFormatException(
+                    "invalid parameter was specified. "
+                  + "too large data. field size = '" + getSize()
+                  + "' data size = '"  + bytes.length  + "'."
+                  + " data: " + StringUtil.toString(data)
+                );
             }
-        } catch (UnsupportedEncodingException e) {
-            throw new RuntimeException(e); // can not happen.
-        }                      
-        if (bytes.length > getSize()) {
-            throw new InvalidDataFormatException(
-                "invalid parameter was specified. "
-              + "too large data. field size = '" + getSize()
-              + "' data size = '"  + bytes.length  + "'."
-              + " data: " + StringUtil.toString(data)
-            );
+            System.arraycopy(bytes, 0, buff, offset, bytes.length);
+            written = bytes.length;
         }
-        ByteBuffer buff = ByteBuffer.wrap(new byte[getSize()]);
-        buff.put(bytes);
-        int padSize = (getSize() - bytes.length) / getPaddingBytes().length;
-        for (int i = 0; i < padSize; i++) {
-            buff.put(getPaddingBytes());
+        byte[] paddingBytes = getPaddingBytes();
+        int pos = offset + written;
+        int end = offset + getSize();
+        while (pos + paddingBytes.length <= end) {
+            System.arraycopy(paddingBytes, 0, buff, pos, paddingBytes.length);
+            pos += paddingBytes.length;
         }
-        return buff.array();
+        Arrays.fill(buff, pos, end, (byte) 0);
     }
     
 
@@ -194,6 +264,24 @@ public class ByteStreamDataString extends ByteStreamDataSupport<String> {
         return paddingBytes;
     }
 
+    /**
+     * フィールドの文字コードに対応するシングルバイト文字セットの変換表を返却する。
+     * @return 変換表（シングルバイト文字セットではない場合はnull）
+     */
+    private SingleByteCodec getCodec() {
+        if (!codecResolved) {
+            codec = SingleByteCodec.forCharset(getField().getEncoding());
+            codecResolved = true;
+        }
+        return codec;
+    }
+
+    /** シングルバイト文字セットの変換表 */
+    private SingleByteCodec codec = null;
+
+    /** 変換表を取得済みかどうか */
+    private boolean codecResolved = false;
+
     /** パディングに使用するバイトデータ */
     private byte[] paddingBytes = null;
     
@@ -1,5 +1,8 @@
 package nablarch.core.dataformat.convertor.datatype;
 
+import java.util.Arrays;
+
+import nablarch.core.dataformat.MethodOverrideUtil;
 import nablarch.core.util.annotation.Published;
 
 /**
@@ -34,4 +37,69 @@ public abstract class ByteStreamDataSupport<F> extends DataType<F, byte[]> {
         this.size = size;
         return this;
     }
+
+    /**
+     * バイト配列の指定された範囲を入力データとして変換し、変換後のオブジェクトを返却する。
+     * <p/>
+     * 固定長ファイルを読み込む際は、レコード全体を保持するバッファからフィールドを切り出さずに本メソッドが呼び出される。<br/>
+     * デフォルトの実装では、指定された範囲をコピーしたバイト配列を引数に{@link #convertOnRead(Object)}を呼び出す。
+     * 独自のデータタイプでコピーを避けたい場合は、本メソッドをオーバーライドすること。
+     * <p/>
+     * 本メソッドをオーバーライドする場合は、{@link #isConvertOnReadOverridden(Class)}を使用し、
+     * サブクラスが{@link #convertOnRead(Object)}のみをオーバーライドしている場合はその変換処理を呼び出すこと。
+     * <p/>
+     * 引数のバイト配列は呼び出し元で再利用されることがあるため、
+     * 変換後のオブジェクトから引数のバイト配列を参照してはならない。
+     *
+     * @param buff   入力データを含むバイト配列
+     * @param offset 入力データの開始位置
+     * @param length 入力データのバイト長
+     * @return 変換後のオブジェクト
+     */
+    public F convertOnRead(byte[] buff, int offset, int length) {
+        return convertOnRead(Arrays.copyOfRange(buff, offset, offset + length));
+    }
+
+    /**
+     * 出力対象のデータを変換し、バイト配列の指定された位置に書き込む。
+     * <p/>
+     * 固定長ファイルを書き込む際は、レコード全体を保持するバッファにフィールドを直接書き込むために本メソッドが呼び出される。<br/>
+     * デフォルトの実装では、{@link #convertOnWrite(Object)}で変換したバイト配列を指定された位置にコピーする。
+     * 独自のデータタイプで変換結果のバイト配列の生成を避けたい場合は、本メソッドをオーバーライドすること。
+     * <p/>
+     * 本メソッドをオーバーライドする場合は、{@link #isConvertOnWriteOverridden(Class)}を使用し、
+     * サブクラスが{@link #convertOnWrite(Object)}のみをオーバーライドしている場合はその変換処理を呼び出すこと。
+     *
+     * @param data   出力対象のデータ
+     * @param buff   書き込み先のバイト配列
+     * @param offset 書き込みを開始する位置
+     */
+    public void convertOnWrite(Object data, byte[] buff, int offset) {
+        byte[] bytes = convertOnWrite(data);
+        System.arraycopy(bytes, 0, buff, offset, bytes.length);
+    }
+
+    /**
+     * {@link #convertOnRead(Object)}が、指定されたクラスより下位のクラスでオーバーライドされているかどうかを判定する。
+     * <p/>
+     * 変換のたびに呼び出さず、インスタンスの生成時に判定した結果をfinalフィールドに保持して使用すること。
+     *
+     * @param baseClass {@link #convertOnRead(byte[], int, int)}をオーバーライドしたクラス
+     * @return オーバーライドされている場合はtrue
+     */
+    protected final boolean isConvertOnReadOverridden(Class<?> baseClass) {
+        return MethodOverrideUtil.isOverridden(getClass(), baseClass, "convertOnRead", byte[].class);
+    }
+
+    /**
+     * {@link #convertOnWrite(Object)}が、指定されたクラスより下位のクラスでオーバーライドされているかどうかを判定する。
+     * <p/>
+     * 変換のたびに呼び出さず、インスタンスの生成時に判定した結果をfinalフィールドに保持して使用すること。
+     *
+     * @param baseClass {@link #convertOnWrite(Object, byte[], int)}をオーバーライドしたクラス
+     * @return オーバーライドされている場合はtrue
+     */
+    protected final boolean isConvertOnWriteOverridden(Class<?> baseClass) {
+        return MethodOverrideUtil.isOverridden(getClass(), baseClass, "convertOnWrite", Object.class);
+    }
 }
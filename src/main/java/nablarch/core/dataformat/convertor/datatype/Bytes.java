@@ -14,6 +14,9 @@ import nablarch.core.dataformat.SyntaxErrorException;
  * @author Iwauo Tajima
  */
 public class Bytes extends ByteStreamDataSupport<byte[]> {
+
+    /** サブクラスが{@link #convertOnRead(byte[])}をオーバーライドしているかどうか */
+    private final boolean legacyRead = isConvertOnReadOverridden(Bytes.class);
     
     /** {@inheritDoc} */
     public Bytes initialize(Object... args) {
@@ -52,6 +55,18 @@ public class Bytes extends ByteStreamDataSupport<byte[]> {
         return data;
     }
 
+    /** {@inheritDoc}
+     * この実装では、引数のバイト配列の指定された範囲をコピーして返却する。
+     * サブクラスが{@link #convertOnRead(byte[])}をオーバーライドしている場合は、コピーしたバイト配列を引数にその変換処理を呼び出す。
+     */
+    @Override
+    public byte[] convertOnRead(byte[] buff, int offset, int length) {
+        if (legacyRead) {
+            return super.convertOnRead(buff, offset, length);
+        }
+        return Arrays.copyOfRange(buff, offset, offset + length);
+    }
+
     /** {@inheritDoc}
      * この実装では、出力時に、引数のオブジェクトをバイト配列に変換して返却する。
      */
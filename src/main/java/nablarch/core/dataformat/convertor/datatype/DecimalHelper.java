@@ -11,6 +11,9 @@ import nablarch.core.dataformat.InvalidDataFormatException;
  * {@link PackedDecimal}および{@link ZonedDecimal}のヘルパクラス。
  * <p/>
  * {@link DataType#convertOnWrite(Object)}メソッドの引数として渡される出力対象データをスケールなしのlong値に変換する責務を持つ。
+ * <p/>
+ * また、19桁以上の数値を扱うフィールドのために、スケールなしのBigInteger値への変換と、
+ * 18桁ごとに区切って読み込んだ値の連結を行う。
  * @author Masato Inoue
  */
 public final class DecimalHelper {
@@ -24,6 +27,38 @@ public final class DecimalHelper {
     /** 出力データの最小値（18桁） */
     private static final BigInteger MIN_NUMBER = new BigInteger("-999999999999999999");
 
+    /** 出力データの最大値（18桁）のlong値 */
+    private static final long MAX_LONG_NUMBER = 999999999999999999L;
+
+    /** long値で扱う桁数の上限 */
+    static final int LONG_DIGITS = 18;
+
+    /** 10の累乗（0乗から{@link #LONG_DIGITS}乗まで） */
+    private static final BigInteger[] POWERS_OF_TEN = new BigInteger[LONG_DIGITS + 1];
+
+    /**
+     * パック10進数の1バイト（上位4ビットと下位4ビット）を2桁の値に変換するテーブル。
+     * 各4ビットの値が9を超える場合も、上位4ビット×10＋下位4ビットの値をそのまま格納する。
+     */
+    static final int[] PACKED_PAIR_VALUES = new int[256];
+
+    /** 2桁の値（0～99）をパック10進数の1バイトに変換するテーブル */
+    static final byte[] PACKED_PAIR_BYTES = new byte[100];
+
+    static {
+        BigInteger power = BigInteger.ONE;
+        for (int i = 0; i <= LONG_DIGITS; i++) {
+            POWERS_OF_TEN[i] = power;
+            power = power.multiply(BigInteger.TEN);
+        }
+        for (int i = 0; i < PACKED_PAIR_VALUES.length; i++) {
+            PACKED_PAIR_VALUES[i] = (i >>> 4) * 10 + (i & 0x0F);
+        }
+        for (int i = 0; i < PACKED_PAIR_BYTES.length; i++) {
+            PACKED_PAIR_BYTES[i] = (byte) (((i / 10) << 4) | (i % 10));
+        }
+    }
+
     /** 正の符号 */
     private static final String PLUS_SIGN = "+";
 
@@ -36,17 +71,26 @@ public final class DecimalHelper {
      * <li>BigDecimalをスケールなしのBigIntegerに変換。</li>
      * <li>BigIntegerをlongに変換。</li>
      * </ol>
+     * ただし、出力対象のデータが整数型（Integer、Long、Short、Byte）で18桁以下の場合は、そのままlong値として返却する。
      * @param data 出力対象のデータ
      * @return 引数のBigDecimalを変換したスケールなしのlong値
      */
     public static long toUnscaledLongValue(Object data) {
+        if (data instanceof Integer || data instanceof Long
+                || data instanceof Short || data instanceof Byte) {
+            // 整数型は、桁数の上限に収まる場合BigDecimalを経由せずに変換する
+            long value = ((Number) data).longValue();
+            if (value <= MAX_LONG_NUMBER && value >= -MAX_LONG_NUMBER) {
+                return value;
+            }
+        }
         BigDecimal bigDecimal = toBigDecimal(data);
         BigInteger bigInteger = bigDecimal.unscaledValue();
         if (bigInteger.compareTo(MAX_NUMBER) == 1) {
-            throwInvalidDigits(bigDecimal, bigInteger, true);
+            throwInvalidDigits(bigDecimal, bigInteger, true, LONG_DIGITS);
         }
         if (bigInteger.compareTo(MIN_NUMBER) == -1) {
-            throwInvalidDigits(bigDecimal, bigInteger, false);
+            throwInvalidDigits(bigDecimal, bigInteger, false, LONG_DIGITS);
         }
         return bigInteger.longValue();
     }
@@ -97,20 +141,77 @@ public final class DecimalHelper {
     }
     
     /**
-     * BigIntegerの桁数が不正（19桁以上）な場合に例外をスローする。
+     * 出力対象のデータをスケールなしのBigInteger値に変換する。
+     * <p/>
+     * 19桁以上の数値を扱うフィールドで使用する。
+     * 変換後の値の桁数（符号を除く）が、指定された桁数を超える場合は例外をスローする。
+     * @param data 出力対象のデータ
+     * @param maxDigits 許容する桁数
+     * @return 引数のデータを変換したスケールなしのBigInteger値
+     */
+    public static BigInteger toUnscaledBigIntegerValue(Object data, int maxDigits) {
+        BigDecimal bigDecimal = toBigDecimal(data);
+        BigInteger bigInteger = bigDecimal.unscaledValue();
+        if (bigInteger.abs().compareTo(powerOfTen(maxDigits)) >= 0) {
+            throwInvalidDigits(bigDecimal, bigInteger, bigInteger.signum() > 0, maxDigits);
+        }
+        return bigInteger;
+    }
+
+    /**
+     * 上位桁の値に、下位桁の値を連結する。
+     * <p/>
+     * 19桁以上の数値を読み込む際に、18桁ごとにlong値として読み込んだ値を連結するために使用する。
+     * @param high 上位桁の値（上位桁が存在しない場合はnull）
+     * @param low 下位桁の値
+     * @param lowDigits 下位桁の桁数（{@link #LONG_DIGITS}以下）
+     * @return 連結した値
+     */
+    static BigInteger append(BigInteger high, long low, int lowDigits) {
+        if (high == null) {
+            return BigInteger.valueOf(low);
+        }
+        return high.multiply(POWERS_OF_TEN[lowDigits]).add(BigInteger.valueOf(low));
+    }
+
+    /**
+     * スケールなしの値とスケールからBigDecimalを生成する。
+     * long値で表現できる場合は、{@link BigDecimal#valueOf(long, int)}を使用する。
+     * @param unscaled スケールなしの値
+     * @param scale スケール
+     * @return 生成したBigDecimal
+     */
+    static BigDecimal valueOf(BigInteger unscaled, int scale) {
+        if (unscaled.bitLength() < Long.SIZE) {
+            return BigDecimal.valueOf(unscaled.longValue(), scale);
+        }
+        return new BigDecimal(unscaled, scale);
+    }
+
+    /**
+     * 10の累乗を返却する。
+     * @param exponent 指数
+     * @return 10の累乗
+     */
+    private static BigInteger powerOfTen(int exponent) {
+        return exponent <= LONG_DIGITS ? POWERS_OF_TEN[exponent] : BigInteger.TEN.pow(exponent);
+    }
+
+    /**
+     * BigIntegerの桁数が不正（許容する桁数を超える）な場合に例外をスローする。
      * @param bigDecimal 元のパラメータ
      * @param bigInteger スケールなしのパラメータ
      * @param positive 正数かどうか
-     * @param unscaledValueEqualsOriginal
+     * @param maxDigits 許容する桁数
      */
-    private static void throwInvalidDigits(BigDecimal bigDecimal, BigInteger bigInteger, boolean positive) {
+    private static void throwInvalidDigits(BigDecimal bigDecimal, BigInteger bigInteger, boolean positive, int maxDigits) {
         boolean unscaledValueEqualsOriginal = isUnscaledValueEqualsOriginal(bigDecimal,
                 bigInteger);
         // 符号を除いた桁数を求める（負数の場合は桁数-1）
         int unscaledDigits = String.valueOf(bigInteger).length() - (positive ? 0 : 1);
         throw new InvalidDataFormatException(concat(
                 "invalid parameter was specified. "
-                , "the number of ", !unscaledValueEqualsOriginal ? "unscaled " : "", "parameter digits must be 18 or less, "
+                , "the number of ", !unscaledValueEqualsOriginal ? "unscaled " : "", "parameter digits must be ", maxDigits, " or less, "
                 , "but was '", unscaledDigits, "'. "
                 , !unscaledValueEqualsOriginal ? concat("unscaled parameter=[", bigInteger , "], ") : ""
                 , !unscaledValueEqualsOriginal ? "original " : "", "parameter=[", bigDecimal , "]"
@@ -0,0 +1,36 @@
+package nablarch.core.dataformat.convertor.datatype;
+
+import nablarch.core.util.annotation.Published;
+
+/**
+ * 入力データを、BigDecimalを生成せずにスケールなしのlong値として読み込めるデータタイプ。
+ * <p/>
+ * 固定長ファイルを読み込む際、フォーマッタは本インタフェースを実装したデータタイプのフィールドを
+ * スケールなしのlong値として読み込み、BigDecimalへの変換は値が参照されるまで行わない。
+ */
+@Published(tag = "architect")
+public interface LongDecodable {
+
+    /**
+     * フィールドの値を、常にスケールなしのlong値として読み込めるかどうかを返却する。
+     * @return フィールドの桁数がlong値で表現できる範囲に収まる場合は{@code true}
+     */
+    boolean isLongDecodable();
+
+    /**
+     * バイト配列の指定された範囲を、スケールなしのlong値として読み込む。
+     * <p/>
+     * 本メソッドは、{@link #isLongDecodable()}が{@code true}を返却する場合のみ呼び出すこと。
+     * @param buff   入力データを含むバイト配列
+     * @param offset 入力データの開始位置
+     * @param length 入力データのバイト長
+     * @return スケールなしの値
+     */
+    long decodeLong(byte[] buff, int offset, int length);
+
+    /**
+     * 読み込んだ値のスケール（小数点以下の桁数）を返却する。
+     * @return スケール
+     */
+    int getScale();
+}
@@ -251,6 +251,9 @@ import nablarch.core.util.StringUtil;
  */
 public class NumberStringDecimal extends ByteStreamDataSupport<BigDecimal> {
 
+    /** サブクラスが{@link #convertOnRead(byte[])}をオーバーライドしているかどうか */
+    private final boolean legacyRead = isConvertOnReadOverridden(NumberStringDecimal.class);
+
     /** データのパターン */
     private Pattern dataPattern;
 
@@ -369,13 +372,20 @@ public class NumberStringDecimal extends ByteStreamDataSupport<BigDecimal> {
      * </p>
      */
     public BigDecimal convertOnRead(byte[] data) {
-        String strData;
-        try {
-            strData = new String(data, getField().getEncoding().name());
-        } catch (UnsupportedEncodingException e) {
-            throw new RuntimeException(e); // can not happen.
+        return convertOnRead(new String(data, getField().getEncoding()));
+    }
+
+    /** {@inheritDoc}
+     * この実装では、指定された範囲のバイトデータを直接文字列に変換するため、バイト配列のコピーは行わない。
+     * ただし、サブクラスが{@link #convertOnRead(byte[])}をオーバーライドしている場合は、
+     * 指定された範囲をコピーしたバイト配列を引数にその変換処理を呼び出す。
+     */
+    @Override
+    public BigDecimal convertOnRead(byte[] buff, int offset, int length) {
+        if (legacyRead) {
+            return super.convertOnRead(buff, offset, length);
         }
-        return convertOnRead(strData);
+        return convertOnRead(new String(buff, offset, length, getField().getEncoding()));
     }
 
     
@@ -3,6 +3,7 @@ package nablarch.core.dataformat.convertor.datatype;
 import static nablarch.core.util.Builder.concat;
 
 import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.util.Arrays;
 
 import nablarch.core.dataformat.InvalidDataFormatException;
@@ -60,9 +61,19 @@ import nablarch.core.dataformat.SyntaxErrorException;
  * この桁数とは、出力対象のデータから小数点を取り除き、BigDecimalの場合はスケールに従い変換した後の桁数のことを指す。<br/>
  * (※処理を高速化するために内部的に出力対象データをlong型に変換し扱っているので、このような桁数の制約を設けている）
  * </p>
+ * <p>
+ * ただし、バイト長が11以上（フィールドの桁数（バイト長×2－1）が21桁以上）の場合は、内部的にBigInteger型を使用し、
+ * フィールドの桁数までの数値を読み書きできる。この場合も、値が18桁以下であればlong型で処理する。
+ * </p>
  * @author Iwauo Tajima
  */
-public class PackedDecimal extends ByteStreamDataSupport<BigDecimal> {
+public class PackedDecimal extends ByteStreamDataSupport<BigDecimal> implements LongDecodable {
+
+    /** サブクラスが{@link #convertOnRead(byte[])}をオーバーライドしているかどうか */
+    private final boolean legacyRead = isConvertOnReadOverridden(PackedDecimal.class);
+
+    /** サブクラスが{@link #convertOnWrite(Object)}をオーバーライドしているかどうか */
+    private final boolean legacyWrite = isConvertOnWriteOverridden(PackedDecimal.class);
 
     /** 符号付き数値であればtrue */
     private boolean signed = false;
@@ -115,45 +126,110 @@ public class PackedDecimal extends ByteStreamDataSupport<BigDecimal> {
     /** {@inheritDoc} */
     @Override
     public BigDecimal convertOnRead(byte[] buff) {
-        if (convertEmptyToNull && buff.length == 0) {
+        return decode(buff, 0, buff.length);
+    }
+
+    /** {@inheritDoc}
+     * この実装では、バイト配列のコピーを行わずに指定された範囲を直接読み込む。
+     * ただし、サブクラスが{@link #convertOnRead(byte[])}をオーバーライドしている場合は、
+     * 指定された範囲をコピーしたバイト配列を引数にその変換処理を呼び出す。
+     */
+    @Override
+    public BigDecimal convertOnRead(byte[] buff, int offset, int length) {
+        if (legacyRead) {
+            return super.convertOnRead(buff, offset, length);
+        }
+        return decode(buff, offset, length);
+    }
+
+    /**
+     * バイト配列の指定された範囲を読み込む。
+     * <p/>
+     * 1バイト（2桁）ごとにテーブルを使用して変換する。
+     * 18桁以下の場合はlong値として読み込み、19桁以上の場合は18桁ごとに読み込んだ値をBigIntegerに連結する。
+     *
+     * @param buff   入力データを含むバイト配列
+     * @param offset 入力データの開始位置
+     * @param length 入力データのバイト長
+     * @return 読み込んだ数値
+     */
+    private BigDecimal decode(byte[] buff, int offset, int length) {
+        if (convertEmptyToNull && length == 0) {
             return null;
         }
+        if (getSize() == 0) {
+            return BigDecimal.valueOf(0, this.scale);
+        }
+        if (getMaxDigits() <= DecimalHelper.LONG_DIGITS) {
+            return BigDecimal.valueOf(decodeLong(buff, offset, length), this.scale);
+        }
 
-        long num = 0;
-        long scale = 1;
-        boolean negative = false;
-        for (int digits = 1; digits <= getSize(); digits++) {
-            byte digit = buff[getSize() - digits];
-            byte upperNibble = (byte) ((digit & 0xF0) >>> 4);
-            byte lowerNibble = (byte) (digit & 0x0F);
-            
-            if (digits == 1) {
-                if (signed) {
-                    if (lowerNibble == getPackSignNibbleNegative()) {
-                        negative = true;
-                    } else if (lowerNibble == getPackSignNibblePositive())  {
-                        negative = false;
-                    } else {
-                        throw new InvalidDataFormatException("invalid pack bits was specified.");
-                    }
-                } else {
-                    if (lowerNibble != packNibble) {
-                        throw new InvalidDataFormatException("invalid pack bits was specified.");
-                    }
-                }
-                num += upperNibble;
-                scale *= 10;
-            } else {
-                num += lowerNibble * scale;
-                scale *= 10;
-                num += upperNibble * scale;
-                scale *= 10;
+        int last = offset + getSize() - 1;
+        boolean negative = isNegative(buff[last]);
+        BigInteger high = null;
+        long low = 0;
+        int lowDigits = 0;
+        for (int pos = offset; pos < last; pos++) {
+            if (lowDigits == DecimalHelper.LONG_DIGITS) {
+                high = DecimalHelper.append(high, low, lowDigits);
+                low = 0;
+                lowDigits = 0;
             }
+            low = low * 100 + DecimalHelper.PACKED_PAIR_VALUES[buff[pos] & 0xFF];
+            lowDigits += 2;
         }
-        if (negative) {
-            num *= -1;
+        if (lowDigits == DecimalHelper.LONG_DIGITS) {
+            high = DecimalHelper.append(high, low, lowDigits);
+            low = 0;
+            lowDigits = 0;
+        }
+        low = low * 10 + ((buff[last] & 0xF0) >>> 4);
+        lowDigits++;
+
+        BigInteger num = DecimalHelper.append(high, low, lowDigits);
+        return DecimalHelper.valueOf(negative ? num.negate() : num, this.scale);
+    }
+
+    /** {@inheritDoc}
+     * この実装では、フィールドの桁数（バイト長×2－1）が18以下の場合に{@code true}を返却する。
+     * ただし、サブクラスが{@link #convertOnRead(byte[])}をオーバーライドしている場合は{@code false}を返却する。
+     */
+    public boolean isLongDecodable() {
+        return getSize() != null && getSize() > 0 && getMaxDigits() <= DecimalHelper.LONG_DIGITS
+                && !legacyRead;
+    }
+
+    /** {@inheritDoc}
+     * この実装では、1バイト（2桁）ごとにテーブルを使用して変換する。
+     */
+    public long decodeLong(byte[] buff, int offset, int length) {
+        int last = offset + getSize() - 1;
+        boolean negative = isNegative(buff[last]);
+        long num = 0;
+        for (int pos = offset; pos < last; pos++) {
+            num = num * 100 + DecimalHelper.PACKED_PAIR_VALUES[buff[pos] & 0xFF];
         }
-        return BigDecimal.valueOf(num, this.scale);
+        num = num * 10 + ((buff[last] & 0xF0) >>> 4);
+        return negative ? -num : num;
+    }
+
+    /**
+     * 末尾のバイトの符号ビットを検証し、値が負数かどうかを判定する。
+     * @param lastDigit 末尾のバイト
+     * @return 負数の場合は{@code true}
+     */
+    private boolean isNegative(byte lastDigit) {
+        byte lowerNibble = (byte) (lastDigit & 0x0F);
+        if (signed) {
+            if (lowerNibble == getPackSignNibbleNegative()) {
+                return true;
+            } else if (lowerNibble == getPackSignNibblePositive())  {
+                return false;
+            }
+        } else if (lowerNibble == packNibble) {
+            return false;
+        }
+        throw new InvalidDataFormatException("invalid pack bits was specified.");
     }
 
     /** {@inheritDoc}
@@ -162,15 +238,71 @@ public class PackedDecimal extends ByteStreamDataSupport<BigDecimal> {
      * <ul>
      * <li>null</li>
      * <li>BigDecimalに変換できないオブジェクト</li>
-     * <li>データから小数点を取り除き、またBigDecimalの場合はスケーリングした後の桁数が19桁以上の場合</li>
+     * <li>データから小数点を取り除き、またBigDecimalの場合はスケーリングした後の桁数が19桁以上の場合（バイト長が9以下の場合）</li>
+     * <li>データから小数点を取り除き、またBigDecimalの場合はスケーリングした後の桁数がフィールドの桁数を超える場合（バイト長が10以上の場合）</li>
      * </ul>
+     * フィールドの桁数は、バイト長×2－1である。
      */
     @Override
     public byte[] convertOnWrite(Object data) {
+        if (isWide()) {
+            BigInteger digits = DecimalHelper.toUnscaledBigIntegerValue(data, getMaxDigits());
+            byte[] bytes = new byte[getSize()];
+            write(digits, bytes, 0);
+            return bytes;
+        }
         long digits = DecimalHelper.toUnscaledLongValue(data);
-        
         byte[] bytes = new byte[getSize()];
-        long scale = 1;
+        write(digits, bytes, 0);
+        return bytes;
+    }
+
+    /** {@inheritDoc}
+     * この実装では、変換後のパック10進数値を書き込み先のバイト配列に直接書き込む。
+     * ただし、サブクラスが{@link #convertOnWrite(Object)}をオーバーライドしている場合は、
+     * その変換処理で変換したバイト配列をコピーする。
+     */
+    @Override
+    public void convertOnWrite(Object data, byte[] buff, int offset) {
+        if (legacyWrite) {
+            super.convertOnWrite(data, buff, offset);
+        } else if (isWide()) {
+            write(DecimalHelper.toUnscaledBigIntegerValue(data, getMaxDigits()), buff, offset);
+        } else {
+            write(DecimalHelper.toUnscaledLongValue(data), buff, offset);
+        }
+    }
+
+    /** {@inheritDoc} */
+    public int getScale() {
+        return scale;
+    }
+
+    /**
+     * フィールドの桁数（バイト長×2－1）を返却する。
+     * @return フィールドの桁数
+     */
+    private int getMaxDigits() {
+        return getSize() * 2 - 1;
+    }
+
+    /**
+     * 19桁以上の数値を扱うフィールドかどうかを判定する。
+     * @return フィールドの桁数が19以上（バイト長が10以上）の場合はtrue
+     */
+    private boolean isWide() {
+        return getSize() != null && getMaxDigits() > DecimalHelper.LONG_DIGITS;
+    }
+
+    /**
+     * スケールなしの値をパック10進数値に変換し、バイト配列の指定された位置に書き込む。
+     * <p/>
+     * 末尾以外のバイトは、2桁ごとにテーブルを使用して変換する。
+     * @param digits スケールなしの値
+     * @param buff   書き込み先のバイト配列
+     * @param offset 書き込みを開始する位置
+     */
+    private void write(long digits, byte[] buff, int offset) {
         boolean negative = (digits < 0);
         if (negative) {
             digits *= -1;
@@ -178,24 +310,48 @@ public class PackedDecimal extends ByteStreamDataSupport<BigDecimal> {
         byte signNibble = !signed  ? this.packNibble
                         : negative ? getPackSignNibbleNegative()
                         :            getPackSignNibblePositive();
-                        
-        for (int i = 1; i <= getSize(); i++) {
-            byte lowerNibble;
-            byte upperNibble;
-            if (i == 1) {
-                lowerNibble = (byte) signNibble;
-                upperNibble = (byte) (digits % 10);
-                scale *= 10;
-            } else {
-                lowerNibble = (byte) (digits % (scale * 10) / scale);
-                scale *= 10;
-                upperNibble = (byte) (digits % (scale * 10) / scale);
-                scale *= 10;
-            }
-            bytes[getSize() - i] = (byte) ((upperNibble << 4) | lowerNibble);
+
+        int last = offset + getSize() - 1;
+        buff[last] = (byte) (((digits % 10) << 4) | signNibble);
+        digits /= 10;
+        for (int pos = last - 1; pos >= offset; pos--) {
+            buff[pos] = DecimalHelper.PACKED_PAIR_BYTES[(int) (digits % 100)];
+            digits /= 100;
         }
-        
-        return bytes;
+    }
+
+    /**
+     * スケールなしの値（19桁以上）をパック10進数値に変換し、バイト配列の指定された位置に書き込む。
+     * @param digits スケールなしの値
+     * @param buff   書き込み先のバイト配列
+     * @param offset 書き込みを開始する位置
+     */
+    private void write(BigInteger digits, byte[] buff, int offset) {
+        if (digits.bitLength() < Long.SIZE) {
+            write(digits.longValue(), buff, offset);
+            return;
+        }
+        boolean negative = (digits.signum() < 0);
+        byte signNibble = !signed  ? this.packNibble
+                        : negative ? getPackSignNibbleNegative()
+                        :            getPackSignNibblePositive();
+
+        String str = digits.abs().toString();
+        int last = offset + getSize() - 1;
+        buff[last] = (byte) ((digitAt(str, 0) << 4) | signNibble);
+        for (int i = 1; i < getSize(); i++) {
+            buff[last - i] = DecimalHelper.PACKED_PAIR_BYTES[digitAt(str, i * 2) * 10 + digitAt(str, i * 2 - 1)];
+        }
+    }
+
+    /**
+     * 数字列の末尾から数えた位置の数字を返却する。
+     * @param str 数字列
+     * @param index 末尾から数えた位置（末尾が0）
+     * @return 数字（位置が数字列の範囲外の場合は0）
+     */
+    private static int digitAt(String str, int index) {
+        return index < str.length() ? str.charAt(str.length() - 1 - index) - '0' : 0;
     }
 
     
@@ -0,0 +1,162 @@
+package nablarch.core.dataformat.convertor.datatype;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * シングルバイト文字セットの変換表を用いて、バイトデータと文字列を相互に変換するクラス。
+ * <p>
+ * 1バイトが常に1文字に対応する文字セット（EBCDIC(CP037など)、ISO-8859-x、US-ASCIIなど）について、
+ * 256バイト分の文字の変換表と、その逆引きの変換表を事前に作成しておく。
+ * 変換表は、各バイトを文字セットで個別に変換した結果から作成するため、
+ * 変換結果は{@link String#String(byte[], Charset)}および{@link String#getBytes(Charset)}と一致する。
+ * </p>
+ * <p>
+ * 変換表は文字セットごとに1つだけ作成し、全てのデータタイプで共有する。
+ * </p>
+ */
+final class SingleByteCodec {
+
+    /** 文字セットごとの変換表 */
+    private static final ConcurrentMap<Charset, SingleByteCodec> CODECS
+            = new ConcurrentHashMap<Charset, SingleByteCodec>();
+
+    /** シングルバイト文字セットではないことを表す値 */
+    private static final SingleByteCodec NOT_SINGLE_BYTE = new SingleByteCodec();
+
+    /** 逆引きの変換表で、変換表に存在しない文字を表す値 */
+    private static final short UNMAPPED = -1;
+
+    /** バイトから文字への変換表 */
+    private final char[] decodeTable;
+
+    /** 文字からバイトへの変換表（文字の上位8ビットごとのブロック） */
+    private final short[][] encodeTable;
+
+    /**
+     * シングルバイト文字セットではないことを表すインスタンスを生成する。
+     */
+    private SingleByteCodec() {
+        decodeTable = null;
+        encodeTable = null;
+    }
+
+    /**
+     * 文字セットの変換表を作成する。
+     *
+     * @param charset 文字セット
+     * @param decodeTable バイトから文字への変換表
+     */
+    private SingleByteCodec(Charset charset, char[] decodeTable) {
+        this.decodeTable = decodeTable;
+        this.encodeTable = new short[256][];
+        for (char c : decodeTable) {
+            short[] block = encodeTable[c >>> 8];
+            if (block == null) {
+                block = new short[256];
+                Arrays.fill(block, UNMAPPED);
+                encodeTable[c >>> 8] = block;
+            }
+            if (block[c & 0xFF] != UNMAPPED) {
+                continue;
+            }
+            byte[] bytes = String.valueOf(c).getBytes(charset);
+            if (bytes.length == 1) {
+                block[c & 0xFF] = (short) (bytes[0] & 0xFF);
+            }
+        }
+    }
+
+    /**
+     * 文字セットに対応する変換表を取得する。
+     *
+     * @param charset 文字セット
+     * @return 変換表（シングルバイト文字セットではない場合はnull）
+     */
+    static SingleByteCodec forCharset(Charset charset) {
+        SingleByteCodec codec = CODECS.get(charset);
+        if (codec == null) {
+            codec = create(charset);
+            SingleByteCodec current = CODECS.putIfAbsent(charset, codec);
+            if (current != null) {
+                codec = current;
+            }
+        }
+        return codec == NOT_SINGLE_BYTE ? null : codec;
+    }
+
+    /**
+     * 文字セットの変換表を作成する。
+     *
+     * @param charset 文字セット
+     * @return 変換表（シングルバイト文字セットではない場合は{@link #NOT_SINGLE_BYTE}）
+     */
+    private static SingleByteCodec create(Charset charset) {
+        if (!charset.canEncode()
+                || charset.newEncoder().maxBytesPerChar() != 1.0f
+                || charset.newDecoder().maxCharsPerByte() != 1.0f) {
+            return NOT_SINGLE_BYTE;
+        }
+        char[] decodeTable = new char[256];
+        for (int i = 0; i < decodeTable.length; i++) {
+            String str = new String(new byte[] {(byte) i}, charset);
+            if (str.length() != 1) {
+                return NOT_SINGLE_BYTE;
+            }
+            decodeTable[i] = str.charAt(0);
+        }
+        return new SingleByteCodec(charset, decodeTable);
+    }
+
+    /**
+     * バイトを文字に変換する。
+     *
+     * @param b バイト
+     * @return 文字
+     */
+    char decode(byte b) {
+        return decodeTable[b & 0xFF];
+    }
+
+    /**
+     * 指定された範囲のバイトデータを文字列に変換する。
+     *
+     * @param buff   バイト配列
+     * @param offset 変換する範囲の開始位置
+     * @param length 変換する範囲のバイト長
+     * @return 文字列
+     */
+    String decode(byte[] buff, int offset, int length) {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = decodeTable[buff[offset + i] & 0xFF];
+        }
+        return new String(chars);
+    }
+
+    /**
+     * 文字列を変換し、書き込み先のバイト配列に直接書き込む。
+     * <p/>
+     * 変換表に存在しない文字を含む場合は-1を返却する（途中まで書き込まれた内容は不定となる）。
+     * 呼び出し元は、{@link String#getBytes(Charset)}による変換を行うこと。
+     *
+     * @param str    文字列
+     * @param buff   書き込み先のバイト配列（文字列の長さ以上の領域があること）
+     * @param offset 書き込み先の開始位置
+     * @return 書き込んだバイト長（変換表に存在しない文字を含む場合は-1）
+     */
+    int encode(String str, byte[] buff, int offset) {
+        int length = str.length();
+        for (int i = 0; i < length; i++) {
+            char c = str.charAt(i);
+            short[] block = encodeTable[c >>> 8];
+            if (block == null || block[c & 0xFF] == UNMAPPED) {
+                return -1;
+            }
+            buff[offset + i] = (byte) block[c & 0xFF];
+        }
+        return length;
+    }
+}
@@ -3,6 +3,7 @@ package nablarch.core.dataformat.convertor.datatype;
 import static nablarch.core.util.Builder.concat;
 
 import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.util.Arrays;
 
 import nablarch.core.dataformat.InvalidDataFormatException;
@@ -58,9 +59,19 @@ import nablarch.core.dataformat.SyntaxErrorException;
  * この桁数とは、出力対象のデータから小数点を取り除き、BigDecimalの場合はスケールに従い変換した後の桁数のことを指す。<br/>
  * (※処理を高速化するために内部的に出力対象データをlong型に変換し扱っているので、このような桁数の制約を設けている）
  * </p>
+ * <p>
+ * ただし、フィールドの桁数（バイト長）が19桁以上の場合は、内部的にBigInteger型を使用し、
+ * フィールドの桁数までの数値を読み書きできる。この場合も、値が18桁以下であればlong型で処理する。
+ * </p>
  * @author Iwauo Tajima
  */
-public class ZonedDecimal extends ByteStreamDataSupport<BigDecimal> {
+public class ZonedDecimal extends ByteStreamDataSupport<BigDecimal> implements LongDecodable {
+
+    /** サブクラスが{@link #convertOnRead(byte[])}をオーバーライドしているかどうか */
+    private final boolean legacyRead = isConvertOnReadOverridden(ZonedDecimal.class);
+
+    /** サブクラスが{@link #convertOnWrite(Object)}をオーバーライドしているかどうか */
+    private final boolean legacyWrite = isConvertOnWriteOverridden(ZonedDecimal.class);
 
     /** 符号付き数値であればtrue */
     private boolean signed = false;
@@ -112,38 +123,105 @@ public class ZonedDecimal extends ByteStreamDataSupport<BigDecimal> {
     /** {@inheritDoc} */
     @Override
     public BigDecimal convertOnRead(byte[] buff) {
-        if (convertEmptyToNull && buff.length == 0) {
+        return decode(buff, 0, buff.length);
+    }
+
+    /** {@inheritDoc}
+     * この実装では、バイト配列のコピーを行わずに指定された範囲を直接読み込む。
+     * ただし、サブクラスが{@link #convertOnRead(byte[])}をオーバーライドしている場合は、
+     * 指定された範囲をコピーしたバイト配列を引数にその変換処理を呼び出す。
+     */
+    @Override
+    public BigDecimal convertOnRead(byte[] buff, int offset, int length) {
+        if (legacyRead) {
+            return super.convertOnRead(buff, offset, length);
+        }
+        return decode(buff, offset, length);
+    }
+
+    /**
+     * バイト配列の指定された範囲を読み込む。
+     * <p/>
+     * 18桁以下の場合はlong値として読み込み、19桁以上の場合は18桁ごとに読み込んだ値をBigIntegerに連結する。
+     *
+     * @param buff   入力データを含むバイト配列
+     * @param offset 入力データの開始位置
+     * @param length 入力データのバイト長
+     * @return 読み込んだ数値
+     */
+    private BigDecimal decode(byte[] buff, int offset, int length) {
+        if (convertEmptyToNull && length == 0) {
             return null;
         }
+        if (!isWide()) {
+            return BigDecimal.valueOf(decodeLong(buff, offset, length), this.scale);
+        }
+
+        int last = offset + getSize() - 1;
+        boolean negative = isNegative(buff[last]);
+        BigInteger high = null;
+        long low = 0;
+        int lowDigits = 0;
+        for (int pos = offset; pos <= last; pos++) {
+            if (lowDigits == DecimalHelper.LONG_DIGITS) {
+                high = DecimalHelper.append(high, low, lowDigits);
+                low = 0;
+                lowDigits = 0;
+            }
+            low = low * 10 + toDigit(buff[pos], pos == last);
+            lowDigits++;
+        }
+        BigInteger num = DecimalHelper.append(high, low, lowDigits);
+        return DecimalHelper.valueOf(negative ? num.negate() : num, this.scale);
+    }
 
+    /** {@inheritDoc}
+     * この実装では、バイト長が18以下の場合に{@code true}を返却する。
+     * ただし、サブクラスが{@link #convertOnRead(byte[])}をオーバーライドしている場合は{@code false}を返却する。
+     */
+    public boolean isLongDecodable() {
+        return getSize() != null && getSize() > 0 && !isWide()
+                && !legacyRead;
+    }
+
+    /** {@inheritDoc} */
+    public long decodeLong(byte[] buff, int offset, int length) {
+        int last = offset + getSize() - 1;
+        boolean negative = getSize() > 0 && isNegative(buff[last]);
         long num = 0;
-        long scale = 1;
-        boolean negative = false;
-        for (int i = 1; i <= getSize(); i++) {
-            byte digit = buff[getSize() - i];
-            byte upperNibble = (byte) (digit & 0xF0);
-            byte lowerNibble = (byte) (digit & 0x0F);
+        for (int pos = offset; pos <= last; pos++) {
+            num = num * 10 + toDigit(buff[pos], pos == last);
+        }
+        return negative ? -num : num;
+    }
+
+    /**
+     * 末尾のバイトから、値が負数かどうかを判定する。
+     * @param digit 末尾のバイト
+     * @return 負数の場合は{@code true}
+     */
+    private boolean isNegative(byte digit) {
+        return signed && (byte) (digit & 0xF0) == getZoneSignNibbleNegative();
+    }
 
-            if (i == 1 && signed) {
-                if (upperNibble == getZoneSignNibbleNegative()) {
-                    negative = true;
-                } else if (upperNibble == getZoneSignNibblePositive()) {
-                    negative = false;
-                } else {
-                    throw new InvalidDataFormatException("invalid zone bits was specified.");
-                }
-            } else {
-                if (upperNibble != zoneNibble) {
-                    throw new InvalidDataFormatException("invalid zone bits was specified.");
-                }
+    /**
+     * ゾーンビットを検証し、1バイトを1桁の値に変換する。
+     * @param digit 変換対象のバイト
+     * @param last 末尾のバイトの場合は{@code true}
+     * @return 1桁の値（下位4ビットの値）
+     */
+    private int toDigit(byte digit, boolean last) {
+        byte upperNibble = (byte) (digit & 0xF0);
+        if (last && signed) {
+            if (upperNibble != getZoneSignNibbleNegative() && upperNibble != getZoneSignNibblePositive()) {
+                throw new InvalidDataFormatException("invalid zone bits was specified.");
+            }
+        } else {
+            if (upperNibble != zoneNibble) {
+                throw new InvalidDataFormatException("invalid zone bits was specified.");
             }
-            num += lowerNibble * scale;
-            scale *= 10;
-        }
-        if (negative) {
-            num *= (-1);
         }
-        return BigDecimal.valueOf(num, this.scale);
+        return digit & 0x0F;
     }
 
     /** {@inheritDoc}
@@ -152,32 +230,101 @@ public class ZonedDecimal extends ByteStreamDataSupport<BigDecimal> {
      * <ul>
      * <li>null</li>
      * <li>BigDecimalに変換できないオブジェクト</li>
-     * <li>データから小数点を取り除き、またBigDecimalの場合はスケーリングした後の桁数が19桁以上の場合</li>
+     * <li>データから小数点を取り除き、またBigDecimalの場合はスケーリングした後の桁数が19桁以上の場合（バイト長が18以下の場合）</li>
+     * <li>データから小数点を取り除き、またBigDecimalの場合はスケーリングした後の桁数がバイト長を超える場合（バイト長が19以上の場合）</li>
      * </ul>
      */
     @Override
     public byte[] convertOnWrite(Object data) {
+        if (isWide()) {
+            BigInteger digits = DecimalHelper.toUnscaledBigIntegerValue(data, getSize());
+            byte[] bytes = new byte[getSize()];
+            write(digits, bytes, 0);
+            return bytes;
+        }
         long digits = DecimalHelper.toUnscaledLongValue(data);
-        
+        byte[] bytes = new byte[getSize()];
+        write(digits, bytes, 0);
+        return bytes;
+    }
+
+    /** {@inheritDoc}
+     * この実装では、変換後のゾーン10進数値を書き込み先のバイト配列に直接書き込む。
+     * ただし、サブクラスが{@link #convertOnWrite(Object)}をオーバーライドしている場合は、
+     * その変換処理で変換したバイト配列をコピーする。
+     */
+    @Override
+    public void convertOnWrite(Object data, byte[] buff, int offset) {
+        if (legacyWrite) {
+            super.convertOnWrite(data, buff, offset);
+        } else if (isWide()) {
+            write(DecimalHelper.toUnscaledBigIntegerValue(data, getSize()), buff, offset);
+        } else {
+            write(DecimalHelper.toUnscaledLongValue(data), buff, offset);
+        }
+    }
+
+    /**
+     * 19桁以上の数値を扱うフィールドかどうかを判定する。
+     * @return バイト長が19以上の場合はtrue
+     */
+    private boolean isWide() {
+        return getSize() != null && getSize() > DecimalHelper.LONG_DIGITS;
+    }
+
+    /**
+     * スケールなしの値をゾーン10進数値に変換し、バイト配列の指定された位置に書き込む。
+     * @param digits スケールなしの値
+     * @param buff   書き込み先のバイト配列
+     * @param offset 書き込みを開始する位置
+     */
+    private void write(long digits, byte[] buff, int offset) {
         boolean negative = (digits < 0);
         if (negative) {
             digits *= -1;
         }
-        byte[] bytes = new byte[getSize()];
-        long scale = 1;
-        for (int i = 1; i <= getSize(); i++) {
-            byte digit      = (byte) ((digits % (scale * 10)) / scale);
-            byte zoneNibble = (!signed || i != 1) ? this.zoneNibble
+        int last = offset + getSize() - 1;
+        for (int i = 0; i < getSize(); i++) {
+            byte digit      = (byte) (digits % 10);
+            byte zoneNibble = (!signed || i != 0) ? this.zoneNibble
                             : negative            ? getZoneSignNibbleNegative()
                             : getZoneSignNibblePositive();
                             
-            bytes[getSize() - i] = (byte) ((digit & 0x0F) | zoneNibble);
-            scale *= 10;
+            buff[last - i] = (byte) ((digit & 0x0F) | zoneNibble);
+            digits /= 10;
+        }
+    }
+
+    /**
+     * スケールなしの値（19桁以上）をゾーン10進数値に変換し、バイト配列の指定された位置に書き込む。
+     * @param digits スケールなしの値
+     * @param buff   書き込み先のバイト配列
+     * @param offset 書き込みを開始する位置
+     */
+    private void write(BigInteger digits, byte[] buff, int offset) {
+        if (digits.bitLength() < Long.SIZE) {
+            write(digits.longValue(), buff, offset);
+            return;
+        }
+        boolean negative = (digits.signum() < 0);
+        String str = digits.abs().toString();
+        int last = offset + getSize() - 1;
+        for (int i = 0; i < getSize(); i++) {
+            byte digit      = (byte) (i < str.length() ? str.charAt(str.length() - 1 - i) - '0' : 0);
+            byte zoneNibble = (!signed || i != 0) ? this.zoneNibble
+                            : negative            ? getZoneSignNibbleNegative()
+                            : getZoneSignNibblePositive();
+
+            buff[last - i] = (byte) (digit | zoneNibble);
         }
-        return bytes;
     }
 
     // ------------------------------------------------------ accessors
+    /** {@inheritDoc} */
+    public int getScale() {
+        return scale;
+    }
+
     /**
      * 符号付きの整数として処理するかどうかを設定する。
      * @param signed 符号付きの整数として扱う場合はtrue
@@ -1,29 +1,29 @@
 package nablarch.core.util;
 
 import java.io.IOException;
+import java.io.Reader;
 import java.io.StringReader;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Stack;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
  * JSON解析用ユーティリティ
+ * <p/>
+ * トークンの読み込みには{@link JsonTokenizer}を使用する。
  *
  * @author TIS
  */
 public final class JsonParser {
 
-    /** 文字列読み込み用リーダー */
-    private StringReader reader;
-
     /** 解析中オブジェクトのスタック */
-    private final Stack<Map<String, Object>> mapStack = new Stack<Map<String, Object>>();
+    private final Deque<Map<String, Object>> mapStack = new ArrayDeque<Map<String, Object>>();
     /** 解析中配列のスタック */
-    private final Stack<List<Object>> listStack = new Stack<List<Object>>();
+    private final Deque<List<Object>> listStack = new ArrayDeque<List<Object>>();
 
     /** ルートマップ */
     private Map<String, Object> rootMap = null;
@@ -43,30 +43,13 @@ public final class JsonParser {
     /** トークン種別 */
     public enum TokenType {
         /** 文字列 */
-        STRING("^\"(.*)\"$") {
-            /**{@inheritDoc}<br>
-             * この実装ではトークンのクオーテーションを除去したものに対して、
-             * アンエスケープ処理を実施します。
-             */
-            @Override
-            String editTokenValue(String token) {
-                return unescape(token.substring(1, token.length() - 1));
-            }
-        },
+        STRING("^\"(.*)\"$"),
         /** 数値 */
         NUMERIC("-?[0-9]+(\\.[0-9]+)?([eE][-+]?[0-9]+)?"),
         /** 真偽値 */
         BOOL("false|true"),
         /** null */
-        NULL("null") {
-            /**{@inheritDoc}<br>
-             * この実装ではnullを返却します。
-             */
-            @Override
-            String editTokenValue(String token) {
-                return null;
-            }
-        },
+        NULL("null"),
         /** セパレータ */
         SEPARATOR("[\\[\\]\\{\\},:]");
 
@@ -81,16 +64,6 @@ public final class JsonParser {
             tokenPattern = Pattern.compile(patternRegex);
         }
 
-        /**
-         * トークンの値を編集します。
-         * デフォルトでは何もせずトークンをそのまま返却します。
-         * @param token トークン
-         * @return 編集されたトークン
-         */
-        String editTokenValue(String token) {
-            return token;
-        }
-
         /**
          * トークンがパターンにマッチするか判定します
          * @param token トークン
@@ -119,135 +92,126 @@ public final class JsonParser {
         // ルート要素の形式を確認
         checkTypeOfRootElement(text);
 
-        String token;
-        reader = new StringReader(text);
+        return parse(new StringReader(text));
+    }
 
-        // 行中からパターンにマッチするトークンを取得する
-        while ((token = readNextToken()) != null) {
-            token = token.trim();
-            if (token.isEmpty()) {
-                continue;
-            }
+    /**
+     * JSONを読み込みながら解析し、単純なMapを作成します。
+     * <p/>
+     * JSON全体を文字列として保持せずに、読み込んだトークンから順にMapを作成します。
+     *
+     * @param reader JSONの読み込み元
+     * @return データ形式変換および階層構造変換を行った単純なMap
+     * @throws IOException 読み込みに伴うIO処理で問題が発生した場合
+     */
+    public Map<String, ?> parse(Reader reader) throws IOException {
+        JsonTokenizer tokenizer = new JsonTokenizer(reader);
+        boolean first = true;
 
-            if ("{".equals(token)) {
-                // オブジェクトの開始
-                onStartObject();
+        while (tokenizer.next() != null) {
+            if (first && !isSeparator(tokenizer, "{")) {
+                throw new IllegalArgumentException("JSON data must starts with '{'");
+            }
+            first = false;
 
-            } else if ("}".equals(token)) {
-                // オブジェクトの終了
-                onEndObject();
+            processToken(tokenizer);
+        }
 
-            } else if ("[".equals(token)) {
-                // 配列の開始
-                onStartArray();
+        if (first) {
+            throw new IllegalArgumentException("JSON data must starts with '{'");
+        }
+        if (lastTokenType != TokenType.SEPARATOR || !"}".equals(lastToken)) {
+            throw new IllegalArgumentException("JSON data must ends with '}'");
+        }
+        return rootMap;
+    }
 
-            } else if ("]".equals(token)) {
-                // 配列の終了
-                onEndArray();
+    /**
+     * トークナイザから1つのオブジェクトを読み込んで解析し、単純なMapを作成します。
+     * <p/>
+     * トークナイザは、オブジェクトの開始（'{'）を読み込んだ状態で渡す必要があります。
+     * 対応するオブジェクトの終了（'}'）まで読み込み、以降のトークンは読み込みません。
+     * 配列の要素を1つずつ解析する場合に使用します。
+     *
+     * @param tokenizer オブジェクトの開始を読み込んだトークナイザ
+     * @return データ形式変換および階層構造変換を行った単純なMap
+     * @throws IOException 読み込みに伴うIO処理で問題が発生した場合
+     */
+    public Map<String, ?> parseObject(JsonTokenizer tokenizer) throws IOException {
+        if (!isSeparator(tokenizer, "{")) {
+            throw new IllegalArgumentException("JSON data must starts with '{'");
+        }
+        processToken(tokenizer);
 
-            } else if (":".equals(token)) {
-                // キーセパレータの検出
-                onKeySeparator();
+        // ルートのオブジェクトが終了すると、解析中オブジェクトはnullとなる
+        while (currentMap != null) {
+            if (tokenizer.next() == null) {
+                throw new IllegalArgumentException("JSON data must ends with '}'");
+            }
+            processToken(tokenizer);
+        }
+        return rootMap;
+    }
 
-            } else if (",".equals(token)) {
-                // 項目セパレータの検出
-                onItemSeparator();
+    /**
+     * トークナイザが読み込んだトークンを処理します。
+     *
+     * @param tokenizer トークナイザ
+     */
+    private void processToken(JsonTokenizer tokenizer) {
+        TokenType tokenType = tokenizer.getTokenType();
+        String token = tokenizer.getValue();
 
-            } else if (lastTokenType != TokenType.SEPARATOR) {
+        if (tokenType != TokenType.SEPARATOR) {
+            if (lastTokenType != TokenType.SEPARATOR) {
                 // 前回トークンがセパレータでない場合はエラー
-                throw new IllegalArgumentException("last token is not separator. token:[" + token + "]");
+                throw new IllegalArgumentException(
+                        "last token is not separator. token:[" + tokenizer.getToken() + "]");
 
             } else if (currentMap == null) {
-                throw new IllegalArgumentException("current object is null. token:[" + token + "]");
+                throw new IllegalArgumentException(
+                        "current object is null. token:[" + tokenizer.getToken() + "]");
             }
 
-            // 前回トークンとして保持
-            setLastToken(token);
+        } else if ("{".equals(token)) {
+            // オブジェクトの開始
+            onStartObject();
+
+        } else if ("}".equals(token)) {
+            // オブジェクトの終了
+            onEndObject();
+
+        } else if ("[".equals(token)) {
+            // 配列の開始
+            onStartArray();
+
+        } else if ("]".equals(token)) {
+            // 配列の終了
+            onEndArray();
+
+        } else if (":".equals(token)) {
+            // キーセパレータの検出
+            onKeySeparator();
+
+        } else if (",".equals(token)) {
+            // 項目セパレータの検出
+            onItemSeparator();
         }
 
-        return rootMap;
+        // 前回トークンとして保持
+        lastToken = token;
+        lastTokenType = tokenType;
     }
 
     /**
-     * 次のトークンを読み込みます
-     * @return 次のトークン
-     * @throws IOException 読み込みに伴うIO処理で問題が発生した場合
+     * トークナイザが読み込んだトークンが、指定したセパレータかどうかを判定します。
      *
+     * @param tokenizer トークナイザ
+     * @param separator セパレータ
+     * @return 指定したセパレータの場合true
      */
-    private String readNextToken() throws IOException {
-            int c;
-            StringBuilder sb = new StringBuilder();
-            boolean isInQuote = false;
-            boolean isEscape = false;
-            while (true) {
-                reader.mark(1);
-                c = reader.read();
-
-                if (c == -1) {
-                    // 文字列の終了
-                    if (sb.length() > 0) {
-                        return sb.toString();
-                    } else {
-                        return null;
-                    }
-                }
-
-                if (c == '\\') {
-                    // バックスラッシュ
-                    // エスケープが未開始の場合はエスケープを開始し、既にエスケープ中の場合はバックスラッシュをエスケープ対象として解釈し、エスケープを終了する。
-                    isEscape = !isEscape;
-
-                    sb.append((char) c);
-
-                } else {
-                    if (c == '\"') {
-                        // ダブルクォートの場合
-                        if (isEscape) {
-                            // エスケープされている場合はそのまま保持
-                            sb.append((char) c);
-
-                        } else if (!isInQuote) {
-                            // クォート開始
-                            isInQuote = true;
-                            sb.append((char) c);
-
-                        } else {
-                            // クォート終了
-                            sb.append((char) c);
-                            return sb.toString();
-                        }
-
-
-                    } else if (c == ' ' || c == '\t') {
-                        // ホワイトスペース
-                        if (isInQuote) {
-                            sb.append((char) c);
-                        }
-
-                    } else if (c == '{' || c == '}' || c == '[' || c == ']' || c == ':' || c == ',') {
-                        // セパレータ
-                        if (isInQuote) {
-                            sb.append((char) c);
-
-                        } else {
-                            if (sb.length() > 0) {
-                                // バッファにデータが存在する場合一旦リセットして次回読み込み時にセパレータを返却
-                                reader.reset();
-                            } else {
-                                sb.append((char) c);
-                            }
-                            return sb.toString();
-                        }
-
-                    } else {
-                        // その他の文字はバッファに保持
-                        sb.append((char) c);
-                    }
-
-                    isEscape = false;
-                }
-
-            }
+    private static boolean isSeparator(JsonTokenizer tokenizer, String separator) {
+        return tokenizer.getTokenType() == TokenType.SEPARATOR && separator.equals(tokenizer.getValue());
     }
 
     /**
@@ -295,7 +259,7 @@ public final class JsonParser {
             throw new IllegalArgumentException("incorrect object starting position");
         }
 
-        mapStack.push(currentMap);
+        push(mapStack, currentMap);
         currentMap = newMap;
     }
 
@@ -330,7 +294,7 @@ public final class JsonParser {
         if (lastTokenType == TokenType.SEPARATOR && ":".equals(lastToken)) {
             List<Object> newList = new ArrayList<Object>();
             currentMap.put(currentKey, newList);
-            listStack.push(currentList);
+            push(listStack, currentList);
             currentList = newList;
         } else {
             throw new IllegalArgumentException("array is need start after :");
@@ -390,99 +354,32 @@ public final class JsonParser {
     }
 
     /**
-     * スタックからデータを取り出します。
-     * スタックが空の場合はnullを返します。
+     * スタックにデータを積みます。
+     * データがnullの場合は積みません。
+     * <p/>
+     * nullとなるのはルートの要素を解析している場合のみで、
+     * 取り出す際にはスタックが空であればnullを返すため、積まなくても結果は変わりません。
      *
      * @param <T> スタック内のデータ型
      * @param stack 対象スタック
-     * @return データ
-     */
-    private <T> T pop(Stack<T> stack) {
-        if (stack.isEmpty()) {
-            return null;
-        } else {
-            return stack.pop();
-        }
-    }
-
-    /** コードポイントエスケープ検出用のパターン */
-    private static final Pattern CODE_POINT_ESCAPE = Pattern.compile("\\\\u([0-9a-fA-F]{4})");
-
-    /**
-     * 文字列のリテラルに対してアンエスケープ処理を行います。
-     *
-     * @param token トークン
-     * @return アンエスケープ処理後のトークン
+     * @param data データ
      */
-    private static String unescape(String token) {
-
-        StringBuilder unescapeToken = new StringBuilder();
-        char[] tokenCharArray = token.toCharArray();
-        for (int i = 0; i < tokenCharArray.length; i++) {
-            char tokenChar = tokenCharArray[i];
-            if (tokenChar == '\\') {
-                char next  = tokenCharArray[i + 1];
-                switch (next) {
-                    case '"': unescapeToken.append("\""); i++; break;
-                    case '\\': unescapeToken.append("\\");  i++; break;
-                    case '/': unescapeToken.append("/");  i++; break;
-                    case 'b': unescapeToken.append("\b"); i++; break;
-                    case 'f': unescapeToken.append("\f"); i++; break;
-                    case 'n': unescapeToken.append("\n"); i++; break;
-                    case 'r': unescapeToken.append("\r"); i++; break;
-                    case 't': unescapeToken.append("\t"); i++; break;
-                    case 'u':
-
-                    if (tokenCharArray.length < i + 6) {
-                        throw new IllegalArgumentException(
-                                "found invalid unicode string :" + token);
-                    }
-
-                    String unicodeChar = token.substring(i, i + 6); // \\uXXXXの形式を想定
-                        Matcher m = CODE_POINT_ESCAPE.matcher(unicodeChar);
-                        StringBuffer sb = new StringBuffer();
-                        while (m.find()) {
-                            int codePoint = Integer.parseInt(m.group(1), 16);
-                            if (codePoint == 92) {
-                                // appendReplacement は\(u005C)のみの場合、エスケープ処理をしようと後ろのエスケープ対象を探し、エラーが発生する。\\を置換文字列として渡し、appendReplacement にエスケープ処理をさせることで回避。
-                                m.appendReplacement(sb, "\\\\");
-                            } else {
-                                m.appendReplacement(sb, new String(Character.toChars(codePoint)));
-                            }
-                        }
-                        m.appendTail(sb);
-                    unescapeToken.append(sb); i = i + 5; break;
-                    default :
-                        throw new IllegalArgumentException(
-                                "found invalid json format :" + token);
-                }
-            } else {
-                unescapeToken.append(tokenChar);
-            }
+    private <T> void push(Deque<T> stack, T data) {
+        if (data != null) {
+            stack.push(data);
         }
-
-        return unescapeToken.toString();
     }
 
     /**
-     * 前回トークンを設定します。
+     * スタックからデータを取り出します。
+     * スタックが空の場合はnullを返します。
      *
-     * @param token トークン
+     * @param <T> スタック内のデータ型
+     * @param stack 対象スタック
+     * @return データ
      */
-    private void setLastToken(String token) {
-        lastToken = null;
-        lastTokenType = null;
-
-        for (TokenType type : TokenType.values()) {
-            if (type.matches(token)) {
-                lastTokenType = type;
-                lastToken  = type.editTokenValue(token);
-                break;
-            }
-        }
-        if (lastTokenType == null) {
-            throw new IllegalArgumentException("found invalid token:" + token);
-        }
+    private <T> T pop(Deque<T> stack) {
+        return stack.poll();
     }
 
 }
@@ -0,0 +1,429 @@
+package nablarch.core.util;
+
+import java.io.IOException;
+import java.io.Reader;
+
+import nablarch.core.util.JsonParser.TokenType;
+
+/**
+ * JSONのトークンを入力から順に読み込むトークナイザ。
+ * <p/>
+ * 入力全体を文字列として保持せずに、内部のバッファに読み込んだ文字を走査してトークンを切り出す。
+ * トークンの種別は、正規表現を使用せずに文字列、数値、リテラルの文法に従って判定する。
+ * <p/>
+ * 文字列のトークンは、囲み文字を除去してアンエスケープした値を返却する。
+ * 数値と真偽値のトークンは入力された文字列をそのまま返却し、nullのトークンはnullを返却する。
+ * <p/>
+ * 本クラスはスレッドセーフではない。
+ *
+ * @see JsonParser
+ */
+public final class JsonTokenizer {
+
+    /** バッファのサイズ（文字数） */
+    private static final int BUFFER_SIZE = 8192;
+
+    /** オブジェクトの開始 */
+    private static final String START_OBJECT = "{";
+
+    /** オブジェクトの終了 */
+    private static final String END_OBJECT = "}";
+
+    /** 配列の開始 */
+    private static final String START_ARRAY = "[";
+
+    /** 配列の終了 */
+    private static final String END_ARRAY = "]";
+
+    /** キーセパレータ */
+    private static final String KEY_SEPARATOR = ":";
+
+    /** 項目セパレータ */
+    private static final String ITEM_SEPARATOR = ",";
+
+    /** 読み込み元 */
+    private final Reader reader;
+
+    /** バッファ */
+    private final char[] buffer = new char[BUFFER_SIZE];
+
+    /** バッファ内の読み込み位置 */
+    private int pos = 0;
+
+    /** バッファ内の有効な文字数 */
+    private int limit = 0;
+
+    /** トークンの組み立てに使用するバッファ */
+    private final StringBuilder tokenBuilder = new StringBuilder();
+
+    /** 読み込んだトークンの種別 */
+    private TokenType tokenType;
+
+    /** 読み込んだトークンの値 */
+    private String value;
+
+    /**
+     * コンストラクタ。
+     * <p/>
+     * 本クラスが読み込み元をバッファリングするため、{@link java.io.BufferedReader}でラップする必要はない。
+     *
+     * @param reader 読み込み元
+     */
+    public JsonTokenizer(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * 次のトークンを読み込む。
+     *
+     * @return 読み込んだトークンの種別（入力の終端に達した場合はnull）
+     * @throws IOException 読み込みに伴うIO処理で問題が発生した場合
+     * @throws IllegalArgumentException 不正なトークンを読み込んだ場合
+     */
+    public TokenType next() throws IOException {
+        int c = skipWhiteSpace();
+        if (c == -1) {
+            tokenType = null;
+            value = null;
+            return null;
+        }
+        switch (c) {
+            case '{':
+                return separator(START_OBJECT);
+            case '}':
+                return separator(END_OBJECT);
+            case '[':
+                return separator(START_ARRAY);
+            case ']':
+                return separator(END_ARRAY);
+            case ':':
+                return separator(KEY_SEPARATOR);
+            case ',':
+                return separator(ITEM_SEPARATOR);
+            case '"':
+                pos++;
+                value = readString();
+                tokenType = TokenType.STRING;
+                return tokenType;
+            default:
+                readLiteral();
+                return tokenType;
+        }
+    }
+
+    /**
+     * 読み込んだトークンの種別を返却する。
+     *
+     * @return トークンの種別（トークンを読み込んでいない場合や、入力の終端に達した場合はnull）
+     */
+    public TokenType getTokenType() {
+        return tokenType;
+    }
+
+    /**
+     * 読み込んだトークンの値を返却する。
+     * <p/>
+     * セパレータの場合はセパレータの文字、文字列の場合はアンエスケープした値、
+     * 数値と真偽値の場合は入力された文字列、nullの場合はnullを返却する。
+     *
+     * @return トークンの値
+     */
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     * 読み込んだトークンを、入力された形式で返却する。
+     * <p/>
+     * エラーメッセージに使用することを想定している。
+     * 文字列の場合は、アンエスケープした値を囲み文字で囲んで返却する。
+     *
+     * @return トークン
+     */
+    public String getToken() {
+        if (tokenType == TokenType.STRING) {
+            return '"' + value + '"';
+        }
+        if (tokenType == TokenType.NULL) {
+            return "null";
+        }
+        return value;
+    }
+
+    /**
+     * 空白文字を読み飛ばし、次の文字を返却する。
+     * <p/>
+     * 読み込み位置は、返却した文字の位置のままとする。
+     *
+     * @return 次の文字（入力の終端に達した場合は-1）
+     * @throws IOException 読み込みに伴うIO処理で問題が発生した場合
+     */
+    private int skipWhiteSpace() throws IOException {
+        while (true) {
+            if (pos == limit && !fill()) {
+                return -1;
+            }
+            char c = buffer[pos];
+            if (c > ' ') {
+                return c;
+            }
+            pos++;
+        }
+    }
+
+    /**
+     * セパレータを読み込む。
+     *
+     * @param separator セパレータ
+     * @return トークンの種別
+     */
+    private TokenType separator(String separator) {
+        pos++;
+        value = separator;
+        tokenType = TokenType.SEPARATOR;
+        return tokenType;
+    }
+
+    /**
+     * 文字列を、終了の囲み文字まで読み込む。
+     *
+     * @return アンエスケープした文字列
+     * @throws IOException 読み込みに伴うIO処理で問題が発生した場合
+     */
+    private String readString() throws IOException {
+        StringBuilder sb = tokenBuilder;
+        sb.setLength(0);
+        while (true) {
+            if (pos == limit && !fill()) {
+                throw new IllegalArgumentException("found invalid token:\"" + sb);
+            }
+            // エスケープや終了の囲み文字が現れるまでの文字は、まとめて追加する
+            int start = pos;
+            while (pos < limit) {
+                char c = buffer[pos];
+                if (c == '"' || c == '\\' || isLineTerminator(c)) {
+                    break;
+                }
+                pos++;
+            }
+            sb.append(buffer, start, pos - start);
+            if (pos == limit) {
+                continue;
+            }
+            char c = buffer[pos++];
+            if (c == '"') {
+                return sb.toString();
+            }
+            if (c == '\\') {
+                readEscape(sb);
+            } else {
+                // 文字列に改行は含められない
+                throw new IllegalArgumentException("found invalid token:\"" + sb);
+            }
+        }
+    }
+
+    /**
+     * エスケープシーケンスを読み込み、アンエスケープした文字を追加する。
+     *
+     * @param sb 追加先
+     * @throws IOException 読み込みに伴うIO処理で問題が発生した場合
+     */
+    private void readEscape(StringBuilder sb) throws IOException {
+        int c = read();
+        switch (c) {
+            case '"': sb.append('"'); break;
+            case '\\': sb.append('\\'); break;
+            case '/': sb.append('/'); break;
+            case 'b': sb.append('\b'); break;
+            case 'f': sb.append('\f'); break;
+            case 'n': sb.append('\n'); break;
+            case 'r': sb.append('\r'); break;
+            case 't': sb.append('\t'); break;
+            case 'u':
+                int codePoint = 0;
+                for (int i = 0; i < 4; i++) {
+                    int digit = hexDigit(read());
+                    if (digit == -1) {
+                        throw new IllegalArgumentException("found invalid unicode string :" + sb);
+                    }
+                    codePoint = (codePoint << 4) | digit;
+                }
+                sb.append((char) codePoint);
+                break;
+            default:
+                throw new IllegalArgumentException("found invalid json format :" + sb);
+        }
+    }
+
+    /**
+     * 数値、真偽値、nullのいずれかのリテラルを読み込む。
+     * <p/>
+     * 空白文字、セパレータ、囲み文字のいずれかが現れるまでを一つのトークンとする。
+     *
+     * @throws IOException 読み込みに伴うIO処理で問題が発生した場合
+     */
+    private void readLiteral() throws IOException {
+        StringBuilder sb = tokenBuilder;
+        sb.setLength(0);
+        while (pos < limit || fill()) {
+            char c = buffer[pos];
+            if (c <= ' ' || c == '"' || c == '{' || c == '}' || c == '[' || c == ']' || c == ':' || c == ',') {
+                break;
+            }
+            sb.append(c);
+            pos++;
+        }
+        if (isNumeric(sb)) {
+            tokenType = TokenType.NUMERIC;
+            value = sb.toString();
+        } else if (contentEquals(sb, "true")) {
+            tokenType = TokenType.BOOL;
+            value = "true";
+        } else if (contentEquals(sb, "false")) {
+            tokenType = TokenType.BOOL;
+            value = "false";
+        } else if (contentEquals(sb, "null")) {
+            tokenType = TokenType.NULL;
+            value = null;
+        } else {
+            throw new IllegalArgumentException("found invalid token:" + sb);
+        }
+    }
+
+    /**
+     * 数値の形式（{@code -?[0-9]+(\.[0-9]+)?([eE][-+]?[0-9]+)?}）かどうかを判定する。
+     *
+     * @param token トークン
+     * @return 数値の形式の場合はtrue
+     */
+    private static boolean isNumeric(CharSequence token) {
+        int length = token.length();
+        int i = 0;
+        if (i < length && token.charAt(i) == '-') {
+            i++;
+        }
+        int digitsEnd = skipDigits(token, i);
+        if (digitsEnd == i) {
+            return false;
+        }
+        i = digitsEnd;
+        if (i < length && token.charAt(i) == '.') {
+            digitsEnd = skipDigits(token, i + 1);
+            if (digitsEnd == i + 1) {
+                return false;
+            }
+            i = digitsEnd;
+        }
+        if (i < length && (token.charAt(i) == 'e' || token.charAt(i) == 'E')) {
+            i++;
+            if (i < length && (token.charAt(i) == '-' || token.charAt(i) == '+')) {
+                i++;
+            }
+            digitsEnd = skipDigits(token, i);
+            if (digitsEnd == i) {
+                return false;
+            }
+            i = digitsEnd;
+        }
+        return i == length;
+    }
+
+    /**
+     * 数字を読み飛ばす。
+     *
+     * @param token トークン
+     * @param start 開始位置
+     * @return 数字以外の文字の位置
+     */
+    private static int skipDigits(CharSequence token, int start) {
+        int i = start;
+        while (i < token.length() && token.charAt(i) >= '0' && token.charAt(i) <= '9') {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * トークンが指定した文字列と一致するかどうかを判定する。
+     *
+     * @param token トークン
+     * @param literal 文字列
+     * @return 一致する場合はtrue
+     */
+    private static boolean contentEquals(StringBuilder token, String literal) {
+        if (token.length() != literal.length()) {
+            return false;
+        }
+        for (int i = 0; i < literal.length(); i++) {
+            if (token.charAt(i) != literal.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 16進数の文字を数値に変換する。
+     *
+     * @param c 文字
+     * @return 数値（16進数の文字でない場合は-1）
+     */
+    private static int hexDigit(int c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        return -1;
+    }
+
+    /**
+     * 改行文字かどうかを判定する。
+     *
+     * @param c 文字
+     * @return 改行文字の場合はtrue
+     */
+    private static boolean isLineTerminator(char c) {
+        if (c <= '\r') {
+            return c == '\n' || c == '\r';
+        }
+        return c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    /**
+     * 1文字読み込む。
+     *
+     * @return 読み込んだ文字（入力の終端に達した場合は-1）
+     * @throws IOException 読み込みに伴うIO処理で問題が発生した場合
+     */
+    private int read() throws IOException {
+        if (pos == limit && !fill()) {
+            return -1;
+        }
+        return buffer[pos++];
+    }
+
+    /**
+     * バッファに文字を読み込む。
+     *
+     * @return 文字を読み込んだ場合はtrue（入力の終端に達した場合はfalse）
+     * @throws IOException 読み込みに伴うIO処理で問題が発生した場合
+     */
+    private boolean fill() throws IOException {
+        int n;
+        do {
+            n = reader.read(buffer, 0, buffer.length);
+        } while (n == 0);
+        if (n == -1) {
+            return false;
+        }
+        pos = 0;
+        limit = n;
+        return true;
+    }
+}
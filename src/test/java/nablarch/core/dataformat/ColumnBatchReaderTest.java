@@ -0,0 +1,271 @@
+package nablarch.core.dataformat;
+
+import static nablarch.core.dataformat.DataFormatTestUtils.createFile;
+import static nablarch.core.dataformat.DataFormatTestUtils.writeFile;
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.HashSet;
+
+import nablarch.core.dataformat.ColumnBatch.Column;
+import nablarch.core.dataformat.ColumnBatch.ColumnType;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * {@link ColumnBatchReader}のテスト。
+ */
+public class ColumnBatchReaderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ColumnBatchReader reader;
+
+    @After
+    public void tearDown() {
+        if (reader != null) {
+            reader.close();
+        }
+    }
+
+    /**
+     * 固定長ファイルのレコードが、指定した件数ずつカラムに格納されること。
+     * ゾーン数値はスケールなしのlong値、文字列はStringとして格納されること。
+     */
+    @Test
+    public void testFixedLength() throws Exception {
+        File layoutFile = createLayoutFile(
+                "file-type:        \"Fixed\"",
+                "text-encoding:    \"ms932\"",
+                "record-length:    10",
+                "[Default]",
+                "1 branch X(2)",
+                "3 ?filler X(1)",
+                "4 count  Z(3)",
+                "7 rate   Z(4, 2)");
+        File dataFile = writeFile(new File(folder.getRoot(), "data.dat"), "B1 0010150B2 0020200B3 0030325", "ms932");
+        reader = new ColumnBatchReader(dataFile, layoutFile, 2);
+
+        ColumnBatch batch = reader.read();
+        assertThat(batch.getRecordType(), is("Default"));
+        assertThat(batch.size(), is(2));
+        assertThat(batch.capacity(), is(2));
+        assertThat(batch.getColumns().size(), is(3));
+        assertThat(batch.getRecordNumber(0), is(1));
+        assertThat(batch.getRecordNumber(1), is(2));
+
+        Column branch = batch.getColumn("branch");
+        assertThat(branch.getType(), is(ColumnType.STRING));
+        assertThat(branch.getStrings()[0], is("B1"));
+        assertThat(branch.getStrings()[1], is("B2"));
+
+        Column count = batch.getColumn("count");
+        assertThat(count.getType(), is(ColumnType.LONG));
+        assertThat(count.getLongs()[0], is(1L));
+        assertThat(count.getLongs()[1], is(2L));
+
+        Column rate = batch.getColumn("rate");
+        assertThat(rate.getType(), is(ColumnType.DECIMAL));
+        assertThat(rate.getLongs()[0], is(150L));
+        assertThat(rate.getScale(0), is(2));
+        assertThat(rate.getValue(1), is((Object) new BigDecimal("2.00")));
+
+        batch = reader.read();
+        assertThat(batch.size(), is(1));
+        assertThat(batch.getRecordNumber(0), is(3));
+        assertThat(batch.getColumn("branch").getStrings()[0], is("B3"));
+        assertThat(batch.getColumn("rate").getLongs()[0], is(325L));
+
+        assertThat(reader.read(), is(nullValue()));
+        assertThat(reader.getRecordNumberAsLong(), is(3L));
+
+        try {
+            batch.getColumn("count").getStrings();
+            fail();
+        } catch (IllegalStateException e) {
+            assertThat(e.getMessage(), containsString("column type was invalid."));
+        }
+        try {
+            batch.getColumn("unknown");
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), containsString("field name=[unknown]"));
+        }
+        try {
+            batch.getRecordNumber(1);
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+            assertThat(e.getMessage(), containsString("row was out of range."));
+        }
+    }
+
+    /**
+     * マルチレイアウトのファイルで、レコードタイプが切り替わった時点でバッチが区切られること。
+     */
+    @Test
+    public void testMultiLayout() throws Exception {
+        File layoutFile = createLayoutFile(
+                "file-type:        \"Fixed\"",
+                "text-encoding:    \"ms932\"",
+                "record-length:    4",
+                "[Classifier]",
+                "1 kbn X(1)",
+                "[Header]",
+                "kbn = \"1\"",
+                "1 kbn   X(1)",
+                "2 title X(3)",
+                "[Data]",
+                "kbn = \"2\"",
+                "1 kbn    X(1)",
+                "2 amount Z(3)");
+        File dataFile = writeFile(new File(folder.getRoot(), "data.dat"), "1ABC2001200220031DEF2004", "ms932");
+        reader = new ColumnBatchReader(dataFile, layoutFile, 10);
+
+        ColumnBatch batch = reader.read();
+        assertThat(batch.getRecordType(), is("Header"));
+        assertThat(batch.size(), is(1));
+        assertThat(batch.getColumn("title").getStrings()[0], is("ABC"));
+
+        batch = reader.read();
+        assertThat(batch.getRecordType(), is("Data"));
+        assertThat(batch.size(), is(3));
+        assertThat(batch.getRecordNumber(0), is(2));
+        assertThat(batch.getColumn("amount").getLongs()[2], is(3L));
+
+        batch = reader.read();
+        assertThat(batch.getRecordType(), is("Header"));
+        assertThat(batch.getRecordNumber(0), is(5));
+        assertThat(batch.getColumn("title").getStrings()[0], is("DEF"));
+
+        batch = reader.read();
+        assertThat(batch.getRecordType(), is("Data"));
+        assertThat(batch.size(), is(1));
+        assertThat(batch.getColumn("amount").getLongs()[0], is(4L));
+
+        assertThat(reader.read(), is(nullValue()));
+    }
+
+    /**
+     * 可変長ファイルの数値は、スケールなしのlong値と行ごとのスケールとして格納されること。
+     * 辞書のコードとして格納するフィールドは、同じ文字列に同じコードが割り当てられること。
+     */
+    @Test
+    public void testVariableLength() throws Exception {
+        File layoutFile = createLayoutFile(
+                "file-type:        \"Variable\"",
+                "text-encoding:    \"utf-8\"",
+                "record-separator: \"\\n\"",
+                "field-separator:  \",\"",
+                "quoting-delimiter: \"\\\"\"",
+                "[Default]",
+                "1 kbn    X",
+                "2 name   X",
+                "3 amount X number",
+                "4 rate   X signed_number");
+        File dataFile = writeFile(new File(folder.getRoot(), "data.dat"),
+                "A,\"x,y\",100,1.5\n"
+              + "B,z,,-0.25\n"
+              + "A,w,3,\n", "ms932");
+        reader = new ColumnBatchReader(dataFile, layoutFile, 5)
+                .setDictionaryEncodedFields(new HashSet<String>(Arrays.asList("kbn")));
+
+        ColumnBatch batch = reader.read();
+        assertThat(batch.size(), is(3));
+
+        Column kbn = batch.getColumn("kbn");
+        assertThat(kbn.getType(), is(ColumnType.DICTIONARY));
+        assertThat(kbn.getCodes()[0], is(0));
+        assertThat(kbn.getCodes()[1], is(1));
+        assertThat(kbn.getCodes()[2], is(0));
+        assertThat(kbn.getDictionary(), is(Arrays.asList("A", "B")));
+        assertThat(kbn.getValue(1), is((Object) "B"));
+
+        assertThat(batch.getColumn("name").getStrings()[0], is("x,y"));
+
+        Column amount = batch.getColumn("amount");
+        assertThat(amount.getType(), is(ColumnType.DECIMAL));
+        assertThat(amount.getLongs()[0], is(100L));
+        assertThat(amount.isNull(1), is(true));
+        assertThat(amount.getValue(1), is(nullValue()));
+        assertThat(amount.getLongs()[2], is(3L));
+
+        Column rate = batch.getColumn("rate");
+        assertThat(rate.getLongs()[0], is(15L));
+        assertThat(rate.getScale(0), is(1));
+        assertThat(rate.getLongs()[1], is(-25L));
+        assertThat(rate.getScale(1), is(2));
+        assertThat(rate.isNull(2), is(true));
+
+        assertThat(reader.read(), is(nullValue()));
+    }
+
+    /**
+     * 読み込むフィールドを指定した場合、指定したフィールドのみがカラムとして格納されること。
+     */
+    @Test
+    public void testProjectedFields() throws Exception {
+        File layoutFile = createLayoutFile(
+                "file-type:        \"Variable\"",
+                "text-encoding:    \"utf-8\"",
+                "record-separator: \"\\n\"",
+                "field-separator:  \",\"",
+                "[Default]",
+                "1 kbn    X",
+                "2 name   X",
+                "3 amount X number");
+        File dataFile = writeFile(new File(folder.getRoot(), "data.dat"), "A,x,1\nB,y,2\n", "ms932");
+        reader = new ColumnBatchReader(dataFile, layoutFile, 5)
+                .setProjectedFields(new HashSet<String>(Arrays.asList("amount")));
+
+        ColumnBatch batch = reader.read();
+        assertThat(batch.getColumns().size(), is(1));
+        assertThat(batch.getColumn("amount").getLongs()[1], is(2L));
+    }
+
+    /**
+     * 不正なデータの場合、ファイルのパスとレコード番号が設定された例外が送出されること。
+     * long型の範囲を超える数値も、不正なデータとして扱われること。
+     */
+    @Test
+    public void testInvalidData() throws Exception {
+        File layoutFile = createLayoutFile(
+                "file-type:        \"Variable\"",
+                "text-encoding:    \"utf-8\"",
+                "record-separator: \"\\n\"",
+                "field-separator:  \",\"",
+                "[Default]",
+                "1 amount X number");
+        File dataFile = writeFile(new File(folder.getRoot(), "data.dat"), "1\n99999999999999999999\n", "ms932");
+        reader = new ColumnBatchReader(dataFile, layoutFile, 5);
+        try {
+            reader.read();
+            fail();
+        } catch (InvalidDataFormatException e) {
+            assertThat(e.getMessage(), containsString("value was too large to store in a column batch."));
+            assertThat(e.getFieldName(), is("amount"));
+            assertThat(e.getRecordNumberAsLong(), is(2L));
+            assertThat(e.getInputSourcePath(), is(dataFile.getAbsolutePath()));
+        }
+
+        try {
+            new ColumnBatchReader(dataFile, layoutFile, 0);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), containsString("batch size was invalid."));
+        }
+    }
+
+    private File createLayoutFile(String... lines) throws Exception {
+        return createFile(new File(folder.getRoot(), "layout.fmt"), "ms932", lines);
+    }
+}
@@ -1,6 +1,9 @@
 package nablarch.core.dataformat;
 
 import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 
 /**
@@ -14,7 +17,7 @@ public final class DataFormatTestUtils {
     public static ByteArrayInputStream createInputStreamFrom(String source) {
         return createInputStreamFrom(source, ENCODING);
     }
-    
+
     public static ByteArrayInputStream createInputStreamFrom(String source, String encoding) {
         try {
             return new ByteArrayInputStream(source.getBytes(encoding));
@@ -22,4 +25,38 @@ public final class DataFormatTestUtils {
             throw new RuntimeException(e);
         }
     }
+
+    /**
+     * 各行の末尾に改行（LF）を付与して、ファイルに書き込む。
+     *
+     * @param file ファイル
+     * @param encoding 文字コード
+     * @param lines 行
+     * @return 引数で与えられたファイル
+     */
+    public static File createFile(File file, String encoding, String... lines) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (String line : lines) {
+            sb.append(line).append("\n");
+        }
+        return writeFile(file, sb.toString(), encoding);
+    }
+
+    /**
+     * 文字列をそのままファイルに書き込む。
+     *
+     * @param file ファイル
+     * @param data 書き込む文字列
+     * @param encoding 文字コード
+     * @return 引数で与えられたファイル
+     */
+    public static File writeFile(File file, String data, String encoding) throws IOException {
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(data.getBytes(encoding));
+        } finally {
+            out.close();
+        }
+        return file;
+    }
 }
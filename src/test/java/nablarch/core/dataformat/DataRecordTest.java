@@ -9,6 +9,8 @@ import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
 
 import org.hamcrest.CoreMatchers;
 
@@ -137,4 +139,109 @@ public class DataRecordTest {
             assertThat(e.getMessage(), is("Illegal scale(-10000): needs to be between(-9999, 9999)"));
         }
     }
+
+    /**
+     * 数値をlong型、int型として取得できること。
+     */
+    @Test
+    public void testGetLong() throws Exception {
+        final DataRecord record = new DataRecord();
+        record.put("decimal", new BigDecimal("123"));
+        record.put("scaled", new BigDecimal("1.00"));
+        record.put("fraction", new BigDecimal("1.5"));
+        record.put("string", "-9876543210");
+        record.put("integer", Integer.valueOf(42));
+        record.put("nullData", null);
+
+        assertThat(record.getLong("decimal"), is(123L));
+        assertThat(record.getInt("decimal"), is(123));
+        assertThat(record.getLong("scaled"), is(1L));
+        assertThat(record.getLong("string"), is(-9876543210L));
+        assertThat(record.getLong("INTEGER"), is(42L));
+        assertThat(record.get("integer"), CoreMatchers.<Object>is(new BigDecimal("42")));
+
+        try {
+            record.getLong("fraction");
+            fail();
+        } catch (ArithmeticException e) {
+            // OK
+        }
+        try {
+            record.getInt("string");
+            fail();
+        } catch (ArithmeticException e) {
+            assertThat(e.getMessage(), is("field value was out of the range of int. field name=[string], value=[-9876543210]."));
+        }
+        try {
+            record.getLong("nullData");
+            fail();
+        } catch (IllegalStateException e) {
+            assertThat(e.getMessage(), is("field value was null. field value must not be null to get as a primitive value. field name=[nullData]."));
+        }
+    }
+
+    /**
+     * BigDecimalに変換せずに設定した数値が、参照時にBigDecimalに変換されること。
+     */
+    @Test
+    public void testUnscaledLong() throws Exception {
+        final DataRecord record = new DataRecord(new DeferredValueMap());
+        record.putUnscaledLong("amount", 12345L, 0);
+        record.putUnscaledLong("rate", -150L, 2);
+        record.put("name", "abc");
+
+        // long型での取得ではBigDecimalに変換されないこと
+        assertThat(record.getLong("amount"), is(12345L));
+        assertThat(record.getRawValue("amount"), CoreMatchers.instanceOf(DeferredValueMap.UnscaledLong.class));
+
+        // 参照時にBigDecimalに変換され、変換後の値が保持されること
+        assertThat(record.get("AMOUNT"), CoreMatchers.<Object>is(new BigDecimal("12345")));
+        assertThat(record.getRawValue("amount"), CoreMatchers.<Object>is(new BigDecimal("12345")));
+
+        // エントリ全体を参照する場合は全ての値が変換されること
+        final Map<String, Object> expected = new HashMap<String, Object>();
+        expected.put("amount", new BigDecimal("12345"));
+        expected.put("rate", new BigDecimal("-1.50"));
+        expected.put("name", "abc");
+        record.putUnscaledLong("amount", 12345L, 0);
+        assertThat(new HashMap<String, Object>(record), is(expected));
+        assertThat(record.getRawValue("rate"), CoreMatchers.<Object>is(new BigDecimal("-1.50")));
+
+        try {
+            record.getLong("rate");
+            fail();
+        } catch (ArithmeticException e) {
+            // OK
+        }
+    }
+
+    /**
+     * 変換前の値を置き換えたり削除した場合に、元の値が変換されないこと。
+     */
+    @Test
+    public void testPutAndRemoveDeferredValue() throws Exception {
+        final DataRecord record = new DataRecord(new DeferredValueMap());
+        final DeferredValueMap.DeferredValue invalid = new DeferredValueMap.DeferredValue() {
+            @Override
+            Object resolve() {
+                throw new InvalidDataFormatException("invalid data.");
+            }
+        };
+        record.putDeferredValue("invalid1", invalid);
+        record.putDeferredValue("invalid2", invalid);
+        record.putUnscaledLong("amount", 12345L, 2);
+
+        // 変換に失敗する値は変換されずに置き換えられること
+        assertNull(record.put("invalid1", "abc"));
+        assertThat(record.getString("invalid1"), is("abc"));
+
+        // 変換に失敗する値は変換されずに削除されること
+        assertNull(record.remove("invalid2"));
+        assertThat(record.containsKey("invalid2"), is(false));
+
+        // 変換済みの数値は元の値として返却されること
+        assertThat(record.put("amount", 1), CoreMatchers.<Object>is(new BigDecimal("123.45")));
+        record.putUnscaledLong("amount", 12345L, 2);
+        assertThat(record.remove("amount"), CoreMatchers.<Object>is(new BigDecimal("123.45")));
+    }
 }
@@ -3,6 +3,7 @@ package nablarch.core.dataformat;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.fail;
 
 /**
@@ -21,4 +22,38 @@ public class FieldDefinitionTest {
             assertEquals("data type was not set. data type must be set before run this method.", e.getMessage());
         }
     }
+
+    /**
+     * フィールド名称の設定時に、正規化したフィールド名称が保持されること。
+     * 正規化したフィールド名称から作成したキーが、フィールド名称から作成したキーと一致すること。
+     */
+    @Test
+    public void testNormalizedName() {
+        FieldDefinition definition = new FieldDefinition();
+        assertNull(definition.getNormalizedName());
+
+        definition.setName("Form:user-Name");
+        assertEquals("formUserName", definition.getNormalizedName());
+        definition.setName("あいう");
+        assertEquals("あいう", definition.getNormalizedName());
+
+        StructuredDataEditorSupport support = new StructuredDataEditorSupport() {};
+        String[] names = {"field", "Field", "@attr", "a:b", "あいう"};
+        String[] bases = {null, "", "parent", "Parent.child[0]", "parent[1].Child", "あいう[0]", "p:q"};
+        for (String name : names) {
+            definition.setName(name);
+            for (String base : bases) {
+                assertEquals(expectedMapKey(base, name), support.buildMapKey(base, definition));
+                assertEquals(expectedMapKey(base, name), support.buildMapKey(base, name));
+            }
+        }
+    }
+
+    private static String expectedMapKey(String base, String name) {
+        String normalizedName = FieldDefinitionUtil.normalizeWithNonWordChar(name);
+        if (base == null || base.length() == 0) {
+            return normalizedName;
+        }
+        return FieldDefinitionUtil.normalizeWithNonWordChar(base) + "." + normalizedName;
+    }
 }
@@ -14,6 +14,8 @@ import java.io.OutputStreamWriter;
 import java.math.BigDecimal;
 import java.net.URL;
 import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashSet;
 
 import org.hamcrest.CoreMatchers;
 
@@ -375,6 +377,193 @@ public class FileRecordReaderTest {
         assertThat("余分に読み込みを行っても、行数が加算されないこと", reader.getRecordNumber(), is(5));
     }
 
+    /**
+     * 固定長ファイルで、指定したフィールドのみが読み込まれること。
+     * 読み込まないフィールドは変換されないため、不正な値であってもエラーとならないこと。
+     */
+    @Test
+    public void testProjectedFieldsFixed() throws Exception {
+        File dataFile = folder.newFile("test.dat");
+        writeFile(dataFile, "1ABCxyz001\n2DEFxyz002\n");
+
+        String format = "file-type: \"Fixed\"\n" +
+                "record-separator: \"\\n\"\n" +
+                "text-encoding: \"sjis\"\n" +
+                "record-length: 10\n" +
+                "[data]\n" +
+                "1 type   X(1)\n" +
+                "2 name   X(3)\n" +
+                "5 number Z(3)\n" +
+                "8 amount Z(3)\n";
+        File formatFile = folder.newFile("test.fmt");
+        writeFile(formatFile, format);
+
+        reader = new FileRecordReader(dataFile, formatFile)
+                .setProjectedFields(new HashSet<String>(Arrays.asList("type", "amount")));
+
+        DataRecord record = reader.read();
+        assertThat(record.size(), is(2));
+        assertThat(record.getString("type"), is("1"));
+        assertThat(record.getBigDecimal("amount"), is(new BigDecimal("1")));
+        assertThat(record.containsKey("name"), is(false));
+
+        record = reader.read();
+        assertThat(record.size(), is(2));
+        assertThat(record.getString("type"), is("2"));
+        assertThat(record.getBigDecimal("amount"), is(new BigDecimal("2")));
+    }
+
+    /**
+     * 可変長ファイルで、指定したフィールドのみが読み込まれること。
+     * 読み込まないフィールドが囲み文字で囲まれている場合や、レコードの末尾にある場合も正しく読み飛ばされること。
+     */
+    @Test
+    public void testProjectedFieldsVariable() throws Exception {
+        File dataFile = folder.newFile("test.dat");
+        writeFile(dataFile, "1,abc,\"x,\r\ny\",100,zzz\r\n"
+                + "2,,\"\"\"q\"\"\",200,\r\n"
+                + "3,ghi,plain,300,\"last\"\r\n");
+
+        String format = "file-type: \"Variable\"\n" +
+                "record-separator: \"\\r\\n\"\n" +
+                "field-separator: \",\"\n" +
+                "quoting-delimiter: \"\\\"\"\n" +
+                "text-encoding: \"sjis\"\n" +
+                "[data]\n" +
+                "1 type    X\n" +
+                "2 name    X\n" +
+                "3 note    X\n" +
+                "4 amount  X9\n" +
+                "5 extra   X9\n";
+        File formatFile = folder.newFile("test.fmt");
+        writeFile(formatFile, format);
+
+        reader = new FileRecordReader(dataFile, formatFile)
+                .setProjectedFields(new HashSet<String>(Arrays.asList("type", "amount")));
+
+        for (int i = 1; i <= 3; i++) {
+            DataRecord record = reader.read();
+            assertThat(record.getRecordNumberAsLong(), is((long) i));
+            assertThat(record.size(), is(2));
+            assertThat(record.containsKey("name"), is(false));
+            assertThat(record.containsKey("extra"), is(false));
+            assertThat(record.getString("type"), is(String.valueOf(i)));
+            assertThat(record.getBigDecimal("amount"), is(new BigDecimal(i * 100)));
+        }
+        assertThat(reader.hasNext(), is(false));
+    }
+
+    /**
+     * マルチレイアウトの可変長ファイルで、識別項目は指定に関わらず読み込まれ、
+     * レコードタイプごとに指定したフィールドのみが読み込まれること。
+     */
+    @Test
+    public void testProjectedFieldsVariableMultiLayout() throws Exception {
+        File dataFile = folder.newFile("test.dat");
+        writeFile(dataFile, "1,header,20240101\n2,data,100\n2,data,abc\n");
+
+        String format = "file-type: \"Variable\"\n" +
+                "record-separator: \"\\n\"\n" +
+                "field-separator: \",\"\n" +
+                "text-encoding: \"sjis\"\n" +
+                "[Classifier]\n" +
+                "1 kbn X\n" +
+                "[header]\n" +
+                "kbn = \"1\"\n" +
+                "1 kbn   X\n" +
+                "2 title X\n" +
+                "3 date  X\n" +
+                "[data]\n" +
+                "kbn = \"2\"\n" +
+                "1 kbn    X\n" +
+                "2 name   X\n" +
+                "3 amount X9\n";
+        File formatFile = folder.newFile("test.fmt");
+        writeFile(formatFile, format);
+
+        reader = new FileRecordReader(dataFile, formatFile)
+                .setProjectedFields(new HashSet<String>(Arrays.asList("date", "name")));
+
+        DataRecord record = reader.read();
+        assertThat(record.getRecordType(), is("header"));
+        assertThat(record.size(), is(1));
+        assertThat(record.getString("date"), is("20240101"));
+
+        record = reader.read();
+        assertThat(record.getRecordType(), is("data"));
+        assertThat(record.size(), is(1));
+        assertThat(record.getString("name"), is("data"));
+
+        // 読み込まないフィールドは変換されないため、不正な値であってもエラーとならない
+        record = reader.read();
+        assertThat(record.getString("name"), is("data"));
+    }
+
+    /**
+     * 読み込むレコードの条件を設定した場合に、条件を満たすレコードのみが読み込まれ、
+     * hasNextが条件を満たすレコードの有無を返却すること。
+     */
+    @Test
+    public void testRecordFilter() throws Exception {
+        File dataFile = folder.newFile("test.dat");
+        writeFile(dataFile, "B1001\nB2002\nB1003\nB2004\n");
+
+        String format = "file-type: \"Fixed\"\n" +
+                "record-separator: \"\\n\"\n" +
+                "text-encoding: \"sjis\"\n" +
+                "record-length: 5\n" +
+                "[data]\n" +
+                "1 branch X(2)\n" +
+                "3 amount Z(3)\n";
+        File formatFile = folder.newFile("test.fmt");
+        writeFile(formatFile, format);
+
+        reader = new FileRecordReader(dataFile, formatFile)
+                .setRecordFilter(FixedLengthRecordFilter.equalsTo("branch", "B1"));
+
+        assertThat(reader.hasNext(), is(true));
+        assertThat(reader.hasNext(), is(true));
+        DataRecord record = reader.read();
+        assertThat(record.getInt("amount"), is(1));
+        assertThat(record.getRecordNumberAsLong(), is(1L));
+
+        assertThat(reader.hasNext(), is(true));
+        record = reader.read();
+        assertThat(record.getInt("amount"), is(3));
+        assertThat(record.getRecordNumberAsLong(), is(3L));
+
+        // 後続のレコードは条件を満たさないため、次のレコードは存在しない
+        assertThat(reader.hasNext(), is(false));
+        assertThat(reader.read(), is(nullValue()));
+    }
+
+    /**
+     * 固定長以外のファイルに読み込むレコードの条件を設定した場合、例外が送出されること。
+     */
+    @Test
+    public void testRecordFilterForVariableLength() throws Exception {
+        File dataFile = folder.newFile("test.dat");
+        writeFile(dataFile, "B1,001\n");
+
+        String format = "file-type: \"Variable\"\n" +
+                "record-separator: \"\\n\"\n" +
+                "field-separator: \",\"\n" +
+                "text-encoding: \"sjis\"\n" +
+                "[data]\n" +
+                "1 branch X\n" +
+                "2 amount X\n";
+        File formatFile = folder.newFile("test.fmt");
+        writeFile(formatFile, format);
+
+        reader = new FileRecordReader(dataFile, formatFile);
+        try {
+            reader.setRecordFilter(FixedLengthRecordFilter.equalsTo("branch", "B1"));
+            fail();
+        } catch (IllegalStateException e) {
+            assertThat(e.getMessage(), containsString("record filter is only supported for fixed length files."));
+        }
+    }
+
     /**
      * ファイルに書き込む
      * @param file ファイル
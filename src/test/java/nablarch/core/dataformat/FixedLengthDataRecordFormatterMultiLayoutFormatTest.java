@@ -9,10 +9,13 @@ import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStreamWriter;
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 import nablarch.test.support.SystemRepositoryResource;
 
@@ -483,4 +486,53 @@ public class FixedLengthDataRecordFormatterMultiLayoutFormatTest {
         expectedException.expectMessage("an applicable layout definition was not found in the record. record=[{dataKbn=3}].");
         formatter.readRecord();
     }
+
+    @Test
+    public void convertToRecordをオーバーライドしたフォーマッタがマルチレイアウトの読み込みに使用されること() throws Exception {
+        final File formatFile = temporaryFolder.newFile("format.fmt");
+        createFile(formatFile, "utf-8",
+                "file-type: \"Fixed\"",
+                "text-encoding: \"ms932\"",
+                "record-length: 6",
+                "record-separator: \"\\n\"",
+                "[Classifier]",
+                "1 dataKbn X(1)",
+                "[header]",
+                "dataKbn = \"1\"",
+                "1    dataKbn      X(1)",
+                "2    title        X(5)",
+                "[data]",
+                "dataKbn = \"2\"",
+                "1    dataKbn      X(1)",
+                "2    amount       Z(5)"
+        );
+
+        final List<String> convertedTypes = new ArrayList<String>();
+        FixedLengthDataRecordFormatter legacyFormatter = new FixedLengthDataRecordFormatter() {
+            @Override
+            protected DataRecord convertToRecord(byte[] bytes, RecordDefinition recordDef) throws IOException {
+                convertedTypes.add(recordDef.getTypeName());
+                return super.convertToRecord(bytes, recordDef);
+            }
+        };
+        formatter = legacyFormatter;
+
+        final File inputFile = temporaryFolder.newFile("inputFile");
+        createFile(inputFile, "ms932",
+                "1TITLE",
+                "200123");
+        formatter.setDefinition(new LayoutFileParser(formatFile.getPath()).parse())
+                 .setInputStream(new FileInputStream(inputFile))
+                 .initialize();
+
+        DataRecord header = formatter.readRecord();
+        assertThat(header.getRecordType(), is("header"));
+        assertThat(header.getString("title"), is("TITLE"));
+        DataRecord data = formatter.readRecord();
+        assertThat(data.getRecordType(), is("data"));
+        assertThat(data.getBigDecimal("amount"), is(new BigDecimal("123")));
+
+        // 識別項目の変換とレコードの変換の双方で、オーバーライドしたメソッドが呼び出されること
+        assertThat(convertedTypes, is(Arrays.asList("Classifier", "header", "Classifier", "data")));
+    }
 }
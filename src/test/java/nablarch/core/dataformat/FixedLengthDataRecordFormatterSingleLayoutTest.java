@@ -3,6 +3,7 @@ package nablarch.core.dataformat;
 import static org.hamcrest.CoreMatchers.*;
 import static org.hamcrest.collection.IsMapContaining.hasKey;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
 
 import java.io.BufferedWriter;
 import java.io.ByteArrayInputStream;
@@ -21,6 +22,9 @@ import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import nablarch.core.dataformat.convertor.FixedLengthConvertorSetting;
+import nablarch.core.dataformat.convertor.datatype.ByteStreamDataString;
+import nablarch.core.dataformat.convertor.datatype.PackedDecimal;
+import nablarch.core.dataformat.convertor.datatype.ZonedDecimal;
 import nablarch.core.repository.ObjectLoader;
 import nablarch.core.repository.SystemRepository;
 
@@ -1862,4 +1866,360 @@ public class FixedLengthDataRecordFormatterSingleLayoutTest {
 
         SystemRepository.clear();
     }
+
+    @Test
+    public void 複数レコードを出力した場合に前のレコードの内容が残らないこと() throws Exception {
+        final File formatFile = temporaryFolder.newFile("format.fmt");
+
+        createFile(formatFile, "utf-8",
+                "file-type: \"Fixed\"",
+                "text-encoding: \"sjis\"",
+                "record-length: 22",
+                "record-separator: \"\\n\"",
+                "[Default]",
+                "1   byteString     X(5)",
+                "6   wordString     N(4)",
+                "10  zoneDigits     Z(3)",
+                "13 ?filler         X(2)   \"99\"",
+                "15  defaultString  X(3)   \"abc\"",
+                "18  nativeBytes    B(5)"
+        );
+
+        formatter = createFormatter(formatFile);
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        formatter.setOutputStream(outputStream)
+                 .initialize();
+
+        final Map<String, Object> first = new HashMap<String, Object>();
+        first.put("byteString", "12345");
+        first.put("wordString", "あい");
+        first.put("zoneDigits", 123);
+        first.put("defaultString", "xyz");
+        first.put("nativeBytes", new byte[] {0x01, 0x02, 0x03, 0x04, 0x05});
+        formatter.writeRecord(first);
+
+        final Map<String, Object> second = new HashMap<String, Object>();
+        second.put("byteString", "1");
+        second.put("nativeBytes", new byte[] {0x05, 0x04, 0x03, 0x02, 0x01});
+        formatter.writeRecord(second);
+
+        // バイナリ項目は値が必須のため、レコードごとに変換エラーとなること
+        try {
+            formatter.writeRecord(new HashMap<String, Object>());
+            fail();
+        } catch (InvalidDataFormatException e) {
+            assertThat(e.getFieldName(), is("nativeBytes"));
+            assertThat(e.getRecordNumberAsLong(), is(3L));
+        }
+
+        final byte[] actual = outputStream.toByteArray();
+        assertThat(actual.length, is(46));
+        assertThat(new String(Arrays.copyOfRange(actual, 0, 17), "sjis"), is("12345あい12399xyz"));
+        assertThat(Arrays.copyOfRange(actual, 17, 23), is(new byte[] {0x01, 0x02, 0x03, 0x04, 0x05, '\n'}));
+        assertThat(new String(Arrays.copyOfRange(actual, 23, 40), "sjis"), is("1    　　00099abc"));
+        assertThat(Arrays.copyOfRange(actual, 40, 46), is(new byte[] {0x05, 0x04, 0x03, 0x02, 0x01, '\n'}));
+    }
+
+    @Test
+    public void 数値項目をlong型として読み込めること() throws Exception {
+        final File formatFile = temporaryFolder.newFile("format.fmt");
+
+        createFile(formatFile, "utf-8",
+                "file-type: \"Fixed\"",
+                "text-encoding: \"sjis\"",
+                "record-length: 20",
+                "[Default]",
+                "1   zoneDigits     Z(5)",
+                "6   signedZDigits  SZ(3)",
+                "9   packedDigits   P(3)",
+                "12  pDecimalPoint  P(3, 2)",
+                "15  X9             X9(3)",
+                "18 ?filler         Z(3)"
+        );
+
+        ByteBuffer buff = ByteBuffer.wrap(new byte[20]);
+        buff.put("01234".getBytes("sjis"));
+        buff.put(new byte[] {0x31, 0x32, 0x73});
+        buff.put(new byte[] {0x01, 0x23, 0x43});
+        buff.put(new byte[] {0x12, 0x34, 0x53});
+        buff.put("042".getBytes("sjis"));
+        buff.put("000".getBytes("sjis"));
+
+        formatter = createFormatter(formatFile);
+        formatter.setInputStream(new ByteArrayInputStream(buff.array()))
+                 .initialize();
+        DataRecord record = formatter.readRecord();
+        assertThat(record.getLong("zoneDigits"), is(1234L));
+        assertThat(record.getInt("signedZDigits"), is(-123));
+        assertThat(record.getLong("packedDigits"), is(1234L));
+        assertThat(record.getBigDecimal("pDecimalPoint"), is(new BigDecimal("123.45")));
+        assertThat(record.getLong("X9"), is(42L));
+        assertThat(record.get("zoneDigits"), is((Object) new BigDecimal("1234")));
+        assertThat(record.containsKey("filler"), is(false));
+        assertThat(record.size(), is(5));
+    }
+
+    @Test
+    public void 数値項目のフィラーも変換エラーが検出されること() throws Exception {
+        final File formatFile = temporaryFolder.newFile("format.fmt");
+
+        createFile(formatFile, "utf-8",
+                "file-type: \"Fixed\"",
+                "text-encoding: \"sjis\"",
+                "record-length: 6",
+                "[Default]",
+                "1   zoneDigits     Z(3)",
+                "4  ?filler         Z(3)"
+        );
+
+        formatter = createFormatter(formatFile);
+        formatter.setInputStream(new ByteArrayInputStream("123ABC".getBytes("sjis")))
+                 .initialize();
+        try {
+            formatter.readRecord();
+            fail();
+        } catch (InvalidDataFormatException e) {
+            assertThat(e.getFieldName(), is("filler"));
+            assertThat(e.getRecordNumberAsLong(), is(1L));
+        }
+    }
+
+    @Test
+    public void フィールドの変換を遅延した場合に参照時に変換されること() throws Exception {
+        final File formatFile = temporaryFolder.newFile("format.fmt");
+
+        createFile(formatFile, "utf-8",
+                "file-type: \"Fixed\"",
+                "text-encoding: \"sjis\"",
+                "record-length: 11",
+                "[Default]",
+                "1   name           X(5)",
+                "6   zoneDigits     Z(3)",
+                "9   packedDigits   P(3, 2)"
+        );
+
+        ByteBuffer buff = ByteBuffer.wrap(new byte[33]);
+        buff.put("abc  ".getBytes("sjis"));
+        buff.put("123".getBytes("sjis"));
+        buff.put(new byte[] {0x12, 0x34, 0x53});
+        buff.put("def  ".getBytes("sjis"));
+        buff.put("ABC".getBytes("sjis"));
+        buff.put(new byte[] {0x12, 0x34, 0x53});
+        buff.put("ghi  ".getBytes("sjis"));
+        buff.put("456".getBytes("sjis"));
+        buff.put(new byte[] {0x00, 0x00, 0x13});
+
+        formatter = createFormatter(formatFile);
+        ((DataRecordFormatterSupport) formatter).setLazyDecoding(true);
+        formatter.setInputStream(new ByteArrayInputStream(buff.array()))
+                 .initialize();
+
+        DataRecord first = formatter.readRecord();
+        DataRecord second = formatter.readRecord();
+        DataRecord third = formatter.readRecord();
+
+        assertThat(first.getString("name"), is("abc"));
+        assertThat(first.getInt("zoneDigits"), is(123));
+        assertThat(first.getBigDecimal("packedDigits"), is(new BigDecimal("123.45")));
+        assertThat(third.getLong("zoneDigits"), is(456L));
+        assertThat(third.getBigDecimal("packedDigits"), is(new BigDecimal("0.01")));
+
+        // 変換エラーとならないフィールドは参照できること
+        assertThat(second.getString("name"), is("def"));
+        try {
+            second.get("zoneDigits");
+            fail();
+        } catch (InvalidDataFormatException e) {
+            assertThat(e.getRecordNumberAsLong(), is(2L));
+            assertThat(e.getFieldName(), is("zoneDigits"));
+        }
+
+        // 変換前のフィールドは、変換エラーとなる場合も変換せずに置き換えや削除ができること
+        assertThat(second.put("zoneDigits", "789"), is(nullValue()));
+        assertThat(second.getInt("zoneDigits"), is(789));
+        assertThat(second.remove("packedDigits"), is(nullValue()));
+        assertThat(second.containsKey("packedDigits"), is(false));
+    }
+
+    @Test
+    public void 従来のconvertOnReadのみをオーバーライドしたデータタイプが読み込みに使用されること() throws Exception {
+        final FixedLengthConvertorSetting convertorSetting = new FixedLengthConvertorSetting();
+        convertorSetting.getConvertorFactory().getConvertorTable().put("UX", UpperCaseString.class);
+        convertorSetting.getConvertorFactory().getConvertorTable().put("IP", IncrementedPackedDecimal.class);
+        SystemRepository.load(new ObjectLoader() {
+            @Override
+            public Map<String, Object> load() {
+                final Map<String, Object> result = new HashMap<String, Object>();
+                result.put("fixedLengthConvertorSetting", convertorSetting);
+                return result;
+            }
+        });
+
+        final File formatFile = temporaryFolder.newFile("format.fmt");
+        createFile(formatFile, "utf-8",
+                "file-type: \"Fixed\"",
+                "text-encoding: \"sjis\"",
+                "record-length: 8",
+                "[Default]",
+                "1   name           UX(5)",
+                "6   packedDigits   IP(3)"
+        );
+
+        ByteBuffer buff = ByteBuffer.wrap(new byte[8]);
+        buff.put("abc  ".getBytes("sjis"));
+        buff.put(new byte[] {0x12, 0x34, 0x53});
+
+        formatter = createFormatter(formatFile);
+        formatter.setInputStream(new ByteArrayInputStream(buff.array()))
+                 .initialize();
+
+        DataRecord record = formatter.readRecord();
+        assertThat(record.getString("name"), is("ABC"));
+        assertThat(record.getBigDecimal("packedDigits"), is(new BigDecimal("12346")));
+    }
+
+    @Test
+    public void 従来のconvertToFieldのみをオーバーライドしたフォーマッタが読み込みに使用されること() throws Exception {
+        final File formatFile = temporaryFolder.newFile("format.fmt");
+        createFile(formatFile, "utf-8",
+                "file-type: \"Fixed\"",
+                "text-encoding: \"sjis\"",
+                "record-length: 8",
+                "[Default]",
+                "1   name           X(5)",
+                "6   zoneDigits     Z(3)"
+        );
+
+        final Map<String, Integer> fieldLengths = new HashMap<String, Integer>();
+        FixedLengthDataRecordFormatter legacyFormatter = new FixedLengthDataRecordFormatter() {
+            @Override
+            protected Object convertToField(byte[] source, FieldDefinition field) throws IOException {
+                fieldLengths.put(field.getName(), source.length);
+                return super.convertToField(source, field);
+            }
+        };
+        formatter = legacyFormatter;
+        formatter.setDefinition(new LayoutFileParser(formatFile.getPath()).parse())
+                 .setInputStream(new ByteArrayInputStream("abc  123".getBytes("sjis")))
+                 .initialize();
+
+        DataRecord record = formatter.readRecord();
+        assertThat(record.getString("name"), is("abc"));
+        assertThat(record.getBigDecimal("zoneDigits"), is(new BigDecimal("123")));
+        assertThat(fieldLengths.get("name"), is(5));
+        assertThat(fieldLengths.get("zoneDigits"), is(3));
+    }
+
+    @Test
+    public void 従来のconvertOnWriteのみをオーバーライドしたデータタイプが書き込みに使用されること() throws Exception {
+        final FixedLengthConvertorSetting convertorSetting = new FixedLengthConvertorSetting();
+        convertorSetting.getConvertorFactory().getConvertorTable().put("UX", UpperCaseWriteString.class);
+        convertorSetting.getConvertorFactory().getConvertorTable().put("DZ", DoubledZonedDecimal.class);
+        SystemRepository.load(new ObjectLoader() {
+            @Override
+            public Map<String, Object> load() {
+                final Map<String, Object> result = new HashMap<String, Object>();
+                result.put("fixedLengthConvertorSetting", convertorSetting);
+                return result;
+            }
+        });
+
+        final File formatFile = temporaryFolder.newFile("format.fmt");
+        createFile(formatFile, "utf-8",
+                "file-type: \"Fixed\"",
+                "text-encoding: \"sjis\"",
+                "record-length: 8",
+                "[Default]",
+                "1   name           UX(5)",
+                "6   zoneDigits     DZ(3)"
+        );
+
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        formatter = createFormatter(formatFile);
+        formatter.setOutputStream(outputStream)
+                 .initialize();
+
+        Map<String, Object> record = new HashMap<String, Object>();
+        record.put("name", "abc");
+        record.put("zoneDigits", 123);
+        formatter.writeRecord(record);
+
+        assertThat(new String(outputStream.toByteArray(), "sjis"), is("ABC  246"));
+    }
+
+    @Test
+    public void 従来のwriteFieldのみをオーバーライドしたフォーマッタが書き込みに使用されること() throws Exception {
+        final File formatFile = temporaryFolder.newFile("format.fmt");
+        createFile(formatFile, "utf-8",
+                "file-type: \"Fixed\"",
+                "text-encoding: \"sjis\"",
+                "record-length: 8",
+                "record-separator: \"\\n\"",
+                "[Default]",
+                "1   name           X(5)",
+                "6   zoneDigits     Z(3)"
+        );
+
+        final StringBuilder writtenFields = new StringBuilder();
+        FixedLengthDataRecordFormatter legacyFormatter = new FixedLengthDataRecordFormatter() {
+            @Override
+            protected void writeField(Map<String, ?> record, FieldDefinition field) throws IOException {
+                writtenFields.append(field.getName()).append(',');
+                super.writeField(record, field);
+            }
+        };
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        formatter = legacyFormatter;
+        formatter.setDefinition(new LayoutFileParser(formatFile.getPath()).parse())
+                 .setOutputStream(outputStream)
+                 .initialize();
+
+        Map<String, Object> record = new HashMap<String, Object>();
+        record.put("name", "abc");
+        record.put("zoneDigits", 123);
+        formatter.writeRecord(record);
+
+        assertThat(new String(outputStream.toByteArray(), "sjis"), is("abc  123\n"));
+        assertThat(writtenFields.toString(), is("name,zoneDigits,"));
+    }
+
+    /**
+     * 従来の{@link ByteStreamDataString#convertOnRead(byte[])}のみをオーバーライドし、大文字に変換するデータタイプ。
+     */
+    public static class UpperCaseString extends ByteStreamDataString {
+        @Override
+        public String convertOnRead(byte[] bytes) {
+            return super.convertOnRead(bytes).toUpperCase();
+        }
+    }
+
+    /**
+     * 従来の{@link PackedDecimal#convertOnRead(byte[])}のみをオーバーライドし、1を加算するデータタイプ。
+     */
+    public static class IncrementedPackedDecimal extends PackedDecimal {
+        @Override
+        public BigDecimal convertOnRead(byte[] buff) {
+            return super.convertOnRead(buff).add(BigDecimal.ONE);
+        }
+    }
+
+    /**
+     * 従来の{@link ByteStreamDataString#convertOnWrite(Object)}のみをオーバーライドし、大文字に変換するデータタイプ。
+     */
+    public static class UpperCaseWriteString extends ByteStreamDataString {
+        @Override
+        public byte[] convertOnWrite(Object data) {
+            return super.convertOnWrite(data.toString().toUpperCase());
+        }
+    }
+
+    /**
+     * 従来の{@link ZonedDecimal#convertOnWrite(Object)}のみをオーバーライドし、2倍の値を出力するデータタイプ。
+     */
+    public static class DoubledZonedDecimal extends ZonedDecimal {
+        @Override
+        public byte[] convertOnWrite(Object data) {
+            return super.convertOnWrite(new BigDecimal(data.toString()).multiply(BigDecimal.valueOf(2)));
+        }
+    }
 }
@@ -0,0 +1,265 @@
+package nablarch.core.dataformat;
+
+import static nablarch.core.dataformat.DataFormatTestUtils.createFile;
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * {@link FixedLengthRecordFilter}のテスト。
+ */
+public class FixedLengthRecordFilterTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private FixedLengthDataRecordFormatter formatter;
+
+    @After
+    public void tearDown() {
+        if (formatter != null) {
+            formatter.close();
+        }
+    }
+
+    /**
+     * 文字列のフィールドに対する一致条件で、条件を満たすレコードのみが読み込まれること。
+     * 読み飛ばしたレコードは変換されないため、不正な値を含んでいてもエラーとならないこと。
+     * レコード番号は読み飛ばしたレコードも含めて計上されること。
+     */
+    @Test
+    public void testEqualsTo() throws Exception {
+        formatter = createFormatter(FixedLengthRecordFilter.equalsTo("branch", "B1"),
+                "B1 001", "B2 xyz", "B1 003", "B3 004");
+
+        DataRecord record = formatter.readRecord();
+        assertThat(record.getString("branch"), is("B1"));
+        assertThat(record.getInt("amount"), is(1));
+        assertThat(record.getRecordNumberAsLong(), is(1L));
+
+        record = formatter.readRecord();
+        assertThat(record.getString("branch"), is("B1"));
+        assertThat(record.getInt("amount"), is(3));
+        assertThat(record.getRecordNumberAsLong(), is(3L));
+
+        assertThat(formatter.readRecord(), is(nullValue()));
+        assertThat(formatter.getRecordNumberAsLong(), is(4L));
+    }
+
+    /**
+     * 複数の値のいずれかに一致する条件で、条件を満たすレコードのみが読み込まれること。
+     * パディングされたフィールドも、書き込み時と同様に値を変換して比較されること。
+     */
+    @Test
+    public void testIn() throws Exception {
+        formatter = createFormatter(FixedLengthRecordFilter.in("branch", "B3", "B", "B1"),
+                "B1 001", "B2 002", "B  003", "B3 004", "B4 005");
+
+        assertThat(readAmounts(), is(list(1, 3, 4)));
+    }
+
+    /**
+     * 文字列のフィールドに対する範囲の条件で、バイトデータの順序で比較されること。
+     */
+    @Test
+    public void testBetween() throws Exception {
+        formatter = createFormatter(FixedLengthRecordFilter.between("branch", "B2", "B3"),
+                "B1 001", "B2 002", "B3 003", "B4 004", "A9 005");
+        assertThat(readAmounts(), is(list(2, 3)));
+
+        formatter = createFormatter(FixedLengthRecordFilter.between("branch", null, "B1"),
+                "B1 001", "B2 002", "A9 003");
+        assertThat(readAmounts(), is(list(1, 3)));
+    }
+
+    /**
+     * ゾーン数値のフィールドに対する条件は、数値として比較されること。
+     * 小数部を持つ値は一致することがないこと。
+     */
+    @Test
+    public void testNumericField() throws Exception {
+        formatter = createFormatter(FixedLengthRecordFilter.in("amount", 1, "3", "4.5", 100),
+                "B1 001", "B2 002", "B3 003", "B4 004", "B5 100");
+        assertThat(readAmounts(), is(list(1, 3, 100)));
+
+        formatter = createFormatter(FixedLengthRecordFilter.between("amount", "1.5", 4),
+                "B1 001", "B2 002", "B3 003", "B4 004", "B5 100");
+        assertThat(readAmounts(), is(list(2, 3, 4)));
+
+        formatter = createFormatter(FixedLengthRecordFilter.between("amount", 3, null),
+                "B1 001", "B2 002", "B3 003", "B4 004", "B5 100");
+        assertThat(readAmounts(), is(list(3, 4, 100)));
+    }
+
+    /**
+     * 全ての条件を満たすレコードのみが読み込まれること。
+     */
+    @Test
+    public void testAllOf() throws Exception {
+        formatter = createFormatter(FixedLengthRecordFilter.allOf(
+                        FixedLengthRecordFilter.in("branch", "B1", "B2"),
+                        FixedLengthRecordFilter.between("amount", 2, null)),
+                "B1 001", "B2 002", "B3 003", "B1 004");
+        assertThat(readAmounts(), is(list(2, 4)));
+    }
+
+    /**
+     * 条件に使用するフィールドのバイトデータが不正な場合、
+     * フィールド名とレコード番号が設定された例外が送出されること。
+     */
+    @Test
+    public void testInvalidData() throws Exception {
+        formatter = createFormatter(FixedLengthRecordFilter.between("amount", 1, 5),
+                "B1 001", "B2 x02");
+        formatter.readRecord();
+        try {
+            formatter.readRecord();
+            fail();
+        } catch (InvalidDataFormatException e) {
+            assertThat(e.getFieldName(), is("amount"));
+            assertThat(e.getRecordNumberAsLong(), is(2L));
+        }
+    }
+
+    /**
+     * 不正な条件を指定した場合、例外が送出されること。
+     */
+    @Test
+    public void testInvalidFilter() throws Exception {
+        formatter = createFormatter(FixedLengthRecordFilter.equalsTo("unknown", "B1"), "B1 001");
+        try {
+            formatter.readRecord();
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), containsString("field name=[unknown]"));
+        }
+
+        formatter = createFormatter(FixedLengthRecordFilter.equalsTo("branch", "B123"), "B1 001");
+        try {
+            formatter.readRecord();
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), containsString("invalid filter value was specified."));
+        }
+
+        formatter = createFormatter(FixedLengthRecordFilter.equalsTo("amount", "abc"), "B1 001");
+        try {
+            formatter.readRecord();
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), containsString("value must be a number."));
+        }
+
+        try {
+            FixedLengthRecordFilter.in("branch");
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), containsString("values must not be empty."));
+        }
+        try {
+            FixedLengthRecordFilter.between("branch", null, null);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), containsString("either min or max must be specified."));
+        }
+    }
+
+    /**
+     * マルチレイアウトのフォーマットで、識別項目のフィールドを条件に使用できること。
+     */
+    @Test
+    public void testMultiLayout() throws Exception {
+        File layoutFile = createLayoutFile(
+                "file-type:        \"Fixed\"",
+                "text-encoding:    \"ms932\"",
+                "record-length:    4",
+                "[Classifier]",
+                "1 kbn X(1)",
+                "[Header]",
+                "kbn = \"1\"",
+                "1 kbn   X(1)",
+                "2 title X(3)",
+                "[Data]",
+                "kbn = \"2\"",
+                "1 kbn    X(1)",
+                "2 amount Z(3)");
+        formatter = (FixedLengthDataRecordFormatter) FormatterFactory.getInstance()
+                .setCacheLayoutFileDefinition(false)
+                .createFormatter(layoutFile);
+        formatter.setRecordFilter(FixedLengthRecordFilter.equalsTo("kbn", "2"));
+        formatter.setInputStream(new ByteArrayInputStream("1ABC2001200212X3".getBytes("ms932"))).initialize();
+
+        assertThat(formatter.readRecord().getInt("amount"), is(1));
+        assertThat(formatter.readRecord().getInt("amount"), is(2));
+        assertThat(formatter.readRecord(), is(nullValue()));
+
+        // 識別項目以外のフィールドは使用できない
+        formatter.setRecordFilter(FixedLengthRecordFilter.equalsTo("amount", 1));
+        formatter.setInputStream(new ByteArrayInputStream("2001".getBytes("ms932"))).initialize();
+        try {
+            formatter.readRecord();
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), containsString("multi-layout formats can only filter on classifier fields."));
+        }
+    }
+
+    private FixedLengthDataRecordFormatter createFormatter(FixedLengthRecordFilter filter, String... records)
+            throws Exception {
+        if (formatter != null) {
+            formatter.close();
+        }
+        File layoutFile = createLayoutFile(
+                "file-type:        \"Fixed\"",
+                "text-encoding:    \"ms932\"",
+                "record-length:    6",
+                "[Default]",
+                "1 branch X(2)",
+                "3 ?filler X(1)",
+                "4 amount Z(3)");
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        for (String record : records) {
+            data.write(record.getBytes("ms932"));
+        }
+        FixedLengthDataRecordFormatter result = (FixedLengthDataRecordFormatter) FormatterFactory.getInstance()
+                .setCacheLayoutFileDefinition(false)
+                .createFormatter(layoutFile);
+        result.setRecordFilter(filter);
+        result.setInputStream(new ByteArrayInputStream(data.toByteArray())).initialize();
+        return result;
+    }
+
+    private List<Integer> readAmounts() throws Exception {
+        List<Integer> amounts = new ArrayList<Integer>();
+        DataRecord record;
+        while ((record = formatter.readRecord()) != null) {
+            amounts.add(record.getInt("amount"));
+        }
+        return amounts;
+    }
+
+    private static List<Integer> list(Integer... values) {
+        List<Integer> list = new ArrayList<Integer>();
+        for (Integer value : values) {
+            list.add(value);
+        }
+        return list;
+    }
+
+    private File createLayoutFile(String... lines) throws Exception {
+        return createFile(File.createTempFile("filter", ".fmt", folder.getRoot()), "utf-8", lines);
+    }
+}
@@ -5,6 +5,7 @@ import org.junit.Test;
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
 
 
 /**
@@ -63,4 +64,26 @@ public class InvalidDataFormatExceptionTest {
                 "field name=[hoge]. record number=[100]. " +
                 "format file=[path/to/format.fmt]."));
     }
+
+    /**
+     * int型の範囲を超えるレコード番号を保持できること。
+     * int型のレコード番号を取得した場合は、誤った値を返却せずに例外が送出されること。
+     */
+    @Test
+    public void testLongRecordNumber() {
+        InvalidDataFormatException ex = new InvalidDataFormatException("this is an error message.");
+        ex.setRecordNumber(3000000000L);
+        assertThat(ex.getRecordNumberAsLong(), is(3000000000L));
+        assertThat(ex.getMessage(), is("this is an error message. record number=[3000000000]."));
+        try {
+            ex.getRecordNumber();
+            fail();
+        } catch (IllegalStateException e) {
+            assertThat(e.getMessage(), is("record number exceeded the range of int. "
+                    + "use getRecordNumberAsLong() instead. record number=[3000000000]."));
+        }
+
+        ex.setRecordNumber(Integer.MAX_VALUE);
+        assertThat(ex.getRecordNumber(), is(Integer.MAX_VALUE));
+    }
 }
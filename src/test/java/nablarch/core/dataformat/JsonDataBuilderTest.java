@@ -30,6 +30,9 @@ import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
 
 /**
  * {@link JsonDataParser}のテストを行います。
@@ -2177,6 +2180,100 @@ public class JsonDataBuilderTest {
         JSONAssert.assertEquals(expected, actual.toString("utf-8"), true);
     }
 
+    @Test
+    public void 大量の要素を持つオブジェクト配列を出力できること() throws Exception {
+
+        // フォーマット定義
+        LayoutDefinition definition = createLayoutDefinition(
+                "file-type:        \"JSON\"",
+                "text-encoding:    \"UTF-8\"",
+                "[root]",
+                "1 parent [0..*] OB",
+                "",
+                "[parent]",
+                "1 id   X",
+                "2 name X"
+        );
+
+        // MAP
+        int size = 10000;
+        Map<String, Object> map = new HashMap<String, Object>();
+        StringBuilder expected = new StringBuilder("{\"parent\":[");
+        for (int i = 0; i < size; i++) {
+            map.put("parent[" + i + "].id", String.valueOf(i));
+            map.put("parent[" + i + "].name", "\"名前\"/" + i);
+            if (i > 0) {
+                expected.append(',');
+            }
+            expected.append("{\"id\":\"").append(i).append("\",\"name\":\"\\\"名前\\\"\\/").append(i).append("\"}");
+        }
+        expected.append("]}");
+
+        // テスト実行
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        sut.buildData(map, definition, actual);
+
+        // 検証
+        assertThat(actual.toString("utf-8"), is(expected.toString()));
+    }
+
+    @Test
+    public void 空の配列の後に値が設定されている場合に区切り文字が出力されること() throws Exception {
+
+        // フォーマット定義
+        LayoutDefinition definition = createLayoutDefinition(
+                "file-type:        \"JSON\"",
+                "text-encoding:    \"UTF-8\"",
+                "[root]",
+                "1 key1 [0..10] X",
+                "2 key2 [0..1] X"
+        );
+
+        // MAP
+        Map<String, Object> map = new HashMap<String, Object>() {{
+            put("key1", new String[]{});
+            put("key2", "value");
+        }};
+
+        // テスト実行
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        sut.buildData(map, definition, actual);
+
+        // 検証
+        JSONAssert.assertEquals("{\"key1\":[],\"key2\":\"value\"}", actual.toString("utf-8"), true);
+    }
+
+    @Test
+    public void 必須項目のチェックでエラーとなった場合は出力ストリームに何も書き込まれないこと() throws Exception {
+
+        // フォーマット定義
+        LayoutDefinition definition = createLayoutDefinition(
+                "file-type:        \"JSON\"",
+                "text-encoding:    \"UTF-8\"",
+                "[root]",
+                "1 big X",
+                "2 req X"
+        );
+
+        // MAP（書き込み用のバッファを超える値の後に、必須項目が存在しない）
+        char[] chars = new char[20000];
+        Arrays.fill(chars, 'a');
+        Map<String, Object> map = new HashMap<String, Object>();
+        map.put("big", new String(chars));
+
+        // テスト実行
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        try {
+            sut.buildData(map, definition, actual);
+            fail();
+        } catch (InvalidDataFormatException e) {
+            assertThat(e.getMessage(), containsString("Field req is required"));
+        }
+
+        // 検証
+        assertThat(actual.size(), is(0));
+    }
+
     private LayoutDefinition createLayoutDefinition(String... records) throws Exception {
         File file = folder.newFile();
         BufferedWriter writer = new BufferedWriter(new FileWriter(file));
@@ -6,9 +6,12 @@ import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.HashMap;
 import java.util.Map;
 
 import nablarch.core.dataformat.convertor.JsonDataConvertorSetting;
@@ -309,6 +312,214 @@ public class JsonDataRecordFormatterTest {
         }
     }
 
+    /**
+     * ルート要素を配列として読み込むテストを行います。<br>
+     * 
+     * 条件：<br>
+     *   ディレクティブ"root-array"にtrueを指定し、オブジェクトの配列を読み込む。<br>
+     *   
+     * 期待結果：<br>
+     *   配列の要素ごとにデータレコードが返却され、レコード番号は要素の位置となること。<br>
+     *   フォーマット定義に違反する要素の後も、後続の要素を読み込めること。<br>
+     */
+    @Test
+    public void testReadRootArray() throws Exception {
+        File layoutFile = createRootArrayLayoutFile("UTF-16LE");
+        File dataFile = temporaryFolder.newFile("rootArray.json");
+        writeFile(dataFile, "UTF-16LE",
+                "  [",
+                "    {\"id\":\"1\", \"parent\":{\"child\":\"a]\"}, \"tags\":[\"x\",\"y\"]},",
+                "    {\"parent\":{\"child\":\"b\"}},",
+                "    {\"id\":\"3\", \"parent\":{\"child\":\"c\"}}",
+                "  ]  ");
+
+        FileRecordReader reader = new FileRecordReader(dataFile, layoutFile);
+        try {
+            DataRecord record = reader.read();
+            assertThat(record.getString("id"), is("1"));
+            assertThat(record.getString("parent.child"), is("a]"));
+            assertThat(record.getStringArray("tags"), is(new String[] {"x", "y"}));
+            assertThat(record.getRecordNumberAsLong(), is(1L));
+            try {
+                reader.read();
+                fail("例外が発生する");
+            } catch (InvalidDataFormatException e) {
+                assertThat(e.getMessage(), containsString("Field id is required"));
+                assertThat(e.getRecordNumberAsLong(), is(2L));
+            }
+            record = reader.read();
+            assertThat(record.getString("id"), is("3"));
+            assertThat(record.getString("parent.child"), is("c"));
+            assertThat(record.getRecordNumberAsLong(), is(3L));
+            assertThat(reader.hasNext(), is(false));
+            assertThat(reader.read(), is(nullValue()));
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * ルート要素を配列として読み込む場合に、空の配列や空の入力を読み込むテストを行います。<br>
+     * 
+     * 条件：<br>
+     *   空の配列、空の入力を読み込む。<br>
+     *   
+     * 期待結果：<br>
+     *   データレコードが返却されないこと。<br>
+     */
+    @Test
+    public void testReadEmptyRootArray() throws Exception {
+        File layoutFile = createRootArrayLayoutFile("UTF-8");
+        for (String data : new String[] {"[ ]", ""}) {
+            File dataFile = File.createTempFile("empty", ".json", temporaryFolder.getRoot());
+            writeFile(dataFile, "UTF-8", data);
+            FileRecordReader reader = new FileRecordReader(dataFile, layoutFile);
+            try {
+                assertThat(reader.hasNext(), is(false));
+                assertThat(reader.read(), is(nullValue()));
+            } finally {
+                reader.close();
+            }
+        }
+    }
+
+    /**
+     * ルート要素を配列として読み込む場合に、不正な形式のデータを読み込むテストを行います。<br>
+     * 
+     * 条件：<br>
+     *   配列で始まらないデータ、要素がオブジェクトでないデータ、要素の区切りが不正なデータ、配列が終了しないデータを読み込む。<br>
+     *   
+     * 期待結果：<br>
+     *   {@link InvalidDataFormatException}が発生すること。<br>
+     */
+    @Test
+    public void testReadInvalidRootArray() throws Exception {
+        File layoutFile = createRootArrayLayoutFile("UTF-8");
+        String[][] patterns = {
+                {"{\"id\":\"1\"}", "JSON data must starts with '['"},
+                {"[\"1\"]", "array element must be an object. token:[\"1\"]"},
+                {"[{\"id\":\"1\",\"parent\":{\"child\":\"a\"}},]", "array element must be an object. token:[]]"},
+                {"[{\"id\":\"1\",\"parent\":{\"child\":\"a\"}} {\"id\":\"2\"}]", "JSON data must ends with ']'"},
+                {"[{\"id\":\"1\",\"parent\":{\"child\":\"a\"}}", "JSON data must ends with ']'"},
+                {"[{\"id\":\"1\",\"parent\":{\"child\":\"a\"}}] {}", "JSON data must ends with ']'"},
+        };
+        for (String[] pattern : patterns) {
+            File dataFile = File.createTempFile("invalid", ".json", temporaryFolder.getRoot());
+            writeFile(dataFile, "UTF-8", pattern[0]);
+            FileRecordReader reader = new FileRecordReader(dataFile, layoutFile);
+            try {
+                while (reader.hasNext()) {
+                    reader.read();
+                }
+                fail("例外が発生する:" + pattern[0]);
+            } catch (InvalidDataFormatException e) {
+                assertThat(e.getMessage(), containsString(pattern[1]));
+            } finally {
+                reader.close();
+            }
+        }
+    }
+
+    /**
+     * ルート要素を配列として書き込むテストを行います。<br>
+     * 
+     * 条件：<br>
+     *   ディレクティブ"root-array"にtrueを指定し、データレコードを書き込む。<br>
+     *   
+     * 期待結果：<br>
+     *   データレコードごとの要素を持つ配列が書き込まれ、読み込んだ場合に同じデータとなること。<br>
+     *   データレコードを書き込まずにクローズした場合は、空の配列が書き込まれること。<br>
+     */
+    @Test
+    public void testWriteRootArray() throws Exception {
+        File layoutFile = createRootArrayLayoutFile("UTF-8");
+        File dataFile = temporaryFolder.newFile("written.json");
+
+        FileRecordWriter writer = new FileRecordWriter(dataFile, layoutFile);
+        try {
+            for (int i = 1; i <= 3; i++) {
+                Map<String, Object> record = new HashMap<String, Object>();
+                record.put("id", String.valueOf(i));
+                record.put("parent.child", "child" + i);
+                writer.write(record);
+            }
+        } finally {
+            writer.close();
+        }
+
+        FileRecordReader reader = new FileRecordReader(dataFile, layoutFile);
+        try {
+            for (int i = 1; i <= 3; i++) {
+                DataRecord record = reader.read();
+                assertThat(record.getString("id"), is(String.valueOf(i)));
+                assertThat(record.getString("parent.child"), is("child" + i));
+            }
+            assertThat(reader.hasNext(), is(false));
+        } finally {
+            reader.close();
+        }
+
+        File emptyFile = temporaryFolder.newFile("empty.json");
+        new FileRecordWriter(emptyFile, layoutFile).close();
+        assertThat(new String(Files.readAllBytes(emptyFile.toPath()), "UTF-8"), is("[]"));
+    }
+
+    /**
+     * ファイルタイプが"JSONL"の場合に、ルート要素を配列とする指定を行うテストを行います。<br>
+     * 
+     * 条件：<br>
+     *   ディレクティブ"root-array"にtrueを指定する。<br>
+     *   
+     * 期待結果：<br>
+     *   {@link SyntaxErrorException}が発生すること。<br>
+     */
+    @Test
+    public void testRootArrayWithJsonLines() throws Exception {
+        File layoutFile = temporaryFolder.newFile("jsonl.fmt");
+        TestSupport.createFile(layoutFile.getPath(),
+                "file-type:      \"JSONL\"",
+                "text-encoding:  \"UTF-8\"",
+                "root-array:     true",
+                "[root]",
+                "1 id X");
+        LayoutDefinition def = new LayoutFileParser(layoutFile.getPath()).parse();
+        try {
+            new JsonLinesDataRecordFormatter().validateDirectives(def.getDirective());
+            fail("例外が発生する");
+        } catch (SyntaxErrorException e) {
+            assertThat(e.getMessage(), containsString(
+                    "when file-type is 'JSONL', directive 'root-array' must not be true."));
+        }
+    }
+
+    private File createRootArrayLayoutFile(String encoding) throws Exception {
+        File layoutFile = new File(temporaryFolder.getRoot(), "rootArray.fmt");
+        TestSupport.createFile(layoutFile.getPath(),
+                "file-type:      \"JSON\"",
+                "text-encoding:  \"" + encoding + "\"",
+                "root-array:     true",
+                "[root]",
+                "1 id            X",
+                "2 parent        OB",
+                "3 tags [0..*]   X",
+                "[parent]",
+                "1 child         X");
+        return layoutFile;
+    }
+
+    private void writeFile(File file, String encoding, String... lines) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (String line : lines) {
+            sb.append(line).append("\n");
+        }
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(sb.toString().getBytes(encoding));
+        } finally {
+            out.close();
+        }
+    }
+
     /**
      * テスト用パーサークラス
      */
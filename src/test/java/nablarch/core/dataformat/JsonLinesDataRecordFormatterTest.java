@@ -0,0 +1,223 @@
+package nablarch.core.dataformat;
+
+import static nablarch.core.dataformat.DataFormatTestUtils.createFile;
+import static nablarch.core.dataformat.DataFormatTestUtils.writeFile;
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import nablarch.core.repository.SystemRepository;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * {@link JsonLinesDataRecordFormatter}のテスト。
+ */
+public class JsonLinesDataRecordFormatterTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @BeforeClass
+    public static void setUpClass() {
+        FormatterFactory.getInstance().setCacheLayoutFileDefinition(false);
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+        // デフォルトの設定に戻す
+        FormatterFactory.getInstance().setCacheLayoutFileDefinition(true);
+    }
+
+    @After
+    public void tearDown() {
+        SystemRepository.clear();
+    }
+
+    /**
+     * ファイルタイプ"JSONL"のフォーマッタが生成され、MIMEタイプが"application/x-ndjson"であること。
+     */
+    @Test
+    public void testCreateFormatter() throws Exception {
+        DataRecordFormatter formatter = FormatterFactory.getInstance().createFormatter(createLayoutFile("UTF-8"));
+        assertThat(formatter, is(instanceOf(JsonLinesDataRecordFormatter.class)));
+        assertThat(((JsonLinesDataRecordFormatter) formatter).getMimeType(), is("application/x-ndjson"));
+    }
+
+    /**
+     * 1行ずつデータレコードに変換されること。
+     * 空行とCRLFの行を含む場合も、レコード番号は行番号と一致すること。
+     */
+    @Test
+    public void testRead() throws Exception {
+        File dataFile = writeFile(folder.newFile(),
+                "{\"id\":\"1\",\"name\":\"名前1\"}\n"
+              + "\n"
+              + "{\"id\":\"2\",\"name\":\"a\\nb\"}\r\n"
+              + "\r\n"
+              + "  {\"id\" : \"3\"}\n"
+              + "{\"id\":\"4\",\"name\":\"last\"}"
+              + "\n\n", "UTF-8");
+
+        FileRecordReader reader = new FileRecordReader(dataFile, createLayoutFile("UTF-8"));
+        try {
+            DataRecord record = reader.read();
+            assertThat(record.getString("id"), is("1"));
+            assertThat(record.getString("name"), is("名前1"));
+            assertThat(record.getRecordNumberAsLong(), is(1L));
+
+            record = reader.read();
+            assertThat(record.getString("name"), is("a\nb"));
+            assertThat(record.getRecordNumberAsLong(), is(3L));
+
+            record = reader.read();
+            assertThat(record.getString("id"), is("3"));
+            assertThat(record.getString("name"), is(nullValue()));
+            assertThat(record.getRecordNumberAsLong(), is(5L));
+
+            record = reader.read();
+            assertThat(record.getString("name"), is("last"));
+            assertThat(record.getRecordNumberAsLong(), is(6L));
+            assertThat(reader.getRecordNumberAsLong(), is(6L));
+
+            assertThat(reader.hasNext(), is(false));
+            assertThat(reader.read(), is(nullValue()));
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * フォーマット定義に違反する行がある場合、行番号がレコード番号として例外に設定されること。
+     */
+    @Test
+    public void testReadInvalidRecord() throws Exception {
+        File dataFile = writeFile(folder.newFile(),
+                "{\"id\":\"1\"}\n"
+              + "\n"
+              + "{\"name\":\"no id\"}\n", "UTF-8");
+
+        FileRecordReader reader = new FileRecordReader(dataFile, createLayoutFile("UTF-8"));
+        try {
+            reader.read();
+            reader.read();
+            fail();
+        } catch (InvalidDataFormatException e) {
+            assertThat(e.getRecordNumberAsLong(), is(3L));
+            assertThat(e.getMessage(), containsString("record number=[3]"));
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * 書き込んだレコードが1行ずつ出力され、読み込んだ場合に同じデータレコードとなること。
+     */
+    @Test
+    public void testWriteAndRead() throws Exception {
+        File layoutFile = createLayoutFile("UTF-8");
+        File dataFile = folder.newFile("out.jsonl");
+
+        FileRecordWriter writer = new FileRecordWriter(dataFile, layoutFile);
+        try {
+            for (int i = 1; i <= 3; i++) {
+                Map<String, Object> record = new HashMap<String, Object>();
+                record.put("id", String.valueOf(i));
+                record.put("name", "名前\"" + i + "\"");
+                writer.write(record);
+            }
+        } finally {
+            writer.close();
+        }
+
+        String written = readFile(dataFile);
+        assertThat(written.split("\n", -1).length, is(4));
+        assertThat(written.endsWith("}\n"), is(true));
+
+        List<DataRecord> records = new ArrayList<DataRecord>();
+        FileRecordReader reader = new FileRecordReader(dataFile, layoutFile);
+        try {
+            while (reader.hasNext()) {
+                records.add(reader.read());
+            }
+        } finally {
+            reader.close();
+        }
+        assertThat(records.size(), is(3));
+        assertThat(records.get(2).getString("id"), is("3"));
+        assertThat(records.get(2).getString("name"), is("名前\"3\""));
+        assertThat(records.get(2).getRecordNumberAsLong(), is(3L));
+    }
+
+    /**
+     * 入力ストリームを設定せずに読み込んだ場合、例外がスローされること。
+     */
+    @Test
+    public void testReadWithoutInputStream() throws Exception {
+        DataRecordFormatter formatter = FormatterFactory.getInstance().createFormatter(createLayoutFile("UTF-8"));
+        formatter.initialize();
+        assertThat(formatter.hasNext(), is(false));
+        try {
+            formatter.readRecord();
+            fail();
+        } catch (IllegalStateException e) {
+            assertThat(e.getMessage(), containsString("input stream was not set."));
+        }
+    }
+
+    /**
+     * UTF-8以外のエンコーディングを指定した場合、例外がスローされること。
+     */
+    @Test
+    public void testInvalidEncoding() throws Exception {
+        DataRecordFormatter formatter = FormatterFactory.getInstance().createFormatter(createLayoutFile("UTF-16LE"));
+        try {
+            formatter.setInputStream(new FileInputStream(writeFile(folder.newFile(), "", "UTF-8"))).initialize();
+            fail();
+        } catch (SyntaxErrorException e) {
+            assertThat(e.getMessage(), containsString(
+                    "when file-type is 'JSONL', directive 'text-encoding' must be specified by [UTF-8]."));
+        } finally {
+            formatter.close();
+        }
+    }
+
+    private File createLayoutFile(String encoding) throws IOException {
+        return createFile(new File(folder.getRoot(), "test.fmt"), "UTF-8",
+                "file-type:      \"JSONL\"",
+                "text-encoding:  \"" + encoding + "\"",
+                "[root]",
+                "1 id   X",
+                "2 name [0..1] X");
+    }
+
+    private String readFile(File file) throws IOException {
+        FileInputStream in = new FileInputStream(file);
+        try {
+            byte[] bytes = new byte[(int) file.length()];
+            int offset = 0;
+            while (offset < bytes.length) {
+                offset += in.read(bytes, offset, bytes.length - offset);
+            }
+            return new String(bytes, "UTF-8");
+        } finally {
+            in.close();
+        }
+    }
+}
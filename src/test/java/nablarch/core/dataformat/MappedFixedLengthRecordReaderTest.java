@@ -0,0 +1,281 @@
+package nablarch.core.dataformat;
+
+import static nablarch.core.dataformat.DataFormatTestUtils.createFile;
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+
+import nablarch.core.repository.SystemRepository;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * {@link MappedFixedLengthRecordReader}のテスト。
+ */
+public class MappedFixedLengthRecordReaderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private MappedFixedLengthRecordReader reader;
+
+    @BeforeClass
+    public static void setUpClass() {
+        FormatterFactory.getInstance().setCacheLayoutFileDefinition(false);
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+        // デフォルトの設定に戻す
+        FormatterFactory.getInstance().setCacheLayoutFileDefinition(true);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (reader != null) {
+            reader.close();
+        }
+        SystemRepository.clear();
+    }
+
+    /**
+     * レコードを先頭から順に読み込めること。
+     * チャンクサイズを小さくし、複数チャンクにまたがって読み込めることもあわせて確認する。
+     */
+    @Test
+    public void testReadSequentially() throws Exception {
+        File layoutFile = createLayoutFile();
+        File dataFile = createDataFile("1ABC001\n2DEF002\n3GHI003\n4JKL004\n5MNO005\n");
+
+        // 1チャンクに2レコード
+        reader = new MappedFixedLengthRecordReader(dataFile, layoutFile, 17);
+        assertThat(reader.getRecordCount(), is(5L));
+
+        int count = 0;
+        while (reader.hasNext()) {
+            DataRecord record = reader.read();
+            count++;
+            assertThat(record.getRecordNumberAsLong(), is((long) count));
+            assertThat(reader.getRecordNumberAsLong(), is((long) count));
+            assertThat(record.getString("type"), is(String.valueOf(count)));
+            assertThat(record.getBigDecimal("amount"), is(new BigDecimal(count)));
+        }
+        assertThat(count, is(5));
+        assertThat(reader.read(), is(nullValue()));
+    }
+
+    /**
+     * 指定したインデックスのレコードを、先頭から走査せずに読み込めること。
+     */
+    @Test
+    public void testSeekAndRead() throws Exception {
+        File layoutFile = createLayoutFile();
+        File dataFile = createDataFile("1ABC001\n2DEF002\n3GHI003\n4JKL004\n5MNO005\n");
+
+        reader = new MappedFixedLengthRecordReader(dataFile, layoutFile, 16);
+
+        DataRecord record = reader.read(3);
+        assertThat(record.getString("name"), is("JKL"));
+        assertThat(record.getRecordNumberAsLong(), is(4L));
+
+        // 続けて読み込んだ場合は、次のレコードが読み込まれる
+        record = reader.read();
+        assertThat(record.getString("name"), is("MNO"));
+        assertThat(record.getRecordNumberAsLong(), is(5L));
+        assertThat(reader.hasNext(), is(false));
+
+        reader.seek(0);
+        record = reader.read();
+        assertThat(record.getString("name"), is("ABC"));
+        assertThat(record.getRecordNumberAsLong(), is(1L));
+
+        // 終端に移動した場合は、読み込むレコードが存在しない
+        assertThat(reader.read(5), is(nullValue()));
+
+        try {
+            reader.seek(6);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), containsString("record index must be between 0 and 5. record index=[6]."));
+        }
+        try {
+            reader.seek(-1);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), containsString("record index=[-1]."));
+        }
+    }
+
+    /**
+     * 末尾のレコードがレコード長に満たない場合、例外がスローされること。
+     */
+    @Test
+    public void testShortRecord() throws Exception {
+        File layoutFile = createLayoutFile();
+        File dataFile = createDataFile("1ABC001\n2DE");
+
+        reader = new MappedFixedLengthRecordReader(dataFile, layoutFile);
+        assertThat(reader.getRecordCount(), is(2L));
+        reader.read();
+        try {
+            reader.read();
+            fail();
+        } catch (InvalidDataFormatException e) {
+            assertThat(e.getMessage(), containsString(
+                    "the length of a record must be 7 byte but read data was only 3 byte."));
+            assertThat(e.getRecordNumberAsLong(), is(2L));
+            assertThat(e.getInputSourcePath(), is(dataFile.getAbsolutePath()));
+        }
+    }
+
+    /**
+     * レコード終端文字列が不正な場合、例外がスローされること。
+     */
+    @Test
+    public void testInvalidRecordSeparator() throws Exception {
+        File layoutFile = createLayoutFile();
+        File dataFile = createDataFile("1ABC001\n2DEF002\r");
+
+        reader = new MappedFixedLengthRecordReader(dataFile, layoutFile);
+        try {
+            reader.read(1);
+            fail();
+        } catch (InvalidDataFormatException e) {
+            assertThat(e.getMessage(), containsString("invalid record separator was specified by 'record-separator' directive. value=[[13]]."));
+            assertThat(e.getRecordNumberAsLong(), is(2L));
+        }
+    }
+
+    /**
+     * 末尾のレコード終端文字列が欠けている場合、不足分を0として検証し、例外がスローされること。
+     */
+    @Test
+    public void testMissingRecordSeparator() throws Exception {
+        File layoutFile = createLayoutFile();
+        File dataFile = createDataFile("1ABC001\n2DEF002");
+
+        reader = new MappedFixedLengthRecordReader(dataFile, layoutFile);
+        assertThat(reader.read().getString("name"), is("ABC"));
+        try {
+            reader.read();
+            fail();
+        } catch (InvalidDataFormatException e) {
+            assertThat(e.getMessage(), containsString("invalid record separator was specified by 'record-separator' directive. value=[[0]]."));
+            assertThat(e.getRecordNumberAsLong(), is(2L));
+        }
+    }
+
+    /**
+     * マルチレイアウトのファイルを読み込めること。
+     */
+    @Test
+    public void testMultiLayout() throws Exception {
+        File layoutFile = createFile(folder.newFile("multi.fmt"), "UTF-8",
+                "file-type:        \"Fixed\"",
+                "text-encoding:    \"ms932\"",
+                "record-length:    5",
+                "[Classifier]",
+                "1 type X(1)",
+                "[Header]",
+                "type = \"1\"",
+                "1 type X(1)",
+                "2 date X(4)",
+                "[Data]",
+                "type = \"2\"",
+                "1 type X(1)",
+                "2 amount Z(4)");
+        File dataFile = createDataFile("101012001220002");
+
+        reader = new MappedFixedLengthRecordReader(dataFile, layoutFile, 5);
+        DataRecord record = reader.read(2);
+        assertThat(record.getRecordType(), is("Data"));
+        assertThat(record.getBigDecimal("amount"), is(new BigDecimal("2")));
+
+        record = reader.read(0);
+        assertThat(record.getRecordType(), is("Header"));
+        assertThat(record.getString("date"), is("0101"));
+    }
+
+    /**
+     * ファイルタイプが固定長でない場合、例外がスローされること。
+     */
+    @Test
+    public void testInvalidFileType() throws Exception {
+        File layoutFile = createFile(folder.newFile("variable.fmt"), "UTF-8",
+                "file-type:        \"Variable\"",
+                "text-encoding:    \"ms932\"",
+                "record-separator: \"\\n\"",
+                "field-separator:  \",\"",
+                "[Default]",
+                "1 name X");
+        File dataFile = createDataFile("abc\n");
+
+        try {
+            new MappedFixedLengthRecordReader(dataFile, layoutFile);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), containsString("file type must be 'Fixed'."));
+        }
+    }
+
+    /**
+     * フィールドの変換を遅延する場合、読み込み用のバッファが再利用されても、
+     * 後から参照したレコードの値が正しく変換されること。
+     */
+    @Test
+    public void testLazyDecoding() throws Exception {
+        File layoutFile = createLayoutFile();
+        File dataFile = createDataFile("1ABC001\n2DEF002\n3GHI003\n");
+
+        FormatterFactory.getInstance().setLazyDecoding(true);
+        try {
+            reader = new MappedFixedLengthRecordReader(dataFile, layoutFile, 16);
+        } finally {
+            FormatterFactory.getInstance().setLazyDecoding(false);
+        }
+        DataRecord first = reader.read();
+        DataRecord second = reader.read();
+        DataRecord third = reader.read();
+
+        assertThat(first.getString("name"), is("ABC"));
+        assertThat(first.getInt("amount"), is(1));
+        assertThat(second.getString("name"), is("DEF"));
+        assertThat(third.getString("name"), is("GHI"));
+        assertThat(third.getBigDecimal("amount"), is(new BigDecimal("3")));
+    }
+
+    private File createLayoutFile() throws IOException {
+        return createFile(folder.newFile("single.fmt"), "UTF-8",
+                "file-type:        \"Fixed\"",
+                "text-encoding:    \"ms932\"",
+                "record-length:    7",
+                "record-separator: \"\\n\"",
+                "[Default]",
+                "1 type   X(1)",
+                "2 name   X(3)",
+                "5 amount Z(3)");
+    }
+
+    private File createDataFile(String data) throws IOException {
+        File file = folder.newFile("data.dat");
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(data.getBytes("ms932"));
+        } finally {
+            out.close();
+        }
+        return file;
+    }
+}
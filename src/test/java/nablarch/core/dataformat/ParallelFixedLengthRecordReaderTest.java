@@ -0,0 +1,249 @@
+package nablarch.core.dataformat;
+
+import static nablarch.core.dataformat.DataFormatTestUtils.createFile;
+import static nablarch.core.dataformat.DataFormatTestUtils.writeFile;
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import nablarch.core.repository.SystemRepository;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * {@link ParallelFixedLengthRecordReader}のテスト。
+ */
+public class ParallelFixedLengthRecordReaderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ExecutorService executor;
+
+    private ParallelFixedLengthRecordReader reader;
+
+    @BeforeClass
+    public static void setUpClass() {
+        FormatterFactory.getInstance().setCacheLayoutFileDefinition(false);
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+        // デフォルトの設定に戻す
+        FormatterFactory.getInstance().setCacheLayoutFileDefinition(true);
+    }
+
+    @Before
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (reader != null) {
+            reader.close();
+        }
+        executor.shutdownNow();
+        SystemRepository.clear();
+    }
+
+    /**
+     * ファイル内の順序どおりに、正しいレコード番号でレコードが返却されること。
+     */
+    @Test
+    public void testReadOrdered() throws Exception {
+        File dataFile = createDataFile(1000);
+
+        reader = new ParallelFixedLengthRecordReader(dataFile, createLayoutFile(), executor)
+                .setChunkRecordCount(7)
+                .setMaxPendingChunks(3);
+
+        int count = 0;
+        while (reader.hasNext()) {
+            DataRecord record = reader.read();
+            count++;
+            assertThat(record.getRecordNumberAsLong(), is((long) count));
+            assertThat(reader.getRecordNumberAsLong(), is((long) count));
+            assertThat(record.getBigDecimal("seq"), is(new BigDecimal(count)));
+        }
+        assertThat(count, is(1000));
+        assertThat(reader.read(), is(nullValue()));
+    }
+
+    /**
+     * 順不同を指定した場合、全てのレコードが正しいレコード番号で返却されること。
+     */
+    @Test
+    public void testReadUnordered() throws Exception {
+        File dataFile = createDataFile(1000);
+
+        reader = new ParallelFixedLengthRecordReader(dataFile, createLayoutFile(), executor)
+                .setChunkRecordCount(10)
+                .setOrdered(false);
+
+        Set<Long> recordNumbers = new HashSet<Long>();
+        DataRecord record;
+        while ((record = reader.read()) != null) {
+            assertThat(record.getBigDecimal("seq"), is(new BigDecimal(record.getRecordNumberAsLong())));
+            recordNumbers.add(record.getRecordNumberAsLong());
+        }
+        assertThat(recordNumbers.size(), is(1000));
+    }
+
+    /**
+     * 空のファイルを読み込んだ場合、レコードが返却されないこと。
+     */
+    @Test
+    public void testReadEmptyFile() throws Exception {
+        File dataFile = createDataFile(0);
+
+        reader = new ParallelFixedLengthRecordReader(dataFile, createLayoutFile(), executor);
+        assertThat(reader.hasNext(), is(false));
+        assertThat(reader.read(), is(nullValue()));
+    }
+
+    /**
+     * 変換エラーが発生した場合、それまでのレコードが返却された後に例外がスローされること。
+     */
+    @Test
+    public void testInvalidRecord() throws Exception {
+        StringBuilder data = new StringBuilder();
+        for (int i = 1; i <= 30; i++) {
+            data.append(i == 25 ? "00A5" : String.format("%04d", i)).append("\n");
+        }
+        File dataFile = writeFile(folder.newFile("data.dat"), data.toString(), "ms932");
+
+        reader = new ParallelFixedLengthRecordReader(dataFile, createLayoutFile(), executor)
+                .setChunkRecordCount(10);
+
+        for (int i = 1; i <= 24; i++) {
+            assertThat(reader.read().getRecordNumberAsLong(), is((long) i));
+        }
+        try {
+            reader.read();
+            fail();
+        } catch (InvalidDataFormatException e) {
+            assertThat(e.getRecordNumberAsLong(), is(25L));
+            assertThat(e.getFieldName(), is("seq"));
+            assertThat(e.getInputSourcePath(), is(dataFile.getAbsolutePath()));
+            assertThat(reader.getRecordNumberAsLong(), is(25L));
+        }
+        // 後続のレコードは引き続き読み込める
+        assertThat(reader.read().getRecordNumberAsLong(), is(26L));
+    }
+
+    /**
+     * 末尾のレコードが不完全な場合、逐次読み込む場合と同様にレコード長の不足として例外がスローされること。
+     */
+    @Test
+    public void testTruncatedLastRecord() throws Exception {
+        File dataFile = writeFile(folder.newFile("data.dat"), "0001\n0002\n00", "ms932");
+
+        reader = new ParallelFixedLengthRecordReader(dataFile, createLayoutFile(), executor);
+
+        assertThat(reader.read().getRecordNumberAsLong(), is(1L));
+        assertThat(reader.read().getRecordNumberAsLong(), is(2L));
+        try {
+            reader.read();
+            fail();
+        } catch (InvalidDataFormatException e) {
+            assertThat(e.getMessage(), containsString("the length of a record must be 4 byte but read data was only 2 byte."));
+            assertThat(e.getRecordNumberAsLong(), is(3L));
+        }
+        assertThat(reader.read(), is(nullValue()));
+    }
+
+    /**
+     * 読み込み開始前にファイルが短くなった場合、読み込めたレコードまでが返却され、
+     * 不完全なレコードはレコード長の不足として例外がスローされること。
+     */
+    @Test
+    public void testFileShrunk() throws Exception {
+        File dataFile = createDataFile(10);
+
+        reader = new ParallelFixedLengthRecordReader(dataFile, createLayoutFile(), executor)
+                .setChunkRecordCount(3);
+
+        RandomAccessFile file = new RandomAccessFile(dataFile, "rw");
+        try {
+            file.setLength(22);
+        } finally {
+            file.close();
+        }
+
+        for (int i = 1; i <= 4; i++) {
+            assertThat(reader.read().getRecordNumberAsLong(), is((long) i));
+        }
+        try {
+            reader.read();
+            fail();
+        } catch (InvalidDataFormatException e) {
+            assertThat(e.getMessage(), containsString("but read data was only 2 byte."));
+            assertThat(e.getRecordNumberAsLong(), is(5L));
+        }
+        assertThat(reader.read(), is(nullValue()));
+    }
+
+    /**
+     * 読み込み開始後に設定を変更した場合、例外がスローされること。
+     */
+    @Test
+    public void testChangeSettingsAfterStarted() throws Exception {
+        reader = new ParallelFixedLengthRecordReader(createDataFile(3), createLayoutFile(), executor);
+        reader.read();
+        try {
+            reader.setOrdered(false);
+            fail();
+        } catch (IllegalStateException e) {
+            assertThat(e.getMessage(), containsString("reading has already started."));
+        }
+    }
+
+    /**
+     * スレッドプールを指定しない場合でも読み込めること。
+     */
+    @Test
+    public void testDefaultExecutor() throws Exception {
+        reader = new ParallelFixedLengthRecordReader(createDataFile(5), createLayoutFile());
+        int count = 0;
+        while (reader.read() != null) {
+            count++;
+        }
+        assertThat(count, is(5));
+    }
+
+    private File createLayoutFile() throws IOException {
+        return createFile(folder.newFile("test.fmt"), "UTF-8",
+                "file-type:        \"Fixed\"",
+                "text-encoding:    \"ms932\"",
+                "record-length:    4",
+                "record-separator: \"\\n\"",
+                "[Default]",
+                "1 seq Z(4)");
+    }
+
+    private File createDataFile(int count) throws IOException {
+        StringBuilder data = new StringBuilder();
+        for (int i = 1; i <= count; i++) {
+            data.append(String.format("%04d", i)).append("\n");
+        }
+        return writeFile(folder.newFile("data.dat"), data.toString(), "ms932");
+    }
+}
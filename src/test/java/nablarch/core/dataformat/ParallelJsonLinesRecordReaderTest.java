@@ -0,0 +1,219 @@
+package nablarch.core.dataformat;
+
+import static nablarch.core.dataformat.DataFormatTestUtils.createFile;
+import static nablarch.core.dataformat.DataFormatTestUtils.writeFile;
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import nablarch.core.repository.SystemRepository;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * {@link ParallelJsonLinesRecordReader}のテスト。
+ */
+public class ParallelJsonLinesRecordReaderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ExecutorService executor;
+
+    private ParallelJsonLinesRecordReader reader;
+
+    @BeforeClass
+    public static void setUpClass() {
+        FormatterFactory.getInstance().setCacheLayoutFileDefinition(false);
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+        // デフォルトの設定に戻す
+        FormatterFactory.getInstance().setCacheLayoutFileDefinition(true);
+    }
+
+    @Before
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (reader != null) {
+            reader.close();
+        }
+        executor.shutdownNow();
+        SystemRepository.clear();
+    }
+
+    /**
+     * 空行やCRLFの行を含む場合も、チャンクのサイズによらず逐次読み込んだ場合と同じレコードとレコード番号が返却されること。
+     */
+    @Test
+    public void testReadSameAsSequential() throws Exception {
+        File layoutFile = createLayoutFile();
+        StringBuilder data = new StringBuilder();
+        for (int i = 1; i <= 300; i++) {
+            if (i % 17 == 0) {
+                data.append("\n\r\n");
+            }
+            data.append("{\"id\":\"").append(i).append("\",\"name\":\"名前\\n").append(i).append("\"}");
+            data.append(i % 3 == 0 ? "\r\n" : "\n");
+        }
+        data.append("\n");
+        File dataFile = writeFile(folder.newFile("data.jsonl"), data.toString(), "UTF-8");
+
+        List<DataRecord> expected = readSequentially(dataFile, layoutFile);
+        assertThat(expected.size(), is(300));
+        for (int chunkSize : new int[] {1, 7, 64, 1000, 1000000}) {
+            reader = new ParallelJsonLinesRecordReader(dataFile, layoutFile, executor)
+                    .setChunkSize(chunkSize)
+                    .setMaxPendingChunks(3);
+            assertRecords(expected);
+            reader.close();
+            reader = null;
+        }
+    }
+
+    /**
+     * 空のファイルを読み込んだ場合、レコードが返却されないこと。
+     */
+    @Test
+    public void testReadEmptyFile() throws Exception {
+        reader = new ParallelJsonLinesRecordReader(writeFile(folder.newFile("data.jsonl"), "", "UTF-8"), createLayoutFile(), executor);
+        assertThat(reader.hasNext(), is(false));
+        assertThat(reader.read(), is(nullValue()));
+    }
+
+    /**
+     * 変換エラーが発生した場合、それまでのレコードが返却された後に例外がスローされ、後続のレコードは引き続き読み込めること。
+     */
+    @Test
+    public void testInvalidRecord() throws Exception {
+        StringBuilder data = new StringBuilder();
+        for (int i = 1; i <= 30; i++) {
+            data.append(i == 25 ? "{\"name\":\"x\"}" : "{\"id\":\"" + i + "\"}").append("\n");
+        }
+        File dataFile = writeFile(folder.newFile("data.jsonl"), data.toString(), "UTF-8");
+
+        reader = new ParallelJsonLinesRecordReader(dataFile, createLayoutFile(), executor)
+                .setChunkSize(16);
+
+        for (int i = 1; i <= 24; i++) {
+            assertThat(reader.read().getRecordNumberAsLong(), is((long) i));
+        }
+        try {
+            reader.read();
+            fail();
+        } catch (InvalidDataFormatException e) {
+            assertThat(e.getRecordNumberAsLong(), is(25L));
+            assertThat(e.getInputSourcePath(), is(dataFile.getAbsolutePath()));
+            assertThat(reader.getRecordNumberAsLong(), is(25L));
+        }
+        for (int i = 26; i <= 30; i++) {
+            assertThat(reader.read().getRecordNumberAsLong(), is((long) i));
+        }
+        assertThat(reader.hasNext(), is(false));
+    }
+
+    /**
+     * 読み込み開始後に設定を変更した場合、例外がスローされること。
+     * 不正な設定値やファイルタイプの場合、例外がスローされること。
+     */
+    @Test
+    public void testInvalidSettings() throws Exception {
+        File dataFile = writeFile(folder.newFile("data.jsonl"), "{\"id\":\"1\"}\n", "UTF-8");
+        reader = new ParallelJsonLinesRecordReader(dataFile, createLayoutFile(), executor);
+        try {
+            reader.setMaxPendingChunks(0);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), containsString("max pending chunks was invalid."));
+        }
+        reader.read();
+        try {
+            reader.setChunkSize(100);
+            fail();
+        } catch (IllegalStateException e) {
+            assertThat(e.getMessage(), containsString("reading has already started."));
+        }
+
+        File jsonLayoutFile = createFile(folder.newFile("json.fmt"), "UTF-8",
+                "file-type:      \"JSON\"",
+                "text-encoding:  \"UTF-8\"",
+                "[root]",
+                "1 id X");
+        try {
+            new ParallelJsonLinesRecordReader(dataFile, jsonLayoutFile, executor);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), containsString("file type must be 'JSONL'."));
+        }
+    }
+
+    /**
+     * スレッドプールを指定しない場合でも読み込めること。
+     */
+    @Test
+    public void testDefaultExecutor() throws Exception {
+        StringBuilder data = new StringBuilder();
+        for (int i = 1; i <= 5; i++) {
+            data.append("{\"id\":\"").append(i).append("\"}\n");
+        }
+        reader = new ParallelJsonLinesRecordReader(writeFile(folder.newFile("data.jsonl"), data.toString(), "UTF-8"), createLayoutFile()).setChunkSize(8);
+        int count = 0;
+        while (reader.read() != null) {
+            count++;
+        }
+        assertThat(count, is(5));
+    }
+
+    private void assertRecords(List<DataRecord> expected) {
+        for (DataRecord expectedRecord : expected) {
+            DataRecord record = reader.read();
+            assertThat(record.getRecordNumberAsLong(), is(expectedRecord.getRecordNumberAsLong()));
+            assertThat(reader.getRecordNumberAsLong(), is(expectedRecord.getRecordNumberAsLong()));
+            assertThat(record, is(expectedRecord));
+        }
+        assertThat(reader.hasNext(), is(false));
+        assertThat(reader.read(), is(nullValue()));
+    }
+
+    private List<DataRecord> readSequentially(File dataFile, File layoutFile) {
+        List<DataRecord> records = new ArrayList<DataRecord>();
+        FileRecordReader sequentialReader = new FileRecordReader(dataFile, layoutFile);
+        try {
+            while (sequentialReader.hasNext()) {
+                records.add(sequentialReader.read());
+            }
+        } finally {
+            sequentialReader.close();
+        }
+        return records;
+    }
+
+    private File createLayoutFile() throws IOException {
+        return createFile(folder.newFile("test.fmt"), "UTF-8",
+                "file-type:      \"JSONL\"",
+                "text-encoding:  \"UTF-8\"",
+                "[root]",
+                "1 id   X",
+                "2 name [0..1] X");
+    }
+}
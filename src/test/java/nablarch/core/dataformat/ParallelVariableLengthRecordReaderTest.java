@@ -0,0 +1,291 @@
+package nablarch.core.dataformat;
+
+import static nablarch.core.dataformat.DataFormatTestUtils.createFile;
+import static nablarch.core.dataformat.DataFormatTestUtils.writeFile;
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import nablarch.core.repository.SystemRepository;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * {@link ParallelVariableLengthRecordReader}のテスト。
+ */
+public class ParallelVariableLengthRecordReaderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ExecutorService executor;
+
+    private ParallelVariableLengthRecordReader reader;
+
+    @BeforeClass
+    public static void setUpClass() {
+        FormatterFactory.getInstance().setCacheLayoutFileDefinition(false);
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+        // デフォルトの設定に戻す
+        FormatterFactory.getInstance().setCacheLayoutFileDefinition(true);
+    }
+
+    @Before
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (reader != null) {
+            reader.close();
+        }
+        executor.shutdownNow();
+        SystemRepository.clear();
+    }
+
+    /**
+     * 囲み文字で囲まれたフィールドにレコード終端文字列を含む場合も、
+     * チャンクのサイズによらず逐次読み込んだ場合と同じレコードとレコード番号が返却されること。
+     * タイトルは最初の行のみ、空行は読み飛ばしてレコード番号に含めること。
+     */
+    @Test
+    public void testReadSameAsSequential() throws Exception {
+        File layoutFile = createLayoutFile("utf-8", ",", true, true);
+        StringBuilder data = new StringBuilder("\"id\",\"name\",\"note\"\r\n");
+        for (int i = 1; i <= 300; i++) {
+            if (i % 17 == 0) {
+                data.append("\r\n\r\n");
+            }
+            data.append(i).append(",");
+            data.append(i % 3 == 0 ? "\"な,ま\r\nえ" + i + "\"" : "名前" + i).append(",");
+            data.append(i % 5 == 0 ? "\"\"\"引用\"\"\r\n\"" : "").append("\r\n");
+        }
+        data.append("\r\n");
+        File dataFile = writeFile(folder.newFile("data.dat"), data.toString(), "utf-8");
+
+        List<DataRecord> expected = readSequentially(dataFile, layoutFile);
+        assertThat(expected.size(), is(301));
+        assertThat(expected.get(0).getRecordType(), is("Title"));
+        for (int chunkSize : new int[] {1, 7, 64, 1000, 1000000}) {
+            reader = new ParallelVariableLengthRecordReader(dataFile, layoutFile, executor)
+                    .setChunkSize(chunkSize)
+                    .setMaxPendingChunks(3);
+            assertRecords(expected);
+            reader.close();
+            reader = null;
+        }
+    }
+
+    /**
+     * 囲み文字で囲まれていないフィールドに囲み文字が含まれ、推測したレコードの開始位置が誤っている場合も、
+     * 逐次読み込んだ場合と同じレコードが返却されること。
+     */
+    @Test
+    public void testMispredictedRecordStart() throws Exception {
+        File layoutFile = createLayoutFile("utf-8", ",", false, false);
+        StringBuilder data = new StringBuilder();
+        for (int i = 1; i <= 100; i++) {
+            data.append(i).append(",a\"b").append(i).append(",\"c\nd\"\r\n");
+        }
+        File dataFile = writeFile(folder.newFile("data.dat"), data.toString(), "utf-8");
+
+        List<DataRecord> expected = readSequentially(dataFile, layoutFile);
+        assertThat(expected.size(), is(100));
+        assertThat(expected.get(1).getString("name"), is("a\"b2"));
+        reader = new ParallelVariableLengthRecordReader(dataFile, layoutFile, executor)
+                .setChunkSize(10);
+        assertRecords(expected);
+    }
+
+    /**
+     * フィールドの区切りをバイトデータ上で判定できない場合も、逐次読み込んだ場合と同じレコードが返却されること。
+     */
+    @Test
+    public void testNotByteParsable() throws Exception {
+        File layoutFile = createLayoutFile("ms932", "|", false, false);
+        StringBuilder data = new StringBuilder();
+        for (int i = 1; i <= 50; i++) {
+            data.append(i).append("|ポ|\"ソ表").append(i).append("\"\r\n");
+        }
+        File dataFile = writeFile(folder.newFile("data.dat"), data.toString(), "ms932");
+
+        List<DataRecord> expected = readSequentially(dataFile, layoutFile);
+        assertThat(expected.get(0).getString("name"), is("ポ"));
+        reader = new ParallelVariableLengthRecordReader(dataFile, layoutFile, executor)
+                .setChunkSize(10);
+        assertRecords(expected);
+    }
+
+    /**
+     * 空のファイルを読み込んだ場合、レコードが返却されないこと。
+     */
+    @Test
+    public void testReadEmptyFile() throws Exception {
+        File dataFile = writeFile(folder.newFile("data.dat"), "", "utf-8");
+
+        reader = new ParallelVariableLengthRecordReader(dataFile, createLayoutFile("utf-8", ",", true, true), executor);
+        assertThat(reader.hasNext(), is(false));
+        assertThat(reader.read(), is(nullValue()));
+    }
+
+    /**
+     * 変換エラーが発生した場合、それまでのレコードが返却された後に例外がスローされ、後続のレコードは引き続き読み込めること。
+     * フィールドの分割でエラーが発生した場合は、例外がスローされた後はレコードが返却されないこと。
+     */
+    @Test
+    public void testInvalidRecord() throws Exception {
+        StringBuilder data = new StringBuilder();
+        for (int i = 1; i <= 30; i++) {
+            data.append(i == 25 ? "x" : String.valueOf(i)).append(",a,b\r\n");
+        }
+        data.append("31,\"a\"b,c\r\n");
+        data.append("32,a,b\r\n");
+        File dataFile = writeFile(folder.newFile("data.dat"), data.toString(), "utf-8");
+
+        reader = new ParallelVariableLengthRecordReader(dataFile, createLayoutFile("utf-8", ",", false, false), executor)
+                .setChunkSize(16);
+
+        for (int i = 1; i <= 24; i++) {
+            assertThat(reader.read().getRecordNumberAsLong(), is((long) i));
+        }
+        try {
+            reader.read();
+            fail();
+        } catch (InvalidDataFormatException e) {
+            assertThat(e.getRecordNumberAsLong(), is(25L));
+            assertThat(e.getFieldName(), is("id"));
+            assertThat(e.getInputSourcePath(), is(dataFile.getAbsolutePath()));
+            assertThat(reader.getRecordNumberAsLong(), is(25L));
+        }
+        for (int i = 26; i <= 30; i++) {
+            assertThat(reader.read().getRecordNumberAsLong(), is((long) i));
+        }
+        try {
+            reader.read();
+            fail();
+        } catch (InvalidDataFormatException e) {
+            assertThat(e.getMessage(), containsString("the field value was delimited by a wrong separator."));
+            assertThat(e.getRecordNumberAsLong(), is(31L));
+        }
+        assertThat(reader.hasNext(), is(false));
+    }
+
+    /**
+     * 読み込み開始後に設定を変更した場合、例外がスローされること。
+     * 不正な設定値やファイルタイプの場合、例外がスローされること。
+     */
+    @Test
+    public void testInvalidSettings() throws Exception {
+        File dataFile = writeFile(folder.newFile("data.dat"), "1,a,b\r\n", "utf-8");
+        File layoutFile = createLayoutFile("utf-8", ",", false, false);
+        reader = new ParallelVariableLengthRecordReader(dataFile, layoutFile, executor);
+        try {
+            reader.setChunkSize(0);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), containsString("chunk size was invalid."));
+        }
+        reader.read();
+        try {
+            reader.setChunkSize(100);
+            fail();
+        } catch (IllegalStateException e) {
+            assertThat(e.getMessage(), containsString("reading has already started."));
+        }
+
+        File fixedLayoutFile = createFile(folder.newFile("fixed.fmt"), "UTF-8",
+                "file-type:        \"Fixed\"",
+                "text-encoding:    \"ms932\"",
+                "record-length:    4",
+                "[Default]",
+                "1 seq Z(4)");
+        try {
+            new ParallelVariableLengthRecordReader(dataFile, fixedLayoutFile, executor);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), containsString("file type must be 'Variable'."));
+        }
+    }
+
+    /**
+     * スレッドプールを指定しない場合でも読み込めること。
+     */
+    @Test
+    public void testDefaultExecutor() throws Exception {
+        StringBuilder data = new StringBuilder();
+        for (int i = 1; i <= 5; i++) {
+            data.append(i).append(",a,b\r\n");
+        }
+        reader = new ParallelVariableLengthRecordReader(writeFile(folder.newFile("data.dat"), data.toString(), "utf-8"),
+                createLayoutFile("utf-8", ",", false, false)).setChunkSize(8);
+        int count = 0;
+        while (reader.read() != null) {
+            count++;
+        }
+        assertThat(count, is(5));
+    }
+
+    private void assertRecords(List<DataRecord> expected) {
+        for (DataRecord expectedRecord : expected) {
+            DataRecord record = reader.read();
+            assertThat(record.getRecordType(), is(expectedRecord.getRecordType()));
+            assertThat(record.getRecordNumberAsLong(), is(expectedRecord.getRecordNumberAsLong()));
+            assertThat(reader.getRecordNumberAsLong(), is(expectedRecord.getRecordNumberAsLong()));
+            assertThat(record, is(expectedRecord));
+        }
+        assertThat(reader.hasNext(), is(false));
+        assertThat(reader.read(), is(nullValue()));
+    }
+
+    private List<DataRecord> readSequentially(File dataFile, File layoutFile) {
+        List<DataRecord> records = new ArrayList<DataRecord>();
+        FileRecordReader sequentialReader = new FileRecordReader(dataFile, layoutFile);
+        try {
+            while (sequentialReader.hasNext()) {
+                records.add(sequentialReader.read());
+            }
+        } finally {
+            sequentialReader.close();
+        }
+        return records;
+    }
+
+    private File createLayoutFile(String encoding, String fieldSeparator,
+            boolean requiresTitle, boolean ignoreBlankLines) throws IOException {
+        return createFile(folder.newFile("test.fmt"), "UTF-8",
+                "file-type:          \"Variable\"",
+                "text-encoding:      \"" + encoding + "\"",
+                "record-separator:   \"\\r\\n\"",
+                "field-separator:    \"" + fieldSeparator + "\"",
+                "quoting-delimiter:  \"\\\"\"",
+                "requires-title:     " + requiresTitle,
+                "ignore-blank-lines: " + ignoreBlankLines,
+                "[Title]",
+                "1 idTitle   X",
+                "2 nameTitle X",
+                "3 noteTitle X",
+                "[Data]",
+                "1 id   X number",
+                "2 name X",
+                "3 note X");
+    }
+}
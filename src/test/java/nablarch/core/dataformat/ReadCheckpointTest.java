@@ -0,0 +1,314 @@
+package nablarch.core.dataformat;
+
+import static nablarch.core.dataformat.DataFormatTestUtils.createFile;
+import static nablarch.core.dataformat.DataFormatTestUtils.writeFile;
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * {@link FileRecordReader}のチェックポイントからの読み込み再開のテスト。
+ */
+public class ReadCheckpointTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @BeforeClass
+    public static void setUpClass() {
+        FormatterFactory.getInstance().setCacheLayoutFileDefinition(false);
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+        // デフォルトの設定に戻す
+        FormatterFactory.getInstance().setCacheLayoutFileDefinition(true);
+    }
+
+    /**
+     * 可変長ファイルの任意のレコードの後で取得したチェックポイントから読み込みを再開した場合、
+     * 先頭から読み込んだ場合と同じレコードとレコード番号が返却されること。
+     * タイトル、空行、囲み文字で囲まれた改行を含む場合も同様であること。
+     */
+    @Test
+    public void testVariableLength() throws Exception {
+        File layoutFile = createFile(folder.newFile("variable.fmt"), "UTF-8",
+                "file-type:          \"Variable\"",
+                "text-encoding:      \"utf-8\"",
+                "record-separator:   \"\\r\\n\"",
+                "field-separator:    \",\"",
+                "quoting-delimiter:  \"\\\"\"",
+                "requires-title:     true",
+                "ignore-blank-lines: true",
+                "[Title]",
+                "1 idTitle   X",
+                "2 nameTitle X",
+                "[Data]",
+                "1 id   X number",
+                "2 name X");
+        StringBuilder data = new StringBuilder("\"id\",\"name\"\r\n");
+        for (int i = 1; i <= 20; i++) {
+            if (i % 6 == 0) {
+                data.append("\r\n");
+            }
+            data.append(i).append(",").append(i % 4 == 0 ? "\"な\r\nまえ" + i + "\"" : "名前" + i).append("\r\n");
+        }
+        File dataFile = writeFile(folder.newFile(), data.toString(), "utf-8");
+        List<DataRecord> expected = readAll(new FileRecordReader(dataFile, layoutFile));
+
+        for (int i = 0; i <= expected.size(); i++) {
+            FileRecordReader reader = new FileRecordReader(dataFile, layoutFile);
+            ReadCheckpoint checkpoint;
+            try {
+                for (int j = 0; j < i; j++) {
+                    reader.read();
+                }
+                checkpoint = reader.getCheckpoint();
+            } finally {
+                reader.close();
+            }
+            assertThat(checkpoint.isTitleRead(), is(i > 0));
+
+            // 永続化した値から復元したチェックポイントでも再開できること
+            ReadCheckpoint restored = new ReadCheckpoint(
+                    checkpoint.getOffset(), checkpoint.getRecordNumberAsLong(), checkpoint.isTitleRead());
+            List<DataRecord> actual = readAll(new FileRecordReader(dataFile, layoutFile, restored));
+            assertThat(actual, is(expected.subList(i, expected.size())));
+            for (int j = 0; j < actual.size(); j++) {
+                assertThat(actual.get(j).getRecordNumberAsLong(), is(expected.get(i + j).getRecordNumberAsLong()));
+            }
+        }
+    }
+
+    /**
+     * 再開した読み込みから取得したチェックポイントでも、続きから読み込めること。
+     */
+    @Test
+    public void testResumeTwice() throws Exception {
+        File layoutFile = createFile(folder.newFile("variable.fmt"), "UTF-8",
+                "file-type:          \"Variable\"",
+                "text-encoding:      \"utf-8\"",
+                "record-separator:   \"\\n\"",
+                "field-separator:    \",\"",
+                "[Default]",
+                "1 id   X number",
+                "2 name X");
+        StringBuilder data = new StringBuilder();
+        for (int i = 1; i <= 10; i++) {
+            data.append(i).append(",name").append(i).append("\n");
+        }
+        File dataFile = writeFile(folder.newFile(), data.toString(), "utf-8");
+
+        FileRecordReader reader = new FileRecordReader(dataFile, layoutFile);
+        reader.read();
+        reader.read();
+        ReadCheckpoint first = reader.getCheckpoint();
+        reader.close();
+
+        reader = new FileRecordReader(dataFile, layoutFile, first);
+        assertThat(reader.read().getRecordNumberAsLong(), is(3L));
+        assertThat(reader.read().getRecordNumberAsLong(), is(4L));
+        ReadCheckpoint second = reader.getCheckpoint();
+        reader.close();
+        assertThat(second.getOffset(), is((long) "1,name1\n2,name2\n3,name3\n4,name4\n".length()));
+        assertThat(second.getRecordNumberAsLong(), is(4L));
+
+        List<DataRecord> records = readAll(new FileRecordReader(dataFile, layoutFile, second));
+        assertThat(records.size(), is(6));
+        assertThat(records.get(0).getString("name"), is("name5"));
+        assertThat(records.get(0).getRecordNumberAsLong(), is(5L));
+    }
+
+    /**
+     * 固定長ファイルで条件を設定して先読みした場合も、先読みしたレコードから読み込みを再開できること。
+     */
+    @Test
+    public void testFixedLengthWithFilter() throws Exception {
+        File layoutFile = createFile(folder.newFile("fixed.fmt"), "UTF-8",
+                "file-type:        \"Fixed\"",
+                "text-encoding:    \"ms932\"",
+                "record-length:    5",
+                "record-separator: \"\\n\"",
+                "[Default]",
+                "1 type X(1)",
+                "2 seq  Z(4)");
+        StringBuilder data = new StringBuilder();
+        for (int i = 1; i <= 20; i++) {
+            data.append(i % 3 == 0 ? "B" : "A").append(String.format("%04d", i)).append("\n");
+        }
+        File dataFile = writeFile(folder.newFile(), data.toString(), "ms932");
+
+        FileRecordReader reader = new FileRecordReader(dataFile, layoutFile)
+                .setRecordFilter(FixedLengthRecordFilter.equalsTo("type", "B"));
+        ReadCheckpoint checkpoint;
+        try {
+            assertThat(reader.read().getRecordNumberAsLong(), is(3L));
+            assertThat(reader.hasNext(), is(true));
+            checkpoint = reader.getCheckpoint();
+        } finally {
+            reader.close();
+        }
+        assertThat(checkpoint.getRecordNumberAsLong(), is(5L));
+        assertThat(checkpoint.getOffset(), is(30L));
+        assertThat(checkpoint.isTitleRead(), is(false));
+
+        reader = new FileRecordReader(dataFile, layoutFile, checkpoint);
+        try {
+            DataRecord record = reader.read();
+            assertThat(record.getRecordNumberAsLong(), is(6L));
+            assertThat(record.getBigDecimal("seq").intValue(), is(6));
+            assertThat(reader.getCheckpoint().getRecordNumberAsLong(), is(6L));
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * 固定長ファイルで、位置と対応しないレコード番号のチェックポイントから読み込みを再開した場合、
+     * 再開した位置から読み込んだレコード数をもとに、次のチェックポイントの位置が算出されること。
+     */
+    @Test
+    public void testFixedLengthResumeWithUnalignedRecordNumber() throws Exception {
+        File layoutFile = createFile(folder.newFile("fixed.fmt"), "UTF-8",
+                "file-type:        \"Fixed\"",
+                "text-encoding:    \"ms932\"",
+                "record-length:    4",
+                "record-separator: \"\\n\"",
+                "[Default]",
+                "1 seq Z(4)");
+        File dataFile = writeFile(folder.newFile(), "0001\n0002\n0003\n0004\n", "ms932");
+
+        FileRecordReader reader = new FileRecordReader(dataFile, layoutFile, new ReadCheckpoint(5, 10, false));
+        ReadCheckpoint checkpoint;
+        try {
+            DataRecord record = reader.read();
+            assertThat(record.getRecordNumberAsLong(), is(11L));
+            assertThat(record.getBigDecimal("seq").intValue(), is(2));
+            checkpoint = reader.getCheckpoint();
+        } finally {
+            reader.close();
+        }
+        assertThat(checkpoint.getOffset(), is(10L));
+        assertThat(checkpoint.getRecordNumberAsLong(), is(11L));
+
+        List<DataRecord> records = readAll(new FileRecordReader(dataFile, layoutFile, checkpoint));
+        assertThat(records.size(), is(2));
+        assertThat(records.get(0).getRecordNumberAsLong(), is(12L));
+        assertThat(records.get(0).getBigDecimal("seq").intValue(), is(3));
+    }
+
+    /**
+     * int型の範囲を超えるレコード番号のチェックポイントから読み込みを再開した場合、
+     * レコード番号がオーバーフローせずに、データレコードと例外に設定されること。
+     */
+    @Test
+    public void testLongRecordNumber() throws Exception {
+        File layoutFile = createFile(folder.newFile("fixed.fmt"), "UTF-8",
+                "file-type:        \"Fixed\"",
+                "text-encoding:    \"ms932\"",
+                "record-length:    4",
+                "record-separator: \"\\n\"",
+                "[Default]",
+                "1 seq Z(4)");
+        File dataFile = writeFile(folder.newFile(), "0001\n000x\n", "ms932");
+
+        ReadCheckpoint checkpoint = new ReadCheckpoint(0, 3000000000L, false);
+        assertThat(checkpoint.getRecordNumberAsLong(), is(3000000000L));
+        try {
+            checkpoint.getRecordNumber();
+            fail();
+        } catch (IllegalStateException e) {
+            assertThat(e.getMessage(), containsString("record number exceeded the range of int."));
+        }
+
+        FileRecordReader reader = new FileRecordReader(dataFile, layoutFile, checkpoint);
+        try {
+            assertThat(reader.read().getRecordNumberAsLong(), is(3000000001L));
+            assertThat(reader.getRecordNumberAsLong(), is(3000000001L));
+            assertThat(reader.getCheckpoint().getRecordNumberAsLong(), is(3000000001L));
+            assertThat(reader.getCheckpoint().getOffset(), is(5L));
+            try {
+                reader.getRecordNumber();
+                fail();
+            } catch (IllegalStateException e) {
+                assertThat(e.getMessage(), containsString("record number exceeded the range of int."));
+            }
+            try {
+                reader.read();
+                fail();
+            } catch (InvalidDataFormatException e) {
+                assertThat(e.getRecordNumberAsLong(), is(3000000002L));
+                assertThat(e.getMessage(), containsString("record number=[3000000002]."));
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * チェックポイントをサポートしないファイルや、データファイルと一致しないチェックポイントの場合に例外がスローされること。
+     */
+    @Test
+    public void testInvalidCheckpoint() throws Exception {
+        File layoutFile = createFile(folder.newFile("variable.fmt"), "UTF-8",
+                "file-type:          \"Variable\"",
+                "text-encoding:      \"ms932\"",
+                "record-separator:   \"\\n\"",
+                "field-separator:    \"|\"",
+                "[Default]",
+                "1 id X");
+        File dataFile = writeFile(folder.newFile(), "1\n2\n", "ms932");
+        FileRecordReader reader = new FileRecordReader(dataFile, layoutFile);
+        try {
+            reader.read();
+            reader.getCheckpoint();
+            fail();
+        } catch (IllegalStateException e) {
+            assertThat(e.getMessage(), containsString("checkpoint is not supported for this file."));
+        } finally {
+            reader.close();
+        }
+
+        try {
+            new FileRecordReader(dataFile, layoutFile, new ReadCheckpoint(5, 2, false));
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), containsString("checkpoint did not match the data file."));
+        }
+        try {
+            new ReadCheckpoint(-1, 0, false);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), containsString("offset was invalid."));
+        }
+        try {
+            new ReadCheckpoint(0, -1, false);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), containsString("record number was invalid."));
+        }
+    }
+
+    private List<DataRecord> readAll(FileRecordReader reader) {
+        List<DataRecord> records = new ArrayList<DataRecord>();
+        try {
+            while (reader.hasNext()) {
+                records.add(reader.read());
+            }
+        } finally {
+            reader.close();
+        }
+        return records;
+    }
+}
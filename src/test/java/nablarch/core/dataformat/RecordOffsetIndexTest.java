@@ -0,0 +1,315 @@
+package nablarch.core.dataformat;
+
+import static nablarch.core.dataformat.DataFormatTestUtils.createFile;
+import static nablarch.core.dataformat.DataFormatTestUtils.writeFile;
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * {@link RecordOffsetIndex}のテスト。
+ */
+public class RecordOffsetIndexTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private RecordOffsetIndex index;
+
+    @BeforeClass
+    public static void setUpClass() {
+        FormatterFactory.getInstance().setCacheLayoutFileDefinition(false);
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+        // デフォルトの設定に戻す
+        FormatterFactory.getInstance().setCacheLayoutFileDefinition(true);
+    }
+
+    @After
+    public void tearDown() {
+        if (index != null) {
+            index.close();
+        }
+    }
+
+    /**
+     * 可変長ファイルの全てのレコードの開始位置を保持するインデックスを作成し、
+     * 任意のレコード番号から先頭から読み込んだ場合と同じレコードを読み込めること。
+     * 囲み文字で囲まれた改行、タイトル、空行を含む場合も、レコード番号が一致すること。
+     */
+    @Test
+    public void testVariableLength() throws Exception {
+        File layoutFile = createVariableLengthLayoutFile("utf-8");
+        File dataFile = createVariableLengthDataFile("utf-8");
+        List<DataRecord> expected = readAll(new FileRecordReader(dataFile, layoutFile));
+
+        index = RecordOffsetIndex.create(dataFile, layoutFile);
+        assertThat(index.getIndexFile(), is(new File(dataFile.getPath() + ".idx")));
+        assertThat(index.getInterval(), is(1));
+        assertThat(index.getEntryCount(), is(expected.size()));
+        assertThat(index.getOffset(0), is(0L));
+        assertThat(index.getDataFileLength(), is(dataFile.length()));
+
+        for (int i = 0; i < expected.size(); i++) {
+            long recordNumber = expected.get(i).getRecordNumberAsLong();
+            List<DataRecord> actual = readAll(new FileRecordReader(dataFile, layoutFile, index, recordNumber));
+            assertThat(actual, is(expected.subList(i, expected.size())));
+            assertThat(actual.get(0).getRecordNumberAsLong(), is(recordNumber));
+        }
+    }
+
+    /**
+     * 指定した件数ごとのレコードの開始位置を保持するインデックスを作成し、
+     * 任意のレコード番号から読み込めること。
+     * 空行のレコード番号を指定した場合は、その後の最初のレコードから読み込むこと。
+     */
+    @Test
+    public void testSparse() throws Exception {
+        File layoutFile = createVariableLengthLayoutFile("utf-8");
+        File dataFile = createVariableLengthDataFile("utf-8");
+        List<DataRecord> expected = readAll(new FileRecordReader(dataFile, layoutFile));
+
+        index = RecordOffsetIndex.create(dataFile, layoutFile, new File(folder.getRoot(), "sparse.idx"), 7);
+        assertThat(index.getInterval(), is(7));
+        assertThat(index.getEntryCount(), is((expected.size() + 6) / 7));
+
+        long lastRecordNumber = expected.get(expected.size() - 1).getRecordNumberAsLong();
+        int next = 0;
+        for (long recordNumber = 1; recordNumber <= lastRecordNumber; recordNumber++) {
+            while (expected.get(next).getRecordNumberAsLong() < recordNumber) {
+                next++;
+            }
+            FileRecordReader reader = new FileRecordReader(dataFile, layoutFile, index, recordNumber);
+            try {
+                assertThat(reader.read(), is(expected.get(next)));
+                assertThat(reader.getRecordNumberAsLong(), is(expected.get(next).getRecordNumberAsLong()));
+            } finally {
+                reader.close();
+            }
+        }
+        FileRecordReader reader = new FileRecordReader(dataFile, layoutFile, index, lastRecordNumber + 1);
+        try {
+            assertThat(reader.hasNext(), is(false));
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * 固定長ファイルのインデックスを作成し、任意のレコード番号から読み込めること。
+     */
+    @Test
+    public void testFixedLength() throws Exception {
+        File layoutFile = createFile(folder.newFile("test.fmt"), "UTF-8",
+                "file-type:        \"Fixed\"",
+                "text-encoding:    \"ms932\"",
+                "record-length:    4",
+                "record-separator: \"\\n\"",
+                "[Default]",
+                "1 seq Z(4)");
+        StringBuilder data = new StringBuilder();
+        for (int i = 1; i <= 50; i++) {
+            data.append(String.format("%04d", i)).append("\n");
+        }
+        File dataFile = writeFile(folder.newFile(), data.toString(), "ms932");
+
+        index = RecordOffsetIndex.create(dataFile, layoutFile, RecordOffsetIndex.getDefaultIndexFile(dataFile), 10);
+        assertThat(index.getEntryCount(), is(5));
+        assertThat(index.getOffset(3), is(150L));
+        assertThat(index.getRecordNumberBefore(3), is(30L));
+
+        // 作成済みのインデックスファイルを開いて使用できること
+        index.close();
+        index = new RecordOffsetIndex(RecordOffsetIndex.getDefaultIndexFile(dataFile));
+        List<DataRecord> records = readAll(new FileRecordReader(dataFile, layoutFile, index, 37));
+        assertThat(records.size(), is(14));
+        assertThat(records.get(0).getRecordNumberAsLong(), is(37L));
+        assertThat(records.get(0).getBigDecimal("seq").intValue(), is(37));
+    }
+
+    /**
+     * 疎なインデックスで読み飛ばすレコードに不正なデータが含まれていても、
+     * 読み飛ばすレコードは変換しないため、指定したレコード番号から読み込めること。
+     */
+    @Test
+    public void testSkipInvalidRecord() throws Exception {
+        File fixedLayoutFile = createFile(folder.newFile("test.fmt"), "UTF-8",
+                "file-type:        \"Fixed\"",
+                "text-encoding:    \"ms932\"",
+                "record-length:    4",
+                "record-separator: \"\\n\"",
+                "[Default]",
+                "1 seq Z(4)");
+        StringBuilder data = new StringBuilder();
+        for (int i = 1; i <= 20; i++) {
+            data.append(i == 13 ? "00X3" : String.format("%04d", i)).append("\n");
+        }
+        File fixedDataFile = writeFile(folder.newFile(), data.toString(), "ms932");
+
+        index = RecordOffsetIndex.create(fixedDataFile, fixedLayoutFile, new File(folder.getRoot(), "fixed.idx"), 10);
+        List<DataRecord> records = readAll(new FileRecordReader(fixedDataFile, fixedLayoutFile, index, 15));
+        assertThat(records.size(), is(6));
+        assertThat(records.get(0).getRecordNumberAsLong(), is(15L));
+        assertThat(records.get(0).getBigDecimal("seq").intValue(), is(15));
+        index.close();
+
+        File variableLayoutFile = createVariableLengthLayoutFile("utf-8");
+        File variableDataFile = writeFile(folder.newFile(), "\"id\",\"name\",\"note\"\r\n"
+                + "1,名前1,\r\n"
+                + "abc,名前2,\r\n"
+                + "3,名前3,\r\n"
+                + "4,名前4,\r\n", "utf-8");
+
+        index = RecordOffsetIndex.create(variableDataFile, variableLayoutFile, new File(folder.getRoot(), "variable.idx"), 10);
+        records = readAll(new FileRecordReader(variableDataFile, variableLayoutFile, index, 4));
+        assertThat(records.size(), is(2));
+        assertThat(records.get(0).getRecordNumberAsLong(), is(4L));
+        assertThat(records.get(0).getString("id"), is("3"));
+    }
+
+    /**
+     * インデックスを作成できない場合や、データファイルと一致しない場合に例外がスローされること。
+     */
+    @Test
+    public void testInvalidIndex() throws Exception {
+        File layoutFile = createFile(folder.newFile("test.fmt"), "UTF-8",
+                "file-type:          \"Variable\"",
+                "text-encoding:      \"ms932\"",
+                "record-separator:   \"\\n\"",
+                "field-separator:    \"|\"",
+                "[Default]",
+                "1 id X");
+        File dataFile = writeFile(folder.newFile(), "1\n2\n", "ms932");
+        try {
+            RecordOffsetIndex.create(dataFile, layoutFile);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), containsString("the data file can not be indexed."));
+        }
+        try {
+            new RecordOffsetIndex(RecordOffsetIndex.getDefaultIndexFile(dataFile));
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), containsString("invalid index file was specified."));
+        }
+        try {
+            RecordOffsetIndex.create(dataFile, layoutFile, new File(folder.getRoot(), "zero.idx"), 0);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), containsString("interval was invalid."));
+        }
+
+        File variableLayoutFile = createVariableLengthLayoutFile("utf-8");
+        File variableDataFile = createVariableLengthDataFile("utf-8");
+        index = RecordOffsetIndex.create(variableDataFile, variableLayoutFile);
+        FileOutputStream out = new FileOutputStream(variableDataFile, true);
+        try {
+            out.write("999,x,y\r\n".getBytes("utf-8"));
+        } finally {
+            out.close();
+        }
+        try {
+            new FileRecordReader(variableDataFile, variableLayoutFile, index, 1);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), containsString("index did not match the data file."));
+        }
+    }
+
+    /**
+     * エントリ数が上限を超える場合は、エントリを書き込む前に例外がスローされること。
+     * 間隔を大きくしてエントリ数が上限以下となる場合は、インデックスを作成できること。
+     */
+    @Test
+    public void testTooManyEntries() throws Exception {
+        File layoutFile = createFile(folder.newFile("test.fmt"), "UTF-8",
+                "file-type:        \"Fixed\"",
+                "text-encoding:    \"ms932\"",
+                "record-length:    1",
+                "[Default]",
+                "1 seq X(1)");
+        File dataFile = folder.newFile();
+        RandomAccessFile file = new RandomAccessFile(dataFile, "rw");
+        try {
+            file.setLength(RecordOffsetIndex.MAX_ENTRY_COUNT + 1L);
+        } finally {
+            file.close();
+        }
+
+        File indexFile = RecordOffsetIndex.getDefaultIndexFile(dataFile);
+        try {
+            RecordOffsetIndex.create(dataFile, layoutFile);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), is("index file was too large to map. specify a larger interval. "
+                    + "entry count must be " + RecordOffsetIndex.MAX_ENTRY_COUNT + " or less, but was ["
+                    + (RecordOffsetIndex.MAX_ENTRY_COUNT + 1L) + "]."));
+        }
+        assertThat(indexFile.length(), is(0L));
+
+        index = RecordOffsetIndex.create(dataFile, layoutFile, indexFile, RecordOffsetIndex.MAX_ENTRY_COUNT);
+        assertThat(index.getEntryCount(), is(2));
+        assertThat(index.getOffset(1), is((long) RecordOffsetIndex.MAX_ENTRY_COUNT));
+    }
+
+    private List<DataRecord> readAll(FileRecordReader reader) {
+        List<DataRecord> records = new ArrayList<DataRecord>();
+        try {
+            while (reader.hasNext()) {
+                records.add(reader.read());
+            }
+        } finally {
+            reader.close();
+        }
+        return records;
+    }
+
+    private File createVariableLengthLayoutFile(String encoding) throws IOException {
+        return createFile(folder.newFile("variable.fmt"), "UTF-8",
+                "file-type:          \"Variable\"",
+                "text-encoding:      \"" + encoding + "\"",
+                "record-separator:   \"\\r\\n\"",
+                "field-separator:    \",\"",
+                "quoting-delimiter:  \"\\\"\"",
+                "requires-title:     true",
+                "ignore-blank-lines: true",
+                "[Title]",
+                "1 idTitle   X",
+                "2 nameTitle X",
+                "3 noteTitle X",
+                "[Data]",
+                "1 id   X number",
+                "2 name X",
+                "3 note X");
+    }
+
+    private File createVariableLengthDataFile(String encoding) throws IOException {
+        StringBuilder data = new StringBuilder("\"id\",\"name\",\"note\"\r\n");
+        for (int i = 1; i <= 40; i++) {
+            if (i % 9 == 0) {
+                data.append("\r\n");
+            }
+            data.append(i).append(",");
+            data.append(i % 4 == 0 ? "\"な\r\nまえ" + i + "\"" : "名前" + i).append(",");
+            data.append(i % 5 == 0 ? "\"\"\"備考\"\"\"" : "").append("\r\n");
+        }
+        return writeFile(folder.newFile(), data.toString(), encoding);
+    }
+}
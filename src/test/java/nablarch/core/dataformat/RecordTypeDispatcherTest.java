@@ -0,0 +1,186 @@
+package nablarch.core.dataformat;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+
+import nablarch.core.dataformat.convertor.datatype.SingleByteCharacterString;
+
+import org.junit.Test;
+
+/**
+ * {@link RecordTypeDispatcher}のテスト。
+ */
+public class RecordTypeDispatcherTest {
+
+    /**
+     * 単一フィールドの条件で、レコードタイプを判定できること。
+     * 複数の検証値を持つ条件は、いずれかの値に一致すれば適用されること。
+     */
+    @Test
+    public void testSingleField() {
+        LayoutDefinition definition = new LayoutDefinition()
+                .addRecord(recordType("Header", new DataRecordPredicate.Equals("kbn", "1")))
+                .addRecord(recordType("Data", new DataRecordPredicate.Equals("kbn", "2", "3")))
+                .addRecord(recordType("Trailer", new DataRecordPredicate.Equals("kbn", "9")));
+        RecordTypeDispatcher sut = new RecordTypeDispatcher(definition, null);
+
+        assertThat(sut.indexOf(record("kbn", "1")), is(0));
+        assertThat(sut.indexOf(record("kbn", "2")), is(1));
+        assertThat(sut.indexOf(record("kbn", "3")), is(1));
+        assertThat(sut.indexOf(record("kbn", "9")), is(2));
+        assertThat(sut.indexOf(record("kbn", "5")), is(-1));
+        assertThat(sut.indexOf(record("kbn", null)), is(-1));
+        assertThat(sut.indexOf(new HashMap<String, Object>()), is(-1));
+
+        // 文字列以外の値は文字列表現で比較されること
+        assertThat(sut.indexOf(record("kbn", new BigDecimal("9"))), is(2));
+    }
+
+    /**
+     * 複数フィールドの条件や、フィールドの組み合わせが異なる条件が混在する場合に、
+     * 定義順で最初に適用可能なレコードタイプが判定されること。
+     */
+    @Test
+    public void testMultipleFields() {
+        LayoutDefinition definition = new LayoutDefinition()
+                .addRecord(recordType("A",
+                        new DataRecordPredicate.Equals("kbn", "1"),
+                        new DataRecordPredicate.Equals("sub", "x", "y")))
+                .addRecord(recordType("B", new DataRecordPredicate.Equals("kbn", "1")))
+                .addRecord(recordType("C",
+                        new DataRecordPredicate.Equals("sub", "z"),
+                        new DataRecordPredicate.Equals("kbn", "1")))
+                .addRecord(recordType("D", new DataRecordPredicate.Equals("sub", "z")));
+        RecordTypeDispatcher sut = new RecordTypeDispatcher(definition, null);
+
+        assertThat(sut.indexOf(record("kbn", "1", "sub", "x")), is(0));
+        assertThat(sut.indexOf(record("kbn", "1", "sub", "y")), is(0));
+        // 後に定義されたCの条件も満たすが、定義順で先のBが適用される
+        assertThat(sut.indexOf(record("kbn", "1", "sub", "z")), is(1));
+        assertThat(sut.indexOf(record("kbn", "2", "sub", "z")), is(3));
+        assertThat(sut.indexOf(record("kbn", "2", "sub", "x")), is(-1));
+    }
+
+    /**
+     * 等価条件以外の条件を持つレコードタイプも、定義順を考慮して判定されること。
+     */
+    @Test
+    public void testFallback() {
+        DataRecordPredicate startsWithA = new DataRecordPredicate() {
+            public boolean apply(Map<String, ?> record, boolean checkUnsetValues) {
+                Object value = record.get("kbn");
+                return value != null && value.toString().startsWith("A");
+            }
+        };
+        LayoutDefinition definition = new LayoutDefinition()
+                .addRecord(recordType("Custom", startsWithA))
+                .addRecord(recordType("Equals", new DataRecordPredicate.Equals("kbn", "A1", "B1")))
+                // 同一フィールドに対する複数の条件は、全てを満たす必要がある
+                .addRecord(recordType("Both",
+                        new DataRecordPredicate.Equals("kbn", "B1", "B2"),
+                        new DataRecordPredicate.Equals("kbn", "B2", "B3")))
+                .addRecord(recordType("Any"));
+        RecordTypeDispatcher sut = new RecordTypeDispatcher(definition, null);
+
+        assertThat(sut.indexOf(record("kbn", "A1")), is(0));
+        assertThat(sut.indexOf(record("kbn", "B1")), is(1));
+        assertThat(sut.indexOf(record("kbn", "B2")), is(2));
+        assertThat(sut.indexOf(record("kbn", "B3")), is(3));
+        assertThat(sut.indexOf(record("kbn", "C1")), is(3));
+    }
+
+    /**
+     * {@link DataRecordPredicate.Equals}のサブクラスは、オーバーライドした判定が使用されること。
+     */
+    @Test
+    public void testEqualsSubclass() {
+        DataRecordPredicate.Equals ignoreCase = new DataRecordPredicate.Equals("kbn", "a") {
+            @Override
+            public boolean apply(Map<String, ?> record, boolean checkUnsetValues) {
+                Object value = record.get("kbn");
+                return value != null && value.toString().equalsIgnoreCase("a");
+            }
+        };
+        LayoutDefinition definition = new LayoutDefinition()
+                .addRecord(recordType("IgnoreCase", ignoreCase))
+                .addRecord(recordType("Upper", new DataRecordPredicate.Equals("kbn", "A")));
+        RecordTypeDispatcher sut = new RecordTypeDispatcher(definition, null);
+
+        assertThat(sut.indexOf(record("kbn", "a")), is(0));
+        assertThat(sut.indexOf(record("kbn", "A")), is(0));
+        assertThat(sut.indexOf(record("kbn", "b")), is(-1));
+    }
+
+    /**
+     * 除外したレコードタイプは判定の対象とならず、その位置が取得できること。
+     */
+    @Test
+    public void testExcludedType() {
+        LayoutDefinition definition = new LayoutDefinition()
+                .addRecord(recordType("Title", new DataRecordPredicate.Equals("kbn", "1")))
+                .addRecord(recordType("Data", new DataRecordPredicate.Equals("kbn", "1", "2")));
+        RecordTypeDispatcher sut = new RecordTypeDispatcher(definition, "Title");
+
+        assertThat(sut.indexOf(record("kbn", "1")), is(1));
+        assertThat(sut.getExcludedIndex(), is(0));
+        assertThat(new RecordTypeDispatcher(definition, null).getExcludedIndex(), is(-1));
+    }
+
+    /**
+     * 識別項目と定義が同一のフィールドのみ、変換結果を再利用できると判定されること。
+     */
+    @Test
+    public void testClassifierFields() {
+        RecordDefinition classifier = new RecordDefinition()
+                .addField(field("kbn", 1, "X", 1))
+                .addField(field("sub", 2, "X", 2));
+        RecordDefinition data = recordType("Data", new DataRecordPredicate.Equals("kbn", "1"))
+                .addField(field("kbn", 1, "X", 1))
+                // 位置が異なる
+                .addField(field("sub", 3, "X", 2))
+                // データタイプの引数が異なる
+                .addField(field("kbn", 1, "X", 2))
+                // 名前が異なる
+                .addField(field("other", 1, "X", 1))
+                // フィラー
+                .addField(field("kbn", 1, "X", 1).markAsFiller());
+        LayoutDefinition definition = new LayoutDefinition()
+                .setRecordClassifier(classifier)
+                .addRecord(data);
+        RecordTypeDispatcher sut = new RecordTypeDispatcher(definition, null);
+
+        boolean[] fields = sut.getClassifierFields(0);
+        assertThat(fields.length, is(5));
+        assertThat(fields[0], is(true));
+        assertThat(fields[1], is(false));
+        assertThat(fields[2], is(false));
+        assertThat(fields[3], is(false));
+        assertThat(fields[4], is(false));
+    }
+
+    private static RecordDefinition recordType(String name, DataRecordPredicate... conditions) {
+        return new RecordDefinition().setTypeName(name).addCondition(conditions);
+    }
+
+    private static FieldDefinition field(String name, int position, String type, int size) {
+        FieldDefinition field = new FieldDefinition()
+                .setName(name)
+                .setPosition(position)
+                .addConvertorSetting(type, new Object[] {size});
+        field.setDataType(new SingleByteCharacterString()
+                .setSize(size));
+        return field;
+    }
+
+    private static Map<String, Object> record(Object... keyValues) {
+        Map<String, Object> record = new HashMap<String, Object>();
+        for (int i = 0; i < keyValues.length; i += 2) {
+            record.put((String) keyValues[i], keyValues[i + 1]);
+        }
+        return record;
+    }
+}
@@ -0,0 +1,196 @@
+package nablarch.core.dataformat;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.Matchers.arrayContaining;
+import static org.hamcrest.Matchers.hasEntry;
+import static org.hamcrest.Matchers.hasKey;
+import static org.junit.Assert.assertThat;
+
+import java.io.InputStream;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * {@link StreamingXmlDataParser}のテストを行います。
+ * <p/>
+ * {@link XmlDataParserTest}のテストを、{@link StreamingXmlDataParser}に対して実行します。
+ * DOMの実装に依存するテストは、本クラスでオーバーライドしています。
+ */
+public class StreamingXmlDataParserTest extends XmlDataParserTest {
+
+    @Override
+    protected XmlDataParser createParser() {
+        return new StreamingXmlDataParser();
+    }
+
+    @Test
+    @Override
+    public void XMLに無効なエンコーディング形式が指定された場合はエラーとなること() throws Exception {
+        exception.expect(InvalidDataFormatException.class);
+        exception.expectMessage(containsString("invalid data found."));
+        exception.expectMessage(containsString("SAMPLE"));
+
+        // フォーマット定義
+        LayoutDefinition definition = createLayoutDefinition(
+                "file-type:        \"XML\"",
+                "text-encoding:    \"UTF-8\"",
+                "[root]",
+                "1 body X"
+        );
+
+        // XML
+        InputStream input = createInputStream(
+                "<?xml version=\"1.0\" encoding=\"SAMPLE\"?>",
+                "<root>",
+                "  <body>value1</body>",
+                "</root>"
+        );
+
+        // テスト実行
+        sut.parseData(input, definition);
+    }
+
+    @Test
+    @Override
+    public void DTDを使用している場合_デフォルトでは例外が発生すること() throws Exception {
+        exception.expect(InvalidDataFormatException.class);
+        exception.expectMessage("invalid data found. [DOCTYPE is disallowed.]");
+
+        // フォーマット定義
+        LayoutDefinition definition = createLayoutDefinition(
+                "file-type:        \"XML\"",
+                "text-encoding:    \"UTF-8\"",
+                "[root]",
+                "1 body [0..1] X"
+        );
+
+        // XML
+        InputStream input = createInputStream(
+                "<?xml version=\"1.0\" encoding=\"UTF-8\"?>",
+                "<!DOCTYPE name [",
+                "<!ENTITY test \"TEST\">",
+                "]>",
+                "<root>&test;</root>"
+        );
+
+        // テスト実行
+        sut.parseData(input, definition);
+    }
+
+    @Test
+    @Override
+    public void DTDを使用している場合_古いJDKではNPEが発生する() throws Exception {
+        // JDKのバージョンによらず、DTDの使用は例外となる
+        DTDを使用している場合_デフォルトでは例外が発生すること();
+    }
+
+    @Test
+    public void 配列の要素は直下の子要素からのみ読み込まれフォーマット定義に存在しない要素は読み飛ばされること() throws Exception {
+
+        // フォーマット定義
+        LayoutDefinition definition = createLayoutDefinition(
+                "file-type:        \"XML\"",
+                "text-encoding:    \"UTF-8\"",
+                "[root]",
+                "1 item [0..10] X",
+                "2 child [0..10] OB",
+                "3 key X",
+                "",
+                "[child]",
+                "1 @attr X",
+                "2 name X"
+        );
+
+        // XML
+        InputStream input = createInputStream(
+                "<?xml version=\"1.0\" encoding=\"UTF-8\"?>",
+                "<root>",
+                "  <item>value1</item>",
+                "  <undefined>",
+                "    <item>nested</item>",
+                "    <child attr=\"nested\"><name>nested</name></child>",
+                "    <key>nested</key>",
+                "  </undefined>",
+                "  <child attr=\"a1\"><name>n1</name><undefined><name>x</name></undefined></child>",
+                "  <item><![CDATA[<value2>]]></item>",
+                "  <child attr=\"a2\"><name>n<b>2</b></name></child>",
+                "  <key>value3</key>",
+                "  <key>value4</key>",
+                "</root>"
+        );
+
+        // テスト実行
+        Map<String, ?> result = sut.parseData(input, definition);
+
+        // 検証
+        assertThat((String[]) result.get("item"), arrayContaining("value1", "<value2>"));
+        assertThat(result, hasEntry("childSize", (Object) "2"));
+        assertThat(result, hasEntry("child[0].attr", (Object) "a1"));
+        assertThat(result, hasEntry("child[0].name", (Object) "n1"));
+        assertThat(result, hasEntry("child[1].attr", (Object) "a2"));
+        assertThat(result, hasEntry("child[1].name", (Object) "n2"));
+        assertThat(result, not(hasKey("child[2].attr")));
+        assertThat(result, hasEntry("key", (Object) "value3"));
+        assertThat(result.size(), is(7));
+    }
+
+    @Test
+    public void ルート要素の後に不正なデータが存在する場合はエラーとなること() throws Exception {
+        exception.expect(InvalidDataFormatException.class);
+        exception.expectMessage(containsString("invalid data found."));
+
+        // フォーマット定義
+        LayoutDefinition definition = createLayoutDefinition(
+                "file-type:        \"XML\"",
+                "text-encoding:    \"UTF-8\"",
+                "[root]",
+                "1 @attr X"
+        );
+
+        // XML
+        InputStream input = createInputStream(
+                "<?xml version=\"1.0\" encoding=\"UTF-8\"?>",
+                "<root attr=\"value\"></root>",
+                "<root>"
+        );
+
+        // テスト実行
+        sut.parseData(input, definition);
+    }
+
+    @Test
+    public void 大量の要素を持つオブジェクト配列を読み込めること() throws Exception {
+
+        // フォーマット定義
+        LayoutDefinition definition = createLayoutDefinition(
+                "file-type:        \"XML\"",
+                "text-encoding:    \"UTF-8\"",
+                "[root]",
+                "1 child [0..*] OB",
+                "",
+                "[child]",
+                "1 @id X",
+                "2 body X"
+        );
+
+        // XML
+        StringBuilder xml = new StringBuilder("<root>");
+        for (int i = 0; i < 10000; i++) {
+            xml.append("<child id=\"").append(i).append("\">value").append(i).append("</child>");
+        }
+        xml.append("</root>");
+        InputStream input = createInputStream(xml.toString());
+
+        // テスト実行
+        Map<String, ?> result = sut.parseData(input, definition);
+
+        // 検証
+        assertThat(result, hasEntry("childSize", (Object) "10000"));
+        assertThat(result, hasEntry("child[0].id", (Object) "0"));
+        assertThat(result, hasEntry("child[9999].id", (Object) "9999"));
+        assertThat(result, hasEntry("child[9999].body", (Object) "value9999"));
+    }
+}
@@ -29,6 +29,8 @@ import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.UnsupportedEncodingException;
 import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 import static org.hamcrest.CoreMatchers.containsString;
@@ -2697,4 +2699,305 @@ public class VariableLengthDataRecordFormatterSingleLayoutReadTest {
 
         SystemRepository.clear();
     }
+
+    /**
+     * フィールドの変換を遅延する場合のテスト。
+     * 値が参照された時点で変換され、変換エラーには読み込んだ時点のレコード番号とフィールド名が設定されること。
+     */
+    @Test
+    public void testLazyDecoding() throws Exception {
+        File formatFile = createFormatFile(
+                "file-type:    \"Variable\"",
+                "text-encoding:    \"ms932\"",
+                "record-separator: \"\\r\\n\" # CRLFで改行",
+                "field-separator:  \",\"    # カンマ区切り",
+                "",
+                "[Books]",
+                "1   Title      X          # タイトル",
+                "2  ?filler     X          # フィラー",
+                "3   Price      X Number   # 価格"
+        );
+        source = new ByteArrayInputStream("タイトル1,x,1000\r\nタイトル2,x,abc\r\nタイトル3,x,2000\r\n".getBytes("ms932"));
+
+        formatter = FormatterFactory.getInstance().setCacheLayoutFileDefinition(false).createFormatter(formatFile);
+        ((DataRecordFormatterSupport) formatter).setLazyDecoding(true);
+        formatter.setInputStream(source).initialize();
+
+        DataRecord first = formatter.readRecord();
+        DataRecord second = formatter.readRecord();
+        DataRecord third = formatter.readRecord();
+
+        assertThat(first.getString("Title"), is("タイトル1"));
+        assertThat(first.getBigDecimal("Price"), is(new BigDecimal("1000")));
+        assertThat(first.containsKey("filler"), is(false));
+        assertThat(third.getString("title"), is("タイトル3"));
+        assertThat(third.getLong("price"), is(2000L));
+
+        // 変換エラーとならないフィールドは参照できること
+        assertThat(second.getString("Title"), is("タイトル2"));
+        try {
+            second.get("Price");
+            fail();
+        } catch (InvalidDataFormatException e) {
+            assertThat(e.getRecordNumberAsLong(), is(2L));
+            assertThat(e.getFieldName(), is("Price"));
+        }
+    }
+
+    /**
+     * 読み込みバッファの境界をまたぐフィールドが、正しく読み込めること。
+     * 囲み文字のエスケープや、2文字のレコード終端文字列が境界をまたぐ場合も同様であること。
+     */
+    @Test
+    public void testFieldsAcrossReadBuffer() throws Exception {
+        File formatFile = createFormatFile(
+                "file-type:    \"Variable\"",
+                "text-encoding:    \"utf-8\"",
+                "record-separator: \"\\r\\n\"",
+                "field-separator:  \",\"",
+                "quoting-delimiter: \"\\\"\"",
+                "",
+                "[Default]",
+                "1   key     X",
+                "2   value   X"
+        );
+        StringBuilder data = new StringBuilder();
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 3000; i++) {
+            String value = "v" + i + (i % 3 == 0 ? "\"\"q" : "") + (i % 7 == 0 ? ",\r\n" : "");
+            data.append("k").append(i).append(",\"").append(value).append("\"\r\n");
+            data.append("u").append(i).append(",plain").append(i).append("\r\n");
+        }
+        // 読み込みバッファより長いフィールド
+        for (int i = 0; i < 50000; i++) {
+            expected.append((char) ('a' + i % 26));
+        }
+        data.append("long,").append(expected).append("\r\n");
+        data.append("last,\"").append(expected).append("\"");
+        source = new ByteArrayInputStream(data.toString().getBytes("utf-8"));
+
+        formatter = FormatterFactory.getInstance().setCacheLayoutFileDefinition(false).createFormatter(formatFile);
+        formatter.setInputStream(source).initialize();
+
+        for (int i = 0; i < 3000; i++) {
+            DataRecord record = formatter.readRecord();
+            assertThat(record.getString("key"), is("k" + i));
+            assertThat(record.getString("value"), is("v" + i + (i % 3 == 0 ? "\"q" : "") + (i % 7 == 0 ? ",\r\n" : "")));
+            record = formatter.readRecord();
+            assertThat(record.getString("key"), is("u" + i));
+            assertThat(record.getString("value"), is("plain" + i));
+        }
+        DataRecord record = formatter.readRecord();
+        assertThat(record.getString("key"), is("long"));
+        assertThat(record.getString("value"), is(expected.toString()));
+        record = formatter.readRecord();
+        assertThat(record.getString("key"), is("last"));
+        assertThat(record.getString("value"), is(expected.toString()));
+        assertThat(record.getRecordNumberAsLong(), is(6002L));
+        assertThat(formatter.readRecord(), is(nullValue()));
+    }
+
+    /**
+     * 囲み文字のみでファイルの終端に到達した場合は、囲み文字が値として読み込まれること。
+     * 囲み文字で囲まれたフィールドの後に不正な区切り文字が存在する場合は、例外が送出されること。
+     */
+    @Test
+    public void testQuoteAtEndOfFileAndWrongSeparator() throws Exception {
+        File formatFile = createFormatFile(
+                "file-type:    \"Variable\"",
+                "text-encoding:    \"utf-8\"",
+                "record-separator: \"\\r\\n\"",
+                "field-separator:  \",\"",
+                "quoting-delimiter: \"\\\"\"",
+                "",
+                "[Default]",
+                "1   key     X",
+                "2   value   X"
+        );
+        source = new ByteArrayInputStream("a,\"".getBytes("utf-8"));
+        formatter = FormatterFactory.getInstance().setCacheLayoutFileDefinition(false).createFormatter(formatFile);
+        formatter.setInputStream(source).initialize();
+        assertThat(formatter.readRecord().getString("value"), is("\""));
+
+        source = new ByteArrayInputStream("a,\"b\"c\r\n".getBytes("utf-8"));
+        formatter = FormatterFactory.getInstance().setCacheLayoutFileDefinition(false).createFormatter(formatFile);
+        formatter.setInputStream(source).initialize();
+        try {
+            formatter.readRecord();
+            fail();
+        } catch (InvalidDataFormatException e) {
+            assertThat(e.getMessage(), containsString("the field value was delimited by a wrong separator. : c\r."));
+        }
+    }
+
+    /**
+     * ASCII互換の文字コードで、マルチバイト文字を含むフィールドが正しく読み込めること。
+     * 読み込みを許容する1行の文字数は、バイト数ではなく文字数で判定されること。
+     */
+    @Test
+    public void testMultiByteCharactersWithAsciiCompatibleEncoding() throws Exception {
+        for (String encoding : new String[] {"utf-8", "ms932", "euc-jp"}) {
+            File formatFile = createFormatFile(
+                    "file-type:    \"Variable\"",
+                    "text-encoding:    \"" + encoding + "\"",
+                    "record-separator: \"\\r\\n\"",
+                    "field-separator:  \",\"",
+                    "quoting-delimiter: \"\\\"\"",
+                    "max-record-length: 11",
+                    "",
+                    "[Default]",
+                    "1   key     X",
+                    "2   value   X"
+            );
+            source = new ByteArrayInputStream("あいうえ,かきく\r\nabc,\"な\"\"に\"\r\nあいうえお,かきくけ\r\n".getBytes(encoding));
+            formatter = FormatterFactory.getInstance().setCacheLayoutFileDefinition(false).createFormatter(formatFile);
+            formatter.setInputStream(source).initialize();
+
+            DataRecord record = formatter.readRecord();
+            assertThat(encoding, record.getString("key"), is("あいうえ"));
+            assertThat(encoding, record.getString("value"), is("かきく"));
+            record = formatter.readRecord();
+            assertThat(encoding, record.getString("key"), is("abc"));
+            assertThat(encoding, record.getString("value"), is("な\"に"));
+            try {
+                formatter.readRecord();
+                fail(encoding);
+            } catch (InvalidDataFormatException e) {
+                assertThat(e.getMessage(), containsString("the number of the read characters exceeded the upper limit."));
+                assertThat(e.getRecordNumberAsLong(), is(3L));
+            }
+        }
+    }
+
+    /**
+     * Windows-31Jで、マルチバイト文字の2バイト目に現れるバイトをフィールド区切り文字とした場合も、
+     * 正しく読み込めること。
+     */
+    @Test
+    public void testShiftJisTrailByteSeparator() throws Exception {
+        File formatFile = createFormatFile(
+                "file-type:    \"Variable\"",
+                "text-encoding:    \"ms932\"",
+                "record-separator: \"\\n\"",
+                "field-separator:  \"|\"",
+                "",
+                "[Default]",
+                "1   key     X",
+                "2   value   X"
+        );
+        // 「ポ」のバイトデータは0x83 0x7C（0x7Cは'|'）
+        source = new ByteArrayInputStream("ポ|ソ表\n".getBytes("ms932"));
+        formatter = FormatterFactory.getInstance().setCacheLayoutFileDefinition(false).createFormatter(formatFile);
+        formatter.setInputStream(source).initialize();
+
+        DataRecord record = formatter.readRecord();
+        assertThat(record.getString("key"), is("ポ"));
+        assertThat(record.getString("value"), is("ソ表"));
+    }
+
+    /**
+     * {@link VariableLengthDataRecordFormatter#readRecordAsString()}がレコードごとに新しいリストを返却すること。
+     */
+    @Test
+    public void testReadRecordAsStringReturnsNewList() throws Exception {
+        File formatFile = createFormatFile(
+                "file-type:    \"Variable\"",
+                "text-encoding:    \"ms932\"",
+                "record-separator: \"\\n\"",
+                "field-separator:  \",\"",
+                "",
+                "[Default]",
+                "1   key     X",
+                "2   value   X"
+        );
+        final LayoutDefinition definition = new LayoutFileParser(formatFile.getPath()).parse();
+        VariableLengthDataRecordFormatter recordFormatter = new VariableLengthDataRecordFormatter();
+        formatter = recordFormatter;
+        recordFormatter.setDefinition(definition)
+                       .setInputStream(new ByteArrayInputStream("a,b\nc,d\n".getBytes("ms932")))
+                       .initialize();
+
+        List<String> first = recordFormatter.readRecordAsString();
+        List<String> second = recordFormatter.readRecordAsString();
+        assertThat(first.toString(), is("[a, b]"));
+        assertThat(second.toString(), is("[c, d]"));
+    }
+
+    /**
+     * {@link VariableLengthDataRecordFormatter#readRecordAsString()}をオーバーライドした場合、
+     * その返却値が読み込みに使用されること。
+     */
+    @Test
+    public void testOverriddenReadRecordAsString() throws Exception {
+        File formatFile = createFormatFile(
+                "file-type:    \"Variable\"",
+                "text-encoding:    \"ms932\"",
+                "record-separator: \"\\n\"",
+                "field-separator:  \",\"",
+                "",
+                "[Default]",
+                "1   key     X",
+                "2   value   X"
+        );
+        final LayoutDefinition definition = new LayoutFileParser(formatFile.getPath()).parse();
+        formatter = new VariableLengthDataRecordFormatter() {
+            @Override
+            protected List<String> readRecordAsString() throws IOException {
+                List<String> fields = super.readRecordAsString();
+                fields.set(1, fields.get(1).toUpperCase());
+                return fields;
+            }
+        };
+        formatter.setDefinition(definition)
+                 .setInputStream(new ByteArrayInputStream("a,b\nc,d\n".getBytes("ms932")))
+                 .initialize();
+
+        assertThat(formatter.readRecord().getString("value"), is("B"));
+        assertThat(formatter.readRecord().getString("value"), is("D"));
+    }
+
+    /**
+     * convertToRecord(List, RecordDefinition)をオーバーライドしている場合、
+     * 全てのフィールド文字列が渡され、読み込むフィールド以外はデータレコードに格納されないこと。
+     */
+    @Test
+    public void testProjectedFieldsWithOverriddenConvertToRecord() throws Exception {
+        File formatFile = createFormatFile(
+                "file-type:    \"Variable\"",
+                "text-encoding:    \"ms932\"",
+                "record-separator: \"\\n\"",
+                "field-separator:  \",\"",
+                "",
+                "[Default]",
+                "1   key     X",
+                "2   value   X",
+                "3   note    X"
+        );
+        final LayoutDefinition definition = new LayoutFileParser(formatFile.getPath()).parse();
+        final StringBuilder fieldStrings = new StringBuilder();
+        VariableLengthDataRecordFormatter variableLengthFormatter = new VariableLengthDataRecordFormatter() {
+            @Override
+            protected DataRecord convertToRecord(List<String> fieldStrList, RecordDefinition recordDef)
+                    throws IOException {
+                fieldStrings.append(fieldStrList);
+                DataRecord record = new DataRecord().setRecordType(recordDef.getTypeName());
+                for (FieldDefinition field : recordDef.getFields()) {
+                    record.put(field.getName(), fieldStrList.get(field.getPosition() - 1));
+                }
+                return record;
+            }
+        };
+        variableLengthFormatter.setProjectedFields(Collections.singleton("value"));
+        formatter = variableLengthFormatter;
+        formatter.setDefinition(definition)
+                 .setInputStream(new ByteArrayInputStream("a,b,c\n".getBytes("ms932")))
+                 .initialize();
+
+        DataRecord record = formatter.readRecord();
+        assertThat(fieldStrings.toString(), is("[a, b, c]"));
+        assertThat(record.size(), is(1));
+        assertThat(record.containsKey("key"), is(false));
+        assertThat(record.containsKey("note"), is(false));
+        assertThat(record.getString("value"), is("b"));
+    }
 }
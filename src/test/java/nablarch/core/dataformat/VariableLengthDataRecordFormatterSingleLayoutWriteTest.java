@@ -18,6 +18,7 @@ import java.util.Map;
 
 import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.CoreMatchers.startsWith;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThat;
@@ -1195,6 +1196,68 @@ public class VariableLengthDataRecordFormatterSingleLayoutWriteTest {
         **********************************************************************/
     }
 
+    /**
+     * quote-only-when-neededディレクティブがtrueの場合、
+     * フィールド区切り文字、囲み文字、改行文字を含むフィールドのみが囲み文字で囲まれること。
+     * 書き込んだ内容を読み込んだ場合、元の値と一致すること。
+     */
+    @Test
+    public void testQuoteOnlyWhenNeeded() throws Exception {
+
+        File formatFile = Hereis.file("./test.fmt");
+        /*****************************************
+         file-type:    "Variable"
+         text-encoding:     "UTF-8"
+         record-separator:  "\r\n"
+         field-separator:   ","
+         quoting-delimiter: "\""
+         quote-only-when-needed: true
+
+         [DataRecord]
+         1 plain     X
+         2 separator X
+         3 quote     X
+         4 lf        X
+         5 cr        X
+         6 empty     X
+         7 nullValue X
+         *****************************************/
+        formatFile.deleteOnExit();
+
+        Map<String, Object> recordMap = new HashMap<String, Object>() {{
+            put("plain", "あいう");
+            put("separator", "a,b");
+            put("quote", "say \"hi\"");
+            put("lf", "a\nb");
+            put("cr", "a\rb");
+            put("empty", "");
+            put("nullValue", null);
+        }};
+
+        File outputData = new File("./output.dat");
+        outputData.deleteOnExit();
+        OutputStream dest = new FileOutputStream(outputData, false);
+
+        formatter = FormatterFactory.getInstance().setCacheLayoutFileDefinition(false).createFormatter(formatFile).setOutputStream(dest).initialize();
+
+        formatter.writeRecord(recordMap);
+        formatter.close();
+
+        assertThat(fileToString(new File("./output.dat"), "UTF-8"),
+                is("あいう,\"a,b\",\"say \"\"hi\"\"\",\"a\nb\",\"a\rb\",,\r\n"));
+
+        formatter = FormatterFactory.getInstance().setCacheLayoutFileDefinition(false).createFormatter(formatFile)
+                .setInputStream(new FileInputStream(outputData)).initialize();
+        DataRecord record = formatter.readRecord();
+        assertThat(record.getString("plain"), is("あいう"));
+        assertThat(record.getString("separator"), is("a,b"));
+        assertThat(record.getString("quote"), is("say \"hi\""));
+        assertThat(record.getString("lf"), is("a\nb"));
+        assertThat(record.getString("cr"), is("a\rb"));
+        assertThat(record.getString("empty"), is(nullValue()));
+        assertThat(record.getString("nullValue"), is(nullValue()));
+    }
+
     /**
      * Numberコンバータを使用できること
      * @throws Exception
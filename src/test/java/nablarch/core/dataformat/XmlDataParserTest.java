@@ -56,7 +56,7 @@ public class XmlDataParserTest  {
     public ExpectedException exception = ExpectedException.none();
 
     /** テスト対象 */
-    private XmlDataParser sut = new XmlDataParser();
+    protected XmlDataParser sut = createParser();
 
     @After
     public void tearDown() throws Exception {
@@ -3252,7 +3252,15 @@ public class XmlDataParserTest  {
     }
 
 
-    private LayoutDefinition createLayoutDefinition(String... records) throws Exception {
+    /**
+     * テスト対象のパーサーを生成する。
+     * @return テスト対象のパーサー
+     */
+    protected XmlDataParser createParser() {
+        return new XmlDataParser();
+    }
+
+    protected LayoutDefinition createLayoutDefinition(String... records) throws Exception {
         File file = folder.newFile();
         BufferedWriter writer = new BufferedWriter(new FileWriter(file));
         for (String record : records) {
@@ -3268,7 +3276,7 @@ public class XmlDataParserTest  {
         return definition;
     }
 
-    private InputStream createInputStream(String... records) throws Exception {
+    protected InputStream createInputStream(String... records) throws Exception {
         File file = folder.newFile();
         BufferedWriter writer = new BufferedWriter(new FileWriter(file));
         for (String record : records) {
@@ -81,6 +81,31 @@ public class ByteStreamDataStringTest {
         assertThat(sut.convertOnRead("01234abcde".getBytes()), is("01234abcde"));
     }
 
+    /**
+     * バイト配列の指定範囲から読み込めること。
+     */
+    @Test
+    public void testReadRange() throws Exception {
+        sut.init(field, 5);
+
+        assertThat(sut.convertOnRead("01234abc  xyz".getBytes(), 5, 5), is("abc"));
+        assertThat(sut.convertOnRead("01234     xyz".getBytes(), 5, 5), is(nullValue()));
+    }
+
+    /**
+     * バイト配列の指定された位置に、パディングを含めて書き込めること。
+     */
+    @Test
+    public void testWriteRange() throws Exception {
+        sut.init(field, 5);
+
+        byte[] buff = "0123456789xyz".getBytes();
+        sut.convertOnWrite("abc", buff, 5);
+        assertThat(new String(buff), is("01234abc  xyz"));
+        sut.convertOnWrite(null, buff, 5);
+        assertThat(new String(buff), is("01234     xyz"));
+    }
+
     /**
      * シングル・ダブル・マルチバイト、サロゲートペア混合文字が読み込めること。
      */
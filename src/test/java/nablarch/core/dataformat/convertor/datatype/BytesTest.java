@@ -81,6 +81,22 @@ public class BytesTest {
         assertThat(sut.convertOnRead("abc".getBytes()), is("abc".getBytes()));
     }
 
+    /**
+     * バイト配列の指定範囲をコピーして入力できること。
+     */
+    @Test
+    public void testReadRange() {
+        sut.init(new FieldDefinition(), 3);
+
+        byte[] buff = "xabcx".getBytes();
+        byte[] actual = sut.convertOnRead(buff, 1, 3);
+        assertThat(actual, is("abc".getBytes()));
+
+        // 元のバイト配列を変更しても影響を受けないこと
+        buff[1] = 'z';
+        assertThat(actual, is("abc".getBytes()));
+    }
+
     /**
      * 正常に出力できること。
      */
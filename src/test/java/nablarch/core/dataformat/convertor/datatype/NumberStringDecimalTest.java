@@ -103,6 +103,15 @@ public class NumberStringDecimalTest {
         assertThat(sut.convertOnRead(toBytes("1230")), is(new BigDecimal("1230")));
     }
 
+    /**
+     * バイト配列の指定範囲から読み込めること。
+     */
+    @Test
+    public void testReadRange() throws Exception {
+        sut.init(field, 5, 1);
+        assertThat(sut.convertOnRead(toBytes("xx01230xx"), 2, 5), is(new BigDecimal("123.0")));
+    }
+
     /**
      * 読込テスト。スケールなし。
      * 空文字列を0として受け取るケース。
@@ -91,6 +91,21 @@ public class PackedDecimalTest {
         assertThat(sut.convertOnRead(inputBytes), is(new BigDecimal("87654321")));
     }
 
+    /**
+     * バイト配列の指定範囲から読み込めること。
+     */
+    @Test
+    public void testReadRange() throws Exception {
+        sut.init(field, 5, 2);
+        sut.setPackNibble(packNibble);
+
+        byte[] inputBytes = new byte[] {
+                0x7F, 0x08, 0x76, 0x54, 0x32, 0x13, 0x7F
+        };
+
+        assertThat(sut.convertOnRead(inputBytes, 1, 5), is(new BigDecimal("876543.21")));
+    }
+
     /**
      * 空文字列を0として読み込む場合のテスト。
      */
@@ -330,9 +345,9 @@ public class PackedDecimalTest {
         sut.setPackNibble(packNibble);
 
         exception.expect(InvalidDataFormatException.class);
-        exception.expectMessage("invalid parameter was specified. the number of parameter digits must be 18 or less, but was '19'. parameter=[1000000000000000000].");
+        exception.expectMessage("invalid parameter was specified. the number of parameter digits must be 19 or less, but was '20'. parameter=[10000000000000000000].");
 
-        sut.convertOnWrite("1000000000000000000");
+        sut.convertOnWrite("10000000000000000000");
     }
 
     /**
@@ -361,9 +376,9 @@ public class PackedDecimalTest {
         sut.setPackNibble(packNibble);
 
         exception.expect(InvalidDataFormatException.class);
-        exception.expectMessage("invalid parameter was specified. the number of unscaled parameter digits must be 18 or less, but was '19'. unscaled parameter=[1000000000000000000], original parameter=[1000000000000.000000].");
+        exception.expectMessage("invalid parameter was specified. the number of unscaled parameter digits must be 19 or less, but was '20'. unscaled parameter=[10000000000000000000], original parameter=[10000000000000.000000].");
 
-        sut.convertOnWrite("1000000000000.000000");
+        sut.convertOnWrite("10000000000000.000000");
     }
 
     /**
@@ -392,9 +407,9 @@ public class PackedDecimalTest {
         sut.setPackNibble(packNibble);
 
         exception.expect(InvalidDataFormatException.class);
-        exception.expectMessage("invalid parameter was specified. the number of unscaled parameter digits must be 18 or less, but was '19'. unscaled parameter=[1000000000000000000], original parameter=[1000000000000.000000].");
+        exception.expectMessage("invalid parameter was specified. the number of unscaled parameter digits must be 19 or less, but was '20'. unscaled parameter=[10000000000000000000], original parameter=[10000000000000.000000].");
 
-        sut.convertOnWrite(new BigDecimal("1000000000000").setScale(6));
+        sut.convertOnWrite(new BigDecimal("10000000000000").setScale(6));
     }
 
     /**
@@ -414,4 +429,63 @@ public class PackedDecimalTest {
         assertThat(sut.removePadding(expectedString), is(expected));
         assertThat(sut.removePadding(expected), is(expected));
     }
+
+    /**
+     * 19桁を超える数値を読み書きできること。
+     */
+    @Test
+    public void testReadWriteWideValue() throws Exception {
+        sut.init(field, 16, 2);
+        sut.setPackNibble(packNibble);
+
+        byte[] bytes = sut.convertOnWrite(new BigDecimal("12345678901234567890123456789.01"));
+        assertThat(bytes, is(new byte[] {
+                0x12, 0x34, 0x56, 0x78, (byte) 0x90, 0x12, 0x34, 0x56,
+                0x78, (byte) 0x90, 0x12, 0x34, 0x56, 0x78, (byte) 0x90, 0x13
+        }));
+        assertThat(sut.convertOnRead(bytes), is(new BigDecimal("12345678901234567890123456789.01")));
+
+        // 18桁以下の値はlong値として扱われること
+        bytes = sut.convertOnWrite(123);
+        assertThat(sut.convertOnRead(bytes), is(new BigDecimal("1.23")));
+    }
+
+    /**
+     * 19桁を超える数値を扱うフィールドで、フィールドの桁数を超える値を出力した場合に例外がスローされること。
+     */
+    @Test
+    public void testWriteWideValueOverflow() throws Exception {
+        sut.init(field, 11, 0);
+        sut.setPackNibble(packNibble);
+
+        sut.convertOnWrite("999999999999999999999");
+
+        exception.expect(InvalidDataFormatException.class);
+        exception.expectMessage("invalid parameter was specified. the number of parameter digits must be 21 or less, but was '22'. parameter=[1000000000000000000000].");
+
+        sut.convertOnWrite("1000000000000000000000");
+    }
+
+    /**
+     * フィールドの桁数が19桁（バイト長10）の場合に、19桁の数値を読み書きできること。
+     */
+    @Test
+    public void testReadWrite19Digits() throws Exception {
+        sut.init(field, 10, 0);
+        sut.setPackNibble(packNibble);
+
+        byte[] bytes = sut.convertOnWrite("9999999999999999999");
+        assertThat(bytes, is(new byte[] {
+                (byte) 0x99, (byte) 0x99, (byte) 0x99, (byte) 0x99, (byte) 0x99,
+                (byte) 0x99, (byte) 0x99, (byte) 0x99, (byte) 0x99, (byte) 0x93
+        }));
+        assertThat(sut.convertOnRead(bytes), is(new BigDecimal("9999999999999999999")));
+
+        bytes = new byte[11];
+        sut.convertOnWrite(new BigDecimal("1234567890123456789"), bytes, 1);
+        assertThat(bytes, is(new byte[] {
+                0x00, 0x12, 0x34, 0x56, 0x78, (byte) 0x90, 0x12, 0x34, 0x56, 0x78, (byte) 0x93
+        }));
+        assertThat(sut.convertOnRead(bytes, 1, 10), is(new BigDecimal("1234567890123456789")));
+    }
 }
@@ -321,9 +321,9 @@ public class SignedPackedDecimalTest {
         setParameter((byte) 0x30, 4, 7);
 
         exception.expect(InvalidDataFormatException.class);
-        exception.expectMessage("invalid parameter was specified. the number of parameter digits must be 18 or less, but was '19'. parameter=[1000000000000000000].");
+        exception.expectMessage("invalid parameter was specified. the number of parameter digits must be 19 or less, but was '20'. parameter=[10000000000000000000].");
 
-        sut.convertOnWrite("1000000000000000000");
+        sut.convertOnWrite("10000000000000000000");
     }
 
     /**
@@ -367,9 +367,9 @@ public class SignedPackedDecimalTest {
         setParameter((byte) 0x30, 4, 7);
 
         exception.expect(InvalidDataFormatException.class);
-        exception.expectMessage("invalid parameter was specified. the number of parameter digits must be 18 or less, but was '19'. parameter=[-1000000000000000000].");
+        exception.expectMessage("invalid parameter was specified. the number of parameter digits must be 19 or less, but was '20'. parameter=[-10000000000000000000].");
 
-        sut.convertOnWrite("-1000000000000000000");
+        sut.convertOnWrite("-10000000000000000000");
     }
 
     /**
@@ -382,9 +382,9 @@ public class SignedPackedDecimalTest {
         setParameter((byte) 0x30, 4, 7);
 
         exception.expect(InvalidDataFormatException.class);
-        exception.expectMessage("invalid parameter was specified. the number of unscaled parameter digits must be 18 or less, but was '19'. unscaled parameter=[-1000000000000000000], original parameter=[-10000000000000.00000].");
+        exception.expectMessage("invalid parameter was specified. the number of unscaled parameter digits must be 19 or less, but was '20'. unscaled parameter=[-10000000000000000000], original parameter=[-100000000000000.00000].");
 
-        sut.convertOnWrite("-10000000000000.00000");
+        sut.convertOnWrite("-100000000000000.00000");
     }
 
     /**
@@ -404,4 +404,44 @@ public class SignedPackedDecimalTest {
         assertThat(sut.removePadding(expectedString), is(expected));
         assertThat(sut.removePadding(expected), is(expected));
     }
+
+    /**
+     * 19桁を超える負数を読み書きできること。
+     */
+    @Test
+    public void testReadWriteWideNegativeValue() throws Exception {
+        sut.init(field, 12, 0);
+        setParameter(packNibble, 3, 7);
+
+        byte[] bytes = new byte[13];
+        sut.convertOnWrite(new BigDecimal("-98765432109876543210987"), bytes, 1);
+        assertThat(bytes, is(new byte[] {
+                0x00, (byte) 0x98, 0x76, 0x54, 0x32, 0x10, (byte) 0x98, 0x76,
+                0x54, 0x32, 0x10, (byte) 0x98, 0x77
+        }));
+        assertThat(sut.convertOnRead(bytes, 1, 12), is(new BigDecimal("-98765432109876543210987")));
+    }
+
+    /**
+     * フィールドの桁数が19桁（バイト長10）の場合に、19桁の正数および負数を読み書きできること。
+     */
+    @Test
+    public void testReadWrite19Digits() throws Exception {
+        sut.init(field, 10, 0);
+        setParameter((byte) 0x30, 4, 7);
+
+        byte[] bytes = sut.convertOnWrite("9999999999999999999");
+        assertThat(bytes, is(new byte[] {
+                (byte) 0x99, (byte) 0x99, (byte) 0x99, (byte) 0x99, (byte) 0x99,
+                (byte) 0x99, (byte) 0x99, (byte) 0x99, (byte) 0x99, (byte) 0x94
+        }));
+        assertThat(sut.convertOnRead(bytes), is(new BigDecimal("9999999999999999999")));
+
+        bytes = new byte[11];
+        sut.convertOnWrite(new BigDecimal("-1234567890123456789"), bytes, 1);
+        assertThat(bytes, is(new byte[] {
+                0x00, 0x12, 0x34, 0x56, 0x78, (byte) 0x90, 0x12, 0x34, 0x56, 0x78, (byte) 0x97
+        }));
+        assertThat(sut.convertOnRead(bytes, 1, 10), is(new BigDecimal("-1234567890123456789")));
+    }
 }
@@ -453,4 +453,17 @@ public class SignedZonedDecimalTest {
         assertThat(sut.removePadding(expectedString), is(expected));
         assertThat(sut.removePadding(expected), is(expected));
     }
+
+    /**
+     * 19桁以上の負数を読み書きできること。
+     */
+    @Test
+    public void testReadWriteWideNegativeValue() throws Exception {
+        sut.init(field, 20, 0);
+        setParameter(zoneNibbleASCII, 3, 7);
+
+        byte[] bytes = sut.convertOnWrite(new BigDecimal("-12345678901234567890"));
+        assertThat(new String(bytes, "sjis"), is("1234567890123456789p"));
+        assertThat(sut.convertOnRead(bytes), is(new BigDecimal("-12345678901234567890")));
+    }
 }
@@ -170,4 +170,51 @@ public class SingleByteCharacterStringTest {
         assertThat(sut.removePadding(data), is(expected));
         assertThat(sut.removePadding(expected), is(expected));
     }
+
+    /**
+     * EBCDIC（CP037）のフィールドが、変換表を用いて読み書きできること。
+     * トリムはパディング文字に対応するバイトに対して行われること。
+     */
+    @Test
+    public void testEbcdic() throws Exception {
+        Charset cp037 = Charset.forName("IBM037");
+        sut.init(new FieldDefinition().setEncoding(cp037), 10);
+
+        byte[] bytes = "abc 0123  ".getBytes(cp037);
+        assertThat(sut.convertOnRead(bytes), is("abc 0123"));
+        assertThat(sut.convertOnRead(bytes, 4, 6), is("0123"));
+        assertThat(sut.convertOnRead("          ".getBytes(cp037)), is(nullValue()));
+        assertThat(sut.convertOnWrite("abc 0123"), is(bytes));
+    }
+
+    /**
+     * 変換表による変換結果が、文字セットによる変換結果と一致すること。
+     * 変換表に存在しない文字は、文字セットによる変換と同様に代替文字に変換されること。
+     */
+    @Test
+    public void testSingleByteCharsetCompatibility() throws Exception {
+        for (String name : new String[] {"IBM037", "ISO-8859-1", "ISO-8859-15", "US-ASCII", "windows-1252"}) {
+            Charset charset = Charset.forName(name);
+            SingleByteCharacterString dataType = new SingleByteCharacterString();
+            dataType.init(new FieldDefinition().setEncoding(charset), 256);
+            dataType.setConvertEmptyToNull(false);
+
+            byte[] all = new byte[256];
+            for (int i = 0; i < all.length; i++) {
+                all[i] = (byte) i;
+            }
+            String expected = new String(all, charset);
+            assertThat(name, dataType.convertOnRead(all), is(expected.replaceAll(" +$", "")));
+
+            byte[] written = dataType.convertOnWrite(expected.substring(0, 200));
+            byte[] encoded = expected.substring(0, 200).getBytes(charset);
+            for (int i = 0; i < encoded.length; i++) {
+                assertThat(name + " index=" + i, written[i], is(encoded[i]));
+            }
+        }
+
+        SingleByteCharacterString dataType = new SingleByteCharacterString();
+        dataType.init(new FieldDefinition().setEncoding(Charset.forName("ISO-8859-1")), 5);
+        assertThat(dataType.convertOnWrite("aあb"), is("aあb  ".getBytes("ISO-8859-1")));
+    }
 }
@@ -94,6 +94,21 @@ public class ZonedDecimalTest {
 
         assertThat(sut.convertOnRead(inputBytes), is(new BigDecimal("12345")));
     }
+
+    /**
+     * バイト配列の指定範囲から読み込めること。
+     */
+    @Test
+    public void testReadRange() throws Exception {
+        sut.init(field, 3, 0);
+        sut.setZoneNibble(zoneNibbleASCII);
+
+        byte[] inputBytes = new byte[] {
+            0x31, 0x32, 0x33, 0x34, 0x35
+        };
+
+        assertThat(sut.convertOnRead(inputBytes, 1, 3), is(new BigDecimal("234")));
+    }
     /**
      * ASCII規格での符号なしゾーン10進のテスト。
      * 正常系読書き込み。
@@ -430,4 +445,37 @@ public class ZonedDecimalTest {
         assertThat(sut.removePadding(expectedString), is(expected));
         assertThat(sut.removePadding(expected), is(expected));
     }
+
+    /**
+     * 19桁以上の数値を読み書きできること。
+     */
+    @Test
+    public void testReadWriteWideValue() throws Exception {
+        sut.init(field, 25, 3);
+        sut.setZoneNibble(zoneNibbleASCII);
+
+        byte[] bytes = sut.convertOnWrite(new BigDecimal("1234567890123456789012.345"));
+        assertThat(new String(bytes, "sjis"), is("1234567890123456789012345"));
+        assertThat(sut.convertOnRead(bytes), is(new BigDecimal("1234567890123456789012.345")));
+
+        bytes = sut.convertOnWrite(5);
+        assertThat(new String(bytes, "sjis"), is("0000000000000000000000005"));
+        assertThat(sut.convertOnRead(bytes), is(new BigDecimal("0.005")));
+    }
+
+    /**
+     * 19桁以上の数値を扱うフィールドで、バイト長を超える桁数の値を出力した場合に例外がスローされること。
+     */
+    @Test
+    public void testWriteWideValueOverflow() throws Exception {
+        sut.init(field, 19, 0);
+        sut.setZoneNibble(zoneNibbleASCII);
+
+        assertThat(new String(sut.convertOnWrite("9999999999999999999"), "sjis"), is("9999999999999999999"));
+
+        exception.expect(InvalidDataFormatException.class);
+        exception.expectMessage("invalid parameter was specified. the number of parameter digits must be 19 or less, but was '20'. parameter=[10000000000000000000].");
+
+        sut.convertOnWrite("10000000000000000000");
+    }
 }
@@ -6,12 +6,14 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
 
 import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
@@ -1287,6 +1289,64 @@ public class JsonParserTest {
         assertEquals(expectedMap, result);
     }
 
+    /**
+     * オブジェクトの開始を読み込んだトークナイザから、対応するオブジェクトの終了までが解析されること。
+     * 以降のトークンは読み込まれないこと。
+     */
+    @Test
+    public void testParseObject() throws IOException {
+        JsonTokenizer tokenizer = new JsonTokenizer(new StringReader(
+                "[{\"key\":{\"child\":\"}\"},\"list\":[{\"a\":\"1\"},\"b\"]}, {\"key\":null}]"));
+        tokenizer.next();
+        tokenizer.next();
+        Map<String, ?> first = new JsonParser().parseObject(tokenizer);
+        assertEquals(new HashMap<String, Object>() {{
+            put("key", new HashMap<String, Object>() {{
+                put("child", "}");
+            }});
+            put("list", new ArrayList<Object>() {{
+                add(new HashMap<String, Object>() {{
+                    put("a", "1");
+                }});
+                add("b");
+            }});
+        }}, first);
+
+        assertThat(tokenizer.next(), is(JsonParser.TokenType.SEPARATOR));
+        assertThat(tokenizer.getValue(), is(","));
+        tokenizer.next();
+        Map<String, ?> second = new JsonParser().parseObject(tokenizer);
+        assertTrue(second.containsKey("key"));
+        assertThat(second.get("key"), is(nullValue()));
+        assertThat(tokenizer.next(), is(JsonParser.TokenType.SEPARATOR));
+        assertThat(tokenizer.getValue(), is("]"));
+    }
+
+    /**
+     * オブジェクトの開始以外を読み込んだ場合や、オブジェクトが終了せずに入力が終了した場合は例外が発生すること。
+     */
+    @Test
+    public void testParseObjectInvalid() throws IOException {
+        JsonTokenizer tokenizer = new JsonTokenizer(new StringReader("[\"value\"]"));
+        tokenizer.next();
+        tokenizer.next();
+        try {
+            new JsonParser().parseObject(tokenizer);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), is("JSON data must starts with '{'"));
+        }
+
+        tokenizer = new JsonTokenizer(new StringReader("{\"key\":{\"child\":\"value\"}"));
+        tokenizer.next();
+        try {
+            new JsonParser().parseObject(tokenizer);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), is("JSON data must ends with '}'"));
+        }
+    }
+
     private String readAll(InputStream stream) throws Exception {
         final BufferedReader reader = new BufferedReader(new InputStreamReader(stream, "utf-8"));
         try {
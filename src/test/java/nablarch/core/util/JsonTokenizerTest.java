@@ -0,0 +1,203 @@
+package nablarch.core.util;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Map;
+
+import nablarch.core.util.JsonParser.TokenType;
+
+import org.junit.Test;
+
+/**
+ * {@link JsonTokenizer}のテスト。
+ */
+public class JsonTokenizerTest {
+
+    /**
+     * セパレータ、文字列、数値、真偽値、nullのトークンが順に読み込まれること。
+     * 空白文字、タブ、改行は読み飛ばされること。
+     */
+    @Test
+    public void testNext() throws Exception {
+        JsonTokenizer sut = new JsonTokenizer(new StringReader(
+                " {\"key\" :\t[\"value\",-1.5e+3,true,false,null],\r\n\"empty\":\"\"}\n"));
+
+        assertToken(sut, TokenType.SEPARATOR, "{");
+        assertToken(sut, TokenType.STRING, "key");
+        assertToken(sut, TokenType.SEPARATOR, ":");
+        assertToken(sut, TokenType.SEPARATOR, "[");
+        assertToken(sut, TokenType.STRING, "value");
+        assertToken(sut, TokenType.SEPARATOR, ",");
+        assertToken(sut, TokenType.NUMERIC, "-1.5e+3");
+        assertToken(sut, TokenType.SEPARATOR, ",");
+        assertToken(sut, TokenType.BOOL, "true");
+        assertToken(sut, TokenType.SEPARATOR, ",");
+        assertToken(sut, TokenType.BOOL, "false");
+        assertToken(sut, TokenType.SEPARATOR, ",");
+        assertToken(sut, TokenType.NULL, null);
+        assertThat(sut.getToken(), is("null"));
+        assertToken(sut, TokenType.SEPARATOR, "]");
+        assertToken(sut, TokenType.SEPARATOR, ",");
+        assertToken(sut, TokenType.STRING, "empty");
+        assertThat(sut.getToken(), is("\"empty\""));
+        assertToken(sut, TokenType.SEPARATOR, ":");
+        assertToken(sut, TokenType.STRING, "");
+        assertToken(sut, TokenType.SEPARATOR, "}");
+        assertThat(sut.next(), is(nullValue()));
+        assertThat(sut.getTokenType(), is(nullValue()));
+    }
+
+    /**
+     * 文字列のエスケープシーケンスがアンエスケープされること。
+     * 文字列内のセパレータや空白文字は、そのまま保持されること。
+     */
+    @Test
+    public void testString() throws Exception {
+        JsonTokenizer sut = new JsonTokenizer(new StringReader(
+                "\"\\\"\\\\\\/\\b\\f\\n\\r\\t\\u3042\\u005C\\u005c\" \"{ [a] : , }\""));
+
+        assertToken(sut, TokenType.STRING, "\"\\/\b\f\n\r\tあ\\\\");
+        assertToken(sut, TokenType.STRING, "{ [a] : , }");
+        assertThat(sut.next(), is(nullValue()));
+    }
+
+    /**
+     * トークンやエスケープシーケンスがバッファの境界をまたぐ場合も、正しく読み込まれること。
+     */
+    @Test
+    public void testBufferBoundary() throws Exception {
+        StringBuilder longValue = new StringBuilder();
+        StringBuilder json = new StringBuilder("{\"key\":\"");
+        for (int i = 0; i < 5000; i++) {
+            longValue.append("あ\"");
+            json.append("\\u3042\\\"");
+        }
+        json.append("\",\"num\":12345678901234567890}");
+
+        // 1文字ずつ読み込むReader
+        JsonTokenizer sut = new JsonTokenizer(new OneCharReader(json.toString()));
+        assertToken(sut, TokenType.SEPARATOR, "{");
+        assertToken(sut, TokenType.STRING, "key");
+        assertToken(sut, TokenType.SEPARATOR, ":");
+        assertToken(sut, TokenType.STRING, longValue.toString());
+        assertToken(sut, TokenType.SEPARATOR, ",");
+        assertToken(sut, TokenType.STRING, "num");
+        assertToken(sut, TokenType.SEPARATOR, ":");
+        assertToken(sut, TokenType.NUMERIC, "12345678901234567890");
+        assertToken(sut, TokenType.SEPARATOR, "}");
+        assertThat(sut.next(), is(nullValue()));
+
+        // バッファのサイズを超える入力をまとめて読み込む場合
+        sut = new JsonTokenizer(new StringReader(json.toString()));
+        sut.next();
+        sut.next();
+        sut.next();
+        assertToken(sut, TokenType.STRING, longValue.toString());
+    }
+
+    /**
+     * 数値の形式のトークンのみが数値として読み込まれること。
+     */
+    @Test
+    public void testNumeric() throws Exception {
+        for (String numeric : new String[] {"0", "-0", "123", "1.0", "1e5", "1E-5", "-1.25E+10", "007"}) {
+            JsonTokenizer sut = new JsonTokenizer(new StringReader(numeric));
+            assertToken(sut, TokenType.NUMERIC, numeric);
+        }
+        for (String invalid : new String[] {"-", "1.", ".1", "1e", "1e+", "+1", "1.2.3", "0x10", "True", "nul", "abc"}) {
+            try {
+                new JsonTokenizer(new StringReader(invalid + ",")).next();
+                fail(invalid);
+            } catch (IllegalArgumentException e) {
+                assertThat(e.getMessage(), is("found invalid token:" + invalid));
+            }
+        }
+    }
+
+    /**
+     * 不正な文字列の場合、例外がスローされること。
+     */
+    @Test
+    public void testInvalidString() throws Exception {
+        assertError("\"abc", "found invalid token:\"abc");
+        assertError("\"ab\ncd\"", "found invalid token:\"ab");
+        assertError("\"ab\\a\"", "found invalid json format :ab");
+        assertError("\"ab\\u30\"", "found invalid unicode string :ab");
+        assertError("\"ab\\u30g0\"", "found invalid unicode string :ab");
+        assertError("\"ab\\u３０４２\"", "found invalid unicode string :ab");
+    }
+
+    /**
+     * {@link JsonParser#parse(Reader)}で、読み込みながら解析できること。
+     * ルート要素がオブジェクトでない場合、例外がスローされること。
+     */
+    @Test
+    public void testParseReader() throws Exception {
+        Map<String, ?> result = new JsonParser().parse(new OneCharReader("{\"key\":\"value\",\"array\":[1,null]}"));
+        assertThat(result.get("key"), is((Object) "value"));
+        assertThat(result.get("array").toString(), is("[1, null]"));
+
+        for (String[] invalid : new String[][] {
+                {"", "JSON data must starts with '{'"},
+                {"[1]", "JSON data must starts with '{'"},
+                {"{\"key\":\"value\"", "JSON data must ends with '}'"},
+                {"{\"key\":[\"value\"]", "JSON data must ends with '}'"},
+        }) {
+            try {
+                new JsonParser().parse(new StringReader(invalid[0]));
+                fail(invalid[0]);
+            } catch (IllegalArgumentException e) {
+                assertThat(e.getMessage(), containsString(invalid[1]));
+            }
+        }
+    }
+
+    private static void assertToken(JsonTokenizer sut, TokenType type, String value) throws IOException {
+        assertThat(sut.next(), is(type));
+        assertThat(sut.getTokenType(), is(type));
+        assertThat(sut.getValue(), is(value));
+    }
+
+    private static void assertError(String json, String message) throws IOException {
+        try {
+            new JsonTokenizer(new StringReader(json)).next();
+            fail(json);
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), is(message));
+        }
+    }
+
+    /**
+     * 1文字ずつ読み込むReader。
+     */
+    private static class OneCharReader extends Reader {
+
+        private final String text;
+
+        private int pos = 0;
+
+        OneCharReader(String text) {
+            this.text = text;
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) {
+            if (pos == text.length()) {
+                return -1;
+            }
+            cbuf[off] = text.charAt(pos++);
+            return 1;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}